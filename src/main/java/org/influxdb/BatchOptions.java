@@ -2,6 +2,7 @@ package org.influxdb;
 
 import org.influxdb.dto.Point;
 
+import java.nio.file.Path;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -21,6 +22,68 @@ public final class BatchOptions implements Cloneable {
   public static final int DEFAULT_BUFFER_LIMIT = 10000;
   public static final TimeUnit DEFAULT_PRECISION = TimeUnit.NANOSECONDS;
   public static final boolean DEFAULT_DROP_ACTIONS_ON_QUEUE_EXHAUSTION = false;
+  public static final QueueStrategy DEFAULT_QUEUE_STRATEGY = QueueStrategy.LINKED_BLOCKING_QUEUE;
+  public static final int DEFAULT_FLUSH_PARALLELISM = 1;
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 1;
+  public static final int DEFAULT_SPOOL_SEGMENT_SIZE = 16 * 1024 * 1024;
+  public static final long DEFAULT_SPOOL_MAX_DISK_SIZE = 1024L * 1024 * 1024;
+  public static final SpoolFsyncPolicy DEFAULT_SPOOL_FSYNC_POLICY = SpoolFsyncPolicy.ON_ROLLOVER;
+  public static final boolean DEFAULT_ADAPTIVE_BATCHING = false;
+  public static final int DEFAULT_MIN_ACTIONS = 100;
+  public static final int DEFAULT_MAX_ACTIONS = 10000;
+  public static final int DEFAULT_MIN_FLUSH_DURATION = 100;
+  public static final int DEFAULT_MAX_FLUSH_DURATION = 10000;
+  public static final int DEFAULT_TARGET_WRITE_LATENCY = 1000;
+  public static final int DEFAULT_MAX_BATCH_BYTES = 0;
+  public static final long DEFAULT_BUFFER_LIMIT_BYTES = 0;
+  public static final boolean DEFAULT_VIRTUAL_THREADS = false;
+
+  /**
+   * The data structure used as action queue, in which the points written by the application are collected
+   * until the next batch is flushed.
+   */
+  public enum QueueStrategy {
+    /**
+     * A {@link java.util.concurrent.LinkedBlockingQueue}, every write allocates a node and takes the put lock.
+     */
+    LINKED_BLOCKING_QUEUE,
+    /**
+     * A preallocated, lock-free ring buffer sized to {@link BatchOptions#getActions()}. Better suited when many
+     * application threads write points concurrently. Falls back to {@link #LINKED_BLOCKING_QUEUE} when the
+     * action queue is unbounded.
+     */
+    RING_BUFFER,
+    /**
+     * One ring buffer per stripe, one stripe per core, every application thread appends to its own (hashed)
+     * stripe. Every stripe has room for {@link BatchOptions#getActions()} points and a batch is flushed as soon as
+     * any stripe holds them, so a single writing thread gets batches of {@code actions} points like with the other
+     * strategies. All stripes together hold at most {@link BatchOptions#getBufferLimit()} points, or
+     * {@code actions} if that is more, and a batch is flushed when they are full as well. The flush harvests all
+     * stripes. Scales the write throughput with the number of cores. Falls back to
+     * {@link #LINKED_BLOCKING_QUEUE} when the action queue is unbounded.
+     */
+    STRIPED
+  }
+
+  /**
+   * When the segment files of the spool, see {@link BatchOptions#spoolDirectory(Path)}, are forced to the storage
+   * device. The spooled batches survive a crash of the application in any case, as they are written to memory
+   * mapped files; forcing them protects against a crash of the operating system or a power loss.
+   */
+  public enum SpoolFsyncPolicy {
+    /**
+     * Force the segment after every spooled batch and every replayed batch. The safest and slowest policy.
+     */
+    ALWAYS,
+    /**
+     * Force a segment when it is full and the next one is started, and when the client is closed.
+     */
+    ON_ROLLOVER,
+    /**
+     * Leave it to the operating system when the segments are written to the storage device.
+     */
+    NEVER
+  }
 
 
   /**
@@ -38,6 +101,22 @@ public final class BatchOptions implements Cloneable {
   private boolean dropActionsOnQueueExhaustion = DEFAULT_DROP_ACTIONS_ON_QUEUE_EXHAUSTION;
   private Consumer<Point> droppedActionHandler = (point) -> {
   };
+  private QueueStrategy queueStrategy = DEFAULT_QUEUE_STRATEGY;
+  private int flushParallelism = DEFAULT_FLUSH_PARALLELISM;
+  private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+  private Path spoolDirectory;
+  private int spoolSegmentSize = DEFAULT_SPOOL_SEGMENT_SIZE;
+  private long spoolMaxDiskSize = DEFAULT_SPOOL_MAX_DISK_SIZE;
+  private SpoolFsyncPolicy spoolFsyncPolicy = DEFAULT_SPOOL_FSYNC_POLICY;
+  private boolean adaptiveBatching = DEFAULT_ADAPTIVE_BATCHING;
+  private int minActions = DEFAULT_MIN_ACTIONS;
+  private int maxActions = DEFAULT_MAX_ACTIONS;
+  private int minFlushDuration = DEFAULT_MIN_FLUSH_DURATION;
+  private int maxFlushDuration = DEFAULT_MAX_FLUSH_DURATION;
+  private int targetWriteLatency = DEFAULT_TARGET_WRITE_LATENCY;
+  private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+  private long bufferLimitBytes = DEFAULT_BUFFER_LIMIT_BYTES;
+  private boolean virtualThreads = DEFAULT_VIRTUAL_THREADS;
 
   private ThreadFactory threadFactory = Executors.defaultThreadFactory();
   BiConsumer<Iterable<Point>, Throwable> exceptionHandler = (points, throwable) -> {
@@ -98,6 +177,34 @@ public final class BatchOptions implements Cloneable {
     return clone;
   }
 
+  /**
+   * Limit the size of a batch write request in addition to {@link BatchOptions#actions(int)}. The encoded size
+   * of every point is measured when it is written, a batch is flushed as soon as the points collected reach the
+   * limit and the points of a flush are split into requests of at most this size. A single point which is larger
+   * is sent in a request of its own. If unspecified, will default to 0, which means no limit.
+   * @param maxBatchBytes the maximum size of the line protocol of a batch write request in bytes
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions maxBatchBytes(final int maxBatchBytes) {
+    BatchOptions clone = getClone();
+    clone.maxBatchBytes = maxBatchBytes;
+    return clone;
+  }
+
+  /**
+   * Limit the retry buffer, see {@link BatchOptions#bufferLimit(int)}, by the encoded size of the buffered points
+   * in addition to their number. When the buffer exceeds the limit, oldest entries in the buffer are lost.
+   * If unspecified, will default to 0, which means no limit. Not supported with a
+   * {@link BatchOptions#spoolDirectory(Path)}, which is limited by {@link BatchOptions#spoolMaxDiskSize(long)}.
+   * @param bufferLimitBytes the maximum size of the line protocol of the points in the retry buffer in bytes
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions bufferLimitBytes(final long bufferLimitBytes) {
+    BatchOptions clone = getClone();
+    clone.bufferLimitBytes = bufferLimitBytes;
+    return clone;
+  }
+
   /**
    * @param threadFactory a ThreadFactory instance to be used
    * @return the BatchOptions instance to be able to use it in a fluent manner.
@@ -108,6 +215,21 @@ public final class BatchOptions implements Cloneable {
     return clone;
   }
 
+  /**
+   * Run the flushes, and the concurrent batch writes of {@link BatchOptions#flushParallelism(int)} and
+   * {@link BatchOptions#maxInFlightRequests(int)}, on virtual threads instead of the threads of the
+   * {@link BatchOptions#threadFactory(ThreadFactory)}. On JDKs without virtual threads the ThreadFactory is used.
+   * If unspecified, will default to false.
+   * @param virtualThreads true to use virtual threads if the JDK supports them
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   * @see VirtualThreads
+   */
+  public BatchOptions virtualThreads(final boolean virtualThreads) {
+    BatchOptions clone = getClone();
+    clone.virtualThreads = virtualThreads;
+    return clone;
+  }
+
   /**
    * @param exceptionHandler a consumer function to handle asynchronous errors
    * @return the BatchOptions instance to be able to use it in a fluent manner.
@@ -166,6 +288,178 @@ public final class BatchOptions implements Cloneable {
     return clone;
   }
 
+  /**
+   * Set the data structure used as action queue. If unspecified, will default to
+   * {@link QueueStrategy#LINKED_BLOCKING_QUEUE}. The queue (or every stripe of {@link QueueStrategy#STRIPED}) is
+   * bounded by {@link BatchOptions#getActions()}, so {@link BatchOptions#dropActionsOnQueueExhaustion} keeps its
+   * meaning.
+   * @param queueStrategy the queue strategy to use
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions queueStrategy(final QueueStrategy queueStrategy) {
+    BatchOptions clone = getClone();
+    clone.queueStrategy = queueStrategy;
+    return clone;
+  }
+
+  /**
+   * Set the number of write requests a flush sends concurrently. A flush produces one batch per
+   * database / retention policy; with a parallelism greater than 1 these batches are sent over separate
+   * connections at the same time instead of one after another. The order of the points of one
+   * database / retention policy is not affected. If unspecified, will default to 1.
+   * The connection pool of the OkHttpClient should allow at least as many idle connections.
+   * @param flushParallelism the maximum number of concurrent write requests of a flush
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions flushParallelism(final int flushParallelism) {
+    BatchOptions clone = getClone();
+    clone.flushParallelism = flushParallelism;
+    return clone;
+  }
+
+  /**
+   * Set the number of batch write requests which may be in flight at the same time. With the default of 1 every
+   * flush waits until its batches are written. With a greater value the flush hands the batches over to a pool of
+   * writer threads and returns, so the next batch is collected while the previous ones are still in flight and
+   * the application threads do not stall behind a slow write. When the maximum is reached, the next flush waits
+   * for a request to complete. Batches of the same database / retention policy are still written in order.
+   * {@link InfluxDB#flush()} waits until all batches in flight are written.
+   * @param maxInFlightRequests the maximum number of batch write requests in flight
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions maxInFlightRequests(final int maxInFlightRequests) {
+    BatchOptions clone = getClone();
+    clone.maxInFlightRequests = maxInFlightRequests;
+    return clone;
+  }
+
+  /**
+   * Spool failed writes to disk instead of keeping them in the retry buffer in memory. Batches which failed with
+   * a temporary error are appended to memory mapped segment files in the given directory and replayed in order
+   * when the writes succeed again, also after a restart of the application. The number of spooled points is not
+   * limited by {@link BatchOptions#bufferLimit(int)}, but by {@link BatchOptions#spoolMaxDiskSize(long)}.
+   * The batches are spooled as they were split by {@link BatchOptions#maxBatchBytes(int)}, a
+   * {@link BatchOptions#bufferLimitBytes(long)} cannot be combined with a spool. If unspecified, failed writes are
+   * kept in memory. The directory is locked while the client uses it, enabling the batching of a second client
+   * on it fails.
+   * @param spoolDirectory the directory of the segment files, created if it does not exist
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions spoolDirectory(final Path spoolDirectory) {
+    BatchOptions clone = getClone();
+    clone.spoolDirectory = spoolDirectory;
+    return clone;
+  }
+
+  /**
+   * Set the size of a segment file of the spool. A batch which is larger gets a segment of its own.
+   * If unspecified, will default to 16 MiB.
+   * @param spoolSegmentSize the size of a segment file in bytes
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions spoolSegmentSize(final int spoolSegmentSize) {
+    BatchOptions clone = getClone();
+    clone.spoolSegmentSize = spoolSegmentSize;
+    return clone;
+  }
+
+  /**
+   * Set the maximum size of all segment files of the spool. When it would be exceeded, the oldest segment is
+   * dropped and its points are passed to the {@link BatchOptions#exceptionHandler(BiConsumer)} with a
+   * {@link InfluxDBException.RetryBufferOverrunException}. If unspecified, will default to 1 GiB.
+   * @param spoolMaxDiskSize the maximum size of the spool in bytes, at least the segment size
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions spoolMaxDiskSize(final long spoolMaxDiskSize) {
+    BatchOptions clone = getClone();
+    clone.spoolMaxDiskSize = spoolMaxDiskSize;
+    return clone;
+  }
+
+  /**
+   * Set when the segment files of the spool are forced to the storage device. If unspecified, will default to
+   * {@link SpoolFsyncPolicy#ON_ROLLOVER}.
+   * @param spoolFsyncPolicy the fsync policy
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions spoolFsyncPolicy(final SpoolFsyncPolicy spoolFsyncPolicy) {
+    BatchOptions clone = getClone();
+    clone.spoolFsyncPolicy = spoolFsyncPolicy;
+    return clone;
+  }
+
+  /**
+   * Adapt the batch size and the flush interval to the duration and failures of the batch write requests.
+   * A write which takes longer than {@link BatchOptions#targetWriteLatency(int)}, or fails because the server is
+   * overloaded or not reachable, halves the batch size, a fast write of a batch which was at least half full
+   * increases it by a tenth of {@link BatchOptions#actions(int)}. The flush interval is scaled with the batch size.
+   * {@link BatchOptions#actions(int)} and {@link BatchOptions#flushDuration(int)} are the initial values, the
+   * current ones are returned by {@link InfluxDB#getBatchSizing()}. The action queue is bounded by
+   * {@link BatchOptions#maxActions(int)}. If unspecified, will default to false.
+   * @param adaptiveBatching true to adapt the batch size
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions adaptiveBatching(final boolean adaptiveBatching) {
+    BatchOptions clone = getClone();
+    clone.adaptiveBatching = adaptiveBatching;
+    return clone;
+  }
+
+  /**
+   * Set the smallest batch size of adaptive batching. If unspecified, will default to 100.
+   * @param minActions the smallest number of actions to collect
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions minActions(final int minActions) {
+    BatchOptions clone = getClone();
+    clone.minActions = minActions;
+    return clone;
+  }
+
+  /**
+   * Set the largest batch size of adaptive batching. If unspecified, will default to 10000.
+   * @param maxActions the largest number of actions to collect
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions maxActions(final int maxActions) {
+    BatchOptions clone = getClone();
+    clone.maxActions = maxActions;
+    return clone;
+  }
+
+  /**
+   * Set the shortest flush interval of adaptive batching. If unspecified, will default to 100.
+   * @param minFlushDuration the shortest time to wait at most (milliseconds)
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions minFlushDuration(final int minFlushDuration) {
+    BatchOptions clone = getClone();
+    clone.minFlushDuration = minFlushDuration;
+    return clone;
+  }
+
+  /**
+   * Set the longest flush interval of adaptive batching. If unspecified, will default to 10000.
+   * @param maxFlushDuration the longest time to wait at most (milliseconds)
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions maxFlushDuration(final int maxFlushDuration) {
+    BatchOptions clone = getClone();
+    clone.maxFlushDuration = maxFlushDuration;
+    return clone;
+  }
+
+  /**
+   * Set the duration a batch write request should take at most with adaptive batching, longer requests decrease
+   * the batch size. If unspecified, will default to 1000.
+   * @param targetWriteLatency the target duration of a write request (milliseconds)
+   * @return the BatchOptions instance to be able to use it in a fluent manner.
+   */
+  public BatchOptions targetWriteLatency(final int targetWriteLatency) {
+    BatchOptions clone = getClone();
+    clone.targetWriteLatency = targetWriteLatency;
+    return clone;
+  }
 
   /**
    * @return actions the number of actions to collect
@@ -195,6 +489,20 @@ public final class BatchOptions implements Cloneable {
     return bufferLimit;
   }
 
+  /**
+   * @return the maximum size of a batch write request in bytes, 0 for no limit
+   */
+  public int getMaxBatchBytes() {
+    return maxBatchBytes;
+  }
+
+  /**
+   * @return the maximum size of the points in the retry buffer in bytes, 0 for no limit
+   */
+  public long getBufferLimitBytes() {
+    return bufferLimitBytes;
+  }
+
   /**
    * @return a ThreadFactory instance to be used
    */
@@ -202,6 +510,13 @@ public final class BatchOptions implements Cloneable {
     return threadFactory;
   }
 
+  /**
+   * @return true if virtual threads are used for batch flushing when the JDK supports them
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
   /**
    * @return a consumer function to handle asynchronous errors
    */
@@ -239,6 +554,97 @@ public final class BatchOptions implements Cloneable {
     return droppedActionHandler;
   }
 
+  /**
+   * @return the data structure used as action queue
+   */
+  public QueueStrategy getQueueStrategy() {
+    return queueStrategy;
+  }
+
+  /**
+   * @return the maximum number of concurrent write requests of a flush
+   */
+  public int getFlushParallelism() {
+    return flushParallelism;
+  }
+
+  /**
+   * @return the maximum number of batch write requests in flight
+   */
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  /**
+   * @return the directory of the spool for failed writes, null if failed writes are kept in memory
+   */
+  public Path getSpoolDirectory() {
+    return spoolDirectory;
+  }
+
+  /**
+   * @return the size of a segment file of the spool in bytes
+   */
+  public int getSpoolSegmentSize() {
+    return spoolSegmentSize;
+  }
+
+  /**
+   * @return the maximum size of all segment files of the spool in bytes
+   */
+  public long getSpoolMaxDiskSize() {
+    return spoolMaxDiskSize;
+  }
+
+  /**
+   * @return when the segment files of the spool are forced to the storage device
+   */
+  public SpoolFsyncPolicy getSpoolFsyncPolicy() {
+    return spoolFsyncPolicy;
+  }
+
+  /**
+   * @return true if the batch size is adapted to the duration and failures of the write requests
+   */
+  public boolean isAdaptiveBatching() {
+    return adaptiveBatching;
+  }
+
+  /**
+   * @return the smallest batch size of adaptive batching
+   */
+  public int getMinActions() {
+    return minActions;
+  }
+
+  /**
+   * @return the largest batch size of adaptive batching
+   */
+  public int getMaxActions() {
+    return maxActions;
+  }
+
+  /**
+   * @return the shortest flush interval of adaptive batching (milliseconds)
+   */
+  public int getMinFlushDuration() {
+    return minFlushDuration;
+  }
+
+  /**
+   * @return the longest flush interval of adaptive batching (milliseconds)
+   */
+  public int getMaxFlushDuration() {
+    return maxFlushDuration;
+  }
+
+  /**
+   * @return the target duration of a batch write request of adaptive batching (milliseconds)
+   */
+  public int getTargetWriteLatency() {
+    return targetWriteLatency;
+  }
+
   private BatchOptions getClone() {
     try {
       return (BatchOptions) this.clone();
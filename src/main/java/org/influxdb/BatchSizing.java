@@ -0,0 +1,30 @@
+package org.influxdb;
+
+/**
+ * The current size and flush interval of the batches when adaptive batching is enabled, see
+ * {@link BatchOptions#adaptiveBatching(boolean)}, together with the measurements they are derived from.
+ * The values change while the client is writing, every getter returns the latest value.
+ */
+public interface BatchSizing {
+
+  /**
+   * @return the number of points after which a batch is written
+   */
+  int getActions();
+
+  /**
+   * @return the time after which a batch is written at the latest (milliseconds)
+   */
+  int getFlushDuration();
+
+  /**
+   * @return the moving average of the duration of the batch write requests (milliseconds)
+   */
+  double getWriteLatency();
+
+  /**
+   * @return the moving average of the share of batch write requests which failed because the server was
+   *         overloaded or not reachable, between 0 and 1
+   */
+  double getErrorRate();
+}
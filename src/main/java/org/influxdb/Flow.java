@@ -0,0 +1,88 @@
+package org.influxdb;
+
+/**
+ * The Reactive Streams interfaces of {@code java.util.concurrent.Flow}, which the client cannot use as it still
+ * runs on Java 8. They have the same methods and follow the same rules, so they are bridged to the JDK interfaces
+ * or to a Reactive Streams library by forwarding every call.
+ */
+public final class Flow {
+
+  private Flow() {
+  }
+
+  /**
+   * A producer of items which are received by subscribers on their demand.
+   *
+   * @param <T> the type of the published items
+   */
+  public interface Publisher<T> {
+
+    /**
+     * Add a Subscriber, which receives {@link Subscriber#onSubscribe(Subscription)} first.
+     *
+     * @param subscriber the subscriber
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * A receiver of items, which signals its demand through its {@link Subscription}.
+   *
+   * @param <T> the type of the received items
+   */
+  public interface Subscriber<T> {
+
+    /**
+     * Invoked before any other method of the Subscriber.
+     *
+     * @param subscription the subscription to request items and to cancel
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Invoked with the next item, never more often than requested.
+     *
+     * @param item the item
+     */
+    void onNext(T item);
+
+    /**
+     * Invoked when the Publisher failed, no other method is invoked afterwards.
+     *
+     * @param throwable the failure
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Invoked when all items have been published, no other method is invoked afterwards.
+     */
+    void onComplete();
+  }
+
+  /**
+   * The link between a Publisher and a Subscriber.
+   */
+  public interface Subscription {
+
+    /**
+     * Add to the number of items the Subscriber is ready to receive.
+     *
+     * @param n the number of additional items, a non positive number fails the subscription
+     */
+    void request(long n);
+
+    /**
+     * Stop receiving items, the Publisher may still send some which were already on their way.
+     */
+    void cancel();
+  }
+
+  /**
+   * A stage which is a Subscriber of one stream and a Publisher of another.
+   *
+   * @param <T> the type of the received items
+   * @param <R> the type of the published items
+   */
+  public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+  }
+}
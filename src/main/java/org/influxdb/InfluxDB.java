@@ -1,13 +1,18 @@
 package org.influxdb;
 
 import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.ColumnarResult;
+import org.influxdb.dto.LineProtocolKeyCache;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.RowCursor;
+import org.influxdb.dto.SeriesWriter;
 import retrofit2.Call;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -267,6 +272,13 @@ public interface InfluxDB extends AutoCloseable {
    */
   public boolean isBatchEnabled();
 
+  /**
+   * Returns the current batch size and flush interval of adaptive batching, see
+   * {@link BatchOptions#adaptiveBatching(boolean)}, to monitor them.
+   * @return the batch sizing, null if batching is not enabled or not adaptive.
+   */
+  public BatchSizing getBatchSizing();
+
   /**
    * Ping this influxDB.
    *
@@ -337,6 +349,179 @@ public interface InfluxDB extends AutoCloseable {
    */
   public void write(final BatchPoints batchPoints);
 
+  /**
+   * Write a set of Points to the influxdb database with the new (&gt;= 0.9.0rc32) lineprotocol, if the write
+   * rate limit, see {@link #setWriteRateLimiter(WriteRateLimiter)}, permits it within the timeout.
+   *
+   * @param batchPoints
+   *          the points to write
+   * @param timeout
+   *          the longest time to wait for the write rate limit
+   * @param unit
+   *          the TimeUnit of the timeout
+   * @return true if the points were written, false if the rate limit did not permit it, nothing is written then
+   */
+  public boolean tryWrite(final BatchPoints batchPoints, final long timeout, final TimeUnit unit);
+
+  /**
+   * Write a set of Points to the influxdb database with the new (&gt;= 0.9.0rc32) lineprotocol without blocking
+   * the calling thread, neither for the write rate limit nor for the HTTP request. The request is sent by the
+   * dispatcher of the OkHttpClient, whose {@code maxRequestsPerHost} limits the requests in flight, further ones
+   * wait in its queue.
+   *
+   * @param batchPoints
+   *          the points to write
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   */
+  public CompletableFuture<Void> writeAsync(final BatchPoints batchPoints);
+
+  /**
+   * Create a Subscriber which writes a stream of points to the database through the batch processing, which has
+   * to be enabled. It requests the points as the action queue has space for them, so it neither blocks the thread
+   * of the publisher nor drops points. Completing the stream flushes the points, also failing it, see
+   * {@link PointSubscriber#getCompletion()}.
+   *
+   * @param database
+   *            the database to write to.
+   * @param retentionPolicy
+   *            the retentionPolicy to use.
+   * @return the subscriber, which may subscribe to one publisher
+   * @throws IllegalStateException if batch processing is not enabled
+   */
+  public PointSubscriber pointSubscriber(final String database, final String retentionPolicy);
+
+  /**
+   * Write a single Point to the default database without blocking the calling thread. When batching is enabled
+   * the point is written with the next batch, or by its own request if the action queue is full.
+   *
+   * @param point
+   *          the point to write
+   * @return a future which completes when the point is written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write. A failed batch kept in the retry buffer completes it
+   *         normally, points dropped later on are passed to the exceptionHandler only.
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final Point point);
+
+  /**
+   * Write a single Point to the database without blocking the calling thread. When batching is enabled the point
+   * is written with the next batch, or by its own request if the action queue is full.
+   *
+   * @param database
+   *          the database to write to.
+   * @param retentionPolicy
+   *          the retentionPolicy to use.
+   * @param point
+   *          the point to write
+   * @return a future which completes when the point is written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write. A failed batch kept in the retry buffer completes it
+   *         normally, points dropped later on are passed to the exceptionHandler only.
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy, final Point point);
+
+  /**
+   * Write a set of Points to the default database with the string records without blocking the calling thread.
+   *
+   * @param records
+   *          the points in the correct lineprotocol.
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final String records);
+
+  /**
+   * Write a set of Points to the default database with the list of string records without blocking the calling
+   * thread.
+   *
+   * @param records
+   *          the List of points in the correct lineprotocol.
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final List<String> records);
+
+  /**
+   * Write a set of Points to the influxdb database with the string records without blocking the calling thread.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param records
+   *          the points in the correct lineprotocol.
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final String records);
+
+  /**
+   * Write a set of Points to the influxdb database with the string records without blocking the calling thread.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param precision
+   *          the time precision to use
+   * @param records
+   *          the points in the correct lineprotocol.
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final String records);
+
+  /**
+   * Write a set of Points to the influxdb database with the list of string records without blocking the calling
+   * thread.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param records
+   *          the List of points in the correct lineprotocol.
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final List<String> records);
+
+  /**
+   * Write a set of Points to the influxdb database with the list of string records without blocking the calling
+   * thread.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param precision
+   *          the time precision to use
+   * @param records
+   *          the List of points in the correct lineprotocol.
+   * @return a future which completes when the points are written, or exceptionally with the
+   *         {@link InfluxDBException} of the failed write
+   * @see #writeAsync(BatchPoints)
+   */
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final List<String> records);
+
   /**
    * Write a set of Points to the influxdb database with the new (&gt;= 0.9.0rc32) lineprotocol.
    *
@@ -426,6 +611,24 @@ public interface InfluxDB extends AutoCloseable {
   public void write(final String database, final String retentionPolicy,
           final ConsistencyLevel consistency, final TimeUnit precision, final List<String> records);
 
+  /**
+   * Write the rows collected by a {@link SeriesWriter} synchronously, with the precision of the writer.
+   * When batching is enabled, the rows are queued like single points into the batch of the database and
+   * retention policy instead, with the consistency and precision of the batch processing.
+   * The writer is reset afterwards, also if the write failed.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param rows
+   *          the rows to write, without a row in progress
+   */
+  public void write(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final SeriesWriter rows);
+
   /**
    * Write a set of Points to the influxdb database with the string records through UDP.
    *
@@ -538,6 +741,63 @@ public interface InfluxDB extends AutoCloseable {
   public void query(Query query, int chunkSize, BiConsumer<Cancellable, QueryResult> onNext, Runnable onComplete,
                     Consumer<Throwable> onFailure);
 
+  /**
+   * Execute a streaming query against a database, publishing the chunks on the demand of the subscribers.
+   *
+   * The query is sent for every subscriber on its first request. The response is read only while the subscriber
+   * has requested chunks, so a slow subscriber slows down the reading instead of chunks being buffered, reading
+   * is resumed on the dispatcher of the OkHttpClient. Cancelling the subscription cancels the request. A failed
+   * request is published as {@link InfluxDBException}.
+   *
+   * @param query
+   *            the query to execute.
+   * @param chunkSize
+   *            the number of QueryResults to process in one chunk.
+   * @return the publisher of the chunks
+   */
+  public Flow.Publisher<QueryResult> queryPublisher(Query query, int chunkSize);
+
+  /**
+   * Execute a streaming query against a database, publishing its rows on the demand of the subscribers, like
+   * {@link #queryPublisher(Query, int)}. Every row is a Series with the name, tags and columns of its series and a
+   * single row of values. An error in the results is published as {@link InfluxDBException}.
+   *
+   * @param query
+   *            the query to execute.
+   * @param chunkSize
+   *            the number of QueryResults to process in one chunk.
+   * @return the publisher of the rows
+   */
+  public Flow.Publisher<QueryResult.Series> queryRowPublisher(Query query, int chunkSize);
+
+  /**
+   * Execute a streaming query against a database and iterate over its rows with a cursor, which decodes the rows
+   * from the response one by one instead of building QueryResults. The rows of any number of chunks are read with
+   * the memory of one row. The cursor must be closed.
+   *
+   * @param query
+   *            the query to execute.
+   * @param chunkSize
+   *            the number of rows the server sends in one chunk.
+   * @return the cursor over the rows
+   * @throws InfluxDBException if the query failed, or later from {@link RowCursor#next()} if an error is in the
+   *         results
+   */
+  public RowCursor queryRows(Query query, int chunkSize);
+
+  /**
+   * Execute a streaming query against a database and read its rows by column, into one primitive array per
+   * column instead of a boxed value per cell. The rows are decoded like {@link #queryRows(Query, int)}.
+   *
+   * @param query
+   *            the query to execute.
+   * @param chunkSize
+   *            the number of rows the server sends in one chunk.
+   * @return the result by series and column
+   * @throws InfluxDBException if the query failed or an error is in the results
+   */
+  public ColumnarResult queryColumnar(Query query, int chunkSize);
+
   /**
    * Execute a query against a database.
    *
@@ -633,6 +893,41 @@ public interface InfluxDB extends AutoCloseable {
    */
   public InfluxDB setRetentionPolicy(final String retentionPolicy);
 
+  /**
+   * Set the cache of escaped measurement names, tag keys and field keys which is used to serialize the points
+   * written over HTTP. By default every InfluxDB instance uses its own cache with
+   * {@link LineProtocolKeyCache#DEFAULT_CAPACITY} slots, which does not cache tag values. The cache can be shared
+   * by several instances.
+   *
+   * @param lineProtocolKeyCache
+   *            the cache to use, null to escape the names for every point.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB setLineProtocolKeyCache(final LineProtocolKeyCache lineProtocolKeyCache);
+
+  /**
+   * @return the cache of escaped names used to serialize the points written over HTTP, to check its hit rate.
+   *         null if caching is disabled.
+   */
+  public LineProtocolKeyCache getLineProtocolKeyCache();
+
+  /**
+   * Limit the rate of the points and bytes written over HTTP. Every write waits until it fits into the budget of
+   * the limiter, which gives back pressure to the threads writing, also to the ones writing into the batch
+   * buffer when batching is enabled. Use {@link #tryWrite(BatchPoints, long, TimeUnit)} or
+   * {@link #writeAsync(BatchPoints)} to not block. Writes over UDP are not limited.
+   *
+   * @param writeRateLimiter
+   *            the limiter to use, null for no limit.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB setWriteRateLimiter(final WriteRateLimiter writeRateLimiter);
+
+  /**
+   * @return the limiter of the rate of points and bytes written, null if the rate is not limited.
+   */
+  public WriteRateLimiter getWriteRateLimiter();
+
   /**
    * Creates a retentionPolicy.
    * @param rpName the name of the retentionPolicy(rp)
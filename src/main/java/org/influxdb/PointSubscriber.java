@@ -0,0 +1,19 @@
+package org.influxdb;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.influxdb.dto.Point;
+
+/**
+ * A Subscriber which writes the received points through the batch processing, see
+ * {@link InfluxDB#pointSubscriber(String, String)}.
+ */
+public interface PointSubscriber extends Flow.Subscriber<Point> {
+
+  /**
+   * @return a future which completes when the stream is complete and its points are flushed, or exceptionally
+   *         with the error of the stream. Failed batch writes are passed to the exceptionHandler of the
+   *         {@link BatchOptions}.
+   */
+  CompletableFuture<Void> getCompletion();
+}
@@ -0,0 +1,110 @@
+package org.influxdb;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import okhttp3.Dispatcher;
+
+/**
+ * Virtual threads (JDK 21+) for the threads of the client, looked up by reflection so the client still runs on
+ * older JDKs, where every method falls back to platform threads.
+ *
+ * <p>Batch flushing uses them with {@link BatchOptions#virtualThreads(boolean)}. The asynchronous requests, like
+ * {@link InfluxDB#writeAsync(org.influxdb.dto.BatchPoints)}, query callbacks and chunked queries, are run by the
+ * dispatcher of the OkHttpClient, which can be replaced by {@link #dispatcher(int)}:</p>
+ * <pre>
+ * OkHttpClient.Builder client = new OkHttpClient.Builder().dispatcher(VirtualThreads.dispatcher(1000));
+ * InfluxDB influxDB = InfluxDBFactory.connect(url, client);
+ * </pre>
+ * <p>Synchronous requests run on the calling thread, so applications calling them from virtual threads do not
+ * block a platform thread while a request is in flight.</p>
+ */
+public final class VirtualThreads {
+
+  private static final Method OF_VIRTUAL;
+  private static final Method NAME;
+  private static final Method FACTORY;
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method factory = null;
+    Method newThreadPerTaskExecutor = null;
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builderClass.getMethod("name", String.class, long.class);
+      factory = builderClass.getMethod("factory");
+      newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      // virtual threads are a preview feature of JDK 19 and 20, which fails unless enabled
+      factory.invoke(ofVirtual.invoke(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+    NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * @return true if the JDK supports virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @param namePrefix the prefix of the thread names, followed by a counter
+   * @return a ThreadFactory of virtual threads, of platform threads if virtual threads are not supported
+   */
+  public static ThreadFactory threadFactory(final String namePrefix) {
+    if (!isSupported()) {
+      return Executors.defaultThreadFactory();
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+      return (ThreadFactory) FACTORY.invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      return Executors.defaultThreadFactory();
+    }
+  }
+
+  /**
+   * @param namePrefix the prefix of the thread names, followed by a counter
+   * @return an ExecutorService which starts a new virtual thread per task, a cached thread pool if virtual
+   *         threads are not supported
+   */
+  public static ExecutorService newThreadPerTaskExecutor(final String namePrefix) {
+    ThreadFactory threadFactory = threadFactory(namePrefix);
+    if (isSupported()) {
+      try {
+        return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+      } catch (ReflectiveOperationException e) {
+        // fall back to the pool below
+      }
+    }
+    return Executors.newCachedThreadPool(threadFactory);
+  }
+
+  /**
+   * A Dispatcher for the OkHttpClient which runs the asynchronous requests on virtual threads, or on a cached
+   * thread pool if virtual threads are not supported. With virtual threads the requests in flight are not bound by
+   * the number of platform threads, so the limits of the Dispatcher, 5 requests per host by default, are raised.
+   *
+   * @param maxRequests the maximum number of requests in flight, also per host
+   * @return the Dispatcher to set with {@link okhttp3.OkHttpClient.Builder#dispatcher(Dispatcher)}
+   */
+  public static Dispatcher dispatcher(final int maxRequests) {
+    Dispatcher dispatcher = new Dispatcher(newThreadPerTaskExecutor("influxdb-http-"));
+    dispatcher.setMaxRequests(maxRequests);
+    dispatcher.setMaxRequestsPerHost(maxRequests);
+    return dispatcher;
+  }
+}
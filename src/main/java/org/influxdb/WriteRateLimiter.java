@@ -0,0 +1,277 @@
+package org.influxdb;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of the points and bytes written over HTTP by an {@link InfluxDB} client, see
+ * {@link InfluxDB#setWriteRateLimiter(WriteRateLimiter)}, so a bursty application does not saturate a shared
+ * InfluxDB server.
+ *
+ * <p>The budget is a token bucket for the points and one for the bytes of the line protocol: they are refilled at
+ * the configured rate per second and hold at most the budget of the burst duration. A write takes its points and
+ * bytes from the buckets and waits until they have been refilled, a write larger than the burst is let through
+ * once the buckets have caught up with it. Writes are served in the order they asked for their budget. The budget
+ * applies to the whole client or, with {@link Builder#perDatabase()}, to every database on its own.</p>
+ *
+ * <p>A limiter is thread safe and may be shared by several clients.</p>
+ */
+public final class WriteRateLimiter {
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final String CLIENT_SCOPE = "";
+
+  private static volatile ScheduledExecutorService scheduler;
+
+  private final double pointsPerSecond;
+  private final double bytesPerSecond;
+  private final long burstNanos;
+  private final boolean perDatabase;
+  private final ConcurrentMap<String, Budget> budgets = new ConcurrentHashMap<>();
+
+  /**
+   * The Builder to create a WriteRateLimiter instance.
+   */
+  public static final class Builder {
+    private double pointsPerSecond;
+    private double bytesPerSecond;
+    private long burstNanos = TimeUnit.SECONDS.toNanos(1);
+    private boolean perDatabase;
+
+    private Builder() {
+    }
+
+    /**
+     * @param pointsPerSecond the number of points which may be written per second, 0 for no limit
+     * @return this Builder to use it fluent
+     */
+    public Builder pointsPerSecond(final double pointsPerSecond) {
+      this.pointsPerSecond = pointsPerSecond;
+      return this;
+    }
+
+    /**
+     * @param bytesPerSecond the number of line protocol bytes which may be written per second, 0 for no limit
+     * @return this Builder to use it fluent
+     */
+    public Builder bytesPerSecond(final double bytesPerSecond) {
+      this.bytesPerSecond = bytesPerSecond;
+      return this;
+    }
+
+    /**
+     * The budget which can be saved up by an idle client and spent at once, 1 second by default.
+     *
+     * @param burstDuration the duration of the budget
+     * @param unit the TimeUnit of the duration
+     * @return this Builder to use it fluent
+     */
+    public Builder burst(final long burstDuration, final TimeUnit unit) {
+      this.burstNanos = unit.toNanos(burstDuration);
+      return this;
+    }
+
+    /**
+     * Give every database its own budget instead of one for the whole client.
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder perDatabase() {
+      this.perDatabase = true;
+      return this;
+    }
+
+    /**
+     * @return the WriteRateLimiter instance
+     */
+    public WriteRateLimiter build() {
+      if (pointsPerSecond < 0 || bytesPerSecond < 0 || (pointsPerSecond == 0 && bytesPerSecond == 0)) {
+        throw new IllegalArgumentException("Expecting a non negative pointsPerSecond and bytesPerSecond, at least"
+            + " one of them positive, but was " + pointsPerSecond + " and " + bytesPerSecond);
+      }
+      if (burstNanos <= 0) {
+        throw new IllegalArgumentException("Expecting a positive burst duration, but was " + burstNanos + "ns");
+      }
+      return new WriteRateLimiter(this);
+    }
+  }
+
+  /**
+   * The token buckets of a scope. Every reservation is taken right away, the tokens may become negative, so a
+   * later reservation waits until the earlier ones are paid off.
+   */
+  private final class Budget {
+    private double points;
+    private double bytes;
+    private long refilledAt = System.nanoTime();
+
+    private Budget() {
+      this.points = pointsPerSecond * burstNanos / NANOS_PER_SECOND;
+      this.bytes = bytesPerSecond * burstNanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * @param maxWaitNanos the longest acceptable wait, negative for no limit
+     * @return the nanoseconds to wait until the reservation is due, -1 if it was not taken
+     */
+    private synchronized long reserve(final int pointCount, final long byteCount, final long maxWaitNanos) {
+      long now = System.nanoTime();
+      double elapsedSeconds = (now - refilledAt) / NANOS_PER_SECOND;
+      refilledAt = now;
+      double burstSeconds = burstNanos / NANOS_PER_SECOND;
+      points = Math.min(pointsPerSecond * burstSeconds, points + pointsPerSecond * elapsedSeconds);
+      bytes = Math.min(bytesPerSecond * burstSeconds, bytes + bytesPerSecond * elapsedSeconds);
+
+      long waitNanos = Math.max(waitNanos(pointCount, points, pointsPerSecond),
+                                waitNanos(byteCount, bytes, bytesPerSecond));
+      if (maxWaitNanos >= 0 && waitNanos > maxWaitNanos) {
+        return -1;
+      }
+      if (pointsPerSecond > 0) {
+        points -= pointCount;
+      }
+      if (bytesPerSecond > 0) {
+        bytes -= byteCount;
+      }
+      return waitNanos;
+    }
+
+    private long waitNanos(final long required, final double available, final double ratePerSecond) {
+      if (ratePerSecond <= 0 || required <= available) {
+        return 0;
+      }
+      return (long) Math.ceil((required - available) / ratePerSecond * NANOS_PER_SECOND);
+    }
+  }
+
+  private WriteRateLimiter(final Builder builder) {
+    this.pointsPerSecond = builder.pointsPerSecond;
+    this.bytesPerSecond = builder.bytesPerSecond;
+    this.burstNanos = builder.burstNanos;
+    this.perDatabase = builder.perDatabase;
+  }
+
+  /**
+   * @return the Builder to create a WriteRateLimiter
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private Budget budget(final String database) {
+    String scope = CLIENT_SCOPE;
+    if (perDatabase && database != null) {
+      scope = database;
+    }
+    return budgets.computeIfAbsent(scope, key -> new Budget());
+  }
+
+  /**
+   * Wait until the write fits into the budget.
+   *
+   * @param database the database written to
+   * @param points the number of points written
+   * @param bytes the number of line protocol bytes written, ignored if there is no bytes limit
+   * @throws InterruptedException if the thread was interrupted while waiting, the budget is taken nevertheless
+   */
+  public void acquire(final String database, final int points, final long bytes) throws InterruptedException {
+    long waitNanos = budget(database).reserve(points, bytes, -1);
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  /**
+   * Wait until the write fits into the budget, if that is possible within the timeout.
+   *
+   * @param database the database written to
+   * @param points the number of points written
+   * @param bytes the number of line protocol bytes written, ignored if there is no bytes limit
+   * @param timeout the longest time to wait
+   * @param unit the TimeUnit of the timeout
+   * @return true if the budget was taken, false if the write would have to wait longer, nothing is taken then
+   * @throws InterruptedException if the thread was interrupted while waiting, the budget is taken nevertheless
+   */
+  public boolean tryAcquire(final String database, final int points, final long bytes, final long timeout,
+                            final TimeUnit unit) throws InterruptedException {
+    long waitNanos = budget(database).reserve(points, bytes, Math.max(0, unit.toNanos(timeout)));
+    if (waitNanos < 0) {
+      return false;
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+    return true;
+  }
+
+  /**
+   * Take the budget of the write without blocking the calling thread.
+   *
+   * @param database the database written to
+   * @param points the number of points written
+   * @param bytes the number of line protocol bytes written, ignored if there is no bytes limit
+   * @return a future which completes when the write fits into the budget
+   */
+  public CompletableFuture<Void> acquireAsync(final String database, final int points, final long bytes) {
+    long waitNanos = budget(database).reserve(points, bytes, -1);
+    CompletableFuture<Void> acquired = new CompletableFuture<>();
+    if (waitNanos == 0) {
+      acquired.complete(null);
+    } else {
+      scheduler().schedule(() -> acquired.complete(null), waitNanos, TimeUnit.NANOSECONDS);
+    }
+    return acquired;
+  }
+
+  /**
+   * @return true if the line protocol bytes of the writes are limited, so they have to be measured
+   */
+  public boolean isBytesLimited() {
+    return bytesPerSecond > 0;
+  }
+
+  /**
+   * @return the number of points which may be written per second, 0 if the points are not limited
+   */
+  public double getPointsPerSecond() {
+    return pointsPerSecond;
+  }
+
+  /**
+   * @return the number of line protocol bytes which may be written per second, 0 if the bytes are not limited
+   */
+  public double getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * @return true if every database has a budget of its own, false if all writes of the client share one
+   */
+  public boolean isPerDatabase() {
+    return perDatabase;
+  }
+
+  private static ScheduledExecutorService scheduler() {
+    ScheduledExecutorService result = scheduler;
+    if (result == null) {
+      synchronized (WriteRateLimiter.class) {
+        result = scheduler;
+        if (result == null) {
+          ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "influxdb-write-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+          });
+          executor.setRemoveOnCancelPolicy(true);
+          result = executor;
+          scheduler = result;
+        }
+      }
+    }
+    return result;
+  }
+}
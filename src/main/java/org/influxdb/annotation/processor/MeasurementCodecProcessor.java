@@ -0,0 +1,487 @@
+package org.influxdb.annotation.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Exclude;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.annotation.TimeColumn;
+
+/**
+ * Generates a {@code MeasurementCodec} for every class annotated with {@link Measurement}, which maps the class
+ * without reflection.
+ *
+ * <p>The processor is optional, it is shipped in the {@code processor} classified jar and enabled explicitly:</p>
+ *
+ * <pre>
+ * &lt;annotationProcessorPaths&gt;
+ *   &lt;path&gt;
+ *     &lt;groupId&gt;org.influxdb&lt;/groupId&gt;
+ *     &lt;artifactId&gt;influxdb-java&lt;/artifactId&gt;
+ *     &lt;version&gt;${influxdb-java.version}&lt;/version&gt;
+ *   &lt;/path&gt;
+ *   &lt;path&gt;
+ *     &lt;groupId&gt;org.influxdb&lt;/groupId&gt;
+ *     &lt;artifactId&gt;influxdb-java&lt;/artifactId&gt;
+ *     &lt;version&gt;${influxdb-java.version}&lt;/version&gt;
+ *     &lt;classifier&gt;processor&lt;/classifier&gt;
+ *   &lt;/path&gt;
+ * &lt;/annotationProcessorPaths&gt;
+ * &lt;annotationProcessors&gt;
+ *   &lt;annotationProcessor&gt;org.influxdb.annotation.processor.MeasurementCodecProcessor&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ *
+ * <p>The generated code accesses the fields directly, or through their JavaBean getter and setter when a field is
+ * private, final or not accessible from the package of the class. So a codec is only generated for a static,
+ * non-generic class with a non-private no-arg constructor whose mapped fields are accessible, directly or through
+ * both accessors, and of a type the reflective mapping supports in both directions. Other classes are noted and keep
+ * being mapped by reflection.</p>
+ */
+@SupportedAnnotationTypes("org.influxdb.annotation.Measurement")
+public final class MeasurementCodecProcessor extends AbstractProcessor {
+
+  private static final String SUFFIX = "MeasurementCodec";
+  private static final String CODEC = "org.influxdb.dto.MeasurementCodec";
+  private static final String INSTANT = "java.time.Instant";
+  private static final String STRING = "java.lang.String";
+
+  /**
+   * The way a field is read and written.
+   */
+  private enum Kind {
+    BOOLEAN("boolean", "Boolean"), LONG("long", "Long"), DOUBLE("double", "Double"), INTEGER("int", "Integer"),
+    STRING(null, null), ENUM(null, null), TIME(null, null), TAG(null, null);
+
+    private final String primitive;
+    private final String box;
+
+    Kind(final String primitive, final String box) {
+      this.primitive = primitive;
+      this.box = box;
+    }
+  }
+
+  /**
+   * A mapped field of the measurement class.
+   */
+  private static final class MappedField {
+    private final String column;
+    private final String name;
+    // the expression of the instance declaring the field
+    private final String owner;
+    // the accessors of the measurement class for a field which is not accessed directly, null if it is
+    private final String getter;
+    private final String setter;
+    private final Kind kind;
+    private final boolean primitive;
+    // the erased declared type
+    private final String type;
+    private final TimeUnit timeUnit;
+
+    MappedField(final String column, final String name, final String owner, final String[] accessors,
+                final Kind kind, final boolean primitive, final String type, final TimeUnit timeUnit) {
+      this.column = column;
+      this.name = name;
+      this.owner = owner;
+      this.getter = accessors[0];
+      this.setter = accessors[1];
+      this.kind = kind;
+      this.primitive = primitive;
+      this.type = type;
+      this.timeUnit = timeUnit;
+    }
+
+    String access() {
+      if (getter != null) {
+        return "pojo." + getter + "()";
+      }
+      return owner + "." + name;
+    }
+
+    String assign(final String value) {
+      if (setter != null) {
+        return "pojo." + setter + "(" + value + ")";
+      }
+      return owner + "." + name + " = " + value;
+    }
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(Measurement.class)) {
+      if (element.getKind() != ElementKind.CLASS) {
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      List<MappedField> fields = new ArrayList<>();
+      String unsupported = collect(type, fields);
+      if (unsupported != null) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "No " + SUFFIX + " generated, " + type.getQualifiedName() + " is mapped by reflection: " + unsupported,
+            type);
+        continue;
+      }
+      try {
+        generate(type, fields);
+      } catch (IOException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            "Could not write the " + SUFFIX + " of " + type.getQualifiedName() + ": " + e.getMessage(), type);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Collect the mapped fields of a class like the reflective mapping does.
+   *
+   * @return the reason why no codec can be generated, null if it can
+   */
+  private String collect(final TypeElement type, final List<MappedField> fields) {
+    String unsupported = checkClass(type);
+    if (unsupported != null) {
+      return unsupported;
+    }
+    Measurement measurement = type.getAnnotation(Measurement.class);
+    PackageElement typePackage = processingEnv.getElementUtils().getPackageOf(type);
+    DeclaredType declaredType = (DeclaredType) type.asType();
+    Set<String> columns = new HashSet<>();
+
+    TypeMirror current = type.asType();
+    while (current.getKind() == TypeKind.DECLARED) {
+      TypeElement declaring = (TypeElement) processingEnv.getTypeUtils().asElement(current);
+      if (declaring.getQualifiedName().contentEquals("java.lang.Object")) {
+        break;
+      }
+      String owner = "pojo";
+      if (!declaring.equals(type)) {
+        owner = "((" + processingEnv.getTypeUtils().erasure(current) + ") pojo)";
+      }
+      for (VariableElement field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+        Column column = field.getAnnotation(Column.class);
+        if (column == null && !(measurement.allFields()
+            && field.getAnnotation(Exclude.class) == null && !field.getModifiers().contains(Modifier.STATIC))) {
+          continue;
+        }
+        String name = field.getSimpleName().toString();
+        if (column != null && !column.name().isEmpty()) {
+          name = column.name();
+        }
+        if (!columns.add(name)) {
+          return "the column " + name + " is mapped twice";
+        }
+        TypeMirror fieldType = processingEnv.getTypeUtils().asMemberOf(declaredType, field);
+        String[] accessors = {null, null};
+        if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL)
+            || !accessible(field, declaring, typePackage)) {
+          accessors = accessors(type, field, fieldType, typePackage);
+          if (accessors == null) {
+            return "the field " + field.getSimpleName() + " is private, final or not accessible and has no "
+                + "accessible getter and setter";
+          }
+        }
+        TimeColumn timeColumn = field.getAnnotation(TimeColumn.class);
+        Kind kind = kindOf(fieldType, column != null && column.tag(), timeColumn != null);
+        if (kind == null || !accessible(fieldType, typePackage)) {
+          return "the field " + field.getSimpleName() + " of type " + fieldType + " is not supported";
+        }
+        TimeUnit timeUnit = null;
+        if (timeColumn != null) {
+          timeUnit = timeColumn.timeUnit();
+        }
+        fields.add(new MappedField(name, field.getSimpleName().toString(), owner, accessors, kind,
+            fieldType.getKind().isPrimitive(), processingEnv.getTypeUtils().erasure(fieldType).toString(), timeUnit));
+      }
+      current = declaring.getSuperclass();
+    }
+    if (fields.isEmpty()) {
+      return "no field is mapped";
+    }
+    return null;
+  }
+
+  private String checkClass(final TypeElement type) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+      return "the class is abstract or generic";
+    }
+    if (type.getSuperclass().toString().equals("java.lang.Record")) {
+      return "records are created through their canonical constructor";
+    }
+    Element enclosing = type;
+    while (enclosing.getKind() != ElementKind.PACKAGE) {
+      if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+        return "the class is private";
+      }
+      if (enclosing instanceof TypeElement && ((TypeElement) enclosing).getNestingKind() != NestingKind.TOP_LEVEL
+          && ((TypeElement) enclosing).getNestingKind() != NestingKind.MEMBER) {
+        return "the class is local or anonymous";
+      }
+      if (enclosing instanceof TypeElement && ((TypeElement) enclosing).getNestingKind() == NestingKind.MEMBER
+          && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+        return "the class is an inner class";
+      }
+      enclosing = enclosing.getEnclosingElement();
+    }
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        return null;
+      }
+    }
+    return "the class has no non-private no-arg constructor";
+  }
+
+  /**
+   * Find the JavaBean getter and setter of a field, {@code getName} or {@code isName} for a {@code boolean} and
+   * {@code setName}, among the methods of the measurement class and its superclasses.
+   *
+   * @return the names of the getter and the setter, null if either is missing or not accessible
+   */
+  private String[] accessors(final TypeElement type, final VariableElement field, final TypeMirror fieldType,
+                             final PackageElement typePackage) {
+    String fieldName = field.getSimpleName().toString();
+    String property = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    DeclaredType declaredType = (DeclaredType) type.asType();
+    String getter = null;
+    String setter = null;
+    for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+      if (method.getModifiers().contains(Modifier.STATIC) || method.getModifiers().contains(Modifier.PRIVATE)
+          || !accessible(method, (TypeElement) method.getEnclosingElement(), typePackage)) {
+        continue;
+      }
+      String methodName = method.getSimpleName().toString();
+      ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+      if (method.getParameters().isEmpty()
+          && processingEnv.getTypeUtils().isSameType(methodType.getReturnType(), fieldType)
+          && (("get" + property).equals(methodName)
+              || (fieldType.getKind() == TypeKind.BOOLEAN && ("is" + property).equals(methodName)))) {
+        getter = methodName;
+      } else if (method.getParameters().size() == 1
+          && processingEnv.getTypeUtils().isSameType(methodType.getParameterTypes().get(0), fieldType)
+          && ("set" + property).equals(methodName)) {
+        setter = methodName;
+      }
+    }
+    if (getter == null || setter == null) {
+      return null;
+    }
+    return new String[] {getter, setter};
+  }
+
+  /**
+   * @return if a field or method can be accessed from the package of the measurement class
+   */
+  private boolean accessible(final Element member, final TypeElement declaring, final PackageElement typePackage) {
+    boolean samePackage = processingEnv.getElementUtils().getPackageOf(declaring).equals(typePackage);
+    if (!samePackage && !(member.getModifiers().contains(Modifier.PUBLIC)
+        && declaring.getModifiers().contains(Modifier.PUBLIC))) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return if a type can be named in the package of the measurement class
+   */
+  private boolean accessible(final TypeMirror type, final PackageElement typePackage) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return true;
+    }
+    Element element = processingEnv.getTypeUtils().asElement(type);
+    while (element.getKind() != ElementKind.PACKAGE) {
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (!element.getModifiers().contains(Modifier.PUBLIC)
+          && !processingEnv.getElementUtils().getPackageOf(element).equals(typePackage)) {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return true;
+  }
+
+  /**
+   * @return the kind of a field, null if it is not supported in both directions
+   */
+  private Kind kindOf(final TypeMirror type, final boolean tag, final boolean time) {
+    String name = processingEnv.getTypeUtils().erasure(type).toString();
+    if (time || INSTANT.equals(name)) {
+      if (time && INSTANT.equals(name)) {
+        return Kind.TIME;
+      }
+      return null;
+    }
+    if (tag) {
+      if (STRING.equals(name)) {
+        return Kind.TAG;
+      }
+      return null;
+    }
+    if (STRING.equals(name)) {
+      return Kind.STRING;
+    }
+    for (Kind kind : Kind.values()) {
+      if (kind.primitive != null && (kind.primitive.equals(name) || ("java.lang." + kind.box).equals(name))) {
+        return kind;
+      }
+    }
+    if (type.getKind() == TypeKind.DECLARED
+        && processingEnv.getTypeUtils().asElement(type).getKind() == ElementKind.ENUM) {
+      return Kind.ENUM;
+    }
+    return null;
+  }
+
+  private void generate(final TypeElement type, final List<MappedField> fields) throws IOException {
+    String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+    String codecName = binaryName.substring(binaryName.lastIndexOf('.') + 1) + SUFFIX;
+    String className = type.getQualifiedName().toString();
+    String measurement = type.getAnnotation(Measurement.class).name();
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source.append("/**\n * The " + SUFFIX + " of {@link ").append(className)
+        .append("}, generated by ").append(getClass().getName()).append(".\n */\n");
+    source.append("public final class ").append(codecName).append(" implements ").append(CODEC).append('<')
+        .append(className).append("> {\n\n");
+
+    source.append("  private static final java.util.List<String> COLUMNS = java.util.Collections.unmodifiableList("
+        + "java.util.Arrays.asList(");
+    for (int i = 0; i < fields.size(); i++) {
+      if (i > 0) {
+        source.append(", ");
+      }
+      literal(source, fields.get(i).column);
+    }
+    source.append("));\n\n  private static final Class<?>[] TYPES = {");
+    for (int i = 0; i < fields.size(); i++) {
+      if (i > 0) {
+        source.append(", ");
+      }
+      source.append(fields.get(i).type).append(".class");
+    }
+    source.append("};\n\n");
+
+    source.append("  @Override\n  public String getMeasurement() {\n    return ");
+    literal(source, measurement);
+    source.append(";\n  }\n\n");
+    source.append("  @Override\n  public java.util.List<String> getColumnNames() {\n    return COLUMNS;\n  }\n\n");
+    source.append("  @Override\n  public Class<?> getFieldType(final int field) {\n    return TYPES[field];\n"
+        + "  }\n\n");
+    source.append("  @Override\n  public ").append(className).append(" newInstance() {\n    return new ")
+        .append(className).append("();\n  }\n\n");
+
+    source.append("  @Override\n  public void set(final ").append(className)
+        .append(" pojo, final int field, final Object value) {\n    switch (field) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      MappedField field = fields.get(i);
+      String cast = field.type;
+      if (field.primitive) {
+        cast = field.kind.box;
+      }
+      source.append("      case ").append(i).append(":\n        ").append(field.assign("(" + cast + ") value"))
+          .append(";\n        break;\n");
+    }
+    source.append("      default:\n        throw new IndexOutOfBoundsException(\"field \" + field);\n    }\n  }\n\n");
+
+    source.append("  @Override\n  public void write(final ").append(className)
+        .append(" pojo, final org.influxdb.dto.Point.Builder builder) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      write(source, fields.get(i), "value" + i);
+    }
+    source.append("  }\n}\n");
+
+    String qualifiedCodecName = codecName;
+    if (!packageName.isEmpty()) {
+      qualifiedCodecName = packageName + "." + codecName;
+    }
+    JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedCodecName, type);
+    try (Writer writer = file.openWriter()) {
+      writer.write(source.toString());
+    }
+  }
+
+  /**
+   * Write a field to the builder, reading it once into the local variable {@code value}.
+   */
+  private static void write(final StringBuilder source, final MappedField field, final String value) {
+    StringBuilder column = new StringBuilder();
+    literal(column, field.column);
+    if (field.primitive) {
+      source.append("    builder.addField(").append(column).append(", ").append(field.access()).append(");\n");
+      return;
+    }
+    source.append("    ").append(field.type).append(' ').append(value).append(" = ").append(field.access())
+        .append(";\n    if (").append(value).append(" != null) {\n      ");
+    switch (field.kind) {
+      case TIME:
+        String unit = "java.util.concurrent.TimeUnit." + field.timeUnit.name();
+        source.append("builder.time(").append(CODEC).append(".time(").append(value).append(", ")
+            .append(unit).append("), ").append(unit).append(");\n");
+        break;
+      case TAG:
+        source.append("builder.tag(").append(column).append(", ").append(value).append(");\n");
+        break;
+      case STRING:
+        source.append("builder.addField(").append(column).append(", ").append(value).append(");\n");
+        break;
+      case ENUM:
+        source.append("builder.addField(").append(column).append(", ").append(value)
+            .append(".name());\n");
+        break;
+      default:
+        source.append("builder.addField(").append(column).append(", ").append(value).append('.')
+            .append(field.kind.primitive).append("Value());\n");
+    }
+    source.append("    }\n");
+  }
+
+  private static void literal(final StringBuilder source, final String value) {
+    source.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        source.append('\\').append(c);
+      } else if (c < ' ') {
+        source.append(String.format("\\u%04x", (int) c));
+      } else {
+        source.append(c);
+      }
+    }
+    source.append('"');
+  }
+}
@@ -157,7 +157,7 @@ public class BatchPoints {
       BatchPoints batchPoints = new BatchPoints();
       batchPoints.setDatabase(this.database);
       for (Point point : this.points) {
-        point.getTags().putAll(this.tags);
+        addTags(point, this.tags);
       }
       batchPoints.setPoints(this.points);
       batchPoints.setRetentionPolicy(this.retentionPolicy);
@@ -240,11 +240,22 @@ public class BatchPoints {
    * @return this Instance to be able to daisy chain calls.
    */
   public BatchPoints point(final Point point) {
-    point.getTags().putAll(this.tags);
+    addTags(point, this.tags);
     this.points.add(point);
     return this;
   }
 
+  private static void addTags(final Point point, final Map<String, String> tags) {
+    if (tags.isEmpty()) {
+      return;
+    }
+    if (point.getEncodedRow() != null) {
+      throw new IllegalArgumentException("The tags of the batch cannot be added to the encoded row of "
+          + point.getMeasurement() + ", add them to its PointTemplate");
+    }
+    point.getTags().putAll(tags);
+  }
+
   /**
    * @return the tags
    */
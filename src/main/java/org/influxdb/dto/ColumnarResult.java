@@ -0,0 +1,532 @@
+package org.influxdb.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A query result stored by column: every column of a series is one primitive array, {@code long[]},
+ * {@code double[]} or {@code boolean[]}, or a dictionary encoded String column, with a bitmap of the null values.
+ *
+ * <p>A series of a million rows with five columns is a handful of arrays instead of millions of boxed values and
+ * row lists as in {@link QueryResult}. The result is read from a {@link RowCursor}, which decodes the JSON and
+ * MessagePack responses without boxing, by {@link #read(RowCursor)} or
+ * {@link org.influxdb.InfluxDB#queryColumnar(Query, int)}.</p>
+ *
+ * <p>The type of a column is the type of its values. A column of integers and floats, as float fields of JSON
+ * responses often are, is a double column. A column of values which are neither of one type nor all numbers is a
+ * String column. A column without any value is of type {@link Column.Type#NULL}.</p>
+ */
+public final class ColumnarResult {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int BITS_PER_WORD_SHIFT = 6;
+
+  private final List<Series> series;
+
+  private ColumnarResult(final List<Series> series) {
+    this.series = Collections.unmodifiableList(series);
+  }
+
+  /**
+   * Read all rows of a cursor. The rows of consecutive chunks of a series are merged into one series.
+   *
+   * @param cursor the cursor, which is not closed
+   * @return the rows by series and column
+   */
+  public static ColumnarResult read(final RowCursor cursor) {
+    List<Series> series = new ArrayList<>();
+    Series current = null;
+    while (cursor.next()) {
+      // the cursor sets new name, tags and columns objects for every series
+      if (current == null || current.lastName != cursor.getSeriesName() || current.lastTags != cursor.getTags()
+          || current.lastColumns != cursor.getColumns()) {
+        if (current == null || !current.continuedBy(cursor)) {
+          current = new Series(cursor);
+          series.add(current);
+        }
+        current.lastName = cursor.getSeriesName();
+        current.lastTags = cursor.getTags();
+        current.lastColumns = cursor.getColumns();
+      }
+      current.add(cursor);
+    }
+    for (Series s : series) {
+      s.trim();
+    }
+    return new ColumnarResult(series);
+  }
+
+  /**
+   * @return the series of all statements
+   */
+  public List<Series> getSeries() {
+    return series;
+  }
+
+  /**
+   * @return the result as a QueryResult, which boxes every value
+   */
+  public QueryResult toQueryResult() {
+    List<QueryResult.Result> results = new ArrayList<>();
+    QueryResult.Result result = null;
+    int statementId = -1;
+    for (Series s : series) {
+      if (result == null || s.getStatementId() != statementId) {
+        statementId = s.getStatementId();
+        result = new QueryResult.Result();
+        result.setSeries(new ArrayList<>());
+        results.add(result);
+      }
+      result.getSeries().add(s.toSeries());
+    }
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(results);
+    return queryResult;
+  }
+
+  /**
+   * The rows of a series stored by column.
+   */
+  public static final class Series {
+    private final int statementId;
+    private final String name;
+    private final Map<String, String> tags;
+    private final List<String> columnNames;
+    private final Column[] columns;
+    private int rowCount;
+    // the series of the cursor the rows were added from last
+    private String lastName;
+    private Map<String, String> lastTags;
+    private List<String> lastColumns;
+
+    private Series(final RowCursor cursor) {
+      this.statementId = cursor.getStatementId();
+      this.name = cursor.getSeriesName();
+      this.tags = cursor.getTags();
+      this.columnNames = cursor.getColumns();
+      this.columns = new Column[columnNames.size()];
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = new Column();
+      }
+    }
+
+    private boolean continuedBy(final RowCursor cursor) {
+      return statementId == cursor.getStatementId() && Objects.equals(name, cursor.getSeriesName())
+          && tags.equals(cursor.getTags()) && columnNames.equals(cursor.getColumns());
+    }
+
+    private void add(final RowCursor cursor) {
+      for (int i = 0; i < columns.length; i++) {
+        columns[i].add(cursor, i, rowCount);
+      }
+      rowCount++;
+    }
+
+    private void trim() {
+      for (Column column : columns) {
+        column.trim();
+      }
+    }
+
+    private QueryResult.Series toSeries() {
+      List<List<Object>> values = new ArrayList<>(rowCount);
+      for (int row = 0; row < rowCount; row++) {
+        List<Object> value = new ArrayList<>(columns.length);
+        for (Column column : columns) {
+          value.add(column.getValue(row));
+        }
+        values.add(value);
+      }
+      QueryResult.Series series = new QueryResult.Series();
+      series.setName(name);
+      series.setTags(tags);
+      series.setColumns(columnNames);
+      series.setValues(values);
+      return series;
+    }
+
+    /**
+     * @return the id of the statement of the series
+     */
+    public int getStatementId() {
+      return statementId;
+    }
+
+    /**
+     * @return the measurement name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the tags, empty if the series has none
+     */
+    public Map<String, String> getTags() {
+      return tags;
+    }
+
+    /**
+     * @return the column names
+     */
+    public List<String> getColumnNames() {
+      return columnNames;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int getRowCount() {
+      return rowCount;
+    }
+
+    /**
+     * @param index the index of the column
+     * @return the column
+     */
+    public Column getColumn(final int index) {
+      return columns[index];
+    }
+
+    /**
+     * @param columnName the name of the column
+     * @return the column, null if the series has no such column
+     */
+    public Column getColumn(final String columnName) {
+      int index = columnNames.indexOf(columnName);
+      if (index < 0) {
+        return null;
+      }
+      return columns[index];
+    }
+  }
+
+  /**
+   * The values of a column in one array of their type.
+   */
+  public static final class Column {
+
+    /**
+     * The type of the values of a column.
+     */
+    public enum Type {
+      NULL, LONG, DOUBLE, BOOLEAN, STRING
+    }
+
+    // the types in the order of RowCursor.ValueType
+    private static final Type[] TYPES = Type.values();
+
+    private Type type = Type.NULL;
+    private int size;
+    private long[] nulls = new long[1];
+    private long[] longs;
+    private double[] doubles;
+    private boolean[] booleans;
+    private int[] codes;
+    private List<String> dictionary;
+    private Map<String, Integer> dictionaryCodes;
+
+    private Column() {
+    }
+
+    private void add(final RowCursor cursor, final int column, final int row) {
+      if (cursor.isNull(column)) {
+        addNull(row);
+        return;
+      }
+      prepare(TYPES[cursor.getType(column).ordinal()], row);
+      switch (type) {
+        case LONG:
+          longs[row] = cursor.getLong(column);
+          break;
+        case DOUBLE:
+          doubles[row] = cursor.getDouble(column);
+          break;
+        case BOOLEAN:
+          booleans[row] = cursor.getBoolean(column);
+          break;
+        default:
+          codes[row] = code(cursor.getString(column));
+      }
+      size = row + 1;
+    }
+
+    private void addNull(final int row) {
+      grow(row + 1);
+      int word = row >>> BITS_PER_WORD_SHIFT;
+      nulls[word] |= 1L << row;
+      size = row + 1;
+    }
+
+    /**
+     * Make the column hold a value of the given type in the row, converting the values added so far if needed.
+     */
+    private void prepare(final Type valueType, final int row) {
+      if (type == Type.NULL) {
+        allocate(valueType, Math.max(INITIAL_CAPACITY, nulls.length << BITS_PER_WORD_SHIFT));
+        type = valueType;
+      } else if (type == Type.LONG && valueType == Type.DOUBLE) {
+        convertToDouble();
+      } else if (type != valueType && type != Type.STRING && (type != Type.DOUBLE || valueType != Type.LONG)) {
+        convertToString();
+      }
+      grow(row + 1);
+    }
+
+    private void allocate(final Type allocated, final int capacity) {
+      switch (allocated) {
+        case LONG:
+          longs = new long[capacity];
+          break;
+        case DOUBLE:
+          doubles = new double[capacity];
+          break;
+        case BOOLEAN:
+          booleans = new boolean[capacity];
+          break;
+        default:
+          codes = new int[capacity];
+          dictionary = new ArrayList<>();
+          dictionaryCodes = new HashMap<>();
+      }
+    }
+
+    private void convertToDouble() {
+      doubles = new double[longs.length];
+      for (int i = 0; i < size; i++) {
+        doubles[i] = longs[i];
+      }
+      longs = null;
+      type = Type.DOUBLE;
+    }
+
+    private void convertToString() {
+      Type previous = type;
+      int capacity = capacity();
+      allocate(Type.STRING, capacity);
+      type = Type.STRING;
+      for (int i = 0; i < size; i++) {
+        if (!isNull(i)) {
+          codes[i] = code(toString(previous, i));
+        }
+      }
+      longs = null;
+      doubles = null;
+      booleans = null;
+    }
+
+    private String toString(final Type valueType, final int row) {
+      switch (valueType) {
+        case LONG:
+          return Long.toString(longs[row]);
+        case DOUBLE:
+          return Double.toString(doubles[row]);
+        default:
+          return Boolean.toString(booleans[row]);
+      }
+    }
+
+    private int code(final String value) {
+      Integer code = dictionaryCodes.get(value);
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.add(value);
+        dictionaryCodes.put(value, code);
+      }
+      return code;
+    }
+
+    private int capacity() {
+      switch (type) {
+        case LONG:
+          return longs.length;
+        case DOUBLE:
+          return doubles.length;
+        case BOOLEAN:
+          return booleans.length;
+        case STRING:
+          return codes.length;
+        default:
+          return nulls.length << BITS_PER_WORD_SHIFT;
+      }
+    }
+
+    private void grow(final int required) {
+      int words = ((required - 1) >>> BITS_PER_WORD_SHIFT) + 1;
+      if (words > nulls.length) {
+        nulls = Arrays.copyOf(nulls, Math.max(words, nulls.length * 2));
+      }
+      int capacity = capacity();
+      if (type == Type.NULL || required <= capacity) {
+        return;
+      }
+      resize(Math.max(required, capacity * 2));
+    }
+
+    private void resize(final int capacity) {
+      switch (type) {
+        case LONG:
+          longs = Arrays.copyOf(longs, capacity);
+          break;
+        case DOUBLE:
+          doubles = Arrays.copyOf(doubles, capacity);
+          break;
+        case BOOLEAN:
+          booleans = Arrays.copyOf(booleans, capacity);
+          break;
+        case STRING:
+          codes = Arrays.copyOf(codes, capacity);
+          break;
+        default:
+      }
+    }
+
+    private void trim() {
+      if (type != Type.NULL && capacity() != size) {
+        resize(size);
+      }
+      nulls = Arrays.copyOf(nulls, ((size - 1) >>> BITS_PER_WORD_SHIFT) + 1);
+      if (dictionary != null) {
+        dictionary = Collections.unmodifiableList(dictionary);
+        dictionaryCodes = null;
+      }
+    }
+
+    /**
+     * @return the type of the values
+     */
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * @return the number of values, the row count of the series
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * @param row the row index
+     * @return true if the value of the row is null
+     */
+    public boolean isNull(final int row) {
+      return (nulls[row >>> BITS_PER_WORD_SHIFT] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return the values of a {@link Type#LONG} column, 0 for null, one per row
+     * @throws IllegalStateException if the column is of another type
+     */
+    public long[] getLongs() {
+      checkType(Type.LONG);
+      return longs;
+    }
+
+    /**
+     * @return the values of a {@link Type#DOUBLE} column, 0 for null, one per row
+     * @throws IllegalStateException if the column is of another type
+     */
+    public double[] getDoubles() {
+      checkType(Type.DOUBLE);
+      return doubles;
+    }
+
+    /**
+     * @return the values of a {@link Type#BOOLEAN} column, false for null, one per row
+     * @throws IllegalStateException if the column is of another type
+     */
+    public boolean[] getBooleans() {
+      checkType(Type.BOOLEAN);
+      return booleans;
+    }
+
+    /**
+     * @return the index into the {@link #getDictionary() dictionary} of every row of a {@link Type#STRING} column,
+     *         0 for null
+     * @throws IllegalStateException if the column is of another type
+     */
+    public int[] getCodes() {
+      checkType(Type.STRING);
+      return codes;
+    }
+
+    /**
+     * @return the distinct values of a {@link Type#STRING} column
+     * @throws IllegalStateException if the column is of another type
+     */
+    public List<String> getDictionary() {
+      checkType(Type.STRING);
+      return dictionary;
+    }
+
+    /**
+     * @param row the row index
+     * @return the value as long, 0 for null
+     * @throws IllegalStateException if the column is no number column
+     */
+    public long getLong(final int row) {
+      if (type == Type.DOUBLE) {
+        return (long) doubles[row];
+      }
+      return getLongs()[row];
+    }
+
+    /**
+     * @param row the row index
+     * @return the value as double, 0 for null
+     * @throws IllegalStateException if the column is no number column
+     */
+    public double getDouble(final int row) {
+      if (type == Type.LONG) {
+        return longs[row];
+      }
+      return getDoubles()[row];
+    }
+
+    /**
+     * @param row the row index
+     * @return the value as String, null for null
+     */
+    public String getString(final int row) {
+      if (isNull(row)) {
+        return null;
+      }
+      if (type == Type.STRING) {
+        return dictionary.get(codes[row]);
+      }
+      return toString(type, row);
+    }
+
+    /**
+     * @param row the row index
+     * @return the boxed value, null for null
+     */
+    public Object getValue(final int row) {
+      if (isNull(row)) {
+        return null;
+      }
+      switch (type) {
+        case LONG:
+          return longs[row];
+        case DOUBLE:
+          return doubles[row];
+        case BOOLEAN:
+          return booleans[row];
+        default:
+          return dictionary.get(codes[row]);
+      }
+    }
+
+    private void checkType(final Type expected) {
+      if (type != expected) {
+        throw new IllegalStateException("The column is of type " + type + ", not " + expected);
+      }
+    }
+  }
+}
@@ -0,0 +1,501 @@
+package org.influxdb.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes {@link Point}s into the UTF-8 bytes of their line protocol, appended to a reusable byte buffer.
+ *
+ * <p>In contrast to {@link Point#lineProtocol(TimeUnit)} no String, StringBuilder or boxed value is created per
+ * point. Keys and string values are escaped and encoded in a single pass, integers are written digit by digit and
+ * doubles use the shortest decimal representation which parses back to the same value. Only doubles which need
+ * about 16 or more significant digits and {@link BigDecimal} or
+ * {@link BigInteger} values fall back to the formatting of {@link Point#lineProtocol(TimeUnit)}.
+ * The produced bytes are identical to {@code point.lineProtocol(precision).getBytes(UTF_8)}.</p>
+ *
+ * <p>With a {@link LineProtocolKeyCache} the escaped bytes of measurement names, tag keys and field keys, and of
+ * the tag values if the cache holds them, are looked up instead of escaping them again for every point.</p>
+ *
+ * <p>An encoder is not thread safe. It is meant to be reused: encode a number of points, pass the buffer on with
+ * {@link #buffer()} and {@link #size()} or {@link #writeTo(OutputStream)}, then {@link #reset()} it.</p>
+ */
+public final class LineProtocolEncoder {
+
+  private static final int DEFAULT_CAPACITY = 8192;
+  // the longest encoding of a single char: an escaped char takes 2 bytes, a char outside of ASCII up to 3 bytes
+  private static final int MAX_BYTES_PER_CHAR = 3;
+  private static final int MAX_LONG_LENGTH = 20;
+  private static final int MAX_DOUBLE_LENGTH = 24;
+
+  private static final int ONE_BYTE_LIMIT = 0x80;
+  private static final int TWO_BYTES_LIMIT = 0x800;
+  private static final int TWO_BYTES_LEAD = 0xC0;
+  private static final int THREE_BYTES_LEAD = 0xE0;
+  private static final int FOUR_BYTES_LEAD = 0xF0;
+  private static final int CONTINUATION = 0x80;
+  private static final int CONTINUATION_MASK = 0x3F;
+  private static final int BITS_PER_CONTINUATION = 6;
+  private static final int THREE_BYTES_LEAD_SHIFT = 2 * BITS_PER_CONTINUATION;
+  private static final int FOUR_BYTES_LEAD_SHIFT = THREE_BYTES_LEAD_SHIFT + BITS_PER_CONTINUATION;
+
+  private static final int RADIX = 10;
+  // doubles with a scaled value up to 2^53 are exact, powers of ten up to 10^22 as well
+  private static final double MAX_EXACT_DOUBLE = 9007199254740992d;
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+  private final LineProtocolKeyCache keyCache;
+  private byte[] buffer;
+  private int size;
+  private final byte[] digits = new byte[MAX_LONG_LENGTH];
+  // only used by the slow paths
+  private StringBuilder scratch;
+
+  /**
+   * Create an encoder with a buffer of 8 KiB, which grows when needed.
+   */
+  public LineProtocolEncoder() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param initialCapacity the initial size of the buffer in bytes, which grows when needed
+   */
+  public LineProtocolEncoder(final int initialCapacity) {
+    this(initialCapacity, null);
+  }
+
+  /**
+   * @param initialCapacity the initial size of the buffer in bytes, which grows when needed
+   * @param keyCache the cache of escaped measurement names, tag keys and field keys, null to escape them for
+   *                 every point
+   */
+  public LineProtocolEncoder(final int initialCapacity, final LineProtocolKeyCache keyCache) {
+    this.buffer = new byte[Math.max(initialCapacity, MAX_DOUBLE_LENGTH)];
+    this.keyCache = keyCache;
+  }
+
+  /**
+   * Append the line protocol of the point, without newLine.
+   *
+   * @param point the point to encode
+   * @param precision the time precision unit of the timestamp, null for nanoseconds
+   * @return the number of bytes appended, 0 when the point has no fields to write
+   */
+  public int encode(final Point point, final TimeUnit precision) {
+    int start = size;
+    byte[] encodedRow = point.getEncodedRow();
+    if (encodedRow != null) {
+      writeBytes(encodedRow);
+      writeTime(point, precision);
+      return size - start;
+    }
+    writeEscapedKey(point.getMeasurement());
+    for (Entry<String, String> tag : point.getTags().entrySet()) {
+      writeByte(',');
+      writeEscapedKey(tag.getKey());
+      writeByte('=');
+      writeEscapedTagValue(tag.getValue());
+    }
+    writeByte(' ');
+    if (!writeFields(point.getPointFields())) {
+      size = start;
+      return 0;
+    }
+    writeTime(point, precision);
+    return size - start;
+  }
+
+  /**
+   * Measure the line protocol of the point without keeping it, the encoded bytes are discarded.
+   *
+   * @param point the point to measure
+   * @param precision the time precision unit of the timestamp, null for nanoseconds
+   * @return the number of bytes the point takes in a batch including its newLine, 0 when the point has no fields
+   *         to write
+   */
+  public int encodedSize(final Point point, final TimeUnit precision) {
+    int start = size;
+    int length = encode(point, precision);
+    size = start;
+    if (length == 0) {
+      return 0;
+    }
+    return length + 1;
+  }
+
+  /**
+   * Append the newLine separating two points.
+   */
+  public void newLine() {
+    writeByte('\n');
+  }
+
+  /**
+   * @return the buffer holding the encoded bytes from index 0 to {@link #size()}, valid until the next call
+   *         of this encoder
+   */
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the number of encoded bytes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return a copy of the encoded bytes
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buffer, size);
+  }
+
+  /**
+   * Write the encoded bytes to the given stream.
+   *
+   * @param out the stream to write to
+   * @throws IOException if the stream could not be written
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    out.write(buffer, 0, size);
+  }
+
+  /**
+   * Discard the encoded bytes, keeping the buffer for the next points.
+   */
+  public void reset() {
+    size = 0;
+  }
+
+  /**
+   * Discard the bytes encoded after the given size.
+   *
+   * @param newSize a size returned by {@link #size()} before
+   */
+  void truncate(final int newSize) {
+    size = newSize;
+  }
+
+  private boolean writeFields(final PointFields fields) {
+    boolean written = false;
+    for (int i = 0; i < fields.size(); i++) {
+      switch (fields.type(i)) {
+        case PointFields.DOUBLE:
+        case PointFields.FLOAT:
+          double doubleValue = fields.doubleValue(i);
+          if (!Double.isFinite(doubleValue)) {
+            continue;
+          }
+          writeFieldKey(fields.name(i), written);
+          writeDouble(doubleValue);
+          break;
+        case PointFields.LONG:
+        case PointFields.INTEGER:
+        case PointFields.SHORT:
+          writeFieldKey(fields.name(i), written);
+          writeLong(fields.longValue(i));
+          writeByte('i');
+          break;
+        case PointFields.BOOLEAN:
+          writeFieldKey(fields.name(i), written);
+          if (fields.booleanValue(i)) {
+            writeBytes(TRUE);
+          } else {
+            writeBytes(FALSE);
+          }
+          break;
+        default:
+          Object value = fields.objectValue(i);
+          if (value == null) {
+            continue;
+          }
+          writeFieldKey(fields.name(i), written);
+          writeFieldValue(value);
+      }
+      written = true;
+    }
+    return written;
+  }
+
+  private void writeFieldKey(final String name, final boolean separated) {
+    if (separated) {
+      writeByte(',');
+    }
+    writeEscapedKey(name);
+    writeByte('=');
+  }
+
+  /**
+   * Write a value which is not stored in a primitive slot of the {@link PointFields}.
+   */
+  private void writeFieldValue(final Object value) {
+    if (value instanceof BigDecimal) {
+      writeAscii(Point.NUMBER_FORMATTER.get().format(value));
+    } else if (value instanceof Number) {
+      writeAscii(value.toString());
+      writeByte('i');
+    } else if (value instanceof String) {
+      writeByte('"');
+      writeEscapedField((String) value);
+      writeByte('"');
+    } else {
+      writeUtf8(String.valueOf(value));
+    }
+  }
+
+  private void writeTime(final Point point, final TimeUnit precision) {
+    Number time = point.getTime();
+    if (time == null) {
+      return;
+    }
+    if (!(time instanceof BigInteger) && !(time instanceof BigDecimal)) {
+      TimeUnit converterPrecision = precision;
+      if (converterPrecision == null) {
+        converterPrecision = TimeUnit.NANOSECONDS;
+      }
+      writeByte(' ');
+      writeLong(converterPrecision.convert(time.longValue(), point.getPrecision()));
+    } else {
+      StringBuilder sb = scratch();
+      point.formatedTime(sb, precision);
+      writeUtf8(sb);
+    }
+  }
+
+  /**
+   * Write the double like {@link Point#lineProtocol(TimeUnit)} does: plain notation, at least one fraction digit
+   * and the shortest fraction which parses back to the same double. The fraction is found by scaling with powers of
+   * ten until the scaled value is an integer m for which m / 10^k is the given double. Both m and 10^k are exact
+   * doubles, so the division is correctly rounded and equals the parsed decimal.
+   */
+  void writeDouble(final double value) {
+    double abs = Math.abs(value);
+    for (int k = 0; k < POWERS_OF_TEN.length; k++) {
+      double scaled = abs * POWERS_OF_TEN[k];
+      if (scaled >= MAX_EXACT_DOUBLE) {
+        break;
+      }
+      // the rounded product may be one off, the closest candidate is tried first
+      long m = Math.round(scaled);
+      long unscaled = -1;
+      if (m / POWERS_OF_TEN[k] == abs) {
+        unscaled = m;
+      } else if (m > 0 && (m - 1) / POWERS_OF_TEN[k] == abs) {
+        unscaled = m - 1;
+      } else if ((m + 1) / POWERS_OF_TEN[k] == abs) {
+        unscaled = m + 1;
+      }
+      if (unscaled >= 0) {
+        writeDecimal(Double.doubleToRawLongBits(value) < 0, unscaled, k);
+        return;
+      }
+    }
+    writeAscii(Point.NUMBER_FORMATTER.get().format(value));
+  }
+
+  private void writeDecimal(final boolean negative, final long unscaled, final int scale) {
+    ensureCapacity(MAX_DOUBLE_LENGTH + scale);
+    if (negative) {
+      buffer[size++] = '-';
+    }
+    int length = toDigits(unscaled);
+    int first = digits.length - length;
+    if (scale == 0) {
+      System.arraycopy(digits, first, buffer, size, length);
+      size += length;
+      buffer[size++] = '.';
+      buffer[size++] = '0';
+    } else if (length > scale) {
+      int integerDigits = length - scale;
+      System.arraycopy(digits, first, buffer, size, integerDigits);
+      size += integerDigits;
+      buffer[size++] = '.';
+      System.arraycopy(digits, first + integerDigits, buffer, size, scale);
+      size += scale;
+    } else {
+      buffer[size++] = '0';
+      buffer[size++] = '.';
+      for (int i = length; i < scale; i++) {
+        buffer[size++] = '0';
+      }
+      System.arraycopy(digits, first, buffer, size, length);
+      size += length;
+    }
+  }
+
+  void writeLong(final long value) {
+    if (value == Long.MIN_VALUE) {
+      writeAscii(Long.toString(value));
+      return;
+    }
+    ensureCapacity(MAX_LONG_LENGTH);
+    if (value < 0) {
+      buffer[size++] = '-';
+    }
+    int length = toDigits(Math.abs(value));
+    System.arraycopy(digits, digits.length - length, buffer, size, length);
+    size += length;
+  }
+
+  /**
+   * Write the decimal digits of the non negative value right aligned into {@link #digits}.
+   *
+   * @return the number of digits
+   */
+  private int toDigits(final long value) {
+    long remaining = value;
+    int position = digits.length;
+    do {
+      digits[--position] = (byte) ('0' + remaining % RADIX);
+      remaining /= RADIX;
+    } while (remaining != 0);
+    return digits.length - position;
+  }
+
+  void writeEscapedKey(final String key) {
+    if (keyCache == null) {
+      escapeKey(key);
+      return;
+    }
+    byte[] escaped = keyCache.get(key);
+    if (escaped != null) {
+      writeBytes(escaped);
+      return;
+    }
+    int start = size;
+    escapeKey(key);
+    keyCache.put(key, Arrays.copyOfRange(buffer, start, size));
+  }
+
+  private void writeEscapedTagValue(final String value) {
+    if (keyCache == null || !keyCache.isCachingTagValues()) {
+      // a value of a high cardinality tag is escaped without allocating a cache entry
+      escapeKey(value);
+      return;
+    }
+    writeEscapedKey(value);
+  }
+
+  private void escapeKey(final String key) {
+    int length = key.length();
+    ensureCapacity(length * MAX_BYTES_PER_CHAR);
+    for (int i = 0; i < length; i++) {
+      char c = key.charAt(i);
+      switch (c) {
+        case ' ':
+        case ',':
+        case '=':
+          buffer[size++] = '\\';
+          buffer[size++] = (byte) c;
+          break;
+        default:
+          i = writeChar(key, i, c);
+      }
+    }
+  }
+
+  void writeEscapedField(final String field) {
+    int length = field.length();
+    ensureCapacity(length * MAX_BYTES_PER_CHAR);
+    for (int i = 0; i < length; i++) {
+      char c = field.charAt(i);
+      switch (c) {
+        case '\\':
+        case '\"':
+          buffer[size++] = '\\';
+          buffer[size++] = (byte) c;
+          break;
+        default:
+          i = writeChar(field, i, c);
+      }
+    }
+  }
+
+  private void writeUtf8(final CharSequence chars) {
+    int length = chars.length();
+    ensureCapacity(length * MAX_BYTES_PER_CHAR);
+    for (int i = 0; i < length; i++) {
+      i = writeChar(chars, i, chars.charAt(i));
+    }
+  }
+
+  /**
+   * Encode the char at index i to UTF-8, the capacity has to be ensured by the caller.
+   *
+   * @return the index of the last char consumed, i + 1 for a surrogate pair
+   */
+  private int writeChar(final CharSequence chars, final int i, final char c) {
+    if (c < ONE_BYTE_LIMIT) {
+      buffer[size++] = (byte) c;
+    } else if (c < TWO_BYTES_LIMIT) {
+      buffer[size++] = (byte) (TWO_BYTES_LEAD | (c >> BITS_PER_CONTINUATION));
+      buffer[size++] = continuation(c, 0);
+    } else if (Character.isHighSurrogate(c) && i + 1 < chars.length()
+        && Character.isLowSurrogate(chars.charAt(i + 1))) {
+      // 4 bytes for 2 chars, fits into the ensured capacity
+      int codePoint = Character.toCodePoint(c, chars.charAt(i + 1));
+      buffer[size++] = (byte) (FOUR_BYTES_LEAD | (codePoint >> FOUR_BYTES_LEAD_SHIFT));
+      buffer[size++] = continuation(codePoint, 2);
+      buffer[size++] = continuation(codePoint, 1);
+      buffer[size++] = continuation(codePoint, 0);
+      return i + 1;
+    } else if (Character.isSurrogate(c)) {
+      // unpaired surrogate, encoded as '?' like String.getBytes(UTF_8) does
+      buffer[size++] = '?';
+    } else {
+      buffer[size++] = (byte) (THREE_BYTES_LEAD | (c >> THREE_BYTES_LEAD_SHIFT));
+      buffer[size++] = continuation(c, 1);
+      buffer[size++] = continuation(c, 0);
+    }
+    return i;
+  }
+
+  private static byte continuation(final int codePoint, final int index) {
+    return (byte) (CONTINUATION | ((codePoint >> (index * BITS_PER_CONTINUATION)) & CONTINUATION_MASK));
+  }
+
+  private void writeAscii(final String ascii) {
+    int length = ascii.length();
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      buffer[size++] = (byte) ascii.charAt(i);
+    }
+  }
+
+  void writeBytes(final byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+  }
+
+  void writeByte(final char c) {
+    ensureCapacity(1);
+    buffer[size++] = (byte) c;
+  }
+
+  private void ensureCapacity(final int additional) {
+    if (size + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+    }
+  }
+
+  private StringBuilder scratch() {
+    if (scratch == null) {
+      scratch = new StringBuilder();
+    }
+    scratch.setLength(0);
+    return scratch;
+  }
+}
@@ -0,0 +1,165 @@
+package org.influxdb.dto;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of measurement names, tag keys and field keys, and optionally tag values, mapping the raw name to
+ * its escaped UTF-8 line protocol bytes. Used by the {@link LineProtocolEncoder}, so names repeated in every point
+ * are escaped and encoded only once.
+ *
+ * <p>Tag values are not cached by default: a tag of a high cardinality, like an id, would allocate an entry for
+ * every point and evict the names which do repeat. Cache them only if the tag values are few, see
+ * {@link #LineProtocolKeyCache(int, boolean)}.</p>
+ *
+ * <p>The cache is a direct mapped table: every name has exactly one slot, selected by its hash code. A lookup is a
+ * single array read without locking or allocation, a miss replaces whatever the slot held before. The table should
+ * therefore be a few times larger than the number of distinct names written regularly; the hit rate exposed by
+ * {@link #hitRate()} shows whether it is. Names longer than {@link #MAX_KEY_LENGTH} chars are not cached.</p>
+ *
+ * <p>The cache is thread safe and can be shared by many encoders.</p>
+ */
+public final class LineProtocolKeyCache {
+
+  /**
+   * The default number of slots.
+   */
+  public static final int DEFAULT_CAPACITY = 4096;
+  /**
+   * The longest name which is cached.
+   */
+  public static final int MAX_KEY_LENGTH = 256;
+
+  private static final int HASH_SPREAD_SHIFT = 16;
+
+  private final Entry[] entries;
+  private final int mask;
+  private final boolean tagValues;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private static final class Entry {
+    private final String key;
+    private final byte[] escaped;
+
+    private Entry(final String key, final byte[] escaped) {
+      this.key = key;
+      this.escaped = escaped;
+    }
+  }
+
+  /**
+   * Create a cache with {@link #DEFAULT_CAPACITY} slots, which does not cache tag values.
+   */
+  public LineProtocolKeyCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a cache which does not cache tag values.
+   *
+   * @param capacity the number of slots, rounded up to the next power of two
+   */
+  public LineProtocolKeyCache(final int capacity) {
+    this(capacity, false);
+  }
+
+  /**
+   * @param capacity the number of slots, rounded up to the next power of two
+   * @param tagValues true to cache the tag values as well, only for tags with few distinct values
+   */
+  public LineProtocolKeyCache(final int capacity, final boolean tagValues) {
+    if (capacity < 1 || capacity > (1 << (Integer.SIZE - 2))) {
+      throw new IllegalArgumentException("Expecting a capacity between 1 and 2^30, but was " + capacity);
+    }
+    int slots = 1;
+    while (slots < capacity) {
+      slots <<= 1;
+    }
+    this.entries = new Entry[slots];
+    this.mask = slots - 1;
+    this.tagValues = tagValues;
+  }
+
+  /**
+   * @return true if the tag values are cached as well
+   */
+  public boolean isCachingTagValues() {
+    return tagValues;
+  }
+
+  /**
+   * @param key the raw name
+   * @return the escaped UTF-8 bytes of the name, null if the name is not cached. Must not be modified.
+   */
+  byte[] get(final String key) {
+    // entries are immutable, a racy read sees either a complete entry or an older one
+    Entry entry = entries[slot(key)];
+    if (entry != null && (entry.key == key || entry.key.equals(key))) {
+      hits.increment();
+      return entry.escaped;
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * @param key the raw name
+   * @param escaped the escaped UTF-8 bytes of the name
+   */
+  void put(final String key, final byte[] escaped) {
+    if (key.length() > MAX_KEY_LENGTH) {
+      return;
+    }
+    int slot = slot(key);
+    if (entries[slot] != null) {
+      evictions.increment();
+    }
+    entries[slot] = new Entry(key, escaped);
+  }
+
+  private int slot(final String key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> HASH_SPREAD_SHIFT)) & mask;
+  }
+
+  /**
+   * @return the number of slots
+   */
+  public int capacity() {
+    return entries.length;
+  }
+
+  /**
+   * @return the number of lookups which found the name
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of lookups which did not find the name
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of cached names replaced by another name
+   */
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return the ratio of lookups which found the name, 1 if there were no lookups yet
+   */
+  public double hitRate() {
+    long hitCount = hitCount();
+    long lookups = hitCount + missCount();
+    if (lookups == 0) {
+      return 1;
+    }
+    return (double) hitCount / lookups;
+  }
+}
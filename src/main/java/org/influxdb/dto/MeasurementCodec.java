@@ -0,0 +1,84 @@
+package org.influxdb.dto;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The mapping of a class annotated with {@link org.influxdb.annotation.Measurement} to points and from the rows of
+ * query results, with direct field accesses instead of reflection.
+ *
+ * <p>Codecs are generated at build time by the optional
+ * {@code org.influxdb.annotation.processor.MeasurementCodecProcessor} as class {@code <measurement class>}
+ * {@value #SUFFIX} in the package of the measurement class. {@link PointWriter} and
+ * {@link org.influxdb.impl.InfluxDBResultMapper} use the codec of a class when it is present and fall back to
+ * reflection otherwise, see {@link org.influxdb.impl.MeasurementCodecs}.</p>
+ *
+ * <p>The fields are numbered in the order of {@link #getColumnNames()}. The values passed to
+ * {@link #set(Object, int, Object)} are already converted to the type of the field, boxed for primitive fields.</p>
+ *
+ * @param <T> the measurement class
+ */
+public interface MeasurementCodec<T> {
+
+  /**
+   * The suffix of the name of a generated codec class.
+   */
+  String SUFFIX = "MeasurementCodec";
+
+  /**
+   * @return the name of the measurement
+   */
+  String getMeasurement();
+
+  /**
+   * @return the column or tag name of every mapped field
+   */
+  List<String> getColumnNames();
+
+  /**
+   * @param field the index of the field
+   * @return the declared type of the field
+   */
+  Class<?> getFieldType(int field);
+
+  /**
+   * @return a new instance of the measurement class
+   */
+  T newInstance();
+
+  /**
+   * Set a field of an instance.
+   *
+   * @param pojo the instance
+   * @param field the index of the field
+   * @param value the value of the type of the field, not null
+   */
+  void set(T pojo, int field, Object value);
+
+  /**
+   * Add the time, tags and fields of an instance to a point. Null values and empty tags are skipped.
+   *
+   * @param pojo the instance
+   * @param builder the builder of the point
+   */
+  void write(T pojo, Point.Builder builder);
+
+  /**
+   * Convert the instant of a time column to the time of a point.
+   *
+   * @param instant the instant
+   * @param timeUnit the time unit of the time column
+   * @return the time in the time unit, a BigInteger for nanoseconds and microseconds
+   */
+  static Number time(final Instant instant, final TimeUnit timeUnit) {
+    if (timeUnit == TimeUnit.NANOSECONDS || timeUnit == TimeUnit.MICROSECONDS) {
+      return BigInteger.valueOf(instant.getEpochSecond())
+          .multiply(BigInteger.valueOf(TimeUnit.SECONDS.toNanos(1)))
+          .add(BigInteger.valueOf(instant.getNano()))
+          .divide(BigInteger.valueOf(TimeUnit.NANOSECONDS.convert(1, timeUnit)));
+    }
+    return timeUnit.convert(instant.toEpochMilli(), TimeUnit.MILLISECONDS);
+  }
+}
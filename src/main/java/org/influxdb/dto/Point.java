@@ -1,29 +1,19 @@
 package org.influxdb.dto;
 
-import org.influxdb.BuilderException;
-import org.influxdb.InfluxDBMapperException;
-import org.influxdb.annotation.Column;
-import org.influxdb.annotation.Exclude;
 import org.influxdb.annotation.Measurement;
-import org.influxdb.annotation.TimeColumn;
 import org.influxdb.impl.Preconditions;
-import org.influxdb.impl.TypeMapper;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
-import java.time.Instant;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
@@ -38,9 +28,11 @@ public class Point {
   private Map<String, String> tags;
   private Number time;
   private TimeUnit precision = TimeUnit.NANOSECONDS;
-  private Map<String, Object> fields;
+  private PointFields fields;
+  // the escaped measurement, tags and fields of a row of a SeriesWriter, which replace the (empty) fields
+  private byte[] encodedRow;
   private static final int MAX_FRACTION_DIGITS = 340;
-  private static final ThreadLocal<NumberFormat> NUMBER_FORMATTER =
+  static final ThreadLocal<NumberFormat> NUMBER_FORMATTER =
           ThreadLocal.withInitial(() -> {
             NumberFormat numberFormat = NumberFormat.getInstance(Locale.ENGLISH);
             numberFormat.setMaximumFractionDigits(MAX_FRACTION_DIGITS);
@@ -97,12 +89,13 @@ public class Point {
    *
    */
   public static final class Builder {
-    private static final BigInteger NANOSECONDS_PER_SECOND = BigInteger.valueOf(1000000000L);
     private final String measurement;
     private final Map<String, String> tags = new TreeMap<>();
     private Number time;
     private TimeUnit precision;
-    private final Map<String, Object> fields = new TreeMap<>();
+    private PointFields fields = new PointFields();
+    // the fields are handed over to the built point and copied before the next change
+    private boolean fieldsShared;
 
     /**
      * @param measurement
@@ -129,6 +122,14 @@ public class Point {
       return this;
     }
 
+    /**
+     * Add a tag of a POJO as it is, also if it is empty.
+     */
+    Builder putTag(final String tagName, final String value) {
+      tags.put(tagName, value);
+      return this;
+    }
+
     /**
      * Add a Map of tags to add to this point.
      *
@@ -168,49 +169,49 @@ public class Point {
           value = ((BigInteger) value).doubleValue();
         }
       }
-      fields.put(field, value);
+      fields().put(field, value);
       return this;
     }
 
     public Builder addField(final String field, final boolean value) {
-      fields.put(field, value);
+      fields().putBoolean(field, value);
       return this;
     }
 
     public Builder addField(final String field, final long value) {
-      fields.put(field, value);
+      fields().putLong(field, value);
       return this;
     }
 
     public Builder addField(final String field, final double value) {
-      fields.put(field, value);
+      fields().putDouble(field, value);
       return this;
     }
 
     public Builder addField(final String field, final int value) {
-      fields.put(field, value);
+      fields().putInteger(field, value);
       return this;
     }
 
     public Builder addField(final String field, final float value) {
-      fields.put(field, value);
+      fields().putFloat(field, value);
       return this;
     }
 
     public Builder addField(final String field, final short value) {
-      fields.put(field, value);
+      fields().putShort(field, value);
       return this;
     }
 
     public Builder addField(final String field, final Number value) {
-      fields.put(field, value);
+      fields().put(field, value);
       return this;
     }
 
     public Builder addField(final String field, final String value) {
       Objects.requireNonNull(value, "value");
 
-      fields.put(field, value);
+      fields().put(field, value);
       return this;
     }
 
@@ -222,7 +223,7 @@ public class Point {
      * @return the Builder instance.
      */
     public Builder fields(final Map<String, Object> fieldsToAdd) {
-      this.fields.putAll(fieldsToAdd);
+      fields().putAll(fieldsToAdd);
       return this;
     }
 
@@ -271,112 +272,21 @@ public class Point {
      * @return true, if the builder contains any fields, false otherwise.
      */
     public boolean hasFields() {
-      return !fields.isEmpty();
+      return fields.size() > 0;
     }
 
     /**
      * Adds field map from object by reflection using {@link org.influxdb.annotation.Column}
-     * annotation.
+     * annotation, read through the cached {@link PointWriter} of its class.
      *
      * @param pojo POJO Object with annotation {@link org.influxdb.annotation.Column} on fields
      * @return the Builder instance
      */
     public Builder addFieldsFromPOJO(final Object pojo) {
-
-      Class<?> clazz = pojo.getClass();
-      Measurement measurement = clazz.getAnnotation(Measurement.class);
-      boolean allFields = measurement != null && measurement.allFields();
-
-      while (clazz != null) {
-
-      TypeMapper typeMapper = TypeMapper.empty();
-      while (clazz != null) {
-        for (Field field : clazz.getDeclaredFields()) {
-
-          Column column = field.getAnnotation(Column.class);
-
-          if (column == null && !(allFields
-                  && !field.isAnnotationPresent(Exclude.class) && !Modifier.isStatic(field.getModifiers()))) {
-            continue;
-          }
-
-          field.setAccessible(true);
-
-          String fieldName;
-          if (column != null && !column.name().isEmpty()) {
-            fieldName = column.name();
-          } else {
-            fieldName = field.getName();
-          }
-
-          addFieldByAttribute(pojo, field, column != null && column.tag(), fieldName, typeMapper);
-        }
-
-        Class<?> superclass = clazz.getSuperclass();
-        Type genericSuperclass = clazz.getGenericSuperclass();
-        if (genericSuperclass instanceof ParameterizedType) {
-          typeMapper = TypeMapper.of((ParameterizedType) genericSuperclass, superclass);
-        } else {
-          typeMapper = TypeMapper.empty();
-        }
-
-        clazz = superclass;
-      }
-    }
-
-      if (this.fields.isEmpty()) {
-        throw new BuilderException("Class " + pojo.getClass().getName()
-            + " has no @" + Column.class.getSimpleName() + " annotation");
-      }
-
+      PointWriter.forClass(pojo.getClass()).addFields(this, pojo);
       return this;
     }
 
-    private void addFieldByAttribute(final Object pojo, final Field field, final boolean tag,
-                                     final String fieldName, final TypeMapper typeMapper) {
-      try {
-        Object fieldValue = field.get(pojo);
-
-        TimeColumn tc = field.getAnnotation(TimeColumn.class);
-        Class<?> fieldType = (Class<?>) typeMapper.resolve(field.getGenericType());
-        if (tc != null) {
-          if (Instant.class.isAssignableFrom(fieldType)) {
-            Optional.ofNullable((Instant) fieldValue).ifPresent(instant -> {
-              TimeUnit timeUnit = tc.timeUnit();
-              if (timeUnit == TimeUnit.NANOSECONDS || timeUnit == TimeUnit.MICROSECONDS) {
-                this.time = BigInteger.valueOf(instant.getEpochSecond())
-                        .multiply(NANOSECONDS_PER_SECOND)
-                        .add(BigInteger.valueOf(instant.getNano()))
-                        .divide(BigInteger.valueOf(TimeUnit.NANOSECONDS.convert(1, timeUnit)));
-              } else {
-                this.time = timeUnit.convert(instant.toEpochMilli(), TimeUnit.MILLISECONDS);
-              }
-              this.precision = timeUnit;
-            });
-            return;
-          }
-
-          throw new InfluxDBMapperException(
-              "Unsupported type " + fieldType + " for time: should be of Instant type");
-        }
-
-        if (tag) {
-          if (fieldValue != null) {
-            this.tags.put(fieldName, (String) fieldValue);
-          }
-        } else {
-          if (fieldValue != null) {
-            setField(fieldType, fieldName, fieldValue);
-          }
-        }
-
-      } catch (IllegalArgumentException | IllegalAccessException e) {
-        // Can not happen since we use metadata got from the object
-        throw new BuilderException(
-            "Field " + fieldName + " could not found on class " + pojo.getClass().getSimpleName());
-      }
-    }
-
     /**
      * Create a new Point.
      *
@@ -387,6 +297,7 @@ public class Point {
       Preconditions.checkPositiveNumber(this.fields.size(), "fields size");
       Point point = new Point();
       point.setFields(this.fields);
+      this.fieldsShared = true;
       point.setMeasurement(this.measurement);
       if (this.time != null) {
           point.setTime(this.time);
@@ -396,33 +307,22 @@ public class Point {
       return point;
     }
 
-    private void setField(
-            final Class<?> fieldType,
-            final String columnName,
-            final Object value) {
-      if (boolean.class.isAssignableFrom(fieldType) || Boolean.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (boolean) value);
-      } else if (long.class.isAssignableFrom(fieldType) || Long.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (long) value);
-      } else if (double.class.isAssignableFrom(fieldType) || Double.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (double) value);
-      } else if (float.class.isAssignableFrom(fieldType) || Float.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (float) value);
-      } else if (int.class.isAssignableFrom(fieldType) || Integer.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (int) value);
-      } else if (short.class.isAssignableFrom(fieldType) || Short.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (short) value);
-      } else if (String.class.isAssignableFrom(fieldType)) {
-        addField(columnName, (String) value);
-      } else if (Enum.class.isAssignableFrom(fieldType)) {
-        addField(columnName, ((Enum<?>) value).name());
-      } else {
-        throw new InfluxDBMapperException(
-                "Unsupported type " + fieldType + " for column " + columnName);
+    private PointFields fields() {
+      if (fieldsShared) {
+        fields = fields.copy();
+        fieldsShared = false;
       }
+      return fields;
     }
   }
 
+  /**
+   * @return the measurement
+   */
+  String getMeasurement() {
+    return this.measurement;
+  }
+
   /**
    * @param measurement
    *            the measurement to set
@@ -439,6 +339,13 @@ public class Point {
     this.time = time;
   }
 
+  /**
+   * @return the time
+   */
+  Number getTime() {
+    return this.time;
+  }
+
   /**
    * @param tags
    *            the tags to set
@@ -463,9 +370,38 @@ public class Point {
   }
 
   /**
-   * @return the fields
+   * @return the precision of the time
+   */
+  TimeUnit getPrecision() {
+    return this.precision;
+  }
+
+  /**
+   * @return a sorted copy of the fields with boxed values
    */
   Map<String, Object> getFields() {
+    return this.fields.toMap();
+  }
+
+  /**
+   * @param encodedRow
+   *            the encoded line protocol of the point without the timestamp
+   */
+  void setEncodedRow(final byte[] encodedRow) {
+    this.encodedRow = encodedRow;
+  }
+
+  /**
+   * @return the encoded line protocol of the point without the timestamp, null if the point has fields
+   */
+  byte[] getEncodedRow() {
+    return this.encodedRow;
+  }
+
+  /**
+   * @return the fields
+   */
+  PointFields getPointFields() {
     return this.fields;
   }
 
@@ -474,6 +410,14 @@ public class Point {
    *            the fields to set
    */
   void setFields(final Map<String, Object> fields) {
+    this.fields = PointFields.of(fields);
+  }
+
+  /**
+   * @param fields
+   *            the fields to set
+   */
+  void setFields(final PointFields fields) {
     this.fields = fields;
   }
 
@@ -490,12 +434,13 @@ public class Point {
             && Objects.equals(tags, point.tags)
             && Objects.equals(time, point.time)
             && precision == point.precision
-            && Objects.equals(fields, point.fields);
+            && Objects.equals(fields, point.fields)
+            && Arrays.equals(encodedRow, point.encodedRow);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(measurement, tags, time, precision, fields);
+    return Objects.hash(measurement, tags, time, precision, fields, Arrays.hashCode(encodedRow));
   }
 
   /**
@@ -516,8 +461,13 @@ public class Point {
       builder.append(", precision=");
       builder.append(this.precision);
     }
-    builder.append(", fields=");
-    builder.append(this.fields);
+    if (this.encodedRow == null) {
+      builder.append(", fields=");
+      builder.append(this.fields);
+    } else {
+      builder.append(", row=");
+      builder.append(new String(this.encodedRow, StandardCharsets.UTF_8));
+    }
     builder.append("]");
     return builder.toString();
   }
@@ -556,15 +506,35 @@ public class Point {
     StringBuilder sb = CACHED_STRINGBUILDERS.get();
     sb.setLength(0);
 
+    appendLineProtocol(sb, precision);
+
+    return sb.toString();
+  }
+
+  /**
+   * Append the lineprotocol entry for a single point to the given StringBuilder, using a specific
+   * {@link TimeUnit} for the timestamp. Nothing is appended when there are no fields to write.
+   * <p>
+   * This allows to serialize many points into one reused buffer without creating a String per point.
+   *
+   * @param sb the StringBuilder to append the entry to, without newLine
+   * @param precision the time precision unit for this point
+   */
+  public void appendLineProtocol(final StringBuilder sb, final TimeUnit precision) {
+    if (encodedRow != null) {
+      sb.append(new String(encodedRow, StandardCharsets.UTF_8));
+      formatedTime(sb, precision);
+      return;
+    }
+    int start = sb.length();
     escapeKey(sb, measurement);
     concatenatedTags(sb);
     int writtenFields = concatenatedFields(sb);
     if (writtenFields == 0) {
-      return "";
+      sb.setLength(start);
+      return;
     }
     formatedTime(sb, precision);
-
-    return sb.toString();
   }
 
   private void concatenatedTags(final StringBuilder sb) {
@@ -579,26 +549,35 @@ public class Point {
 
   private int concatenatedFields(final StringBuilder sb) {
     int fieldCount = 0;
-    for (Entry<String, Object> field : this.fields.entrySet()) {
-      Object value = field.getValue();
-      if (value == null || isNotFinite(value)) {
-        continue;
-      }
-      escapeKey(sb, field.getKey());
-      sb.append('=');
-      if (value instanceof Number) {
-        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
-          sb.append(NUMBER_FORMATTER.get().format(value));
-        } else {
-          sb.append(value).append('i');
-        }
-      } else if (value instanceof String) {
-        String stringValue = (String) value;
-        sb.append('"');
-        escapeField(sb, stringValue);
-        sb.append('"');
-      } else {
-        sb.append(value);
+    PointFields fields = this.fields;
+    for (int i = 0; i < fields.size(); i++) {
+      switch (fields.type(i)) {
+        case PointFields.DOUBLE:
+        case PointFields.FLOAT:
+          double doubleValue = fields.doubleValue(i);
+          if (!Double.isFinite(doubleValue)) {
+            continue;
+          }
+          appendFieldKey(sb, fields.name(i));
+          sb.append(NUMBER_FORMATTER.get().format(doubleValue));
+          break;
+        case PointFields.LONG:
+        case PointFields.INTEGER:
+        case PointFields.SHORT:
+          appendFieldKey(sb, fields.name(i));
+          sb.append(fields.longValue(i)).append('i');
+          break;
+        case PointFields.BOOLEAN:
+          appendFieldKey(sb, fields.name(i));
+          sb.append(fields.booleanValue(i));
+          break;
+        default:
+          Object value = fields.objectValue(i);
+          if (value == null) {
+            continue;
+          }
+          appendFieldKey(sb, fields.name(i));
+          appendFieldValue(sb, value);
       }
 
       sb.append(',');
@@ -615,6 +594,28 @@ public class Point {
     return fieldCount;
   }
 
+  private static void appendFieldKey(final StringBuilder sb, final String key) {
+    escapeKey(sb, key);
+    sb.append('=');
+  }
+
+  private static void appendFieldValue(final StringBuilder sb, final Object value) {
+    if (value instanceof Number) {
+      if (value instanceof BigDecimal) {
+        sb.append(NUMBER_FORMATTER.get().format(value));
+      } else {
+        sb.append(value).append('i');
+      }
+    } else if (value instanceof String) {
+      String stringValue = (String) value;
+      sb.append('"');
+      escapeField(sb, stringValue);
+      sb.append('"');
+    } else {
+      sb.append(value);
+    }
+  }
+
   static void escapeKey(final StringBuilder sb, final String key) {
     for (int i = 0; i < key.length(); i++) {
       switch (key.charAt(i)) {
@@ -640,12 +641,7 @@ public class Point {
     }
   }
 
-  private static boolean isNotFinite(final Object value) {
-    return value instanceof Double && !Double.isFinite((Double) value)
-            || value instanceof Float && !Float.isFinite((Float) value);
-  }
-
-  private void formatedTime(final StringBuilder sb, final TimeUnit precision) {
+  void formatedTime(final StringBuilder sb, final TimeUnit precision) {
     if (this.time == null) {
       return;
     }
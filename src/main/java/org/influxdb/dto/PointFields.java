@@ -0,0 +1,312 @@
+package org.influxdb.dto;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * The fields of a {@link Point}, sorted by name like a {@code TreeMap<String, Object>} but without boxing.
+ *
+ * <p>Names, type tags and values are held in parallel arrays. Doubles, floats, longs, ints, shorts and booleans are
+ * stored in a long slot, as bits for the floating point types. Only other values, like Strings or
+ * {@link java.math.BigDecimal}s, are kept as Object in a second array, which is created for the first of them.
+ * Lookups and inserts use a binary search on the names, which is faster than a tree for the handful of fields a
+ * point usually has.</p>
+ */
+final class PointFields {
+
+  static final byte DOUBLE = 0;
+  static final byte FLOAT = 1;
+  static final byte LONG = 2;
+  static final byte INTEGER = 3;
+  static final byte SHORT = 4;
+  static final byte BOOLEAN = 5;
+  static final byte OBJECT = 6;
+
+  private static final int INITIAL_CAPACITY = 4;
+  private static final int HASH_MULTIPLIER = 31;
+
+  private String[] names;
+  private byte[] types;
+  private long[] values;
+  private Object[] objects;
+  private int size;
+
+  PointFields() {
+    this(INITIAL_CAPACITY);
+  }
+
+  private PointFields(final int capacity) {
+    this.names = new String[capacity];
+    this.types = new byte[capacity];
+    this.values = new long[capacity];
+  }
+
+  /**
+   * @param fields the fields to copy
+   * @return the fields of the map
+   */
+  static PointFields of(final Map<String, Object> fields) {
+    PointFields pointFields = new PointFields(Math.max(fields.size(), 1));
+    pointFields.putAll(fields);
+    return pointFields;
+  }
+
+  /**
+   * @return a copy which is independent of this instance
+   */
+  PointFields copy() {
+    PointFields copy = new PointFields(Math.max(size, 1));
+    System.arraycopy(names, 0, copy.names, 0, size);
+    System.arraycopy(types, 0, copy.types, 0, size);
+    System.arraycopy(values, 0, copy.values, 0, size);
+    if (objects != null) {
+      copy.objects = Arrays.copyOf(objects, copy.names.length);
+    }
+    copy.size = size;
+    return copy;
+  }
+
+  void putDouble(final String name, final double value) {
+    int index = slot(name, DOUBLE);
+    values[index] = Double.doubleToLongBits(value);
+  }
+
+  void putFloat(final String name, final float value) {
+    int index = slot(name, FLOAT);
+    values[index] = Double.doubleToLongBits(value);
+  }
+
+  void putLong(final String name, final long value) {
+    int index = slot(name, LONG);
+    values[index] = value;
+  }
+
+  void putInteger(final String name, final int value) {
+    int index = slot(name, INTEGER);
+    values[index] = value;
+  }
+
+  void putShort(final String name, final short value) {
+    int index = slot(name, SHORT);
+    values[index] = value;
+  }
+
+  void putBoolean(final String name, final boolean value) {
+    long bit = 0;
+    if (value) {
+      bit = 1;
+    }
+    int index = slot(name, BOOLEAN);
+    values[index] = bit;
+  }
+
+  /**
+   * Put a value of any type, boxed primitives are unboxed into their typed slot.
+   *
+   * @param name the field name
+   * @param value the value, may be null
+   */
+  void put(final String name, final Object value) {
+    if (value instanceof Double) {
+      putDouble(name, (Double) value);
+    } else if (value instanceof Long) {
+      putLong(name, (Long) value);
+    } else if (value instanceof Boolean) {
+      putBoolean(name, (Boolean) value);
+    } else if (value instanceof Integer) {
+      putInteger(name, (Integer) value);
+    } else if (value instanceof Float) {
+      putFloat(name, (Float) value);
+    } else if (value instanceof Short) {
+      putShort(name, (Short) value);
+    } else {
+      int index = slot(name, OBJECT);
+      if (objects == null) {
+        objects = new Object[names.length];
+      }
+      objects[index] = value;
+    }
+  }
+
+  void putAll(final Map<String, Object> fields) {
+    for (Entry<String, Object> field : fields.entrySet()) {
+      put(field.getKey(), field.getValue());
+    }
+  }
+
+  /**
+   * Find the index of the name, inserting it if it is not present yet, and set the type of the slot.
+   * The arrays may be replaced by larger ones, so they must be read after the call.
+   *
+   * @return the index of the name
+   */
+  private int slot(final String name, final byte type) {
+    int index = indexOf(name);
+    if (index < 0) {
+      index = -(index + 1);
+      if (size == names.length) {
+        grow();
+      }
+      int moved = size - index;
+      System.arraycopy(names, index, names, index + 1, moved);
+      System.arraycopy(types, index, types, index + 1, moved);
+      System.arraycopy(values, index, values, index + 1, moved);
+      if (objects != null) {
+        System.arraycopy(objects, index, objects, index + 1, moved);
+      }
+      names[index] = name;
+      size++;
+    }
+    types[index] = type;
+    if (objects != null) {
+      objects[index] = null;
+    }
+    return index;
+  }
+
+  private void grow() {
+    int capacity = names.length * 2;
+    names = Arrays.copyOf(names, capacity);
+    types = Arrays.copyOf(types, capacity);
+    values = Arrays.copyOf(values, capacity);
+    if (objects != null) {
+      objects = Arrays.copyOf(objects, capacity);
+    }
+  }
+
+  private int indexOf(final String name) {
+    Objects.requireNonNull(name, "name");
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = names[middle].compareTo(name);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  int size() {
+    return size;
+  }
+
+  String name(final int index) {
+    return names[index];
+  }
+
+  byte type(final int index) {
+    return types[index];
+  }
+
+  /**
+   * @return the value of a {@link #LONG}, {@link #INTEGER} or {@link #SHORT} field
+   */
+  long longValue(final int index) {
+    return values[index];
+  }
+
+  /**
+   * @return the value of a {@link #DOUBLE} or {@link #FLOAT} field
+   */
+  double doubleValue(final int index) {
+    return Double.longBitsToDouble(values[index]);
+  }
+
+  /**
+   * @return the value of a {@link #BOOLEAN} field
+   */
+  boolean booleanValue(final int index) {
+    return values[index] != 0;
+  }
+
+  /**
+   * @return the value of an {@link #OBJECT} field
+   */
+  Object objectValue(final int index) {
+    return objects[index];
+  }
+
+  /**
+   * @return the value of the field, boxed like it was added
+   */
+  Object get(final int index) {
+    switch (types[index]) {
+      case DOUBLE:
+        return doubleValue(index);
+      case FLOAT:
+        return (float) doubleValue(index);
+      case LONG:
+        return values[index];
+      case INTEGER:
+        return (int) values[index];
+      case SHORT:
+        return (short) values[index];
+      case BOOLEAN:
+        return booleanValue(index);
+      default:
+        return objects[index];
+    }
+  }
+
+  /**
+   * @return the fields as sorted map of boxed values
+   */
+  Map<String, Object> toMap() {
+    Map<String, Object> map = new TreeMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(names[i], get(i));
+    }
+    return map;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PointFields that = (PointFields) o;
+    if (size != that.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (!names[i].equals(that.names[i]) || types[i] != that.types[i]) {
+        return false;
+      }
+      if (types[i] == OBJECT) {
+        if (!Objects.equals(objects[i], that.objects[i])) {
+          return false;
+        }
+      } else if (values[i] != that.values[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    for (int i = 0; i < size; i++) {
+      hash = HASH_MULTIPLIER * hash + names[i].hashCode();
+      hash = HASH_MULTIPLIER * hash + Objects.hashCode(get(i));
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return toMap().toString();
+  }
+}
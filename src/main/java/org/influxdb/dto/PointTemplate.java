@@ -0,0 +1,202 @@
+package org.influxdb.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.influxdb.impl.Preconditions;
+
+/**
+ * The fixed part of a series: measurement, tags and the names of its fields, encoded once into line protocol bytes.
+ *
+ * <p>A template is the counterpart of {@link Point} for series which are written at a high frequency and where only
+ * the field values and the timestamp change from point to point. Rows of the series are appended to a
+ * {@link SeriesWriter}, which copies the pre-encoded measurement and tags and encodes only the values, without
+ * creating a {@link Point} with its maps and boxed values for every row.</p>
+ *
+ * <pre>
+ * PointTemplate cpu = PointTemplate.measurement("cpu").tag("host", "server01").fields("idle", "user").build();
+ * seriesWriter.row(cpu, System.currentTimeMillis(), TimeUnit.MILLISECONDS).field(90.5).field(4.5).end();
+ * </pre>
+ *
+ * <p>A template is immutable and can be shared between threads.</p>
+ */
+public final class PointTemplate {
+
+  private final String measurement;
+  private final Map<String, String> tags;
+  private final List<String> fieldNames;
+  private final byte[] prefix;
+  private final byte[][] fieldKeys;
+
+  private PointTemplate(final String measurement, final Map<String, String> tags, final List<String> fieldNames) {
+    this.measurement = measurement;
+    this.tags = Collections.unmodifiableMap(tags);
+    this.fieldNames = Collections.unmodifiableList(fieldNames);
+
+    LineProtocolEncoder encoder = new LineProtocolEncoder(0);
+    encoder.writeEscapedKey(measurement);
+    for (Entry<String, String> tag : tags.entrySet()) {
+      encoder.writeByte(',');
+      encoder.writeEscapedKey(tag.getKey());
+      encoder.writeByte('=');
+      encoder.writeEscapedKey(tag.getValue());
+    }
+    encoder.writeByte(' ');
+    this.prefix = encoder.toByteArray();
+
+    this.fieldKeys = new byte[fieldNames.size()][];
+    for (int i = 0; i < fieldKeys.length; i++) {
+      encoder.reset();
+      encoder.writeEscapedKey(fieldNames.get(i));
+      encoder.writeByte('=');
+      fieldKeys[i] = encoder.toByteArray();
+    }
+  }
+
+  /**
+   * Create a new template builder for a series of the given measurement.
+   *
+   * @param measurement the name of the measurement
+   * @return the Builder to be able to add further Builder calls.
+   */
+  public static Builder measurement(final String measurement) {
+    return new Builder(measurement);
+  }
+
+  /**
+   * Builder for a new PointTemplate.
+   */
+  public static final class Builder {
+    private final String measurement;
+    private final Map<String, String> tags = new TreeMap<>();
+    private final List<String> fieldNames = new ArrayList<>();
+
+    Builder(final String measurement) {
+      this.measurement = measurement;
+    }
+
+    /**
+     * Add a tag to the series.
+     *
+     * @param tagName the tag name
+     * @param value the tag value
+     * @return the Builder instance.
+     */
+    public Builder tag(final String tagName, final String value) {
+      Objects.requireNonNull(tagName, "tagName");
+      Objects.requireNonNull(value, "value");
+      if (!tagName.isEmpty() && !value.isEmpty()) {
+        tags.put(tagName, value);
+      }
+      return this;
+    }
+
+    /**
+     * Add a Map of tags to the series.
+     *
+     * @param tagsToAdd the Map of tags to add
+     * @return the Builder instance.
+     */
+    public Builder tag(final Map<String, String> tagsToAdd) {
+      for (Entry<String, String> tag : tagsToAdd.entrySet()) {
+        tag(tag.getKey(), tag.getValue());
+      }
+      return this;
+    }
+
+    /**
+     * Add the names of fields, in the order their values are appended to a row.
+     *
+     * @param names the field names
+     * @return the Builder instance.
+     */
+    public Builder fields(final String... names) {
+      for (String name : names) {
+        Preconditions.checkNonEmptyString(name, "field name");
+        if (fieldNames.contains(name)) {
+          throw new IllegalArgumentException("Field '" + name + "' is declared twice");
+        }
+        fieldNames.add(name);
+      }
+      return this;
+    }
+
+    /**
+     * Create a new PointTemplate.
+     *
+     * @return the newly created PointTemplate.
+     */
+    public PointTemplate build() {
+      Preconditions.checkNonEmptyString(this.measurement, "measurement");
+      Preconditions.checkPositiveNumber(this.fieldNames.size(), "fields size");
+      return new PointTemplate(measurement, new TreeMap<>(tags), new ArrayList<>(fieldNames));
+    }
+  }
+
+  /**
+   * @return the measurement of the series
+   */
+  public String getMeasurement() {
+    return measurement;
+  }
+
+  /**
+   * @return the tags of the series, sorted by tag name
+   */
+  public Map<String, String> getTags() {
+    return tags;
+  }
+
+  /**
+   * @return the field names in the order their values are appended to a row
+   */
+  public List<String> getFieldNames() {
+    return fieldNames;
+  }
+
+  /**
+   * @return the line protocol of measurement and tags, including the space before the fields
+   */
+  byte[] prefix() {
+    return prefix;
+  }
+
+  /**
+   * @param index the index of the field
+   * @return the escaped field name followed by '='
+   */
+  byte[] fieldKey(final int index) {
+    return fieldKeys[index];
+  }
+
+  int fieldCount() {
+    return fieldKeys.length;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PointTemplate that = (PointTemplate) o;
+    return measurement.equals(that.measurement) && tags.equals(that.tags) && fieldNames.equals(that.fieldNames);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(measurement, tags, fieldNames);
+  }
+
+  @Override
+  public String toString() {
+    return "PointTemplate [measurement=" + measurement + ", tags=" + tags + ", fieldNames=" + fieldNames + "]";
+  }
+}
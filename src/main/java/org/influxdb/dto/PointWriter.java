@@ -0,0 +1,368 @@
+package org.influxdb.dto;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.BuilderException;
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Exclude;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.annotation.TimeColumn;
+import org.influxdb.impl.MeasurementCodecs;
+import org.influxdb.impl.TypeMapper;
+
+/**
+ * Writes the instances of a class annotated with {@link Measurement} as {@link Point}s.
+ *
+ * <p>The {@link Column}, {@link TimeColumn} and {@link Exclude} annotations of the class and its super classes are
+ * read once per class, and every mapped field is read through a {@link MethodHandle} of its getter, which returns
+ * the primitive value for primitive fields. The writer of a class is cached, so writing an instance neither walks
+ * the class hierarchy nor checks the field types again. A {@link MeasurementCodec} generated for the class is used
+ * instead of the getters when it is present.</p>
+ *
+ * <pre>
+ * PointWriter&lt;Cpu&gt; writer = PointWriter.of(Cpu.class);
+ * for (Cpu cpu : cpus) {
+ *   batchPoints.point(writer.toPoint(cpu));
+ * }
+ * </pre>
+ *
+ * <p>A PointWriter is immutable and thread safe.</p>
+ *
+ * @param <T> the class of the measurement POJO
+ */
+public final class PointWriter<T> {
+
+  private static final String UNASSIGNED = "[unassigned]";
+  private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<PointWriter<?>> WRITERS = new ClassValue<PointWriter<?>>() {
+    @Override
+    protected PointWriter<?> computeValue(final Class<?> type) {
+      return new PointWriter<>(type);
+    }
+  };
+
+  /**
+   * The way a field is added to the point, the kinds before {@code STRING} are read as primitives from primitive
+   * fields.
+   */
+  private enum Kind {
+    BOOLEAN, LONG, DOUBLE, FLOAT, INTEGER, SHORT, STRING, ENUM, UNSUPPORTED, TAG, TIME, UNSUPPORTED_TIME
+  }
+
+  private final Class<T> type;
+  private final Measurement measurement;
+  // the generated codec of the class, null if the fields are read through the accessors
+  private final MeasurementCodec<T> codec;
+  private final Accessor[] accessors;
+
+  private PointWriter(final Class<T> type) {
+    this.type = type;
+    this.measurement = type.getAnnotation(Measurement.class);
+    this.codec = MeasurementCodecs.find(type);
+    if (codec == null) {
+      this.accessors = accessors(type, measurement != null && measurement.allFields());
+    } else {
+      this.accessors = new Accessor[0];
+    }
+  }
+
+  /**
+   * Get the cached writer of a measurement class.
+   *
+   * @param clazz the class annotated with {@link Measurement}
+   * @param <T> the class of the measurement POJO
+   * @return the writer of the class
+   * @throws IllegalArgumentException if the class is not annotated with {@link Measurement}
+   */
+  public static <T> PointWriter<T> of(final Class<T> clazz) {
+    Objects.requireNonNull(clazz, "clazz");
+    if (!clazz.isAnnotationPresent(Measurement.class)) {
+      throw new IllegalArgumentException("Class " + clazz.getName() + " is not annotated with @"
+          + Measurement.class.getSimpleName());
+    }
+    return forClass(clazz);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> PointWriter<T> forClass(final Class<T> clazz) {
+    return (PointWriter<T>) WRITERS.get(clazz);
+  }
+
+  /**
+   * @return the name of the measurement
+   */
+  public String getMeasurement() {
+    return measurement.name();
+  }
+
+  /**
+   * @return the database of the measurement, null if it is not assigned
+   */
+  public String getDatabase() {
+    String database = measurement.database();
+    if (UNASSIGNED.equals(database)) {
+      return null;
+    }
+    return database;
+  }
+
+  /**
+   * @return the retention policy of the measurement
+   */
+  public String getRetentionPolicy() {
+    return measurement.retentionPolicy();
+  }
+
+  /**
+   * Create the point of an instance.
+   *
+   * @param pojo the instance of the measurement class
+   * @return the point with the tags, fields and time of the instance
+   * @throws BuilderException if the instance has no field to write
+   */
+  public Point toPoint(final T pojo) {
+    Point.Builder builder = Point.measurement(getMeasurement());
+    addFields(builder, pojo);
+    return builder.build();
+  }
+
+  /**
+   * Append the line protocol entry of an instance to the given StringBuilder.
+   *
+   * @param pojo the instance of the measurement class
+   * @param sb the StringBuilder to append the entry to, without newLine
+   * @param precision the time precision unit of the entry
+   * @see Point#appendLineProtocol(StringBuilder, TimeUnit)
+   */
+  public void appendLineProtocol(final T pojo, final StringBuilder sb, final TimeUnit precision) {
+    toPoint(pojo).appendLineProtocol(sb, precision);
+  }
+
+  /**
+   * Add the tags, fields and time of an instance to a point.
+   */
+  void addFields(final Point.Builder builder, final Object pojo) {
+    if (codec != null) {
+      codec.write(type.cast(pojo), builder);
+    }
+    for (Accessor accessor : accessors) {
+      try {
+        accessor.add(builder, pojo);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new BuilderException("Field " + accessor.name + " could not found on class " + type.getSimpleName());
+      }
+    }
+    if (!builder.hasFields()) {
+      throw new BuilderException("Class " + type.getName()
+          + " has no @" + Column.class.getSimpleName() + " annotation");
+    }
+  }
+
+  private static Accessor[] accessors(final Class<?> type, final boolean allFields) {
+    List<Accessor> accessors = new ArrayList<>();
+    TypeMapper typeMapper = TypeMapper.empty();
+    Class<?> clazz = type;
+    while (clazz != null) {
+      for (Field field : clazz.getDeclaredFields()) {
+        Column column = field.getAnnotation(Column.class);
+        if (column == null && !(allFields
+            && !field.isAnnotationPresent(Exclude.class) && !Modifier.isStatic(field.getModifiers()))) {
+          continue;
+        }
+        String fieldName;
+        if (column != null && !column.name().isEmpty()) {
+          fieldName = column.name();
+        } else {
+          fieldName = field.getName();
+        }
+        accessors.add(Accessor.of(field, column != null && column.tag(), fieldName, typeMapper));
+      }
+
+      Class<?> superclass = clazz.getSuperclass();
+      Type genericSuperclass = clazz.getGenericSuperclass();
+      if (genericSuperclass instanceof ParameterizedType) {
+        typeMapper = TypeMapper.of((ParameterizedType) genericSuperclass, superclass);
+      } else {
+        typeMapper = TypeMapper.empty();
+      }
+      clazz = superclass;
+    }
+    return accessors.toArray(new Accessor[0]);
+  }
+
+  /**
+   * The compiled getter of a mapped field.
+   */
+  private static final class Accessor {
+    private final String name;
+    private final Class<?> fieldType;
+    private final Kind kind;
+    // the getter, returning the primitive value for a primitive field
+    private final MethodHandle getter;
+    private final boolean primitive;
+    private final TimeUnit timeUnit;
+    // the failure to resolve the generic type of the field
+    private final RuntimeException unresolved;
+
+    private Accessor(final String name, final Class<?> fieldType, final Kind kind, final MethodHandle getter,
+                     final TimeUnit timeUnit, final RuntimeException unresolved) {
+      this.name = name;
+      this.fieldType = fieldType;
+      this.kind = kind;
+      this.getter = getter;
+      this.primitive = fieldType != null && fieldType.isPrimitive() && kind.ordinal() < Kind.STRING.ordinal();
+      this.timeUnit = timeUnit;
+      this.unresolved = unresolved;
+    }
+
+    static Accessor of(final Field field, final boolean tag, final String name, final TypeMapper typeMapper) {
+      TimeColumn tc = field.getAnnotation(TimeColumn.class);
+      TimeUnit timeUnit = null;
+      if (tc != null) {
+        timeUnit = tc.timeUnit();
+      }
+      Class<?> fieldType;
+      try {
+        fieldType = (Class<?>) typeMapper.resolve(field.getGenericType());
+      } catch (RuntimeException e) {
+        return new Accessor(name, null, Kind.UNSUPPORTED, null, timeUnit, e);
+      }
+      Kind kind = kindOf(fieldType, tag, tc != null);
+
+      MethodHandle getter;
+      try {
+        field.setAccessible(true);
+        getter = MethodHandles.lookup().unreflectGetter(field);
+      } catch (IllegalAccessException e) {
+        throw new BuilderException("Field " + name + " could not found on class "
+            + field.getDeclaringClass().getSimpleName());
+      }
+      if (fieldType.isPrimitive() && kind.ordinal() < Kind.STRING.ordinal()) {
+        getter = getter.asType(MethodType.methodType(fieldType, Object.class));
+      } else {
+        getter = getter.asType(OBJECT_GETTER);
+      }
+      return new Accessor(name, fieldType, kind, getter, timeUnit, null);
+    }
+
+    private static Kind kindOf(final Class<?> fieldType, final boolean tag, final boolean time) {
+      if (time) {
+        if (Instant.class.isAssignableFrom(fieldType)) {
+          return Kind.TIME;
+        }
+        return Kind.UNSUPPORTED_TIME;
+      }
+      if (tag) {
+        return Kind.TAG;
+      }
+      if (boolean.class.isAssignableFrom(fieldType) || Boolean.class.isAssignableFrom(fieldType)) {
+        return Kind.BOOLEAN;
+      } else if (long.class.isAssignableFrom(fieldType) || Long.class.isAssignableFrom(fieldType)) {
+        return Kind.LONG;
+      } else if (double.class.isAssignableFrom(fieldType) || Double.class.isAssignableFrom(fieldType)) {
+        return Kind.DOUBLE;
+      } else if (float.class.isAssignableFrom(fieldType) || Float.class.isAssignableFrom(fieldType)) {
+        return Kind.FLOAT;
+      } else if (int.class.isAssignableFrom(fieldType) || Integer.class.isAssignableFrom(fieldType)) {
+        return Kind.INTEGER;
+      } else if (short.class.isAssignableFrom(fieldType) || Short.class.isAssignableFrom(fieldType)) {
+        return Kind.SHORT;
+      } else if (String.class.isAssignableFrom(fieldType)) {
+        return Kind.STRING;
+      } else if (Enum.class.isAssignableFrom(fieldType)) {
+        return Kind.ENUM;
+      }
+      return Kind.UNSUPPORTED;
+    }
+
+    void add(final Point.Builder builder, final Object pojo) throws Throwable {
+      if (unresolved != null) {
+        throw unresolved;
+      }
+      if (primitive) {
+        addPrimitive(builder, pojo);
+        return;
+      }
+      if (kind == Kind.UNSUPPORTED_TIME) {
+        throw new InfluxDBMapperException(
+            "Unsupported type " + fieldType + " for time: should be of Instant type");
+      }
+      Object value = (Object) getter.invokeExact(pojo);
+      if (value == null) {
+        return;
+      }
+      switch (kind) {
+        case TIME:
+          builder.time(MeasurementCodec.time((Instant) value, timeUnit), timeUnit);
+          break;
+        case TAG:
+          builder.putTag(name, (String) value);
+          break;
+        case BOOLEAN:
+          builder.addField(name, (boolean) value);
+          break;
+        case LONG:
+          builder.addField(name, (long) value);
+          break;
+        case DOUBLE:
+          builder.addField(name, (double) value);
+          break;
+        case FLOAT:
+          builder.addField(name, (float) value);
+          break;
+        case INTEGER:
+          builder.addField(name, (int) value);
+          break;
+        case SHORT:
+          builder.addField(name, (short) value);
+          break;
+        case STRING:
+          builder.addField(name, (String) value);
+          break;
+        case ENUM:
+          builder.addField(name, ((Enum<?>) value).name());
+          break;
+        default:
+          throw new InfluxDBMapperException("Unsupported type " + fieldType + " for column " + name);
+      }
+    }
+
+    private void addPrimitive(final Point.Builder builder, final Object pojo) throws Throwable {
+      switch (kind) {
+        case BOOLEAN:
+          builder.addField(name, (boolean) getter.invokeExact(pojo));
+          break;
+        case LONG:
+          builder.addField(name, (long) getter.invokeExact(pojo));
+          break;
+        case DOUBLE:
+          builder.addField(name, (double) getter.invokeExact(pojo));
+          break;
+        case FLOAT:
+          builder.addField(name, (float) getter.invokeExact(pojo));
+          break;
+        case INTEGER:
+          builder.addField(name, (int) getter.invokeExact(pojo));
+          break;
+        default:
+          builder.addField(name, (short) getter.invokeExact(pojo));
+      }
+    }
+
+  }
+}
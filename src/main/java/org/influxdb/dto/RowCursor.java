@@ -0,0 +1,121 @@
+package org.influxdb.dto;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A forward only cursor over the rows of a streamed query response, returned by
+ * {@link org.influxdb.InfluxDB#queryRows(Query, int)}.
+ *
+ * <p>The rows are decoded from the response while iterating, without building a {@link QueryResult}: the values of
+ * the current row are held unboxed in a buffer, which is reused by the next row, so nothing of a row is retained
+ * after {@link #next()}. The name, tags and columns belong to the series of the current row.</p>
+ *
+ * <pre>
+ * try (RowCursor cursor = influxDB.queryRows(new Query("SELECT * FROM cpu", dbName), 10000)) {
+ *   int idle = cursor.getColumnIndex("idle");
+ *   while (cursor.next()) {
+ *     sum += cursor.getDouble(idle);
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>A RowCursor is not thread safe. It must be closed, which releases the connection, also when the rows are not
+ * read to the end.</p>
+ */
+public interface RowCursor extends Closeable {
+
+  /**
+   * The type of a value in the current row.
+   */
+  enum ValueType {
+    NULL, LONG, DOUBLE, BOOLEAN, STRING
+  }
+
+  /**
+   * Move to the next row.
+   *
+   * @return false if there is no more row
+   * @throws org.influxdb.InfluxDBException if the response contains an error
+   * @throws org.influxdb.InfluxDBIOException if reading the response failed
+   */
+  boolean next();
+
+  /**
+   * @return the id of the statement of the current row
+   */
+  int getStatementId();
+
+  /**
+   * @return the measurement name of the series of the current row
+   */
+  String getSeriesName();
+
+  /**
+   * @return the tags of the series of the current row, empty if the series has none
+   */
+  Map<String, String> getTags();
+
+  /**
+   * @return the column names of the series of the current row
+   */
+  List<String> getColumns();
+
+  /**
+   * @param column the column name
+   * @return the index of the column in the series of the current row, -1 if there is no such column
+   */
+  int getColumnIndex(String column);
+
+  /**
+   * @param column the column index
+   * @return the type of the value, integers of JSON responses are {@link ValueType#LONG} even in float fields
+   */
+  ValueType getType(int column);
+
+  /**
+   * @param column the column index
+   * @return true if the value is null
+   */
+  boolean isNull(int column);
+
+  /**
+   * @param column the column index
+   * @return the value as long, floats are truncated, strings parsed, 0 for null
+   * @throws IllegalStateException if the value is a boolean
+   */
+  long getLong(int column);
+
+  /**
+   * @param column the column index
+   * @return the value as double, strings parsed, 0 for null
+   * @throws IllegalStateException if the value is a boolean
+   */
+  double getDouble(int column);
+
+  /**
+   * @param column the column index
+   * @return the boolean value, false for null
+   * @throws IllegalStateException if the value is no boolean
+   */
+  boolean getBoolean(int column);
+
+  /**
+   * @param column the column index
+   * @return the value as String, null for null
+   */
+  String getString(int column);
+
+  /**
+   * @param column the column index
+   * @return the value as Long, Double, Boolean or String, null for null
+   */
+  Object getValue(int column);
+
+  /**
+   * Close the response, later calls of {@link #next()} return false.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,343 @@
+package org.influxdb.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects rows of {@link PointTemplate series} as line protocol in a reusable byte buffer, which is sent with
+ * {@link org.influxdb.InfluxDB#write(String, String, org.influxdb.InfluxDB.ConsistencyLevel, SeriesWriter)}.
+ *
+ * <p>A row is started with {@link #row(PointTemplate, long, TimeUnit)}, followed by one {@code field} call per field
+ * of the template, in the order of {@link PointTemplate#getFieldNames()}, and completed by {@link #end()}. The
+ * measurement and tags are copied from the pre-encoded template and the primitive values are encoded directly,
+ * so appending a row allocates nothing once the buffer is large enough.</p>
+ *
+ * <pre>
+ * SeriesWriter writer = new SeriesWriter(TimeUnit.MILLISECONDS);
+ * for (Sample sample : samples) {
+ *   writer.row(cpu, sample.time, TimeUnit.MILLISECONDS).field(sample.idle).field(sample.user).end();
+ * }
+ * influxDB.write("db", "autogen", ConsistencyLevel.ONE, writer);
+ * </pre>
+ *
+ * <p>Fields which are not appended, {@code null} strings and non finite doubles are skipped like
+ * {@link Point} does, a row without any field to write is dropped. A SeriesWriter is not thread safe.</p>
+ *
+ * <p>When batching is enabled, the rows are queued as {@link #toPoints() points} which keep the encoded line
+ * protocol of their row.</p>
+ */
+public final class SeriesWriter {
+
+  private static final int DEFAULT_CAPACITY = 8192;
+  private static final int INITIAL_ROWS = 64;
+
+  private final TimeUnit precision;
+  private final LineProtocolEncoder encoder;
+  private int rowCount;
+  // the template, the start and the end before the timestamp of every completed row
+  private PointTemplate[] rowTemplates = new PointTemplate[INITIAL_ROWS];
+  private int[] rowBounds = new int[2 * INITIAL_ROWS];
+  private long[] rowTimes = new long[INITIAL_ROWS];
+  private final BitSet timedRows = new BitSet();
+
+  // the row in progress
+  private PointTemplate template;
+  private int rowStart;
+  private int nextField;
+  private int writtenFields;
+  private boolean timed;
+  private long time;
+
+  /**
+   * Create a writer with nanosecond precision.
+   */
+  public SeriesWriter() {
+    this(TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param precision the precision of the written timestamps
+   */
+  public SeriesWriter(final TimeUnit precision) {
+    this(precision, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param precision the precision of the written timestamps
+   * @param initialCapacity the initial size of the buffer in bytes, which grows when needed
+   */
+  public SeriesWriter(final TimeUnit precision, final int initialCapacity) {
+    this.precision = Objects.requireNonNull(precision, "precision");
+    this.encoder = new LineProtocolEncoder(initialCapacity);
+  }
+
+  /**
+   * Start a row without timestamp, the server assigns its local time.
+   *
+   * @param series the series of the row
+   * @return this writer, to append the field values
+   */
+  public SeriesWriter row(final PointTemplate series) {
+    startRow(series);
+    timed = false;
+    return this;
+  }
+
+  /**
+   * Start a row.
+   *
+   * @param series the series of the row
+   * @param timestamp the timestamp of the row
+   * @param unit the unit of the timestamp
+   * @return this writer, to append the field values
+   */
+  public SeriesWriter row(final PointTemplate series, final long timestamp, final TimeUnit unit) {
+    startRow(series);
+    timed = true;
+    time = precision.convert(timestamp, unit);
+    return this;
+  }
+
+  private void startRow(final PointTemplate series) {
+    Objects.requireNonNull(series, "series");
+    checkNoRowInProgress();
+    template = series;
+    rowStart = encoder.size();
+    nextField = 0;
+    writtenFields = 0;
+    encoder.writeBytes(series.prefix());
+  }
+
+  /**
+   * Append the value of the next field, skipped if it is NaN or infinite.
+   *
+   * @param value the field value
+   * @return this writer
+   */
+  public SeriesWriter field(final double value) {
+    if (nextFieldKey(Double.isFinite(value))) {
+      encoder.writeDouble(value);
+    }
+    return this;
+  }
+
+  /**
+   * Append the value of the next field.
+   *
+   * @param value the field value
+   * @return this writer
+   */
+  public SeriesWriter field(final long value) {
+    if (nextFieldKey(true)) {
+      encoder.writeLong(value);
+      encoder.writeByte('i');
+    }
+    return this;
+  }
+
+  /**
+   * Append the value of the next field.
+   *
+   * @param value the field value
+   * @return this writer
+   */
+  public SeriesWriter field(final boolean value) {
+    if (nextFieldKey(true)) {
+      if (value) {
+        encoder.writeBytes(LineProtocolEncoder.TRUE);
+      } else {
+        encoder.writeBytes(LineProtocolEncoder.FALSE);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Append the value of the next field, skipped if it is null.
+   *
+   * @param value the field value
+   * @return this writer
+   */
+  public SeriesWriter field(final String value) {
+    if (nextFieldKey(value != null)) {
+      encoder.writeByte('"');
+      encoder.writeEscapedField(value);
+      encoder.writeByte('"');
+    }
+    return this;
+  }
+
+  /**
+   * Skip the value of the next field.
+   *
+   * @return this writer
+   */
+  public SeriesWriter skipField() {
+    nextFieldKey(false);
+    return this;
+  }
+
+  /**
+   * Complete the row. Fields without value are not written, the row is dropped if it has no field at all.
+   *
+   * @return true if the row was written, false if it was dropped
+   */
+  public boolean end() {
+    checkRowStarted();
+    PointTemplate series = template;
+    template = null;
+    if (writtenFields == 0) {
+      encoder.truncate(rowStart);
+      return false;
+    }
+    addRow(series);
+    if (timed) {
+      encoder.writeByte(' ');
+      encoder.writeLong(time);
+    }
+    encoder.newLine();
+    rowCount++;
+    return true;
+  }
+
+  private void addRow(final PointTemplate series) {
+    if (rowCount == rowTemplates.length) {
+      int rows = 2 * rowCount;
+      rowTemplates = Arrays.copyOf(rowTemplates, rows);
+      rowBounds = Arrays.copyOf(rowBounds, 2 * rows);
+      rowTimes = Arrays.copyOf(rowTimes, rows);
+    }
+    rowTemplates[rowCount] = series;
+    rowBounds[2 * rowCount] = rowStart;
+    rowBounds[2 * rowCount + 1] = encoder.size();
+    rowTimes[rowCount] = time;
+    timedRows.set(rowCount, timed);
+  }
+
+  /**
+   * @param written whether the value of the field is written
+   * @return true if the value has to be written after the field key
+   */
+  private boolean nextFieldKey(final boolean written) {
+    checkRowStarted();
+    if (nextField == template.fieldCount()) {
+      throw new IllegalStateException("The series " + template.getMeasurement() + " has only "
+          + template.fieldCount() + " fields");
+    }
+    int field = nextField++;
+    if (!written) {
+      return false;
+    }
+    if (writtenFields > 0) {
+      encoder.writeByte(',');
+    }
+    encoder.writeBytes(template.fieldKey(field));
+    writtenFields++;
+    return true;
+  }
+
+  private void checkRowStarted() {
+    if (template == null) {
+      throw new IllegalStateException("No row started");
+    }
+  }
+
+  /**
+   * @return the precision of the written timestamps
+   */
+  public TimeUnit getPrecision() {
+    return precision;
+  }
+
+  /**
+   * @return the number of completed rows
+   */
+  public int rowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return true if there is no completed row
+   */
+  public boolean isEmpty() {
+    return rowCount == 0;
+  }
+
+  /**
+   * @return the buffer holding the completed rows from index 0 to {@link #size()}, valid until the next call of
+   *         this writer
+   */
+  public byte[] buffer() {
+    checkNoRowInProgress();
+    return encoder.buffer();
+  }
+
+  /**
+   * @return the number of bytes of the completed rows
+   */
+  public int size() {
+    if (template != null) {
+      return rowStart;
+    }
+    return encoder.size();
+  }
+
+  /**
+   * Write the line protocol of the completed rows to the given stream.
+   *
+   * @param out the stream to write to
+   * @throws IOException if the stream could not be written
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    checkNoRowInProgress();
+    encoder.writeTo(out);
+  }
+
+  /**
+   * Copy the completed rows into points, which keep the encoded measurement, tags and fields of their row and
+   * write it as line protocol. Their fields are not accessible.
+   *
+   * @return a point per completed row
+   */
+  public List<Point> toPoints() {
+    checkNoRowInProgress();
+    byte[] buffer = encoder.buffer();
+    List<Point> points = new ArrayList<>(rowCount);
+    for (int row = 0; row < rowCount; row++) {
+      Point point = new Point();
+      point.setMeasurement(rowTemplates[row].getMeasurement());
+      point.setTags(rowTemplates[row].getTags());
+      point.setFields(new PointFields());
+      point.setEncodedRow(Arrays.copyOfRange(buffer, rowBounds[2 * row], rowBounds[2 * row + 1]));
+      if (timedRows.get(row)) {
+        point.setTime(rowTimes[row]);
+        point.setPrecision(precision);
+      }
+      points.add(point);
+    }
+    return points;
+  }
+
+  /**
+   * Discard all rows, keeping the buffer for the next rows.
+   */
+  public void reset() {
+    encoder.reset();
+    Arrays.fill(rowTemplates, 0, rowCount, null);
+    timedRows.clear();
+    rowCount = 0;
+    template = null;
+  }
+
+  private void checkNoRowInProgress() {
+    if (template != null) {
+      throw new IllegalStateException("The row of " + template.getMeasurement() + " is not ended");
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package org.influxdb.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.influxdb.dto.RowCursor;
+
+/**
+ * The row buffer and the accessors of the {@link RowCursor}s, the decoders fill the buffer with the values of the
+ * current row and set the series of it.
+ */
+abstract class AbstractRowCursor implements RowCursor {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private ValueType[] types = new ValueType[INITIAL_CAPACITY];
+  private long[] longs = new long[INITIAL_CAPACITY];
+  private double[] doubles = new double[INITIAL_CAPACITY];
+  private String[] strings = new String[INITIAL_CAPACITY];
+  private int width;
+
+  private int statementId;
+  private String seriesName;
+  private Map<String, String> tags = Collections.emptyMap();
+  private List<String> columns = Collections.emptyList();
+
+  final void setStatementId(final int statementId) {
+    this.statementId = statementId;
+  }
+
+  final void setSeries(final String seriesName, final Map<String, String> tags, final List<String> columns) {
+    this.seriesName = seriesName;
+    this.tags = tags;
+    this.columns = columns;
+  }
+
+  /**
+   * Start a new row, the values are set with increasing column indexes.
+   */
+  final void clearRow() {
+    // the strings of the last row are not retained
+    Arrays.fill(strings, 0, width, null);
+    width = 0;
+  }
+
+  final void addNull() {
+    add(ValueType.NULL);
+  }
+
+  final void addLong(final long value) {
+    int column = add(ValueType.LONG);
+    longs[column] = value;
+  }
+
+  final void addDouble(final double value) {
+    int column = add(ValueType.DOUBLE);
+    doubles[column] = value;
+  }
+
+  final void addBoolean(final boolean value) {
+    int column = add(ValueType.BOOLEAN);
+    if (value) {
+      longs[column] = 1;
+    } else {
+      longs[column] = 0;
+    }
+  }
+
+  final void addString(final String value) {
+    if (value == null) {
+      addNull();
+      return;
+    }
+    int column = add(ValueType.STRING);
+    strings[column] = value;
+  }
+
+  /**
+   * @return the index of the next column in the row
+   */
+  final int getWidth() {
+    return width;
+  }
+
+  private int add(final ValueType type) {
+    if (width == types.length) {
+      int capacity = width * 2;
+      types = Arrays.copyOf(types, capacity);
+      longs = Arrays.copyOf(longs, capacity);
+      doubles = Arrays.copyOf(doubles, capacity);
+      strings = Arrays.copyOf(strings, capacity);
+    }
+    types[width] = type;
+    return width++;
+  }
+
+  @Override
+  public int getStatementId() {
+    return statementId;
+  }
+
+  @Override
+  public String getSeriesName() {
+    return seriesName;
+  }
+
+  @Override
+  public Map<String, String> getTags() {
+    return tags;
+  }
+
+  @Override
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  @Override
+  public int getColumnIndex(final String column) {
+    return columns.indexOf(column);
+  }
+
+  @Override
+  public ValueType getType(final int column) {
+    checkColumn(column);
+    return types[column];
+  }
+
+  @Override
+  public boolean isNull(final int column) {
+    return getType(column) == ValueType.NULL;
+  }
+
+  @Override
+  public long getLong(final int column) {
+    switch (getType(column)) {
+      case LONG:
+        return longs[column];
+      case DOUBLE:
+        return (long) doubles[column];
+      case STRING:
+        return Long.parseLong(strings[column]);
+      case NULL:
+        return 0;
+      default:
+        throw typeMismatch(column, "long");
+    }
+  }
+
+  @Override
+  public double getDouble(final int column) {
+    switch (getType(column)) {
+      case DOUBLE:
+        return doubles[column];
+      case LONG:
+        return longs[column];
+      case STRING:
+        return Double.parseDouble(strings[column]);
+      case NULL:
+        return 0;
+      default:
+        throw typeMismatch(column, "double");
+    }
+  }
+
+  @Override
+  public boolean getBoolean(final int column) {
+    switch (getType(column)) {
+      case BOOLEAN:
+        return longs[column] != 0;
+      case NULL:
+        return false;
+      default:
+        throw typeMismatch(column, "boolean");
+    }
+  }
+
+  @Override
+  public String getString(final int column) {
+    switch (getType(column)) {
+      case STRING:
+        return strings[column];
+      case LONG:
+        return Long.toString(longs[column]);
+      case DOUBLE:
+        return Double.toString(doubles[column]);
+      case BOOLEAN:
+        return Boolean.toString(longs[column] != 0);
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public Object getValue(final int column) {
+    switch (getType(column)) {
+      case STRING:
+        return strings[column];
+      case LONG:
+        return longs[column];
+      case DOUBLE:
+        return doubles[column];
+      case BOOLEAN:
+        return longs[column] != 0;
+      default:
+        return null;
+    }
+  }
+
+  private void checkColumn(final int column) {
+    if (column < 0 || column >= width) {
+      throw new IndexOutOfBoundsException("Column " + column + " of a row with " + width + " columns");
+    }
+  }
+
+  private IllegalStateException typeMismatch(final int column, final String type) {
+    return new IllegalStateException("The " + types[column] + " value of column " + column + " is no " + type);
+  }
+}
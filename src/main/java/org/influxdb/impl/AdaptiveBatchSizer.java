@@ -0,0 +1,176 @@
+package org.influxdb.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.BatchSizing;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.BatchPoints;
+
+/**
+ * Adapts the number of points of a batch and the flush interval to the measured duration and failures of the batch
+ * write requests, in the manner of the additive increase / multiplicative decrease of TCP congestion control.
+ *
+ * <p>A write which took longer than the target latency, or failed because the server was overloaded or not
+ * reachable, halves the batch size. A write within the target latency of a batch which was at least half full
+ * increases it by a tenth of the initial size. The flush interval keeps the ratio to the batch size it had
+ * initially, so the batches flushed by time grow and shrink like the ones flushed by size. Both stay within their
+ * bounds.</p>
+ *
+ * <p>Writes which were already sent when the batch size was decreased do not decrease it again, as their size was
+ * chosen before, like TCP reacts to one loss per round trip only.</p>
+ */
+final class AdaptiveBatchSizer implements BatchSizing {
+
+  private static final int INCREASE_DIVISOR = 10;
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final double SMOOTHING_FACTOR = 0.2;
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final int minActions;
+  private final int maxActions;
+  private final int minFlushDuration;
+  private final int maxFlushDuration;
+  private final long targetWriteLatencyNanos;
+  private final int increaseStep;
+  private final double flushDurationPerAction;
+
+  private volatile int actions;
+  private volatile int flushDuration;
+  private volatile double writeLatency;
+  private volatile double errorRate;
+  private boolean measured;
+  private boolean decreased;
+  private long lastDecreaseNanos;
+
+  /**
+   * @param minActions the smallest batch size
+   * @param maxActions the largest batch size
+   * @param actions the initial batch size, moved into the bounds if outside
+   * @param minFlushDuration the shortest flush interval (milliseconds)
+   * @param maxFlushDuration the longest flush interval (milliseconds)
+   * @param flushDuration the initial flush interval (milliseconds), moved into the bounds if outside
+   * @param targetWriteLatency the duration a batch write request should take at most (milliseconds)
+   */
+  AdaptiveBatchSizer(final int minActions, final int maxActions, final int actions, final int minFlushDuration,
+                     final int maxFlushDuration, final int flushDuration, final int targetWriteLatency) {
+    Preconditions.checkPositiveNumber(minActions, "minActions");
+    Preconditions.checkPositiveNumber(minFlushDuration, "minFlushDuration");
+    Preconditions.checkPositiveNumber(targetWriteLatency, "targetWriteLatency");
+    if (maxActions < minActions) {
+      throw new IllegalArgumentException("Expecting a maxActions of at least the minActions " + minActions
+          + " but was " + maxActions);
+    }
+    if (maxFlushDuration < minFlushDuration) {
+      throw new IllegalArgumentException("Expecting a maxFlushDuration of at least the minFlushDuration "
+          + minFlushDuration + " but was " + maxFlushDuration);
+    }
+    this.minActions = minActions;
+    this.maxActions = maxActions;
+    this.minFlushDuration = minFlushDuration;
+    this.maxFlushDuration = maxFlushDuration;
+    this.targetWriteLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetWriteLatency);
+    this.actions = (int) clamp(actions, minActions, maxActions);
+    this.flushDuration = (int) clamp(flushDuration, minFlushDuration, maxFlushDuration);
+    this.increaseStep = Math.max(1, this.actions / INCREASE_DIVISOR);
+    this.flushDurationPerAction = (double) this.flushDuration / this.actions;
+  }
+
+  /**
+   * Write the given batch and adapt the batch size to the duration and the outcome of the request.
+   *
+   * @param influxDB the InfluxDB to write to
+   * @param batchPoints the batch to write
+   */
+  void write(final InfluxDB influxDB, final BatchPoints batchPoints) {
+    long start = System.nanoTime();
+    boolean overloaded = false;
+    try {
+      influxDB.write(batchPoints);
+    } catch (InfluxDBException e) {
+      // errors which are worth a retry are caused by load or the network, the others by the request
+      overloaded = e.isRetryWorth();
+      throw e;
+    } finally {
+      onWrite(batchPoints.getPoints().size(), start, System.nanoTime(), overloaded);
+    }
+  }
+
+  /**
+   * Adapt the batch size to a completed batch write request.
+   *
+   * @param points the number of points of the batch
+   * @param startNanos the {@link System#nanoTime()} the request was sent
+   * @param endNanos the {@link System#nanoTime()} the request completed
+   * @param overloaded true if the request failed because the server was overloaded or not reachable
+   */
+  synchronized void onWrite(final int points, final long startNanos, final long endNanos, final boolean overloaded) {
+    long latencyNanos = endNanos - startNanos;
+    double latency = latencyNanos / NANOS_PER_MILLI;
+    double error = 0;
+    if (overloaded) {
+      error = 1;
+    }
+    if (measured) {
+      writeLatency += SMOOTHING_FACTOR * (latency - writeLatency);
+      errorRate += SMOOTHING_FACTOR * (error - errorRate);
+    } else {
+      writeLatency = latency;
+      errorRate = error;
+      measured = true;
+    }
+
+    if (overloaded || latencyNanos > targetWriteLatencyNanos) {
+      // the size of requests sent before the last decrease was chosen before it
+      if (!decreased || startNanos - lastDecreaseNanos >= 0) {
+        resize(actions * DECREASE_FACTOR);
+        decreased = true;
+        lastDecreaseNanos = endNanos;
+      }
+    } else if (points * 2 >= actions) {
+      resize(actions + increaseStep);
+    }
+  }
+
+  private void resize(final double newActions) {
+    actions = (int) clamp(Math.round(newActions), minActions, maxActions);
+    flushDuration = (int) clamp(Math.round(actions * flushDurationPerAction), minFlushDuration, maxFlushDuration);
+  }
+
+  private static long clamp(final long value, final long min, final long max) {
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * @return the largest batch size, the capacity of the action queue
+   */
+  int getMaxActions() {
+    return maxActions;
+  }
+
+  @Override
+  public int getActions() {
+    return actions;
+  }
+
+  @Override
+  public int getFlushDuration() {
+    return flushDuration;
+  }
+
+  @Override
+  public double getWriteLatency() {
+    return writeLatency;
+  }
+
+  @Override
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveBatchSizer [actions=" + actions + ", flushDuration=" + flushDuration + ", writeLatency="
+        + writeLatency + ", errorRate=" + errorRate + "]";
+  }
+}
@@ -0,0 +1,175 @@
+package org.influxdb.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import org.influxdb.Flow;
+import org.influxdb.PointSubscriber;
+import org.influxdb.dto.Point;
+import org.influxdb.impl.BatchProcessor.HttpBatchEntry;
+
+/**
+ * Feeds a stream of points into the action queue of a {@link BatchProcessor} without blocking.
+ *
+ * <p>At most a batch of points is requested at a time. A point which does not fit into the action queue, because
+ * other writers filled it, is kept until the queue is drained by the next flush, no more points are requested
+ * until then. So the demand follows the free space of the queue, the points are neither dropped nor does the
+ * publisher's thread block.</p>
+ */
+final class BatchPointSubscriber implements PointSubscriber {
+
+  private final BatchProcessor batchProcessor;
+  private final String database;
+  private final String retentionPolicy;
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private final Runnable drainListener = this::onDrained;
+  // guarded by this
+  private final Deque<HttpBatchEntry> pending = new ArrayDeque<>();
+  private Flow.Subscription subscription;
+  private long outstanding;
+  private boolean terminated;
+  private Throwable error;
+
+  BatchPointSubscriber(final BatchProcessor batchProcessor, final String database, final String retentionPolicy) {
+    this.batchProcessor = batchProcessor;
+    this.database = database;
+    this.retentionPolicy = retentionPolicy;
+  }
+
+  @Override
+  public void onSubscribe(final Flow.Subscription subscription) {
+    Objects.requireNonNull(subscription, "subscription");
+    synchronized (this) {
+      if (this.subscription != null) {
+        // only one publisher per subscriber
+        subscription.cancel();
+        return;
+      }
+      this.subscription = subscription;
+    }
+    this.batchProcessor.addDrainListener(this.drainListener);
+    requestMore();
+  }
+
+  @Override
+  public void onNext(final Point point) {
+    Objects.requireNonNull(point, "point");
+    if (this.batchProcessor.isShutdown()) {
+      failDisabled();
+      return;
+    }
+    synchronized (this) {
+      this.outstanding--;
+      HttpBatchEntry entry = new HttpBatchEntry(point, this.database, this.retentionPolicy);
+      if (!this.pending.isEmpty() || !this.batchProcessor.offer(entry)) {
+        this.pending.addLast(entry);
+      }
+    }
+    requestMore();
+  }
+
+  @Override
+  public void onError(final Throwable throwable) {
+    Objects.requireNonNull(throwable, "throwable");
+    terminate(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    terminate(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> getCompletion() {
+    return this.completion;
+  }
+
+  private void failDisabled() {
+    Flow.Subscription s;
+    synchronized (this) {
+      if (this.terminated) {
+        return;
+      }
+      this.terminated = true;
+      s = this.subscription;
+    }
+    this.batchProcessor.removeDrainListener(this.drainListener);
+    s.cancel();
+    this.completion.completeExceptionally(new IllegalStateException("BatchProcessing is not enabled."));
+  }
+
+  private void terminate(final Throwable throwable) {
+    boolean flush;
+    synchronized (this) {
+      if (this.terminated) {
+        return;
+      }
+      this.terminated = true;
+      this.error = throwable;
+      flush = this.pending.isEmpty();
+    }
+    // the pending points are flushed once the next drain made space for them
+    if (flush) {
+      flush();
+    }
+  }
+
+  private void onDrained() {
+    boolean flush;
+    synchronized (this) {
+      while (!this.pending.isEmpty() && this.batchProcessor.offer(this.pending.peekFirst())) {
+        this.pending.removeFirst();
+      }
+      flush = this.terminated && this.pending.isEmpty();
+    }
+    if (flush) {
+      flush();
+    } else {
+      requestMore();
+    }
+  }
+
+  private void flush() {
+    this.batchProcessor.removeDrainListener(this.drainListener);
+    Throwable throwable;
+    synchronized (this) {
+      throwable = this.error;
+    }
+    CompletableFuture<Void> flushed;
+    try {
+      flushed = this.batchProcessor.flushAsync();
+    } catch (RuntimeException e) {
+      // the batch processing was disabled in the meantime
+      this.completion.completeExceptionally(e);
+      return;
+    }
+    flushed.whenComplete((ignored, t) -> {
+      if (throwable == null) {
+        this.completion.complete(null);
+      } else {
+        this.completion.completeExceptionally(throwable);
+      }
+    });
+  }
+
+  /**
+   * Request up to a batch of points while every received point has been queued, half a batch at least.
+   */
+  private void requestMore() {
+    long n = 0;
+    Flow.Subscription s;
+    synchronized (this) {
+      s = this.subscription;
+      long window = Math.max(1, this.batchProcessor.getActions());
+      if (s != null && !this.terminated && this.pending.isEmpty() && this.outstanding * 2 <= window) {
+        n = window - this.outstanding;
+        this.outstanding = window;
+      }
+    }
+    if (n > 0) {
+      s.request(n);
+    }
+  }
+}
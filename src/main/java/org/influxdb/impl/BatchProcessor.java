@@ -1,11 +1,17 @@
 package org.influxdb.impl;
 
+import org.influxdb.BatchOptions;
+import org.influxdb.BatchOptions.QueueStrategy;
+import org.influxdb.BatchOptions.SpoolFsyncPolicy;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDB.ConsistencyLevel;
 import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.LineProtocolEncoder;
 import org.influxdb.dto.Point;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -13,11 +19,17 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -34,7 +46,9 @@ import java.util.logging.Logger;
 public final class BatchProcessor {
 
   private static final Logger LOG = Logger.getLogger(BatchProcessor.class.getName());
+  private static final int SIZE_ENCODER_CAPACITY = 256;
   protected final BlockingQueue<AbstractBatchEntry> queue;
+  private final List<Runnable> drainListeners = new CopyOnWriteArrayList<>();
   private final ScheduledExecutorService scheduler;
   private final BiConsumer<Iterable<Point>, Throwable> exceptionHandler;
   final InfluxDB influxDB;
@@ -45,6 +59,13 @@ public final class BatchProcessor {
   private final int jitterInterval;
   private final TimeUnit precision;
   private final BatchWriter batchWriter;
+  private final ExecutorService flushExecutor;
+  private final AdaptiveBatchSizer adaptiveBatchSizer;
+  private final int maxBatchBytes;
+  // the encoded size of the queued points, only counted with a maxBatchBytes
+  private final AtomicLong queuedBytes = new AtomicLong();
+  private final ThreadLocal<LineProtocolEncoder> sizeEncoder =
+      ThreadLocal.withInitial(() -> new LineProtocolEncoder(SIZE_ENCODER_CAPACITY));
   private boolean dropActionsOnQueueExhaustion;
   Consumer<Point> droppedActionHandler;
   Supplier<Double> randomSupplier;
@@ -62,6 +83,8 @@ public final class BatchProcessor {
     // this is a default value if the InfluxDb.enableBatch(BatchOptions) IS NOT used
     // the reason is backward compatibility
     private int bufferLimit = 0;
+    private long bufferLimitBytes = BatchOptions.DEFAULT_BUFFER_LIMIT_BYTES;
+    private int maxBatchBytes = BatchOptions.DEFAULT_MAX_BATCH_BYTES;
     private TimeUnit precision;
 
     private BiConsumer<Iterable<Point>, Throwable> exceptionHandler = (entries, throwable) -> { };
@@ -69,6 +92,14 @@ public final class BatchProcessor {
 
     private boolean dropActionsOnQueueExhaustion;
     private Consumer<Point> droppedActionsHandler;
+    private QueueStrategy queueStrategy = QueueStrategy.LINKED_BLOCKING_QUEUE;
+    private int flushParallelism = 1;
+    private int maxInFlightRequests = 1;
+    private Path spoolDirectory;
+    private int spoolSegmentSize = BatchOptions.DEFAULT_SPOOL_SEGMENT_SIZE;
+    private long spoolMaxDiskSize = BatchOptions.DEFAULT_SPOOL_MAX_DISK_SIZE;
+    private SpoolFsyncPolicy spoolFsyncPolicy = BatchOptions.DEFAULT_SPOOL_FSYNC_POLICY;
+    private AdaptiveBatchSizer adaptiveBatchSizer;
     /**
      * @param threadFactory
      *            is optional.
@@ -146,6 +177,30 @@ public final class BatchProcessor {
       return this;
     }
 
+    /**
+     * Limit the buffer for failed writes by the encoded size of the points in addition to their number.
+     *
+     * @param bufferLimitBytes maximum size of the points stored in the buffer in bytes, 0 for no limit
+     * @return this Builder to use it fluent
+     */
+    public Builder bufferLimitBytes(final long bufferLimitBytes) {
+      this.bufferLimitBytes = bufferLimitBytes;
+      return this;
+    }
+
+    /**
+     * The size of the line protocol after which a batchwrite must be performed, and the maximum size of
+     * a write request.
+     *
+     * @param maxBatchBytes
+     *            maximum size of a write request in bytes, 0 for no limit
+     * @return this Builder to use it fluent
+     */
+    public Builder maxBatchBytes(final int maxBatchBytes) {
+      this.maxBatchBytes = maxBatchBytes;
+      return this;
+    }
+
     /**
      * A callback to be used when an error occurs during a batchwrite.
      *
@@ -216,6 +271,113 @@ public final class BatchProcessor {
         return this;
     }
 
+    /**
+     * The data structure used as action queue.
+     *
+     * @param queueStrategy
+     *            the queueStrategy
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder queueStrategy(final QueueStrategy queueStrategy) {
+      this.queueStrategy = queueStrategy;
+      return this;
+    }
+
+    /**
+     * The number of concurrent write requests a flush uses to send the batches of different
+     * databases / retention policies.
+     *
+     * @param flushParallelism
+     *            the flushParallelism, 1 sends the batches one after another
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder flushParallelism(final int flushParallelism) {
+      this.flushParallelism = flushParallelism;
+      return this;
+    }
+
+    /**
+     * The number of batch write requests which may be in flight at the same time. With more than one
+     * the flush does not wait for the HTTP requests, so the next batch is collected while the previous ones
+     * are still written.
+     *
+     * @param maxInFlightRequests
+     *            the maxInFlightRequests, 1 writes every flush synchronously
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder maxInFlightRequests(final int maxInFlightRequests) {
+      this.maxInFlightRequests = maxInFlightRequests;
+      return this;
+    }
+
+    /**
+     * The directory in which failed writes are spooled to disk instead of the retry buffer in memory.
+     *
+     * @param spoolDirectory
+     *            the spoolDirectory, null to keep failed writes in memory
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder spoolDirectory(final Path spoolDirectory) {
+      this.spoolDirectory = spoolDirectory;
+      return this;
+    }
+
+    /**
+     * The size of a segment file of the spool.
+     *
+     * @param spoolSegmentSize
+     *            the spoolSegmentSize in bytes
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder spoolSegmentSize(final int spoolSegmentSize) {
+      this.spoolSegmentSize = spoolSegmentSize;
+      return this;
+    }
+
+    /**
+     * The maximum size of all segment files of the spool, the oldest segment is dropped when it is exceeded.
+     *
+     * @param spoolMaxDiskSize
+     *            the spoolMaxDiskSize in bytes
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder spoolMaxDiskSize(final long spoolMaxDiskSize) {
+      this.spoolMaxDiskSize = spoolMaxDiskSize;
+      return this;
+    }
+
+    /**
+     * When the segment files of the spool are forced to the storage device.
+     *
+     * @param spoolFsyncPolicy
+     *            the spoolFsyncPolicy
+     *
+     * @return this Builder to use it fluent
+     */
+    public Builder spoolFsyncPolicy(final SpoolFsyncPolicy spoolFsyncPolicy) {
+      this.spoolFsyncPolicy = spoolFsyncPolicy;
+      return this;
+    }
+
+    /**
+     * Adapt the batch size and the flush interval to the batch write requests. The actions and the interval of
+     * this Builder are ignored then, the interval of the sizer is in milliseconds.
+     *
+     * @param adaptiveBatchSizer
+     *            the adaptiveBatchSizer, null for a fixed batch size
+     * @return this Builder to use it fluent
+     */
+    Builder adaptiveBatchSizer(final AdaptiveBatchSizer adaptiveBatchSizer) {
+      this.adaptiveBatchSizer = adaptiveBatchSizer;
+      return this;
+    }
+
     /**
      * Create the BatchProcessor.
      *
@@ -227,23 +389,65 @@ public final class BatchProcessor {
       Preconditions.checkPositiveNumber(this.flushInterval, "flushInterval");
       Preconditions.checkNotNegativeNumber(jitterInterval, "jitterInterval");
       Preconditions.checkNotNegativeNumber(bufferLimit, "bufferLimit");
+      Preconditions.checkNotNegativeNumber(bufferLimitBytes, "bufferLimitBytes");
+      Preconditions.checkNotNegativeNumber(maxBatchBytes, "maxBatchBytes");
       Objects.requireNonNull(this.flushIntervalUnit, "flushIntervalUnit");
       Objects.requireNonNull(this.threadFactory, "threadFactory");
       Objects.requireNonNull(this.exceptionHandler, "exceptionHandler");
+      Objects.requireNonNull(this.queueStrategy, "queueStrategy");
+      Preconditions.checkPositiveNumber(this.flushParallelism, "flushParallelism");
+      Preconditions.checkPositiveNumber(this.maxInFlightRequests, "maxInFlightRequests");
+      ExecutorService flushExecutor = null;
+      // a pipelined writer already sends the batches of a flush concurrently
+      if (this.flushParallelism > 1 && this.maxInFlightRequests == 1) {
+        flushExecutor = Executors.newFixedThreadPool(this.flushParallelism, this.threadFactory);
+      }
+      // only the batches of the processor adapt the batch size, not the ones written by the user directly
       BatchWriter batchWriter;
-      if (this.bufferLimit > this.actions) {
-        batchWriter = new RetryCapableBatchWriter(this.influxDB, this.exceptionHandler, this.bufferLimit, this.actions);
+      if (this.spoolDirectory != null) {
+        Preconditions.checkPositiveNumber(this.spoolSegmentSize, "spoolSegmentSize");
+        if (this.spoolMaxDiskSize < this.spoolSegmentSize) {
+          throw new IllegalArgumentException("Expecting a spoolMaxDiskSize of at least the spoolSegmentSize "
+              + this.spoolSegmentSize + " but was " + this.spoolMaxDiskSize);
+        }
+        Objects.requireNonNull(this.spoolFsyncPolicy, "spoolFsyncPolicy");
+        // the spool is limited by the spoolMaxDiskSize, the maxBatchBytes by the batches it is given
+        if (this.bufferLimitBytes > 0) {
+          throw new IllegalArgumentException("The bufferLimitBytes " + this.bufferLimitBytes
+              + " does not limit a spool, use the spoolMaxDiskSize instead");
+        }
+        DiskSpool spool = new DiskSpool(this.spoolDirectory, this.spoolSegmentSize, this.spoolMaxDiskSize,
+                                        this.spoolFsyncPolicy);
+        RetryCapableBatchWriter retryCapableBatchWriter = new RetryCapableBatchWriter(this.influxDB,
+            this.exceptionHandler, this.bufferLimit, this.actions, flushExecutor, spool);
+        retryCapableBatchWriter.setAdaptiveBatchSizer(this.adaptiveBatchSizer);
+        batchWriter = retryCapableBatchWriter;
+      } else if (this.bufferLimit > this.actions) {
+        RetryCapableBatchWriter retryCapableBatchWriter = new RetryCapableBatchWriter(this.influxDB,
+            this.exceptionHandler, this.bufferLimit, this.actions, flushExecutor, this.bufferLimitBytes,
+            this.maxBatchBytes);
+        retryCapableBatchWriter.setAdaptiveBatchSizer(this.adaptiveBatchSizer);
+        batchWriter = retryCapableBatchWriter;
       } else {
-        batchWriter = new OneShotBatchWriter(this.influxDB);
+        OneShotBatchWriter oneShotBatchWriter = new OneShotBatchWriter(this.influxDB, flushExecutor);
+        oneShotBatchWriter.setAdaptiveBatchSizer(this.adaptiveBatchSizer);
+        batchWriter = oneShotBatchWriter;
+      }
+      if (this.maxInFlightRequests > 1) {
+        batchWriter = new PipelinedBatchWriter(batchWriter, this.maxInFlightRequests, this.threadFactory);
       }
       return new BatchProcessor(this.influxDB, batchWriter, this.threadFactory, this.actions, this.flushIntervalUnit,
                                 this.flushInterval, this.jitterInterval, exceptionHandler, this.consistencyLevel,
-                                this.precision, this.dropActionsOnQueueExhaustion, this.droppedActionsHandler);
+                                this.precision, this.dropActionsOnQueueExhaustion, this.droppedActionsHandler,
+                                this.queueStrategy, flushExecutor, this.adaptiveBatchSizer, this.maxBatchBytes,
+                                this.bufferLimit);
     }
   }
 
   abstract static class AbstractBatchEntry {
       private final Point point;
+      // the encoded size of the point, only measured with a maxBatchBytes
+      private int size;
 
       public AbstractBatchEntry(final Point point) {
         this.point = point;
@@ -252,16 +456,33 @@ public final class BatchProcessor {
       public Point getPoint() {
         return this.point;
       }
+
+      int getSize() {
+        return this.size;
+      }
+
+      void setSize(final int size) {
+        this.size = size;
+      }
   }
 
   static class HttpBatchEntry extends AbstractBatchEntry {
     private final String db;
     private final String rp;
+    private final CompletableFuture<Void> written;
 
     public HttpBatchEntry(final Point point, final String db, final String rp) {
+      this(point, db, rp, null);
+    }
+
+    /**
+     * @param written the future to complete when the batch of the point is written, null for none
+     */
+    HttpBatchEntry(final Point point, final String db, final String rp, final CompletableFuture<Void> written) {
       super(point);
       this.db = db;
       this.rp = rp;
+      this.written = written;
     }
 
     public String getDb() {
@@ -271,6 +492,10 @@ public final class BatchProcessor {
     public String getRp() {
       return this.rp;
     }
+
+    CompletableFuture<Void> getWritten() {
+      return this.written;
+    }
   }
 
   static class UdpBatchEntry extends AbstractBatchEntry {
@@ -301,10 +526,13 @@ public final class BatchProcessor {
                  final int actions, final TimeUnit flushIntervalUnit, final int flushInterval, final int jitterInterval,
                  final BiConsumer<Iterable<Point>, Throwable> exceptionHandler,
                  final ConsistencyLevel consistencyLevel, final TimeUnit precision,
-                 final boolean dropActionsOnQueueExhaustion, final Consumer<Point> droppedActionHandler) {
+                 final boolean dropActionsOnQueueExhaustion, final Consumer<Point> droppedActionHandler,
+                 final QueueStrategy queueStrategy, final ExecutorService flushExecutor,
+                 final AdaptiveBatchSizer adaptiveBatchSizer, final int maxBatchBytes, final int bufferLimit) {
     super();
     this.influxDB = influxDB;
     this.batchWriter = batchWriter;
+    this.flushExecutor = flushExecutor;
     this.actions = actions;
     this.flushIntervalUnit = flushIntervalUnit;
     this.flushInterval = flushInterval;
@@ -315,8 +543,23 @@ public final class BatchProcessor {
     this.precision = precision;
     this.dropActionsOnQueueExhaustion = dropActionsOnQueueExhaustion;
     this.droppedActionHandler = droppedActionHandler;
-    if (actions > 1 && actions < Integer.MAX_VALUE) {
-        this.queue = new LinkedBlockingQueue<>(actions);
+    this.adaptiveBatchSizer = adaptiveBatchSizer;
+    this.maxBatchBytes = maxBatchBytes;
+    // the batch size may grow up to the maximum of the sizer
+    int capacity = actions;
+    if (adaptiveBatchSizer != null) {
+      capacity = adaptiveBatchSizer.getMaxActions();
+    }
+    if (capacity > 1 && capacity < Integer.MAX_VALUE) {
+      if (queueStrategy == QueueStrategy.RING_BUFFER) {
+        this.queue = new RingBufferQueue<>(capacity);
+      } else if (queueStrategy == QueueStrategy.STRIPED) {
+        // every stripe has room for a whole batch, the bufferLimit bounds the points of all stripes
+        this.queue = new StripedRingBufferQueue<>(Runtime.getRuntime().availableProcessors(), capacity,
+            Math.max(capacity, bufferLimit));
+      } else {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+      }
     } else {
         this.queue = new LinkedBlockingQueue<>();
     }
@@ -327,47 +570,72 @@ public final class BatchProcessor {
       public void run() {
         // write doesn't throw any exceptions
         write();
-        int jitterInterval = (int) (randomSupplier.get() * BatchProcessor.this.jitterInterval);
-        BatchProcessor.this.scheduler.schedule(this,
-                BatchProcessor.this.flushInterval + jitterInterval, BatchProcessor.this.flushIntervalUnit);
+        scheduleFlush(this);
       }
     };
     // Flush at specified Rate
-    this.scheduler.schedule(flushRunnable,
-            this.flushInterval + (int) (randomSupplier.get() * BatchProcessor.this.jitterInterval),
-            this.flushIntervalUnit);
+    scheduleFlush(flushRunnable);
+  }
+
+  private void scheduleFlush(final Runnable flushRunnable) {
+    int jitterInterval = (int) (randomSupplier.get() * this.jitterInterval);
+    if (this.adaptiveBatchSizer == null) {
+      this.scheduler.schedule(flushRunnable, this.flushInterval + jitterInterval, this.flushIntervalUnit);
+    } else {
+      this.scheduler.schedule(flushRunnable,
+              this.adaptiveBatchSizer.getFlushDuration() + this.flushIntervalUnit.toMillis(jitterInterval),
+              TimeUnit.MILLISECONDS);
+    }
   }
 
-  void write() {
+  CompletableFuture<Void> write() {
     List<Point> currentBatch = null;
+    List<CompletableFuture<Void>> completions = new ArrayList<>(0);
     try {
       if (this.queue.isEmpty()) {
-        BatchProcessor.this.batchWriter.write(Collections.emptyList());
-        return;
+        return BatchProcessor.this.batchWriter.write(Collections.emptyList());
       }
-      //for batch on HTTP.
-      Map<String, BatchPoints> batchKeyToBatchPoints = new HashMap<>();
+      //for batch on HTTP, more than one BatchPoints per key if they exceed the maxBatchBytes.
+      Map<String, List<BatchPoints>> batchKeyToBatchPoints = new HashMap<>();
+      Map<String, Long> batchKeyToBytes = new HashMap<>();
       //for batch on UDP.
       Map<Integer, List<String>> udpPortToBatchPoints = new HashMap<>();
       List<AbstractBatchEntry> batchEntries = new ArrayList<>(this.queue.size());
       this.queue.drainTo(batchEntries);
+      for (Runnable drainListener : this.drainListeners) {
+        drainListener.run();
+      }
       currentBatch = new ArrayList<>(batchEntries.size());
 
+      long drainedBytes = 0;
       for (AbstractBatchEntry batchEntry : batchEntries) {
         Point point = batchEntry.getPoint();
         currentBatch.add(point);
+        drainedBytes += batchEntry.getSize();
         if (batchEntry instanceof HttpBatchEntry) {
             HttpBatchEntry httpBatchEntry = HttpBatchEntry.class.cast(batchEntry);
+            if (httpBatchEntry.getWritten() != null) {
+              completions.add(httpBatchEntry.getWritten());
+            }
             String dbName = httpBatchEntry.getDb();
             String rp = httpBatchEntry.getRp();
             String batchKey = dbName + "_" + rp;
-            if (!batchKeyToBatchPoints.containsKey(batchKey)) {
-              BatchPoints batchPoints = BatchPoints.database(dbName)
-                                                   .retentionPolicy(rp).consistency(getConsistencyLevel())
-                                                   .precision(getPrecision()).build();
-              batchKeyToBatchPoints.put(batchKey, batchPoints);
+            List<BatchPoints> batches = batchKeyToBatchPoints.get(batchKey);
+            if (batches == null) {
+              batches = new ArrayList<>(1);
+              batchKeyToBatchPoints.put(batchKey, batches);
+              batches.add(newBatchPoints(dbName, rp));
             }
-            batchKeyToBatchPoints.get(batchKey).point(point);
+            if (this.maxBatchBytes > 0) {
+              long bytes = batchKeyToBytes.getOrDefault(batchKey, 0L) + batchEntry.getSize();
+              // cut the batch before the point which exceeds the limit
+              if (bytes > this.maxBatchBytes && bytes > batchEntry.getSize()) {
+                batches.add(newBatchPoints(dbName, rp));
+                bytes = batchEntry.getSize();
+              }
+              batchKeyToBytes.put(batchKey, bytes);
+            }
+            batches.get(batches.size() - 1).point(point);
         } else if (batchEntry instanceof UdpBatchEntry) {
             UdpBatchEntry udpBatchEntry = UdpBatchEntry.class.cast(batchEntry);
             int udpPort = udpBatchEntry.getUdpPort();
@@ -379,17 +647,90 @@ public final class BatchProcessor {
         }
       }
 
-      BatchProcessor.this.batchWriter.write(batchKeyToBatchPoints.values());
+      if (drainedBytes > 0) {
+        this.queuedBytes.addAndGet(-drainedBytes);
+      }
+
+      CompletableFuture<Void> written = writeBatches(batchKeyToBatchPoints.values());
 
       for (Entry<Integer, List<String>> entry : udpPortToBatchPoints.entrySet()) {
           for (String lineprotocolStr : entry.getValue()) {
               BatchProcessor.this.influxDB.write(entry.getKey(), lineprotocolStr);
           }
       }
+      List<Point> writtenBatch = currentBatch;
+      return written.whenComplete((ignored, t) -> {
+        Throwable failure = t;
+        if (t instanceof CompletionException) {
+          failure = t.getCause();
+        }
+        complete(completions, failure);
+        if (failure != null) {
+          handleWriteFailure(writtenBatch, failure);
+        }
+      });
     } catch (Throwable t) {
       // any exception wouldn't stop the scheduler
-      exceptionHandler.accept(currentBatch, t);
-      LOG.log(Level.SEVERE, "Batch could not be sent. Data will be lost", t);
+      complete(completions, t);
+      handleWriteFailure(currentBatch, t);
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  private static void complete(final List<CompletableFuture<Void>> completions, final Throwable failure) {
+    for (CompletableFuture<Void> completion : completions) {
+      if (failure == null) {
+        completion.complete(null);
+      } else {
+        completion.completeExceptionally(failure);
+      }
+    }
+  }
+
+  private BatchPoints newBatchPoints(final String dbName, final String rp) {
+    return BatchPoints.database(dbName).retentionPolicy(rp).consistency(getConsistencyLevel())
+                      .precision(getPrecision()).build();
+  }
+
+  /**
+   * Write the batches of all keys, every write gets at most one batch per key, so the writers may still send the
+   * BatchPoints of one write concurrently without changing the order of the points of a key.
+   */
+  private CompletableFuture<Void> writeBatches(final Collection<List<BatchPoints>> batchesByKey) {
+    List<CompletableFuture<Void>> writes = new ArrayList<>(1);
+    int round = 0;
+    List<BatchPoints> roundBatches = batchesOfRound(batchesByKey, round);
+    do {
+      writes.add(this.batchWriter.write(roundBatches));
+      round++;
+      roundBatches = batchesOfRound(batchesByKey, round);
+    } while (!roundBatches.isEmpty());
+    if (writes.size() == 1) {
+      return writes.get(0);
+    }
+    return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private static List<BatchPoints> batchesOfRound(final Collection<List<BatchPoints>> batchesByKey, final int round) {
+    List<BatchPoints> roundBatches = new ArrayList<>(batchesByKey.size());
+    for (List<BatchPoints> batches : batchesByKey) {
+      if (round < batches.size()) {
+        roundBatches.add(batches.get(round));
+      }
+    }
+    return roundBatches;
+  }
+
+  private void handleWriteFailure(final List<Point> batch, final Throwable t) {
+    exceptionHandler.accept(batch, t);
+    LOG.log(Level.SEVERE, "Batch could not be sent. Data will be lost", t);
+  }
+
+  private static void awaitWritten(final CompletableFuture<Void> written) {
+    try {
+      written.join();
+    } catch (CompletionException | CancellationException e) {
+      // the failure has already been passed to the exceptionHandler
     }
   }
 
@@ -400,9 +741,11 @@ public final class BatchProcessor {
    *            the batchEntry to write to the cache.
    */
   void put(final AbstractBatchEntry batchEntry) {
+    long queued = count(batchEntry);
     try {
         if (this.dropActionsOnQueueExhaustion) {
           if (!this.queue.offer(batchEntry)) {
+            uncount(batchEntry);
             this.droppedActionHandler.accept(batchEntry.getPoint());
             return;
           }
@@ -410,9 +753,43 @@ public final class BatchProcessor {
           this.queue.put(batchEntry);
         }
     } catch (InterruptedException e) {
+        uncount(batchEntry);
         throw new RuntimeException(e);
     }
-    if (this.queue.size() >= this.actions) {
+    writeIfLimitReached(queued);
+  }
+
+  /**
+   * Offer a single BatchEntry to the cache for later processing without blocking.
+   *
+   * @param batchEntry
+   *            the batchEntry to write to the cache.
+   * @return true if the batchEntry was taken, false if the action queue is full
+   */
+  boolean offer(final AbstractBatchEntry batchEntry) {
+    long queued = count(batchEntry);
+    if (!this.queue.offer(batchEntry)) {
+      uncount(batchEntry);
+      return false;
+    }
+    writeIfLimitReached(queued);
+    return true;
+  }
+
+  /**
+   * @return the encoded bytes queued including the given entry, 0 if the bytes are not counted
+   */
+  private long count(final AbstractBatchEntry batchEntry) {
+    if (this.maxBatchBytes > 0 && batchEntry instanceof HttpBatchEntry) {
+      batchEntry.setSize(this.sizeEncoder.get().encodedSize(batchEntry.getPoint(), this.precision));
+      // counted before the entry can be drained
+      return this.queuedBytes.addAndGet(batchEntry.getSize());
+    }
+    return 0;
+  }
+
+  private void writeIfLimitReached(final long queued) {
+    if (isActionsLimitReached() || (this.maxBatchBytes > 0 && queued >= this.maxBatchBytes)) {
       this.scheduler.submit(new Runnable() {
         @Override
         public void run() {
@@ -422,22 +799,80 @@ public final class BatchProcessor {
     }
   }
 
+  private void uncount(final AbstractBatchEntry batchEntry) {
+    if (batchEntry.getSize() > 0) {
+      this.queuedBytes.addAndGet(-batchEntry.getSize());
+    }
+  }
+
+  private boolean isActionsLimitReached() {
+    int actionsLimit = getActions();
+    if (this.queue instanceof StripedRingBufferQueue) {
+      // a batch is written once the stripe this thread appends to holds the actions, or the whole queue is full
+      StripedRingBufferQueue<AbstractBatchEntry> striped = (StripedRingBufferQueue<AbstractBatchEntry>) this.queue;
+      return striped.homeStripeSize() >= actionsLimit || striped.size() >= striped.capacity();
+    }
+    return this.queue.size() >= actionsLimit;
+  }
+
+  /**
+   * @return the number of actions after which a batch is written, the current one of adaptive batching
+   */
+  int getActions() {
+    if (this.adaptiveBatchSizer != null) {
+      return this.adaptiveBatchSizer.getActions();
+    }
+    return this.actions;
+  }
+
   /**
    * Flush the current open writes to influxdb and end stop the reaper thread. This should only be
    * called if no batch processing is needed anymore.
    *
    */
   void flushAndShutdown() {
-    this.write();
+    awaitWritten(this.write());
     this.scheduler.shutdown();
     this.batchWriter.close();
+    if (this.flushExecutor != null) {
+      this.flushExecutor.shutdown();
+    }
   }
 
   /**
    * Flush the current open writes to InfluxDB. This will block until all pending points are written.
    */
   void flush() {
-    this.write();
+    awaitWritten(this.write());
+  }
+
+  /**
+   * Flush the current open writes to influxdb on the scheduler thread without waiting for them.
+   *
+   * @return a future which completes when the writes completed, failed writes are passed to the exceptionHandler
+   */
+  CompletableFuture<Void> flushAsync() {
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    this.scheduler.execute(() -> write().whenComplete((ignored, throwable) -> flushed.complete(null)));
+    return flushed;
+  }
+
+  /**
+   * @param drainListener invoked on the flushing thread whenever the action queue was drained, so space is free
+   */
+  void addDrainListener(final Runnable drainListener) {
+    this.drainListeners.add(drainListener);
+  }
+
+  void removeDrainListener(final Runnable drainListener) {
+    this.drainListeners.remove(drainListener);
+  }
+
+  /**
+   * @return true if the processor was shut down, entries are not written anymore
+   */
+  boolean isShutdown() {
+    return this.scheduler.isShutdown();
   }
 
   public ConsistencyLevel getConsistencyLevel() {
@@ -452,6 +887,10 @@ public final class BatchProcessor {
     return batchWriter;
   }
 
+  AdaptiveBatchSizer getAdaptiveBatchSizer() {
+    return adaptiveBatchSizer;
+  }
+
   public boolean isDropActionsOnQueueExhaustion() {
     return dropActionsOnQueueExhaustion;
   }
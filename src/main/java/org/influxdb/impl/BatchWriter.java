@@ -3,6 +3,7 @@ package org.influxdb.impl;
 import org.influxdb.dto.BatchPoints;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Write individual batches to InfluxDB.
@@ -11,12 +12,13 @@ interface BatchWriter {
   /**
    * Write the given batch into InfluxDB.
    * @param batchPointsCollection to write
+   * @return a future which completes once the batch and all batches given before are written, or completes
+   *         exceptionally if the batch could not be written
    */
-  void write(Collection<BatchPoints> batchPointsCollection);
+  CompletableFuture<Void> write(Collection<BatchPoints> batchPointsCollection);
 
   /**
    * FLush all cached writes into InfluxDB. The application is about to exit.
    */
   void close();
 }
-
@@ -0,0 +1,270 @@
+package org.influxdb.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.influxdb.Flow;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
+import org.influxdb.dto.QueryResult;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Publishes the chunks of a chunked query on the demand of the subscribers.
+ *
+ * <p>Every subscriber gets its own request, which is sent on its first {@link Flow.Subscription#request(long)}.
+ * The chunks are read from the response body only while there is demand: without demand the reading stops and the
+ * thread is released, a later request resumes it on the given executor, the one of the OkHttp dispatcher. The
+ * body is held open in the meantime. {@link Flow.Subscription#cancel()} cancels the call.</p>
+ *
+ * @param <T> the items published for every chunk, the QueryResult itself or its rows
+ */
+final class ChunkedQueryPublisher<T> implements Flow.Publisher<T> {
+
+  /**
+   * Reads the QueryResults of a chunked response body one by one.
+   */
+  interface ChunkReader extends Closeable {
+
+    /**
+     * @return the next chunk, null at the end of the body
+     */
+    QueryResult next() throws IOException;
+  }
+
+  private final Supplier<Call<ResponseBody>> callFactory;
+  private final Function<ResponseBody, ChunkReader> readerFactory;
+  private final Function<ResponseBody, Throwable> errorMapper;
+  private final Function<QueryResult, Iterator<T>> items;
+  private final Executor executor;
+
+  /**
+   * @param callFactory creates the call of the query for every subscriber
+   * @param readerFactory creates the reader of a successful response body
+   * @param errorMapper maps the error body of a failed response to the exception published
+   * @param items splits a chunk into the published items, may throw an exception to fail the subscription
+   * @param executor resumes the reading when there is demand again
+   */
+  ChunkedQueryPublisher(final Supplier<Call<ResponseBody>> callFactory,
+                        final Function<ResponseBody, ChunkReader> readerFactory,
+                        final Function<ResponseBody, Throwable> errorMapper,
+                        final Function<QueryResult, Iterator<T>> items, final Executor executor) {
+    this.callFactory = callFactory;
+    this.readerFactory = readerFactory;
+    this.errorMapper = errorMapper;
+    this.items = items;
+    this.executor = executor;
+  }
+
+  /**
+   * Split a chunk into its rows, every row is a Series with the name, tags and columns of its series and a single
+   * row of values.
+   *
+   * @param queryResult the chunk
+   * @return the rows of all series of all results
+   * @throws InfluxDBException if the chunk or one of its results is an error
+   */
+  static Iterator<QueryResult.Series> rowsOf(final QueryResult queryResult) {
+    if (queryResult.getError() != null) {
+      throw new InfluxDBException(queryResult.getError());
+    }
+    if (queryResult.getResults() == null) {
+      return Collections.emptyIterator();
+    }
+    List<QueryResult.Series> rows = new ArrayList<>();
+    for (QueryResult.Result result : queryResult.getResults()) {
+      if (result.getError() != null) {
+        throw new InfluxDBException(result.getError());
+      }
+      if (result.getSeries() == null) {
+        continue;
+      }
+      for (QueryResult.Series series : result.getSeries()) {
+        if (series.getValues() == null) {
+          continue;
+        }
+        for (List<Object> values : series.getValues()) {
+          QueryResult.Series row = new QueryResult.Series();
+          row.setName(series.getName());
+          row.setTags(series.getTags());
+          row.setColumns(series.getColumns());
+          row.setValues(Collections.singletonList(values));
+          rows.add(row);
+        }
+      }
+    }
+    return rows.iterator();
+  }
+
+  @Override
+  public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+    ChunkSubscription subscription = new ChunkSubscription(subscriber, callFactory.get());
+    subscriber.onSubscribe(subscription);
+  }
+
+  private final class ChunkSubscription implements Flow.Subscription, Callback<ResponseBody> {
+
+    private final Flow.Subscriber<? super T> subscriber;
+    private final Call<ResponseBody> call;
+    private final AtomicLong requested = new AtomicLong();
+    // the number of drain requests, only the thread which raised it from 0 drains
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile ChunkReader reader;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    // accessed by the draining thread only
+    private Iterator<T> chunk = Collections.emptyIterator();
+    private boolean done;
+
+    private ChunkSubscription(final Flow.Subscriber<? super T> subscriber, final Call<ResponseBody> call) {
+      this.subscriber = subscriber;
+      this.call = call;
+    }
+
+    @Override
+    public void request(final long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("Expecting a positive number of requested items, but was " + n);
+        cancelled = true;
+        call.cancel();
+        scheduleDrain();
+        return;
+      }
+      requested.accumulateAndGet(n, (current, added) -> {
+        long sum = current + added;
+        if (sum < 0) {
+          return Long.MAX_VALUE;
+        }
+        return sum;
+      });
+      if (started.compareAndSet(false, true)) {
+        call.enqueue(this);
+      } else {
+        scheduleDrain();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      call.cancel();
+      scheduleDrain();
+    }
+
+    @Override
+    public void onResponse(final Call<ResponseBody> call, final Response<ResponseBody> response) {
+      if (response.isSuccessful()) {
+        reader = readerFactory.apply(response.body());
+      } else {
+        try (ResponseBody errorBody = response.errorBody()) {
+          error = errorMapper.apply(errorBody);
+        }
+      }
+      // read on the thread of the response as long as there is demand
+      if (pendingDrains.getAndIncrement() == 0) {
+        drain();
+      }
+    }
+
+    @Override
+    public void onFailure(final Call<ResponseBody> call, final Throwable throwable) {
+      if (cancelled) {
+        // the failure of a cancelled call is no error of the query
+        scheduleDrain();
+        return;
+      }
+      if (throwable instanceof IOException) {
+        error = new InfluxDBIOException((IOException) throwable);
+      } else {
+        error = throwable;
+      }
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (pendingDrains.getAndIncrement() == 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      int missed = 1;
+      do {
+        drainOnce();
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drainOnce() {
+      if (done) {
+        // a response may arrive after the cancellation
+        closeReader();
+        return;
+      }
+      try {
+        while (!cancelled && error == null && reader != null && requested.get() > 0) {
+          if (!chunk.hasNext()) {
+            QueryResult queryResult = reader.next();
+            if (queryResult == null) {
+              finish();
+              subscriber.onComplete();
+              return;
+            }
+            chunk = items.apply(queryResult);
+            continue;
+          }
+          subscriber.onNext(chunk.next());
+          if (requested.get() != Long.MAX_VALUE) {
+            requested.decrementAndGet();
+          }
+        }
+      } catch (IOException e) {
+        if (!cancelled) {
+          error = new InfluxDBIOException(e);
+        }
+      } catch (RuntimeException e) {
+        error = e;
+      }
+      Throwable failure = error;
+      if (failure != null) {
+        finish();
+        subscriber.onError(failure);
+      } else if (cancelled) {
+        finish();
+      }
+    }
+
+    private void finish() {
+      done = true;
+      cancelled = true;
+      call.cancel();
+      closeReader();
+    }
+
+    private void closeReader() {
+      ChunkReader chunkReader = reader;
+      if (chunkReader != null) {
+        try {
+          chunkReader.close();
+        } catch (IOException e) {
+          // the subscription is over, there is nobody to tell
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,419 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.influxdb.BatchOptions.SpoolFsyncPolicy;
+import org.influxdb.InfluxDBIOException;
+
+/**
+ * Durable FIFO of {@link SpooledBatch}es in memory-mapped segment files, used by the
+ * {@link RetryCapableBatchWriter} instead of its in-memory retry queue.
+ *
+ * <p>Every segment is a file of a fixed size, mapped into memory. Records are appended one after another:</p>
+ * <pre>
+ *   int length | int CRC32 of the payload | byte state (0 = pending, 1 = written) | payload
+ * </pre>
+ * <p>The length is stored last, so a record becomes visible only when it is complete, and a length of 0 marks
+ * the end of the records as the files are zero filled. A replayed record is marked as written in place. When a
+ * segment has no space left for the next record a new one is started, a segment is deleted once all of its
+ * records are written.</p>
+ *
+ * <p>On start the segments found in the directory are recovered: their pending records are replayed first, a
+ * torn record at the end of a segment, detected by its checksum, ends the recovery of that segment. Recovered
+ * segments are not appended to. When the segments would exceed the maximum disk size, the oldest segment is
+ * evicted and its pending records are handed to the eviction callback.</p>
+ *
+ * <p>The spool holds an exclusive lock on a lock file in the directory until it is closed, so a second client
+ * cannot open the same directory and overwrite its segments.</p>
+ *
+ * <p>The spool is not thread safe, the {@link RetryCapableBatchWriter} synchronizes the access.</p>
+ */
+final class DiskSpool {
+
+  private static final String SEGMENT_SUFFIX = ".spool";
+  private static final String LOCK_FILE = "spool.lock";
+  private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + 1;
+  private static final int CRC_OFFSET = Integer.BYTES;
+  private static final int STATE_OFFSET = CRC_OFFSET + Integer.BYTES;
+  private static final byte PENDING = 0;
+  private static final byte WRITTEN = 1;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final long maxDiskSize;
+  private final SpoolFsyncPolicy fsyncPolicy;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private FileChannel lockChannel;
+  private Segment active;
+  private long nextSequence;
+  private long diskSize;
+  private int pendingRecords;
+  // the batches removed or evicted since the spool was opened
+  private long removedRecords;
+
+  private static final class Segment {
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int readPosition;
+    private int pendingRecords;
+
+    private Segment(final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+      this.path = path;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    private int capacity() {
+      return buffer.capacity();
+    }
+  }
+
+  /**
+   * Open the spool, recovering the records of the segments in the directory.
+   *
+   * @param directory the directory of the segment files, created if it does not exist
+   * @param segmentSize the size of a segment file in bytes
+   * @param maxDiskSize the maximum size of all segment files in bytes
+   * @param fsyncPolicy when the segments are forced to the storage device
+   * @throws IllegalStateException if the directory is locked by another spool
+   */
+  DiskSpool(final Path directory, final int segmentSize, final long maxDiskSize,
+            final SpoolFsyncPolicy fsyncPolicy) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxDiskSize = maxDiskSize;
+    this.fsyncPolicy = fsyncPolicy;
+    try {
+      Files.createDirectories(directory);
+      lock();
+      recover();
+    } catch (IOException e) {
+      close();
+      throw new InfluxDBIOException(e);
+    }
+  }
+
+  private void lock() throws IOException {
+    lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+    FileLock lock = null;
+    try {
+      lock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // locked by a spool of this JVM
+    }
+    if (lock == null) {
+      lockChannel.close();
+      lockChannel = null;
+      throw new IllegalStateException("The spool directory " + directory + " is used by another client");
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        paths.add(path);
+      }
+    }
+    // the zero padded sequence numbers sort like the numbers
+    Collections.sort(paths);
+    for (Path path : paths) {
+      nextSequence = Math.max(nextSequence, sequenceOf(path) + 1);
+      Segment segment = map(path, (int) Files.size(path));
+      scan(segment);
+      if (segment.pendingRecords == 0) {
+        delete(segment);
+      } else {
+        segments.addLast(segment);
+        diskSize += segment.capacity();
+        pendingRecords += segment.pendingRecords;
+      }
+    }
+  }
+
+  private static long sequenceOf(final Path path) {
+    String name = path.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Find the valid records of a recovered segment.
+   */
+  private void scan(final Segment segment) {
+    MappedByteBuffer buffer = segment.buffer;
+    int position = 0;
+    segment.readPosition = -1;
+    while (position + HEADER_SIZE <= segment.capacity()) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || length > segment.capacity() - position - HEADER_SIZE
+          || checksum(buffer, position + HEADER_SIZE, length) != buffer.getInt(position + CRC_OFFSET)) {
+        break;
+      }
+      if (buffer.get(position + STATE_OFFSET) == PENDING) {
+        if (segment.readPosition < 0) {
+          segment.readPosition = position;
+        }
+        segment.pendingRecords++;
+      }
+      position += HEADER_SIZE + length;
+    }
+    segment.writePosition = position;
+    if (segment.readPosition < 0) {
+      segment.readPosition = position;
+    }
+  }
+
+  private int checksum(final ByteBuffer buffer, final int offset, final int length) {
+    ByteBuffer payload = buffer.duplicate();
+    payload.position(offset);
+    payload.limit(offset + length);
+    crc.reset();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Append a batch, evicting the oldest segments if the maximum disk size would be exceeded.
+   *
+   * @param batch the batch to append
+   * @param evicted receives the pending batches of evicted segments, and the given batch if it does not fit at all
+   */
+  void append(final SpooledBatch batch, final Consumer<SpooledBatch> evicted) {
+    byte[] payload = batch.serialize();
+    int recordSize = HEADER_SIZE + payload.length;
+    try {
+      if (active == null || active.capacity() - active.writePosition < recordSize) {
+        int newSegmentSize = Math.max(segmentSize, recordSize);
+        if (newSegmentSize > maxDiskSize) {
+          evicted.accept(batch);
+          return;
+        }
+        if (active != null) {
+          sealActive();
+        }
+        while (diskSize + newSegmentSize > maxDiskSize && !segments.isEmpty()) {
+          evictOldest(evicted);
+        }
+        startSegment(newSegmentSize);
+      }
+    } catch (IOException e) {
+      throw new InfluxDBIOException(e);
+    }
+    MappedByteBuffer buffer = active.buffer;
+    int position = active.writePosition;
+    ByteBuffer target = buffer.duplicate();
+    target.position(position + HEADER_SIZE);
+    target.put(payload);
+    crc.reset();
+    crc.update(payload);
+    buffer.putInt(position + CRC_OFFSET, (int) crc.getValue());
+    buffer.put(position + STATE_OFFSET, PENDING);
+    // the length publishes the complete record
+    buffer.putInt(position, payload.length);
+    active.writePosition += recordSize;
+    active.pendingRecords++;
+    pendingRecords++;
+    if (fsyncPolicy == SpoolFsyncPolicy.ALWAYS) {
+      buffer.force();
+    }
+  }
+
+  private void startSegment(final int size) throws IOException {
+    Path path = directory.resolve(String.format("%020d", nextSequence++) + SEGMENT_SUFFIX);
+    active = map(path, size);
+    segments.addLast(active);
+    diskSize += size;
+  }
+
+  private void sealActive() {
+    if (fsyncPolicy != SpoolFsyncPolicy.NEVER) {
+      active.buffer.force();
+    }
+    if (active.pendingRecords == 0) {
+      segments.remove(active);
+      diskSize -= active.capacity();
+      delete(active);
+    }
+    active = null;
+  }
+
+  private void evictOldest(final Consumer<SpooledBatch> evicted) {
+    Segment oldest = segments.removeFirst();
+    while (oldest.pendingRecords > 0) {
+      evicted.accept(read(oldest));
+      markWritten(oldest);
+    }
+    diskSize -= oldest.capacity();
+    delete(oldest);
+    if (oldest == active) {
+      active = null;
+    }
+  }
+
+  /**
+   * @return the oldest pending batch, null if there is none
+   */
+  SpooledBatch peek() {
+    Segment head = segments.peekFirst();
+    if (head == null || head.pendingRecords == 0) {
+      return null;
+    }
+    return read(head);
+  }
+
+  /**
+   * Mark the oldest pending batch as written, deleting its segment if it was the last pending one of a segment
+   * which is not appended to.
+   */
+  void remove() {
+    Segment head = segments.peekFirst();
+    if (head == null || head.pendingRecords == 0) {
+      return;
+    }
+    markWritten(head);
+    if (fsyncPolicy == SpoolFsyncPolicy.ALWAYS) {
+      head.buffer.force();
+    }
+    if (head.pendingRecords == 0 && head != active) {
+      segments.removeFirst();
+      diskSize -= head.capacity();
+      delete(head);
+    }
+  }
+
+  private SpooledBatch read(final Segment segment) {
+    int position = segment.readPosition;
+    int length = segment.buffer.getInt(position);
+    ByteBuffer payload = segment.buffer.duplicate();
+    payload.position(position + HEADER_SIZE);
+    payload.limit(position + HEADER_SIZE + length);
+    return SpooledBatch.deserialize(payload);
+  }
+
+  private void markWritten(final Segment segment) {
+    MappedByteBuffer buffer = segment.buffer;
+    buffer.put(segment.readPosition + STATE_OFFSET, WRITTEN);
+    segment.pendingRecords--;
+    pendingRecords--;
+    removedRecords++;
+    // advance to the next pending record
+    int position = segment.readPosition + HEADER_SIZE + buffer.getInt(segment.readPosition);
+    while (position < segment.writePosition && buffer.get(position + STATE_OFFSET) != PENDING) {
+      position += HEADER_SIZE + buffer.getInt(position);
+    }
+    segment.readPosition = position;
+  }
+
+  /**
+   * @return the number of batches removed or evicted since the spool was opened, it changes whenever the oldest
+   *         pending batch does
+   */
+  long removedRecords() {
+    return removedRecords;
+  }
+
+  /**
+   * @return true if there is no pending batch
+   */
+  boolean isEmpty() {
+    return pendingRecords == 0;
+  }
+
+  /**
+   * @return the number of pending batches
+   */
+  int size() {
+    return pendingRecords;
+  }
+
+  /**
+   * @return the maximum size of all segment files in bytes
+   */
+  long maxDiskSize() {
+    return maxDiskSize;
+  }
+
+  /**
+   * @return the size of all segment files in bytes
+   */
+  long diskSize() {
+    return diskSize;
+  }
+
+  /**
+   * Force the segments to the storage device, unless the policy is {@link SpoolFsyncPolicy#NEVER}, and close
+   * them. The pending batches are recovered by the next spool opened on the directory.
+   */
+  void close() {
+    for (Segment segment : segments) {
+      if (fsyncPolicy != SpoolFsyncPolicy.NEVER) {
+        segment.buffer.force();
+      }
+      closeQuietly(segment);
+    }
+    segments.clear();
+    active = null;
+    if (lockChannel != null) {
+      try {
+        // closing the channel releases the lock, the lock file is kept for the next spool
+        lockChannel.close();
+      } catch (IOException e) {
+        // the lock is released with the process at the latest
+      }
+      lockChannel = null;
+    }
+  }
+
+  private static Segment map(final Path path, final int size) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      return new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static void delete(final Segment segment) {
+    closeQuietly(segment);
+    try {
+      // the mapping itself is released by the garbage collector
+      Files.deleteIfExists(segment.path);
+    } catch (IOException e) {
+      // some platforms do not delete mapped files, all records are written so the next start deletes it
+    }
+  }
+
+  private static void closeQuietly(final Segment segment) {
+    try {
+      segment.channel.close();
+    } catch (IOException e) {
+      // the data is in the mapped buffer, nothing is lost
+    }
+  }
+}
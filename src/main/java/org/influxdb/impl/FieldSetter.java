@@ -0,0 +1,342 @@
+package org.influxdb.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.dto.ColumnarResult;
+import org.influxdb.dto.MeasurementCodec;
+import org.influxdb.dto.RowCursor;
+
+/**
+ * The compiled mapping of a column to a field of a measurement POJO or to a parameter of a record constructor.
+ *
+ * <p>The conversion is chosen once from the declared type, and a field is set through a {@link MethodHandle} of its
+ * setter, which takes the primitive value for primitive fields, so mapping a cell neither looks up the field nor
+ * checks its type nor boxes a primitive column value again. The fields of a class with a generated
+ * {@link MeasurementCodec} are set through the codec.</p>
+ */
+final class FieldSetter {
+
+  private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+  /**
+   * The conversion of a value to the declared type.
+   */
+  private enum Kind {
+    STRING, INSTANT, DOUBLE, LONG, INTEGER, BOOLEAN, ENUM, UNSUPPORTED
+  }
+
+  private final String name;
+  private final String className;
+  private final Class<?> type;
+  private final Kind kind;
+  // the setter of a field, taking the primitive value for a primitive field, null for a parameter
+  private final MethodHandle setter;
+  private final boolean primitive;
+  // the failure to resolve the generic type of the field
+  private final RuntimeException unresolved;
+  // the generated codec setting the field, null for fields set through the setter
+  private final MeasurementCodec<Object> codec;
+  private final int field;
+
+  private FieldSetter(final String name, final String className, final Class<?> type, final MethodHandle setter,
+                      final RuntimeException unresolved) {
+    this(name, className, type, setter, unresolved, null, -1);
+  }
+
+  private FieldSetter(final String name, final String className, final Class<?> type, final MethodHandle setter,
+                      final RuntimeException unresolved, final MeasurementCodec<Object> codec, final int field) {
+    this.name = name;
+    this.className = className;
+    this.type = type;
+    this.kind = kindOf(type);
+    this.primitive = setter != null && type != null && type.isPrimitive();
+    this.setter = setter;
+    this.unresolved = unresolved;
+    this.codec = codec;
+    this.field = field;
+  }
+
+  /**
+   * @param field the field of the POJO
+   * @param typeMapper the resolver of the type variables of the class declaring the field
+   * @return the setter of the field
+   */
+  static FieldSetter of(final Field field, final TypeMapper typeMapper) {
+    String className = field.getDeclaringClass().getName();
+    Type fieldType;
+    try {
+      fieldType = typeMapper.resolve(field.getGenericType());
+    } catch (IllegalStateException e) {
+      return new FieldSetter(field.getName(), className, null, null, e);
+    }
+    Class<?> type = null;
+    if (fieldType instanceof Class) {
+      type = (Class<?>) fieldType;
+    }
+    MethodHandle setter;
+    try {
+      if (!field.isAccessible()) {
+        field.setAccessible(true);
+      }
+      setter = MethodHandles.lookup().unreflectSetter(field);
+    } catch (IllegalAccessException e) {
+      throw new InfluxDBMapperException(e);
+    }
+    if (type == null || !type.isPrimitive() || kindOf(type) == Kind.UNSUPPORTED) {
+      setter = setter.asType(OBJECT_SETTER);
+    } else {
+      setter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+    }
+    return new FieldSetter(field.getName(), className, type, setter, null);
+  }
+
+  /**
+   * @param type the type of the constructor parameter
+   * @param name the name of the parameter
+   * @param className the name of the record
+   * @return the converter of the values of the parameter
+   */
+  static FieldSetter ofParameter(final Class<?> type, final String name, final String className) {
+    return new FieldSetter(name, className, type, null, null);
+  }
+
+  /**
+   * @param codec the generated codec of the class
+   * @param field the index of the field in the codec
+   * @param className the name of the class
+   * @return the setter of the field through the codec
+   */
+  @SuppressWarnings("unchecked")
+  static FieldSetter ofCodec(final MeasurementCodec<?> codec, final int field, final String className) {
+    return new FieldSetter(codec.getColumnNames().get(field), className, codec.getFieldType(field), null, null,
+        (MeasurementCodec<Object>) codec, field);
+  }
+
+  private static Kind kindOf(final Class<?> type) {
+    if (type == null) {
+      return Kind.UNSUPPORTED;
+    }
+    if (String.class.isAssignableFrom(type)) {
+      return Kind.STRING;
+    }
+    if (Instant.class.isAssignableFrom(type)) {
+      return Kind.INSTANT;
+    }
+    if (Double.class.isAssignableFrom(type) || double.class.isAssignableFrom(type)) {
+      return Kind.DOUBLE;
+    }
+    if (Long.class.isAssignableFrom(type) || long.class.isAssignableFrom(type)) {
+      return Kind.LONG;
+    }
+    if (Integer.class.isAssignableFrom(type) || int.class.isAssignableFrom(type)) {
+      return Kind.INTEGER;
+    }
+    if (Boolean.class.isAssignableFrom(type) || boolean.class.isAssignableFrom(type)) {
+      return Kind.BOOLEAN;
+    }
+    if (Enum.class.isAssignableFrom(type)) {
+      return Kind.ENUM;
+    }
+    return Kind.UNSUPPORTED;
+  }
+
+  /**
+   * Convert a value of a query result to the declared type.
+   *
+   * @param value the value, not null
+   * @param precision the precision of numeric timestamps
+   * @return the converted value
+   */
+  Object convert(final Object value, final TimeUnit precision) {
+    if (unresolved != null) {
+      throw unresolved;
+    }
+    try {
+      switch (kind) {
+        case STRING:
+          return String.valueOf(value);
+        case INSTANT:
+          if (value instanceof String) {
+            return Rfc3339.parseInstant((String) value);
+          }
+          if (value instanceof Long || value instanceof Double || value instanceof Integer) {
+            return Instant.ofEpochMilli(toMillis(((Number) value).longValue(), precision));
+          }
+          throw new InfluxDBMapperException("Unsupported type " + type + " for field " + name);
+        case DOUBLE:
+          return ((Number) value).doubleValue();
+        case LONG:
+          return ((Number) value).longValue();
+        case INTEGER:
+          return ((Number) value).intValue();
+        case BOOLEAN:
+          if (value instanceof Boolean) {
+            return value;
+          }
+          return Boolean.valueOf(String.valueOf(value));
+        case ENUM:
+          //noinspection unchecked
+          return Enum.valueOf((Class<Enum>) type, String.valueOf(value));
+        default:
+          throw new InfluxDBMapperException(
+              String.format("Class '%s' field '%s' is from an unsupported type '%s'.", className, name, type));
+      }
+    } catch (ClassCastException e) {
+      String msg = "Class '%s' field '%s' was defined with a different field type and caused a ClassCastException. "
+        + "The correct type is '%s' (current field value: '%s').";
+      throw new InfluxDBMapperException(String.format(msg, className, name, value.getClass().getName(), value), e);
+    }
+  }
+
+  /**
+   * Set a value of a query result, nothing if it is null.
+   *
+   * @param target the POJO
+   * @param value the value
+   * @param precision the precision of numeric timestamps
+   */
+  void set(final Object target, final Object value, final TimeUnit precision) {
+    if (value == null) {
+      return;
+    }
+    if (primitive && value instanceof Number) {
+      Number number = (Number) value;
+      switch (kind) {
+        case DOUBLE:
+          setDouble(target, number.doubleValue(), precision);
+          return;
+        case LONG:
+        case INTEGER:
+          setLong(target, number.longValue(), precision);
+          return;
+        default:
+      }
+    }
+    Object converted = convert(value, precision);
+    if (codec != null) {
+      codec.set(target, field, converted);
+      return;
+    }
+    try {
+      if (primitive) {
+        invokePrimitive(target, converted);
+      } else {
+        setter.invokeExact(target, converted);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InfluxDBMapperException(t);
+    }
+  }
+
+  private void invokePrimitive(final Object target, final Object converted) throws Throwable {
+    switch (kind) {
+      case BOOLEAN:
+        setter.invokeExact(target, ((Boolean) converted).booleanValue());
+        break;
+      case DOUBLE:
+        setter.invokeExact(target, ((Double) converted).doubleValue());
+        break;
+      case LONG:
+        setter.invokeExact(target, ((Long) converted).longValue());
+        break;
+      default:
+        setter.invokeExact(target, ((Integer) converted).intValue());
+    }
+  }
+
+  /**
+   * Set a value of a column, nothing if it is null.
+   *
+   * @param target the POJO
+   * @param column the column
+   * @param row the row of the value
+   * @param precision the precision of numeric timestamps
+   */
+  void set(final Object target, final ColumnarResult.Column column, final int row, final TimeUnit precision) {
+    if (column.isNull(row)) {
+      return;
+    }
+    switch (column.getType()) {
+      case LONG:
+        setLong(target, column.getLongs()[row], precision);
+        break;
+      case DOUBLE:
+        setDouble(target, column.getDoubles()[row], precision);
+        break;
+      default:
+        set(target, column.getValue(row), precision);
+    }
+  }
+
+  /**
+   * Set a value of the current row of a cursor, nothing if it is null.
+   *
+   * @param target the POJO
+   * @param cursor the cursor
+   * @param column the column of the value
+   * @param precision the precision of numeric timestamps
+   */
+  void set(final Object target, final RowCursor cursor, final int column, final TimeUnit precision) {
+    switch (cursor.getType(column)) {
+      case NULL:
+        break;
+      case LONG:
+        setLong(target, cursor.getLong(column), precision);
+        break;
+      case DOUBLE:
+        setDouble(target, cursor.getDouble(column), precision);
+        break;
+      default:
+        set(target, cursor.getValue(column), precision);
+    }
+  }
+
+  private void setLong(final Object target, final long value, final TimeUnit precision) {
+    try {
+      if (primitive && kind == Kind.LONG) {
+        setter.invokeExact(target, value);
+      } else if (primitive && kind == Kind.DOUBLE) {
+        setter.invokeExact(target, (double) value);
+      } else if (primitive && kind == Kind.INTEGER) {
+        setter.invokeExact(target, (int) value);
+      } else {
+        set(target, (Object) value, precision);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InfluxDBMapperException(t);
+    }
+  }
+
+  private void setDouble(final Object target, final double value, final TimeUnit precision) {
+    try {
+      if (primitive && kind == Kind.DOUBLE) {
+        setter.invokeExact(target, value);
+      } else if (primitive && kind == Kind.LONG) {
+        setter.invokeExact(target, (long) value);
+      } else if (primitive && kind == Kind.INTEGER) {
+        setter.invokeExact(target, (int) value);
+      } else {
+        set(target, (Object) value, precision);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InfluxDBMapperException(t);
+    }
+  }
+
+  private static long toMillis(final long value, final TimeUnit precision) {
+    return TimeUnit.MILLISECONDS.convert(value, precision);
+  }
+}
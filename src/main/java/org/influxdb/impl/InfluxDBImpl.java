@@ -12,16 +12,26 @@ import okhttp3.logging.HttpLoggingInterceptor;
 import okhttp3.logging.HttpLoggingInterceptor.Level;
 import okio.BufferedSource;
 import org.influxdb.BatchOptions;
+import org.influxdb.BatchSizing;
+import org.influxdb.Flow;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBException;
 import org.influxdb.InfluxDBIOException;
+import org.influxdb.PointSubscriber;
+import org.influxdb.VirtualThreads;
+import org.influxdb.WriteRateLimiter;
 import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.ColumnarResult;
+import org.influxdb.dto.LineProtocolKeyCache;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.RowCursor;
+import org.influxdb.dto.SeriesWriter;
 import org.influxdb.impl.BatchProcessor.HttpBatchEntry;
 import org.influxdb.impl.BatchProcessor.UdpBatchEntry;
+import org.influxdb.impl.ChunkedQueryPublisher.ChunkReader;
 import org.influxdb.msgpack.MessagePackConverterFactory;
 import org.influxdb.msgpack.MessagePackTraverser;
 import retrofit2.Call;
@@ -47,6 +57,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -84,6 +96,7 @@ public class InfluxDBImpl implements InfluxDB {
   private final OkHttpClient client;
   private final InfluxDBService influxDBService;
   private BatchProcessor batchProcessor;
+  private volatile AdaptiveBatchSizer adaptiveBatchSizer;
   private final AtomicBoolean batchEnabled = new AtomicBoolean(false);
   private final LongAdder writeCount = new LongAdder();
   private final LongAdder unBatchedCount = new LongAdder();
@@ -94,6 +107,8 @@ public class InfluxDBImpl implements InfluxDB {
   private LogLevel logLevel = LogLevel.NONE;
   private String database;
   private String retentionPolicy = "autogen";
+  private volatile LineProtocolKeyCache lineProtocolKeyCache = new LineProtocolKeyCache();
+  private volatile WriteRateLimiter writeRateLimiter;
   private ConsistencyLevel consistency = ConsistencyLevel.ONE;
   private final boolean messagePack;
   private Boolean messagePackSupport;
@@ -300,18 +315,39 @@ public class InfluxDBImpl implements InfluxDB {
     if (this.batchEnabled.get()) {
       throw new IllegalStateException("BatchProcessing is already enabled.");
     }
+    AdaptiveBatchSizer sizer = null;
+    if (batchOptions.isAdaptiveBatching()) {
+      sizer = new AdaptiveBatchSizer(batchOptions.getMinActions(), batchOptions.getMaxActions(),
+          batchOptions.getActions(), batchOptions.getMinFlushDuration(), batchOptions.getMaxFlushDuration(),
+          batchOptions.getFlushDuration(), batchOptions.getTargetWriteLatency());
+    }
+    ThreadFactory threadFactory = batchOptions.getThreadFactory();
+    if (batchOptions.isVirtualThreads() && VirtualThreads.isSupported()) {
+      threadFactory = VirtualThreads.threadFactory("influxdb-batch-");
+    }
     this.batchProcessor = BatchProcessor
             .builder(this)
             .actions(batchOptions.getActions())
             .exceptionHandler(batchOptions.getExceptionHandler())
             .interval(batchOptions.getFlushDuration(), batchOptions.getJitterDuration(), TimeUnit.MILLISECONDS)
-            .threadFactory(batchOptions.getThreadFactory())
+            .threadFactory(threadFactory)
             .bufferLimit(batchOptions.getBufferLimit())
+            .bufferLimitBytes(batchOptions.getBufferLimitBytes())
+            .maxBatchBytes(batchOptions.getMaxBatchBytes())
             .consistencyLevel(batchOptions.getConsistency())
             .precision(batchOptions.getPrecision())
             .dropActionsOnQueueExhaustion(batchOptions.isDropActionsOnQueueExhaustion())
             .droppedActionHandler(batchOptions.getDroppedActionHandler())
+            .queueStrategy(batchOptions.getQueueStrategy())
+            .flushParallelism(batchOptions.getFlushParallelism())
+            .maxInFlightRequests(batchOptions.getMaxInFlightRequests())
+            .spoolDirectory(batchOptions.getSpoolDirectory())
+            .spoolSegmentSize(batchOptions.getSpoolSegmentSize())
+            .spoolMaxDiskSize(batchOptions.getSpoolMaxDiskSize())
+            .spoolFsyncPolicy(batchOptions.getSpoolFsyncPolicy())
+            .adaptiveBatchSizer(sizer)
             .build();
+    this.adaptiveBatchSizer = sizer;
     this.batchEnabled.set(true);
     return this;
   }
@@ -375,6 +411,7 @@ public class InfluxDBImpl implements InfluxDB {
     if (this.batchProcessor != null) {
       this.batchProcessor.flushAndShutdown();
     }
+    this.adaptiveBatchSizer = null;
   }
 
   @Override
@@ -382,6 +419,17 @@ public class InfluxDBImpl implements InfluxDB {
     return this.batchEnabled.get();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BatchSizing getBatchSizing() {
+    if (!isBatchEnabled()) {
+      return null;
+    }
+    return this.adaptiveBatchSizer;
+  }
+
   @Override
   public Pong ping() {
     final long started = System.currentTimeMillis();
@@ -460,24 +508,110 @@ public class InfluxDBImpl implements InfluxDB {
 
   @Override
   public void write(final BatchPoints batchPoints) {
-    this.batchedCount.add(batchPoints.getPoints().size());
-    RequestBody lineProtocol = RequestBody.create(MEDIA_TYPE_STRING, batchPoints.lineProtocol());
+    WriteRateLimiter limiter = this.writeRateLimiter;
+    if (limiter != null) {
+      try {
+        limiter.acquire(databaseOf(batchPoints), batchPoints.getPoints().size(), encodedSize(batchPoints, limiter));
+      } catch (InterruptedException e) {
+        throw rateLimitInterrupted(e);
+      }
+    }
+    send(batchPoints);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PointSubscriber pointSubscriber(final String database, final String retentionPolicy) {
+    BatchProcessor processor = this.batchProcessor;
+    if (!this.batchEnabled.get() || processor == null) {
+      throw new IllegalStateException("BatchProcessing is not enabled.");
+    }
+    return new BatchPointSubscriber(processor, database, retentionPolicy);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean tryWrite(final BatchPoints batchPoints, final long timeout, final TimeUnit unit) {
+    WriteRateLimiter limiter = this.writeRateLimiter;
+    if (limiter != null) {
+      try {
+        if (!limiter.tryAcquire(databaseOf(batchPoints), batchPoints.getPoints().size(),
+            encodedSize(batchPoints, limiter), timeout, unit)) {
+          return false;
+        }
+      } catch (InterruptedException e) {
+        throw rateLimitInterrupted(e);
+      }
+    }
+    send(batchPoints);
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final BatchPoints batchPoints) {
+    WriteRateLimiter limiter = this.writeRateLimiter;
+    if (limiter == null) {
+      return executeAsync(writePointsCall(batchPoints));
+    }
+    return limiter.acquireAsync(databaseOf(batchPoints), batchPoints.getPoints().size(),
+        encodedSize(batchPoints, limiter)).thenCompose(ignored -> executeAsync(writePointsCall(batchPoints)));
+  }
+
+  private String databaseOf(final BatchPoints batchPoints) {
     String db = batchPoints.getDatabase();
     if (db == null) {
         db = this.database;
     }
-    execute(this.influxDBService.writePoints(
-        db,
+    return db;
+  }
+
+  private long encodedSize(final BatchPoints batchPoints, final WriteRateLimiter limiter) {
+    if (!limiter.isBytesLimited()) {
+      return 0;
+    }
+    return new LineProtocolRequestBody(MEDIA_TYPE_STRING, batchPoints, this.lineProtocolKeyCache).encodedSize();
+  }
+
+  private static InfluxDBException rateLimitInterrupted(final InterruptedException e) {
+    Thread.currentThread().interrupt();
+    return new InfluxDBException("Interrupted while waiting for the write rate limit", e);
+  }
+
+  private Call<ResponseBody> writePointsCall(final BatchPoints batchPoints) {
+    this.batchedCount.add(batchPoints.getPoints().size());
+    RequestBody lineProtocol = new LineProtocolRequestBody(MEDIA_TYPE_STRING, batchPoints,
+        this.lineProtocolKeyCache);
+    return this.influxDBService.writePoints(
+        databaseOf(batchPoints),
         batchPoints.getRetentionPolicy(),
         TimeUtil.toTimePrecision(batchPoints.getPrecision()),
         batchPoints.getConsistency().value(),
-        lineProtocol));
+        lineProtocol);
   }
 
+  private void send(final BatchPoints batchPoints) {
+    execute(writePointsCall(batchPoints));
+  }
+
+
   @Override
   public void writeWithRetry(final BatchPoints batchPoints) {
     if (isBatchEnabled()) {
-      batchProcessor.getBatchWriter().write(Collections.singleton(batchPoints));
+      try {
+        batchProcessor.getBatchWriter().write(Collections.singleton(batchPoints)).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
     } else {
       write(batchPoints);
     }
@@ -486,12 +620,145 @@ public class InfluxDBImpl implements InfluxDB {
   @Override
   public void write(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
           final TimeUnit precision, final String records) {
-    execute(this.influxDBService.writePoints(
+    String db = database;
+    if (db == null) {
+        db = this.database;
+    }
+    RequestBody body;
+    WriteRateLimiter limiter = this.writeRateLimiter;
+    if (limiter != null && limiter.isBytesLimited()) {
+      // encoded once, for the limit and the request
+      byte[] bytes = records.getBytes(StandardCharsets.UTF_8);
+      acquire(limiter, db, records, bytes.length);
+      body = RequestBody.create(MEDIA_TYPE_STRING, bytes);
+    } else {
+      if (limiter != null) {
+        acquire(limiter, db, records, 0);
+      }
+      body = RequestBody.create(MEDIA_TYPE_STRING, records);
+    }
+    execute(writeRecordsCall(db, retentionPolicy, consistency, precision, body));
+  }
+
+  private static void acquire(final WriteRateLimiter limiter, final String database, final String records,
+          final long bytes) {
+    try {
+      limiter.acquire(database, countLines(records), bytes);
+    } catch (InterruptedException e) {
+      throw rateLimitInterrupted(e);
+    }
+  }
+
+  private Call<ResponseBody> writeRecordsCall(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final RequestBody records) {
+    return this.influxDBService.writePoints(
         database,
         retentionPolicy,
         TimeUtil.toTimePrecision(precision),
         consistency.value(),
-        RequestBody.create(MEDIA_TYPE_STRING, records)));
+        records);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final Point point) {
+    return writeAsync(database, retentionPolicy, point);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final Point point) {
+    this.writeCount.increment();
+    if (this.batchEnabled.get()) {
+      CompletableFuture<Void> written = new CompletableFuture<>();
+      // a full action queue would block, the point is sent by its own request then
+      if (this.batchProcessor.offer(new HttpBatchEntry(point, database, retentionPolicy, written))) {
+        return written;
+      }
+    }
+    BatchPoints batchPoints = BatchPoints.database(database)
+                                         .retentionPolicy(retentionPolicy).build();
+    batchPoints.point(point);
+    this.unBatchedCount.increment();
+    return writeAsync(batchPoints);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final String records) {
+    return writeAsync(database, retentionPolicy, consistency, records);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final List<String> records) {
+    return writeAsync(database, retentionPolicy, consistency, records);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final String records) {
+    return writeAsync(database, retentionPolicy, consistency, TimeUnit.NANOSECONDS, records);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final List<String> records) {
+    return writeAsync(database, retentionPolicy, consistency, TimeUnit.NANOSECONDS, records);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final List<String> records) {
+    return writeAsync(database, retentionPolicy, consistency, precision, String.join("\n", records));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> writeAsync(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final String records) {
+    String db = database;
+    if (db == null) {
+        db = this.database;
+    }
+    String targetDatabase = db;
+    WriteRateLimiter limiter = this.writeRateLimiter;
+    if (limiter == null) {
+      return executeAsync(writeRecordsCall(targetDatabase, retentionPolicy, consistency, precision,
+          RequestBody.create(MEDIA_TYPE_STRING, records)));
+    }
+    RequestBody body;
+    long bytes = 0;
+    if (limiter.isBytesLimited()) {
+      byte[] encoded = records.getBytes(StandardCharsets.UTF_8);
+      bytes = encoded.length;
+      body = RequestBody.create(MEDIA_TYPE_STRING, encoded);
+    } else {
+      body = RequestBody.create(MEDIA_TYPE_STRING, records);
+    }
+    return limiter.acquireAsync(targetDatabase, countLines(records), bytes)
+        .thenCompose(ignored -> executeAsync(writeRecordsCall(targetDatabase, retentionPolicy, consistency,
+            precision, body)));
   }
 
   @Override
@@ -513,6 +780,42 @@ public class InfluxDBImpl implements InfluxDB {
     write(database, retentionPolicy, consistency, precision, String.join("\n", records));
   }
 
+  @Override
+  public void write(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
+          final SeriesWriter rows) {
+    byte[] lineProtocol = rows.buffer();
+    try {
+      if (rows.isEmpty()) {
+        return;
+      }
+      if (this.batchEnabled.get()) {
+        // queued under the key of database and retention policy like single points
+        for (Point point : rows.toPoints()) {
+          this.batchProcessor.put(new HttpBatchEntry(point, database, retentionPolicy));
+          this.writeCount.increment();
+        }
+        return;
+      }
+      WriteRateLimiter limiter = this.writeRateLimiter;
+      if (limiter != null) {
+        try {
+          limiter.acquire(database, rows.rowCount(), rows.size());
+        } catch (InterruptedException e) {
+          throw rateLimitInterrupted(e);
+        }
+      }
+      this.batchedCount.add(rows.rowCount());
+      execute(this.influxDBService.writePoints(
+          database,
+          retentionPolicy,
+          TimeUtil.toTimePrecision(rows.getPrecision()),
+          consistency.value(),
+          RequestBody.create(MEDIA_TYPE_STRING, lineProtocol, 0, rows.size())));
+    } finally {
+      rows.reset();
+    }
+  }
+
 
   /**
    * {@inheritDoc}
@@ -635,23 +938,7 @@ public class InfluxDBImpl implements InfluxDB {
   @Override
   public void query(final Query query, final int chunkSize, final BiConsumer<Cancellable, QueryResult> onNext,
                     final Runnable onComplete, final Consumer<Throwable> onFailure) {
-    Call<ResponseBody> call;
-    if (query.hasBoundParameters()) {
-      if (query.requiresPost()) {
-        call = this.influxDBService.postQuery(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize,
-                                          query.getParameterJsonWithUrlEncoded());
-      } else {
-        call = this.influxDBService.query(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize,
-                                          query.getParameterJsonWithUrlEncoded());
-      }
-    } else {
-      if (query.requiresPost()) {
-        call = this.influxDBService.postQuery(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize);
-      } else {
-        call = this.influxDBService.query(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize);
-      }
-    }
-
+    Call<ResponseBody> call = callChunkedQuery(query, chunkSize);
     call.enqueue(new Callback<ResponseBody>() {
       @Override
       public void onResponse(final Call<ResponseBody> call, final Response<ResponseBody> response) {
@@ -713,6 +1000,64 @@ public class InfluxDBImpl implements InfluxDB {
     });
   }
 
+  private Call<ResponseBody> callChunkedQuery(final Query query, final int chunkSize) {
+    Call<ResponseBody> call;
+    if (query.hasBoundParameters()) {
+      if (query.requiresPost()) {
+        call = this.influxDBService.postQuery(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize,
+                                          query.getParameterJsonWithUrlEncoded());
+      } else {
+        call = this.influxDBService.query(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize,
+                                          query.getParameterJsonWithUrlEncoded());
+      }
+    } else {
+      if (query.requiresPost()) {
+        call = this.influxDBService.postQuery(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize);
+      } else {
+        call = this.influxDBService.query(getDatabase(query), query.getCommandWithUrlEncoded(), chunkSize);
+      }
+    }
+
+    return call;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Flow.Publisher<QueryResult> queryPublisher(final Query query, final int chunkSize) {
+    return new ChunkedQueryPublisher<>(() -> callChunkedQuery(query, chunkSize), chunkProccesor::reader,
+        this::errorOf, queryResult -> Collections.singletonList(queryResult).iterator(),
+        this.client.dispatcher().executorService());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Flow.Publisher<QueryResult.Series> queryRowPublisher(final Query query, final int chunkSize) {
+    return new ChunkedQueryPublisher<>(() -> callChunkedQuery(query, chunkSize), chunkProccesor::reader,
+        this::errorOf, ChunkedQueryPublisher::rowsOf, this.client.dispatcher().executorService());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RowCursor queryRows(final Query query, final int chunkSize) {
+    return chunkProccesor.cursor(execute(callChunkedQuery(query, chunkSize)));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ColumnarResult queryColumnar(final Query query, final int chunkSize) {
+    try (RowCursor cursor = queryRows(query, chunkSize)) {
+      return ColumnarResult.read(cursor);
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -843,6 +1188,65 @@ public class InfluxDBImpl implements InfluxDB {
     return execute(call);
   }
 
+  /**
+   * @return the number of non empty lines
+   */
+  static int countLines(final String records) {
+    int lines = 0;
+    boolean lineStarted = false;
+    for (int i = 0; i < records.length(); i++) {
+      if (records.charAt(i) == '\n') {
+        if (lineStarted) {
+          lines++;
+        }
+        lineStarted = false;
+      } else {
+        lineStarted = true;
+      }
+    }
+    if (lineStarted) {
+      lines++;
+    }
+    return lines;
+  }
+
+  private CompletableFuture<Void> executeAsync(final Call<ResponseBody> call) {
+    CompletableFuture<Void> written = new CompletableFuture<>();
+    call.enqueue(new Callback<ResponseBody>() {
+      @Override
+      public void onResponse(final Call<ResponseBody> call, final Response<ResponseBody> response) {
+        if (response.isSuccessful()) {
+          written.complete(null);
+          return;
+        }
+        try (ResponseBody errorBody = response.errorBody()) {
+          written.completeExceptionally(errorOf(errorBody));
+        }
+      }
+
+      @Override
+      public void onFailure(final Call<ResponseBody> call, final Throwable throwable) {
+        if (throwable instanceof IOException) {
+          written.completeExceptionally(new InfluxDBIOException((IOException) throwable));
+        } else {
+          written.completeExceptionally(throwable);
+        }
+      }
+    });
+    return written;
+  }
+
+  private Throwable errorOf(final ResponseBody errorBody) {
+    try {
+      if (messagePack) {
+        return InfluxDBException.buildExceptionForErrorState(errorBody.byteStream());
+      }
+      return InfluxDBException.buildExceptionForErrorState(errorBody.string());
+    } catch (IOException e) {
+      return new InfluxDBIOException(e);
+    }
+  }
+
   private <T> T execute(final Call<T> call) {
     try {
       Response<T> response = call.execute();
@@ -906,6 +1310,40 @@ public class InfluxDBImpl implements InfluxDB {
     return this;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB setLineProtocolKeyCache(final LineProtocolKeyCache lineProtocolKeyCache) {
+    this.lineProtocolKeyCache = lineProtocolKeyCache;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public LineProtocolKeyCache getLineProtocolKeyCache() {
+    return this.lineProtocolKeyCache;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB setWriteRateLimiter(final WriteRateLimiter writeRateLimiter) {
+    this.writeRateLimiter = writeRateLimiter;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public WriteRateLimiter getWriteRateLimiter() {
+    return this.writeRateLimiter;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -985,6 +1423,10 @@ public class InfluxDBImpl implements InfluxDB {
   private interface ChunkProccesor {
     void process(ResponseBody chunkedBody, Cancellable cancellable,
                  BiConsumer<Cancellable, QueryResult> consumer, Runnable onComplete) throws IOException;
+
+    ChunkReader reader(ResponseBody chunkedBody);
+
+    RowCursor cursor(ResponseBody chunkedBody);
   }
 
   private class MessagePackChunkProccesor implements ChunkProccesor {
@@ -1003,6 +1445,31 @@ public class InfluxDBImpl implements InfluxDB {
         onComplete.run();
       }
     }
+
+    @Override
+    public ChunkReader reader(final ResponseBody chunkedBody) {
+      InputStream is = chunkedBody.byteStream();
+      Iterator<QueryResult> it = new MessagePackTraverser().traverse(is).iterator();
+      return new ChunkReader() {
+        @Override
+        public QueryResult next() {
+          if (it.hasNext()) {
+            return it.next();
+          }
+          return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+          is.close();
+        }
+      };
+    }
+
+    @Override
+    public RowCursor cursor(final ResponseBody chunkedBody) {
+      return new MessagePackRowCursor(chunkedBody);
+    }
   }
 
   private class JSONChunkProccesor implements ChunkProccesor {
@@ -1035,5 +1502,34 @@ public class InfluxDBImpl implements InfluxDB {
         chunkedBody.close();
       }
     }
+
+    @Override
+    public ChunkReader reader(final ResponseBody chunkedBody) {
+      BufferedSource source = chunkedBody.source();
+      return new ChunkReader() {
+        @Override
+        public QueryResult next() throws IOException {
+          QueryResult result = null;
+          try {
+            while (result == null) {
+              result = adapter.fromJson(source);
+            }
+          } catch (EOFException e) {
+            return null;
+          }
+          return result;
+        }
+
+        @Override
+        public void close() {
+          chunkedBody.close();
+        }
+      };
+    }
+
+    @Override
+    public RowCursor cursor(final ResponseBody chunkedBody) {
+      return new JsonRowCursor(chunkedBody);
+    }
   }
 }
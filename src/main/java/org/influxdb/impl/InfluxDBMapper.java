@@ -2,11 +2,25 @@ package org.influxdb.impl;
 
 import org.influxdb.InfluxDB;
 import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
+import org.influxdb.dto.PointWriter;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.RowCursor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InfluxDBMapper extends InfluxDBResultMapper {
 
@@ -27,6 +41,36 @@ public class InfluxDBMapper extends InfluxDBResultMapper {
     return toPOJO(queryResult, clazz);
   }
 
+  /**
+   * Query with chunking and map the rows lazily while the stream is consumed. Only the chunk being read is held in
+   * memory, not the whole result. The stream must be closed, closing it early stops reading the response.
+   *
+   * <pre>
+   * try (Stream&lt;Cpu&gt; cpus = influxDBMapper.stream(query, Cpu.class, 10000)) {
+   *   cpus.forEach(...);
+   * }
+   * </pre>
+   *
+   * @param query the query
+   * @param clazz the class of the measurement
+   * @param chunkSize the number of rows per chunk of the response
+   * @param <T> the type of the measurement
+   * @return the objects of the rows of the measurement, in the order of the response
+   */
+  public <T> Stream<T> stream(final Query query, final Class<T> clazz, final int chunkSize) {
+    throwExceptionIfMissingAnnotation(clazz);
+    RowCursor cursor = influxDB.queryRows(query, chunkSize);
+    Iterator<T> iterator;
+    try {
+      iterator = iterator(cursor, clazz, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      cursor.close();
+      throw e;
+    }
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(cursor::close);
+  }
+
   public <T> List<T> query(final Class<T> clazz) {
     throwExceptionIfMissingAnnotation(clazz);
 
@@ -47,16 +91,61 @@ public class InfluxDBMapper extends InfluxDBResultMapper {
 
   public <T> void save(final T model) {
     throwExceptionIfMissingAnnotation(model.getClass());
-    Class<?> modelType = model.getClass();
-    String database = getDatabaseName(modelType);
-    String retentionPolicy = getRetentionPolicy(modelType);
-    Point.Builder pointBuilder = Point.measurementByPOJO(modelType).addFieldsFromPOJO(model);
-    Point point = pointBuilder.build();
+    PointWriter<T> writer = writerOf(model);
+    Point point = writer.toPoint(model);
 
-    if ("[unassigned]".equals(database)) {
+    if (writer.getDatabase() == null) {
       influxDB.write(point);
     } else {
-      influxDB.write(database, retentionPolicy, point);
+      influxDB.write(writer.getDatabase(), writer.getRetentionPolicy(), point);
+    }
+  }
+
+  /**
+   * Save many models. With batching enabled the points are handed to the batch processing, otherwise the points of
+   * every database and retention policy are written in one request.
+   *
+   * @param models the models, instances of classes annotated with {@link Measurement}
+   * @param <T> the type of the models
+   */
+  public <T> void saveAll(final Collection<T> models) {
+    for (T model : models) {
+      throwExceptionIfMissingAnnotation(model.getClass());
     }
+    if (influxDB.isBatchEnabled()) {
+      for (T model : models) {
+        save(model);
+      }
+      return;
+    }
+
+    List<String> unassigned = new ArrayList<>();
+    Map<List<String>, BatchPoints.Builder> batches = new LinkedHashMap<>();
+    for (T model : models) {
+      PointWriter<T> writer = writerOf(model);
+      Point point = writer.toPoint(model);
+      String database = writer.getDatabase();
+      if (database == null) {
+        // written to the default database of the connection
+        String record = point.lineProtocol();
+        if (!record.isEmpty()) {
+          unassigned.add(record);
+        }
+      } else {
+        batches.computeIfAbsent(Arrays.asList(database, writer.getRetentionPolicy()),
+            key -> BatchPoints.database(key.get(0)).retentionPolicy(key.get(1))).point(point);
+      }
+    }
+    for (BatchPoints.Builder batch : batches.values()) {
+      influxDB.write(batch.build());
+    }
+    if (!unassigned.isEmpty()) {
+      influxDB.write(unassigned);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> PointWriter<T> writerOf(final T model) {
+    return PointWriter.of((Class<T>) model.getClass());
   }
 }
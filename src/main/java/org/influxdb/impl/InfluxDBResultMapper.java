@@ -24,8 +24,14 @@ import org.influxdb.InfluxDBMapperException;
 import org.influxdb.annotation.Column;
 import org.influxdb.annotation.Exclude;
 import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.ColumnarResult;
+import org.influxdb.dto.MeasurementCodec;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.RowCursor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -33,17 +39,17 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.time.Instant;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -61,8 +67,28 @@ public class InfluxDBResultMapper {
    * Data structure used to cache classes used as measurements.
    */
   private static class ClassInfo {
-    ConcurrentMap<String, Field> fieldMap;
-    ConcurrentMap<Field, TypeMapper> typeMappers;
+    Map<String, FieldSetter> fieldSetters;
+    // the no-arg constructor typed ()Object, null if the class cannot be instantiated
+    MethodHandle constructor;
+    ReflectiveOperationException constructorFailure;
+    // the generated codec of the class, null if it is mapped by reflection
+    MeasurementCodec<?> codec;
+
+    Object newInstance() {
+      if (codec != null) {
+        return codec.newInstance();
+      }
+      if (constructor == null) {
+        throw new InfluxDBMapperException(constructorFailure);
+      }
+      try {
+        return constructor.invokeExact();
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InfluxDBMapperException(t);
+      }
+    }
   }
   private static final
     ConcurrentMap<String, ClassInfo> CLASS_INFO_CACHE = new ConcurrentHashMap<>();
@@ -73,28 +99,15 @@ public class InfluxDBResultMapper {
   private static class RecordInfo {
     Constructor<?> constructor;
     ConcurrentMap<String, Integer> constructorParamIndexes;
+    FieldSetter[] parameterConverters;
   }
   private static final
     ConcurrentMap<String, RecordInfo> RECORD_INFO = new ConcurrentHashMap<>();
 
-  private static final int FRACTION_MIN_WIDTH = 0;
-  private static final int FRACTION_MAX_WIDTH = 9;
-  private static final boolean ADD_DECIMAL_POINT = true;
-
   // Support both standard and Android desugared records
   private static final Collection<String> RECORD_CLASS_NAMES =
           new HashSet<>(Arrays.asList("java.lang.Record", "com.android.tools.r8.RecordTag"));
 
-  /**
-   * When a query is executed without {@link TimeUnit}, InfluxDB returns the {@code time}
-   * column as a RFC3339 date.
-   */
-  private static final DateTimeFormatter RFC3339_FORMATTER = new DateTimeFormatterBuilder()
-    .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
-    .appendFraction(ChronoField.NANO_OF_SECOND, FRACTION_MIN_WIDTH, FRACTION_MAX_WIDTH, ADD_DECIMAL_POINT)
-    .appendZoneOrOffsetId()
-    .toFormatter();
-
   /**
    * <p>
    * Process a {@link QueryResult} object returned by the InfluxDB client inspecting the internal
@@ -238,8 +251,18 @@ public class InfluxDBResultMapper {
       if (CLASS_INFO_CACHE.containsKey(clazz.getName())) {
         continue;
       }
-      ConcurrentMap<String, Field> fieldMap = new ConcurrentHashMap<>();
-      ConcurrentMap<Field, TypeMapper> typeMappers = new ConcurrentHashMap<>();
+      Map<String, FieldSetter> fieldSetters = new HashMap<>();
+      MeasurementCodec<?> codec = MeasurementCodecs.find(clazz);
+      if (codec != null) {
+        for (int i = 0; i < codec.getColumnNames().size(); i++) {
+          fieldSetters.put(codec.getColumnNames().get(i), FieldSetter.ofCodec(codec, i, clazz.getName()));
+        }
+        ClassInfo classInfo = new ClassInfo();
+        classInfo.fieldSetters = fieldSetters;
+        classInfo.codec = codec;
+        CLASS_INFO_CACHE.putIfAbsent(clazz.getName(), classInfo);
+        continue;
+      }
 
       Measurement measurement = clazz.getAnnotation(Measurement.class);
       boolean allFields = measurement != null && measurement.allFields();
@@ -254,8 +277,7 @@ public class InfluxDBResultMapper {
             continue;
           }
 
-          fieldMap.put(getFieldName(field, colAnnotation), field);
-          typeMappers.put(field, typeMapper);
+          fieldSetters.put(getFieldName(field, colAnnotation), FieldSetter.of(field, typeMapper));
         }
 
         Class<?> superclass = c.getSuperclass();
@@ -270,8 +292,17 @@ public class InfluxDBResultMapper {
       }
 
       ClassInfo classInfo = new ClassInfo();
-      classInfo.fieldMap = fieldMap;
-      classInfo.typeMappers = typeMappers;
+      classInfo.fieldSetters = fieldSetters;
+      try {
+        Constructor<?> constructor = clazz.getDeclaredConstructor();
+        if (!constructor.isAccessible()) {
+          constructor.setAccessible(true);
+        }
+        classInfo.constructor = MethodHandles.lookup().unreflectConstructor(constructor)
+            .asType(MethodType.methodType(Object.class));
+      } catch (ReflectiveOperationException e) {
+        classInfo.constructorFailure = e;
+      }
       CLASS_INFO_CACHE.putIfAbsent(clazz.getName(), classInfo);
     }
   }
@@ -303,13 +334,17 @@ public class InfluxDBResultMapper {
 
       try {
         ConcurrentMap<String, Integer> constructorParamIndexes = new ConcurrentHashMap<>(parameters.length);
+        FieldSetter[] parameterConverters = new FieldSetter[parameters.length];
         for (int i = 0; i < parameters.length; i++) {
+          parameterConverters[i] = FieldSetter.ofParameter(parameters[i].getType(), parameters[i].getName(),
+              clazz.getName());
           Field field = clazz.getDeclaredField(parameters[i].getName());
           Column colAnnotation = field.getAnnotation(Column.class);
           String propertyName = getFieldName(field, colAnnotation);
           constructorParamIndexes.put(propertyName, i);
         }
         recordInfo.constructorParamIndexes = constructorParamIndexes;
+        recordInfo.parameterConverters = parameterConverters;
       } catch (NoSuchFieldException e) {
         throw new InfluxDBMapperException(e);
       }
@@ -345,155 +380,346 @@ public class InfluxDBResultMapper {
 
   <T> List<T> parseSeriesAs(final QueryResult.Series series, final Class<T> clazz, final List<T> result,
                             final TimeUnit precision) {
-    int columnSize = series.getColumns().size();
+    List<String> columns = series.getColumns();
+    int columnSize = columns.size();
 
     if (isRecordClass(clazz)) {
       RecordInfo recordInfo = RECORD_INFO.get(clazz.getName());
+      // the parameter of every column and tag, resolved once per series
+      int[] columnParams = parameterIndexes(recordInfo, columns);
+      List<String> tagNames = new ArrayList<>();
+      List<String> tagValues = new ArrayList<>();
+      // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
+      // accordingly with InfluxDB documentation
+      // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
+      // "tag" values are always String.
+      if (series.getTags() != null) {
+        for (Entry<String, String> entry : series.getTags().entrySet()) {
+          tagNames.add(entry.getKey()/*InfluxDB columnName*/);
+          tagValues.add(entry.getValue());
+        }
+      }
+      int[] tagParams = parameterIndexes(recordInfo, tagNames);
       try {
-        T object = null;
         for (List<Object> row : series.getValues()) {
-          Object[] constructorParams = new Object[recordInfo.constructor.getParameterTypes().length];
+          Object[] constructorParams = new Object[recordInfo.parameterConverters.length];
           for (int i = 0; i < columnSize; i++) {
-            String columnName = series.getColumns().get(i); /*InfluxDB columnName*/
-            addParam(clazz, precision, recordInfo, constructorParams, columnName, row.get(i));
+            addParam(recordInfo, constructorParams, columnParams[i], row.get(i), precision);
           }
-          // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
-          // accordingly with InfluxDB documentation
-          // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
-          // "tag" values are always String.
-          if (series.getTags() != null) {
-            for (Entry<String, String> entry : series.getTags().entrySet()) {
-              addParam(clazz, precision, recordInfo, constructorParams, entry.getKey()/*InfluxDB columnName*/,
-                      entry.getValue());
-            }
+          for (int i = 0; i < tagParams.length; i++) {
+            addParam(recordInfo, constructorParams, tagParams[i], tagValues.get(i), precision);
           }
-
-          //noinspection unchecked
-          result.add((T) recordInfo.constructor.newInstance(constructorParams));
+          result.add(clazz.cast(recordInfo.constructor.newInstance(constructorParams)));
         }
       } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
         throw new InfluxDBMapperException(e);
       }
     } else {
       ClassInfo classInfo = CLASS_INFO_CACHE.get(clazz.getName());
-      try {
-        T object = null;
-        for (List<Object> row : series.getValues()) {
-          for (int i = 0; i < columnSize; i++) {
-            Field correspondingField = classInfo.fieldMap.get(series.getColumns().get(i)/*InfluxDB columnName*/);
-            if (correspondingField != null) {
-              if (object == null) {
-                object = clazz.newInstance();
-              }
-              setFieldValue(object, correspondingField, row.get(i), precision,
-                      classInfo.typeMappers.get(correspondingField));
-            }
-          }
-          // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
-          // accordingly with InfluxDB documentation
-          // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
-          // "tag" values are always String.
-          if (series.getTags() != null && !series.getTags().isEmpty()) {
-            for (Entry<String, String> entry : series.getTags().entrySet()) {
-              Field correspondingField = classInfo.fieldMap.get(entry.getKey()/*InfluxDB columnName*/);
-              if (correspondingField != null) {
-                // I don't think it is possible to reach here without a valid "object"
-                setFieldValue(object, correspondingField, entry.getValue(), precision,
-                        classInfo.typeMappers.get(correspondingField));
-              }
-            }
+      // the field of every column and tag, resolved once per series
+      FieldSetter[] columnSetters = new FieldSetter[columnSize];
+      boolean mapped = false;
+      for (int i = 0; i < columnSize; i++) {
+        columnSetters[i] = classInfo.fieldSetters.get(columns.get(i)/*InfluxDB columnName*/);
+        mapped |= columnSetters[i] != null;
+      }
+      if (!mapped) {
+        return result;
+      }
+      List<FieldSetter> tagSetters = new ArrayList<>();
+      List<String> tagValues = new ArrayList<>();
+      // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
+      // accordingly with InfluxDB documentation
+      // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
+      // "tag" values are always String.
+      if (series.getTags() != null) {
+        for (Entry<String, String> entry : series.getTags().entrySet()) {
+          FieldSetter tagSetter = classInfo.fieldSetters.get(entry.getKey()/*InfluxDB columnName*/);
+          if (tagSetter != null) {
+            tagSetters.add(tagSetter);
+            tagValues.add(entry.getValue());
           }
-          if (object != null) {
-            result.add(object);
-            object = null;
+        }
+      }
+      for (List<Object> row : series.getValues()) {
+        T object = clazz.cast(classInfo.newInstance());
+        for (int i = 0; i < columnSize; i++) {
+          if (columnSetters[i] != null) {
+            columnSetters[i].set(object, row.get(i), precision);
           }
         }
-      } catch (InstantiationException | IllegalAccessException e) {
-        throw new InfluxDBMapperException(e);
+        for (int i = 0; i < tagSetters.size(); i++) {
+          tagSetters.get(i).set(object, tagValues.get(i), precision);
+        }
+        result.add(object);
       }
     }
     return result;
   }
 
-  private static <T> void addParam(final Class<T> clazz, final TimeUnit precision, final RecordInfo recordInfo,
-                                   final Object[] constructorParams, final String columnName, final Object value) {
-    Parameter parameter = recordInfo.constructor.getParameters()
-            [recordInfo.constructorParamIndexes.get(columnName).intValue()];
-    constructorParams[recordInfo.constructorParamIndexes.get(columnName).intValue()] =
-            adaptValue(parameter.getType(), value, precision, parameter.getName(), clazz.getName());
-  }
+  /**
+   * <p>
+   * Map the series of a {@link ColumnarResult} to POJOs. The fields are set from the column arrays, primitive
+   * fields without boxing the values.
+   * </p>
+   *
+   * @param columnarResult the result by column
+   * @param clazz the Class that will be used to hold your measurement data
+   * @param precision the time precision of numeric timestamps
+   * @param <T> the target type
+   *
+   * @return a {@link List} of objects from the same Class passed as parameter and sorted on the
+   * same order as received from InfluxDB.
+   *
+   * @throws InfluxDBMapperException If {@code clazz} parameter is not annotated with &#64;Measurement or it was not
+   * possible to define the values of your POJO (e.g. due to an unsupported field type).
+   */
+  public <T> List<T> toPOJO(final ColumnarResult columnarResult, final Class<T> clazz, final TimeUnit precision)
+      throws InfluxDBMapperException {
+    Objects.requireNonNull(columnarResult, "columnarResult");
+    Objects.requireNonNull(clazz, "clazz");
+    throwExceptionIfMissingAnnotation(clazz);
+    String measurementName = getMeasurementName(clazz);
 
-  private static <T> boolean isRecordClass(final Class<T> clazz) {
-    return RECORD_CLASS_NAMES.contains(clazz.getSuperclass().getName());
+    List<T> result = new ArrayList<>();
+    if (isRecordClass(clazz)) {
+      // records are created from the boxed values
+      QueryResult queryResult = columnarResult.toQueryResult();
+      return toPOJO(queryResult, clazz, measurementName, precision);
+    }
+    cacheMeasurementClass(clazz);
+    ClassInfo classInfo = CLASS_INFO_CACHE.get(clazz.getName());
+    for (ColumnarResult.Series series : columnarResult.getSeries()) {
+      if (!measurementName.equals(series.getName())) {
+        continue;
+      }
+      List<String> columns = series.getColumnNames();
+      List<FieldSetter> setters = new ArrayList<>();
+      List<ColumnarResult.Column> mappedColumns = new ArrayList<>();
+      for (int i = 0; i < columns.size(); i++) {
+        FieldSetter setter = classInfo.fieldSetters.get(columns.get(i));
+        if (setter != null) {
+          setters.add(setter);
+          mappedColumns.add(series.getColumn(i));
+        }
+      }
+      if (setters.isEmpty()) {
+        continue;
+      }
+      List<FieldSetter> tagSetters = new ArrayList<>();
+      List<String> tagValues = new ArrayList<>();
+      for (Entry<String, String> entry : series.getTags().entrySet()) {
+        FieldSetter tagSetter = classInfo.fieldSetters.get(entry.getKey());
+        if (tagSetter != null) {
+          tagSetters.add(tagSetter);
+          tagValues.add(entry.getValue());
+        }
+      }
+      for (int row = 0; row < series.getRowCount(); row++) {
+        T object = clazz.cast(classInfo.newInstance());
+        for (int i = 0; i < setters.size(); i++) {
+          setters.get(i).set(object, mappedColumns.get(i), row, precision);
+        }
+        for (int i = 0; i < tagSetters.size(); i++) {
+          tagSetters.get(i).set(object, tagValues.get(i), precision);
+        }
+        result.add(object);
+      }
+    }
+    return result;
   }
 
   /**
-   * InfluxDB client returns any number as Double.
-   * See <a href="https://github.com/influxdata/influxdb-java/issues/153#issuecomment-259681987">...</a>
-   * for more information.
+   * <p>
+   * Map the rows of a {@link RowCursor} lazily to POJOs, one row per {@link Iterator#next()}. Only the rows of the
+   * series of the measurement of the class are mapped, the fields of the columns are resolved once per series.
+   * </p>
    *
+   * @param cursor the rows, closed when the iterator is exhausted or fails
+   * @param clazz the Class that will be used to hold your measurement data
+   * @param precision the time precision of numeric timestamps
+   * @param <T> the target type
+   * @return the objects in the order of the rows
    */
-  private static <T> void setFieldValue(final T object, final Field field, final Object value, final TimeUnit precision,
-                                        final TypeMapper typeMapper)
-    throws IllegalArgumentException, IllegalAccessException {
-    if (value == null) {
-      return;
-    }
-    Type fieldType = typeMapper.resolve(field.getGenericType());
-    if (!field.isAccessible()) {
-      field.setAccessible(true);
+  <T> Iterator<T> iterator(final RowCursor cursor, final Class<T> clazz, final TimeUnit precision) {
+    Objects.requireNonNull(cursor, "cursor");
+    Objects.requireNonNull(clazz, "clazz");
+    throwExceptionIfMissingAnnotation(clazz);
+    if (isRecordClass(clazz)) {
+      cacheRecordClass(clazz);
+    } else {
+      cacheMeasurementClass(clazz);
     }
-    field.set(object, adaptValue((Class<?>) fieldType, value, precision, field.getName(), object.getClass().getName()));
+    return new RowIterator<>(cursor, clazz, getMeasurementName(clazz), precision);
   }
 
-  private static Object adaptValue(final Class<?> fieldType, final Object value, final TimeUnit precision,
-                                   final String fieldName, final String className) {
-    try {
-      if (String.class.isAssignableFrom(fieldType)) {
-        return String.valueOf(value);
+  /**
+   * Maps the rows of a cursor, looking ahead one row for {@link #hasNext()}.
+   */
+  private static final class RowIterator<T> implements Iterator<T> {
+    private final RowCursor cursor;
+    private final Class<T> clazz;
+    private final String measurementName;
+    private final TimeUnit precision;
+    private final boolean record;
+    private final ClassInfo classInfo;
+    private final RecordInfo recordInfo;
+
+    // the series of the current row, compared by identity
+    private String seriesName;
+    private Map<String, String> tags;
+    private List<String> columns;
+    private boolean mapped;
+    // the POJO field or record parameter of every column and tag of the series
+    private FieldSetter[] columnSetters;
+    private int[] columnParams;
+    private final List<FieldSetter> tagSetters = new ArrayList<>();
+    private final List<Integer> tagParams = new ArrayList<>();
+    private final List<String> tagValues = new ArrayList<>();
+
+    private T next;
+    private boolean done;
+
+    RowIterator(final RowCursor cursor, final Class<T> clazz, final String measurementName,
+                final TimeUnit precision) {
+      this.cursor = cursor;
+      this.clazz = clazz;
+      this.measurementName = measurementName;
+      this.precision = precision;
+      this.record = isRecordClass(clazz);
+      this.classInfo = CLASS_INFO_CACHE.get(clazz.getName());
+      this.recordInfo = RECORD_INFO.get(clazz.getName());
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) {
+        return true;
       }
-      if (Instant.class.isAssignableFrom(fieldType)) {
-        if (value instanceof String) {
-          return Instant.from(RFC3339_FORMATTER.parse(String.valueOf(value)));
-        }
-        if (value instanceof Long) {
-          return Instant.ofEpochMilli(toMillis(((Long) value).longValue(), precision));
-        }
-        if (value instanceof Double) {
-          return Instant.ofEpochMilli(toMillis(((Double) value).longValue(), precision));
+      if (done) {
+        return false;
+      }
+      try {
+        while (cursor.next()) {
+          if (cursor.getSeriesName() != seriesName || cursor.getTags() != tags || cursor.getColumns() != columns) {
+            resolveSeries();
+          }
+          if (mapped) {
+            next = mapRow();
+            return true;
+          }
         }
-        if (value instanceof Integer) {
-          return Instant.ofEpochMilli(toMillis(((Integer) value).longValue(), precision));
+      } catch (RuntimeException e) {
+        done = true;
+        cursor.close();
+        throw e;
+      }
+      done = true;
+      cursor.close();
+      return false;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T object = next;
+      next = null;
+      return object;
+    }
+
+    private void resolveSeries() {
+      seriesName = cursor.getSeriesName();
+      tags = cursor.getTags();
+      columns = cursor.getColumns();
+      tagSetters.clear();
+      tagParams.clear();
+      tagValues.clear();
+      mapped = measurementName.equals(seriesName);
+      if (!mapped) {
+        return;
+      }
+      if (record) {
+        columnParams = parameterIndexes(recordInfo, columns);
+        for (Entry<String, String> entry : tags.entrySet()) {
+          Integer index = recordInfo.constructorParamIndexes.get(entry.getKey());
+          if (index != null) {
+            tagParams.add(index);
+            tagValues.add(entry.getValue());
+          }
         }
-        throw new InfluxDBMapperException("Unsupported type " + fieldType + " for field " + fieldName);
+        return;
       }
-      if (Double.class.isAssignableFrom(fieldType) || double.class.isAssignableFrom(fieldType)) {
-        return value;
+      columnSetters = new FieldSetter[columns.size()];
+      mapped = false;
+      for (int i = 0; i < columnSetters.length; i++) {
+        columnSetters[i] = classInfo.fieldSetters.get(columns.get(i));
+        mapped |= columnSetters[i] != null;
       }
-      if (Long.class.isAssignableFrom(fieldType) || long.class.isAssignableFrom(fieldType)) {
-        return ((Double) value).longValue();
+      for (Entry<String, String> entry : tags.entrySet()) {
+        FieldSetter tagSetter = classInfo.fieldSetters.get(entry.getKey());
+        if (tagSetter != null) {
+          tagSetters.add(tagSetter);
+          tagValues.add(entry.getValue());
+        }
       }
-      if (Integer.class.isAssignableFrom(fieldType) || int.class.isAssignableFrom(fieldType)) {
-        return ((Double) value).intValue();
+    }
+
+    private T mapRow() {
+      int width = columns.size();
+      if (record) {
+        Object[] constructorParams = new Object[recordInfo.parameterConverters.length];
+        for (int i = 0; i < width; i++) {
+          addParam(recordInfo, constructorParams, columnParams[i], cursor.getValue(i), precision);
+        }
+        for (int i = 0; i < tagParams.size(); i++) {
+          addParam(recordInfo, constructorParams, tagParams.get(i), tagValues.get(i), precision);
+        }
+        try {
+          return clazz.cast(recordInfo.constructor.newInstance(constructorParams));
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+          throw new InfluxDBMapperException(e);
+        }
       }
-      if (Boolean.class.isAssignableFrom(fieldType) || boolean.class.isAssignableFrom(fieldType)) {
-        return Boolean.valueOf(String.valueOf(value));
+      T object = clazz.cast(classInfo.newInstance());
+      for (int i = 0; i < width; i++) {
+        if (columnSetters[i] != null) {
+          columnSetters[i].set(object, cursor, i, precision);
+        }
       }
-      if (Enum.class.isAssignableFrom(fieldType)) {
-        //noinspection unchecked
-        return Enum.valueOf((Class<Enum>) fieldType, String.valueOf(value));
+      for (int i = 0; i < tagSetters.size(); i++) {
+        tagSetters.get(i).set(object, tagValues.get(i), precision);
       }
-    } catch (ClassCastException e) {
-      String msg = "Class '%s' field '%s' was defined with a different field type and caused a ClassCastException. "
-        + "The correct type is '%s' (current field value: '%s').";
-      throw new InfluxDBMapperException(String.format(msg, className, fieldName, value.getClass().getName(), value), e);
+      return object;
     }
+  }
 
-    throw new InfluxDBMapperException(
-           String.format("Class '%s' field '%s' is from an unsupported type '%s'.", className, fieldName, fieldType));
+  /**
+   * @return the index of the constructor parameter of every column, -1 for columns without parameter
+   */
+  private static int[] parameterIndexes(final RecordInfo recordInfo, final List<String> columns) {
+    int[] indexes = new int[columns.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      Integer index = recordInfo.constructorParamIndexes.get(columns.get(i));
+      if (index == null) {
+        indexes[i] = -1;
+      } else {
+        indexes[i] = index;
+      }
+    }
+    return indexes;
   }
 
-  private static long toMillis(final long value, final TimeUnit precision) {
-    return TimeUnit.MILLISECONDS.convert(value, precision);
+  private static void addParam(final RecordInfo recordInfo, final Object[] constructorParams, final int index,
+                               final Object value, final TimeUnit precision) {
+    if (index < 0 || value == null) {
+      return;
+    }
+    constructorParams[index] = recordInfo.parameterConverters[index].convert(value, precision);
+  }
+
+  private static <T> boolean isRecordClass(final Class<T> clazz) {
+    return RECORD_CLASS_NAMES.contains(clazz.getSuperclass().getName());
   }
 }
@@ -0,0 +1,235 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
+
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+
+import okhttp3.ResponseBody;
+
+/**
+ * Reads the rows of a chunked JSON response with a {@link JsonReader} straight from the body, one row per
+ * {@link #next()}.
+ *
+ * <p>The chunks are a sequence of JSON documents, read with a lenient reader. The cursor descends into the results,
+ * series and values arrays and stops at every row, the position is kept in {@link #state}. The name, tags and
+ * columns of a series are expected before its values, as the server writes them.</p>
+ */
+final class JsonRowCursor extends AbstractRowCursor {
+
+  /**
+   * The array the reader is in.
+   */
+  private enum State {
+    DOCUMENTS, RESULTS, SERIES, VALUES, CLOSED
+  }
+
+  private final ResponseBody body;
+  private final JsonReader reader;
+  private State state = State.DOCUMENTS;
+  // the columns with a number which is no long, read as double for the rest of the series
+  private boolean[] doubleColumns = new boolean[0];
+
+  // the series being read
+  private String name;
+  private Map<String, String> tags;
+  private List<String> columns;
+
+  JsonRowCursor(final ResponseBody body) {
+    this.body = body;
+    this.reader = JsonReader.of(body.source());
+    this.reader.setLenient(true);
+  }
+
+  @Override
+  public boolean next() {
+    try {
+      return advance();
+    } catch (IOException e) {
+      close();
+      throw new InfluxDBIOException(e);
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private boolean advance() throws IOException {
+    while (true) {
+      switch (state) {
+        case DOCUMENTS:
+          if (reader.peek() == JsonReader.Token.END_DOCUMENT) {
+            close();
+            return false;
+          }
+          reader.beginObject();
+          if (readUntil("results")) {
+            reader.beginArray();
+            state = State.RESULTS;
+          }
+          break;
+        case RESULTS:
+          if (!reader.hasNext()) {
+            reader.endArray();
+            readUntil(null);
+            state = State.DOCUMENTS;
+          } else {
+            reader.beginObject();
+            setStatementId(0);
+            if (readUntil("series")) {
+              reader.beginArray();
+              state = State.SERIES;
+            }
+          }
+          break;
+        case SERIES:
+          if (!reader.hasNext()) {
+            reader.endArray();
+            readUntil(null);
+            state = State.RESULTS;
+          } else {
+            reader.beginObject();
+            name = null;
+            tags = Collections.emptyMap();
+            columns = Collections.emptyList();
+            if (readUntil("values")) {
+              setSeries(name, tags, columns);
+              Arrays.fill(doubleColumns, false);
+              reader.beginArray();
+              state = State.VALUES;
+            }
+          }
+          break;
+        case VALUES:
+          if (!reader.hasNext()) {
+            reader.endArray();
+            readUntil(null);
+            state = State.SERIES;
+          } else {
+            readRow();
+            return true;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+  }
+
+  /**
+   * Read the properties of the current object up to the wanted one, keeping the properties of results and series.
+   *
+   * @param wanted the name of the property, null to read the whole object
+   * @return true if the reader is at the non null value of the wanted property, false if the object was read
+   */
+  private boolean readUntil(final String wanted) throws IOException {
+    while (reader.hasNext()) {
+      String property = reader.nextName();
+      if (reader.peek() == JsonReader.Token.NULL) {
+        reader.nextNull();
+        continue;
+      }
+      if (property.equals(wanted)) {
+        return true;
+      }
+      switch (property) {
+        case "error":
+          throw new InfluxDBException(reader.nextString());
+        case "statement_id":
+          setStatementId(reader.nextInt());
+          break;
+        case "name":
+          name = reader.nextString();
+          break;
+        case "tags":
+          tags = readTags();
+          break;
+        case "columns":
+          columns = readColumns();
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return false;
+  }
+
+  private Map<String, String> readTags() throws IOException {
+    Map<String, String> map = new LinkedHashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      map.put(reader.nextName(), reader.nextString());
+    }
+    reader.endObject();
+    return Collections.unmodifiableMap(map);
+  }
+
+  private List<String> readColumns() throws IOException {
+    List<String> list = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      list.add(reader.nextString());
+    }
+    reader.endArray();
+    return Collections.unmodifiableList(list);
+  }
+
+  private void readRow() throws IOException {
+    clearRow();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      switch (reader.peek()) {
+        case NUMBER:
+          readNumber(getWidth());
+          break;
+        case STRING:
+          addString(reader.nextString());
+          break;
+        case BOOLEAN:
+          addBoolean(reader.nextBoolean());
+          break;
+        case NULL:
+          reader.nextNull();
+          addNull();
+          break;
+        default:
+          // no value of a column
+          reader.skipValue();
+          addNull();
+      }
+    }
+    reader.endArray();
+  }
+
+  private void readNumber(final int column) throws IOException {
+    if (column >= doubleColumns.length) {
+      doubleColumns = Arrays.copyOf(doubleColumns, column + 1);
+    }
+    if (!doubleColumns[column]) {
+      try {
+        // the reader parses integers without allocating and keeps other numbers when it throws
+        addLong(reader.nextLong());
+        return;
+      } catch (JsonDataException e) {
+        doubleColumns[column] = true;
+      }
+    }
+    addDouble(reader.nextDouble());
+  }
+
+  @Override
+  public void close() {
+    state = State.CLOSED;
+    body.close();
+  }
+}
@@ -0,0 +1,83 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.LineProtocolEncoder;
+import org.influxdb.dto.LineProtocolKeyCache;
+import org.influxdb.dto.Point;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * RequestBody which serializes the points of a {@link BatchPoints} straight into the sink of the HTTP request.
+ *
+ * <p>In contrast to {@code RequestBody.create(mediaType, batchPoints.lineProtocol())} the line protocol of the whole
+ * batch is never materialized, neither as String nor as byte array. The points are encoded by a
+ * {@link LineProtocolEncoder} into a small reused byte buffer, which is passed on to the sink whenever it is full.
+ * The content length is unknown in advance, so the body is sent chunked. The body can be written more than once,
+ * for example when OkHttp retries the request, and it composes with the {@link GzipRequestInterceptor}.</p>
+ */
+final class LineProtocolRequestBody extends RequestBody {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final MediaType contentType;
+  private final List<Point> points;
+  private final TimeUnit precision;
+  private final LineProtocolKeyCache keyCache;
+
+  LineProtocolRequestBody(final MediaType contentType, final BatchPoints batchPoints) {
+    this(contentType, batchPoints, null);
+  }
+
+  LineProtocolRequestBody(final MediaType contentType, final BatchPoints batchPoints,
+                          final LineProtocolKeyCache keyCache) {
+    this.contentType = contentType;
+    this.keyCache = keyCache;
+    this.points = batchPoints.getPoints();
+    this.precision = batchPoints.getPrecision();
+  }
+
+  @Override
+  public MediaType contentType() {
+    return contentType;
+  }
+
+  @Override
+  public long contentLength() {
+    return -1;
+  }
+
+  /**
+   * Measure the body without keeping the encoded bytes.
+   *
+   * @return the number of bytes {@link #writeTo(BufferedSink)} writes
+   */
+  long encodedSize() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(BUFFER_SIZE, keyCache);
+    long size = 0;
+    for (Point point : points) {
+      size += encoder.encodedSize(point, precision);
+    }
+    return size;
+  }
+
+  @Override
+  public void writeTo(final BufferedSink sink) throws IOException {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(BUFFER_SIZE, keyCache);
+    for (Point point : points) {
+      encoder.encode(point, precision);
+      encoder.newLine();
+      if (encoder.size() >= BUFFER_SIZE) {
+        sink.write(encoder.buffer(), 0, encoder.size());
+        encoder.reset();
+      }
+    }
+    sink.write(encoder.buffer(), 0, encoder.size());
+  }
+}
@@ -0,0 +1,79 @@
+package org.influxdb.impl;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.dto.MeasurementCodec;
+
+/**
+ * The registry of the {@link MeasurementCodec}s of measurement classes.
+ *
+ * <p>The codec of a class is looked up once by its name, the name of the class followed by
+ * {@value MeasurementCodec#SUFFIX}, as generated by the annotation processor. Where classes cannot be looked up by
+ * name, like in GraalVM native images without reflection configuration, the codecs are {@link #register registered}
+ * before the first use of the classes.</p>
+ */
+public final class MeasurementCodecs {
+
+  // a ClassValue does not keep the class loaders of redeployed applications alive, unlike a map of the classes
+  private static final ClassValue<Optional<MeasurementCodec<?>>> GENERATED =
+      new ClassValue<Optional<MeasurementCodec<?>>>() {
+    @Override
+    protected Optional<MeasurementCodec<?>> computeValue(final Class<?> type) {
+      return load(type);
+    }
+  };
+  private static final ConcurrentMap<Class<?>, MeasurementCodec<?>> REGISTERED = new ConcurrentHashMap<>();
+
+  private MeasurementCodecs() {
+  }
+
+  /**
+   * Register the codec of a class, which is used instead of the generated one. The writers and mappers cache the
+   * mapping of a class on first use, so the codec must be registered before. A registered class is referenced
+   * for the lifetime of this library, so it should not belong to an application which is redeployed without it.
+   *
+   * @param clazz the measurement class
+   * @param codec the codec
+   * @param <T> the measurement class
+   */
+  public static <T> void register(final Class<T> clazz, final MeasurementCodec<T> codec) {
+    Objects.requireNonNull(clazz, "clazz");
+    Objects.requireNonNull(codec, "codec");
+    REGISTERED.put(clazz, codec);
+  }
+
+  /**
+   * @param clazz the measurement class
+   * @param <T> the measurement class
+   * @return the registered or generated codec of the class, null if there is none
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> MeasurementCodec<T> find(final Class<T> clazz) {
+    MeasurementCodec<?> codec = REGISTERED.get(clazz);
+    if (codec == null) {
+      codec = GENERATED.get(clazz).orElse(null);
+    }
+    return (MeasurementCodec<T>) codec;
+  }
+
+  private static Optional<MeasurementCodec<?>> load(final Class<?> clazz) {
+    Class<?> codecClass;
+    try {
+      codecClass = Class.forName(clazz.getName() + MeasurementCodec.SUFFIX, true, clazz.getClassLoader());
+    } catch (ClassNotFoundException | LinkageError e) {
+      return Optional.empty();
+    }
+    if (!MeasurementCodec.class.isAssignableFrom(codecClass)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of((MeasurementCodec<?>) codecClass.getDeclaredConstructor().newInstance());
+    } catch (ReflectiveOperationException e) {
+      throw new InfluxDBMapperException(e);
+    }
+  }
+}
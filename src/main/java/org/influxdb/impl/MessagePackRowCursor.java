@@ -0,0 +1,340 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
+import org.msgpack.core.ExtensionTypeHeader;
+import org.msgpack.core.MessageFormat;
+import org.msgpack.core.MessageIntegerOverflowException;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+
+import okhttp3.ResponseBody;
+
+/**
+ * Reads the rows of a chunked MessagePack response with a {@link MessageUnpacker} straight from the body, one row
+ * per {@link #next()}.
+ *
+ * <p>The chunks are a sequence of MessagePack maps. The maps and arrays announce their size, so the position in the
+ * response is the {@link #state} and the number of elements left at every level. The keys are compared as bytes
+ * and the values of a row are decoded into the unboxed row buffer, timestamps of the extension type 5 directly to
+ * epoch nanoseconds.</p>
+ */
+final class MessagePackRowCursor extends AbstractRowCursor {
+
+  private static final byte MSG_PACK_TIME_EXT_TYPE = 5;
+  private static final int TIMESTAMP_LENGTH = 12;
+  private static final int NANOS_OFFSET = 8;
+  private static final int KEY_CAPACITY = 16;
+
+  private static final int KEY_RESULTS = 0;
+  private static final int KEY_ERROR = 1;
+  private static final int KEY_STATEMENT_ID = 2;
+  private static final int KEY_SERIES = 3;
+  private static final int KEY_NAME = 4;
+  private static final int KEY_TAGS = 5;
+  private static final int KEY_COLUMNS = 6;
+  private static final int KEY_VALUES = 7;
+  private static final byte[][] KEYS = {
+      bytes("results"), bytes("error"), bytes("statement_id"), bytes("series"),
+      bytes("name"), bytes("tags"), bytes("columns"), bytes("values")
+  };
+
+  /**
+   * The map or array the unpacker is in.
+   */
+  private enum State {
+    DOCUMENTS, DOCUMENT, RESULTS, RESULT, SERIES, SERIES_ENTRY, VALUES, CLOSED
+  }
+
+  private final ResponseBody body;
+  private final MessageUnpacker unpacker;
+  private State state = State.DOCUMENTS;
+  // the elements left in the map or array of every state
+  private int documentEntries;
+  private int results;
+  private int resultEntries;
+  private int series;
+  private int seriesEntries;
+  private int rows;
+
+  // the series being read
+  private String name;
+  private Map<String, String> tags;
+  private List<String> columns;
+
+  private byte[] keyBuffer = new byte[KEY_CAPACITY];
+  private final ByteBuffer timestamp = ByteBuffer.allocate(TIMESTAMP_LENGTH);
+
+  MessagePackRowCursor(final ResponseBody body) {
+    this.body = body;
+    this.unpacker = MessagePack.newDefaultUnpacker(body.byteStream());
+  }
+
+  private static byte[] bytes(final String key) {
+    return key.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public boolean next() {
+    try {
+      return advance();
+    } catch (IOException e) {
+      close();
+      throw new InfluxDBIOException(e);
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private boolean advance() throws IOException {
+    while (true) {
+      switch (state) {
+        case DOCUMENTS:
+          if (!unpacker.hasNext()) {
+            close();
+            return false;
+          }
+          documentEntries = unpacker.unpackMapHeader();
+          state = State.DOCUMENT;
+          break;
+        case DOCUMENT:
+          if (documentEntries == 0) {
+            state = State.DOCUMENTS;
+          } else {
+            documentEntries--;
+            int key = readKey();
+            if (key == KEY_RESULTS && isArray()) {
+              results = unpacker.unpackArrayHeader();
+              state = State.RESULTS;
+            } else {
+              readCommon(key);
+            }
+          }
+          break;
+        case RESULTS:
+          if (results == 0) {
+            state = State.DOCUMENT;
+          } else {
+            results--;
+            resultEntries = unpacker.unpackMapHeader();
+            setStatementId(0);
+            state = State.RESULT;
+          }
+          break;
+        case RESULT:
+          if (resultEntries == 0) {
+            state = State.RESULTS;
+          } else {
+            resultEntries--;
+            int key = readKey();
+            if (key == KEY_SERIES && isArray()) {
+              series = unpacker.unpackArrayHeader();
+              state = State.SERIES;
+            } else {
+              readCommon(key);
+            }
+          }
+          break;
+        case SERIES:
+          if (series == 0) {
+            state = State.RESULT;
+          } else {
+            series--;
+            seriesEntries = unpacker.unpackMapHeader();
+            name = null;
+            tags = Collections.emptyMap();
+            columns = Collections.emptyList();
+            state = State.SERIES_ENTRY;
+          }
+          break;
+        case SERIES_ENTRY:
+          if (seriesEntries == 0) {
+            state = State.SERIES;
+          } else {
+            seriesEntries--;
+            int key = readKey();
+            if (key == KEY_VALUES && isArray()) {
+              setSeries(name, tags, columns);
+              rows = unpacker.unpackArrayHeader();
+              state = State.VALUES;
+            } else {
+              readCommon(key);
+            }
+          }
+          break;
+        case VALUES:
+          if (rows == 0) {
+            state = State.SERIES_ENTRY;
+          } else {
+            rows--;
+            readRow();
+            return true;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+  }
+
+  private boolean isArray() throws IOException {
+    return unpacker.getNextFormat().getValueType() == org.msgpack.value.ValueType.ARRAY;
+  }
+
+  /**
+   * @return the index of the key in {@link #KEYS}, -1 for other keys
+   */
+  private int readKey() throws IOException {
+    if (unpacker.getNextFormat().getValueType() != org.msgpack.value.ValueType.STRING) {
+      unpacker.skipValue();
+      return -1;
+    }
+    int length = unpacker.unpackRawStringHeader();
+    if (length > keyBuffer.length) {
+      keyBuffer = new byte[length];
+    }
+    unpacker.readPayload(keyBuffer, 0, length);
+    for (int i = 0; i < KEYS.length; i++) {
+      byte[] key = KEYS[i];
+      if (key.length == length && equals(key, keyBuffer, length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean equals(final byte[] key, final byte[] buffer, final int length) {
+    for (int i = 0; i < length; i++) {
+      if (key[i] != buffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Read the value of a key which does not change the state.
+   */
+  private void readCommon(final int key) throws IOException {
+    if (unpacker.getNextFormat() == MessageFormat.NIL) {
+      unpacker.unpackNil();
+      return;
+    }
+    switch (key) {
+      case KEY_ERROR:
+        throw new InfluxDBException(unpacker.unpackString());
+      case KEY_STATEMENT_ID:
+        setStatementId(unpacker.unpackInt());
+        break;
+      case KEY_NAME:
+        name = unpacker.unpackString();
+        break;
+      case KEY_TAGS:
+        tags = readTags();
+        break;
+      case KEY_COLUMNS:
+        columns = readColumns();
+        break;
+      default:
+        unpacker.skipValue();
+    }
+  }
+
+  private Map<String, String> readTags() throws IOException {
+    int size = unpacker.unpackMapHeader();
+    Map<String, String> map = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(unpacker.unpackString(), unpacker.unpackString());
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  private List<String> readColumns() throws IOException {
+    int size = unpacker.unpackArrayHeader();
+    List<String> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(unpacker.unpackString());
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  private void readRow() throws IOException {
+    clearRow();
+    int size = unpacker.unpackArrayHeader();
+    for (int i = 0; i < size; i++) {
+      MessageFormat format = unpacker.getNextFormat();
+      switch (format.getValueType()) {
+        case NIL:
+          unpacker.unpackNil();
+          addNull();
+          break;
+        case BOOLEAN:
+          addBoolean(unpacker.unpackBoolean());
+          break;
+        case INTEGER:
+          readInteger(format);
+          break;
+        case FLOAT:
+          addDouble(unpacker.unpackDouble());
+          break;
+        case STRING:
+          addString(unpacker.unpackString());
+          break;
+        case EXTENSION:
+          readExtension();
+          break;
+        default:
+          // no value of a column
+          unpacker.skipValue();
+          addNull();
+      }
+    }
+  }
+
+  private void readInteger(final MessageFormat format) throws IOException {
+    if (format == MessageFormat.UINT64) {
+      try {
+        addLong(unpacker.unpackLong());
+      } catch (MessageIntegerOverflowException e) {
+        // an unsigned 64 bit integer beyond the range of long
+        addDouble(e.getBigInteger().doubleValue());
+      }
+      return;
+    }
+    addLong(unpacker.unpackLong());
+  }
+
+  private void readExtension() throws IOException {
+    ExtensionTypeHeader extension = unpacker.unpackExtensionTypeHeader();
+    if (extension.getType() != MSG_PACK_TIME_EXT_TYPE || extension.getLength() != timestamp.capacity()) {
+      unpacker.readPayload(extension.getLength());
+      addNull();
+      return;
+    }
+    // epoch seconds and nanoseconds like https://github.com/tinylib/msgp/blob/master/msgp/write.go#L594
+    unpacker.readPayload(timestamp.array(), 0, timestamp.capacity());
+    addLong(TimeUnit.SECONDS.toNanos(timestamp.getLong(0)) + timestamp.getInt(NANOS_OFFSET));
+  }
+
+  @Override
+  public void close() {
+    state = State.CLOSED;
+    try {
+      unpacker.close();
+    } catch (IOException e) {
+      // the rows are not read anymore
+    }
+    body.close();
+  }
+}
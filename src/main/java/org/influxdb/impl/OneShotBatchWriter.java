@@ -4,6 +4,8 @@ import org.influxdb.InfluxDB;
 import org.influxdb.dto.BatchPoints;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Batch writer that tries to write BatchPoints exactly once.
@@ -11,15 +13,56 @@ import java.util.Collection;
 class OneShotBatchWriter implements BatchWriter {
 
   private InfluxDB influxDB;
+  private Executor flushExecutor;
+  private AdaptiveBatchSizer adaptiveBatchSizer;
 
   OneShotBatchWriter(final InfluxDB influxDB) {
+    this(influxDB, null);
+  }
+
+  /**
+   * @param influxDB the InfluxDB to write to
+   * @param flushExecutor executor to send the BatchPoints of one write concurrently,
+   *                      null to send them one after another
+   */
+  OneShotBatchWriter(final InfluxDB influxDB, final Executor flushExecutor) {
     this.influxDB = influxDB;
+    this.flushExecutor = flushExecutor;
+  }
+
+  /**
+   * @param adaptiveBatchSizer the sizer to adapt to the written batches, null for a fixed batch size
+   */
+  void setAdaptiveBatchSizer(final AdaptiveBatchSizer adaptiveBatchSizer) {
+    this.adaptiveBatchSizer = adaptiveBatchSizer;
   }
 
   @Override
-  public void write(final Collection<BatchPoints> batchPointsCollection) {
-    for (BatchPoints batchPoints : batchPointsCollection) {
+  public CompletableFuture<Void> write(final Collection<BatchPoints> batchPointsCollection) {
+    try {
+      if (flushExecutor != null && batchPointsCollection.size() > 1) {
+        ParallelFlush.invokeAll(batchPointsCollection, batchPoints -> {
+          send(batchPoints);
+          return batchPoints;
+        }, flushExecutor);
+      } else {
+        for (BatchPoints batchPoints : batchPointsCollection) {
+          send(batchPoints);
+        }
+      }
+      return CompletableFuture.completedFuture(null);
+    } catch (RuntimeException e) {
+      CompletableFuture<Void> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+
+  private void send(final BatchPoints batchPoints) {
+    if (adaptiveBatchSizer == null) {
       influxDB.write(batchPoints);
+    } else {
+      adaptiveBatchSizer.write(influxDB, batchPoints);
     }
   }
 
@@ -0,0 +1,62 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Runs the writes of one flush concurrently. Every {@link org.influxdb.dto.BatchPoints} of a flush belongs
+ * to a different database / retention policy, so they can be sent over separate connections without
+ * changing the order of the points within a database / retention policy.
+ */
+final class ParallelFlush {
+
+  private ParallelFlush() {
+  }
+
+  /**
+   * Apply the given write to all items using the executor and wait until all of them are done.
+   *
+   * @param items the items to write
+   * @param write the write to apply to every item
+   * @param executor the executor to run the writes on
+   * @param <T> type of the items
+   * @param <R> type of the write results
+   * @return the results of the writes, in the order of the items
+   * @throws RuntimeException the first exception thrown by a write, after all writes finished
+   */
+  static <T, R> List<R> invokeAll(final Collection<T> items, final Function<T, R> write, final Executor executor) {
+    List<CompletableFuture<R>> futures = new ArrayList<>(items.size());
+    for (T item : items) {
+      futures.add(CompletableFuture.supplyAsync(() -> write.apply(item), executor));
+    }
+    List<R> results = new ArrayList<>(futures.size());
+    RuntimeException failure = null;
+    for (CompletableFuture<R> future : futures) {
+      try {
+        results.add(future.join());
+      } catch (CompletionException e) {
+        if (failure == null) {
+          failure = unwrap(e);
+        }
+        results.add(null);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  private static RuntimeException unwrap(final CompletionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    return e;
+  }
+}
@@ -0,0 +1,122 @@
+package org.influxdb.impl;
+
+import org.influxdb.dto.BatchPoints;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Batch writer that hands the batches over to a pool of writer threads and returns without waiting for
+ * the HTTP requests, so the next batch can be collected while the previous ones are still in flight.
+ *
+ * <p>Every {@link BatchPoints} is written by the delegate on its own. Batches of the same database / retention
+ * policy are chained, so they are written in the order they were given. When the maximum number of requests
+ * is in flight, {@link #write(Collection)} blocks until one of them completes.</p>
+ */
+class PipelinedBatchWriter implements BatchWriter {
+
+  private static final CompletableFuture<Void> WRITTEN = CompletableFuture.completedFuture(null);
+
+  private final BatchWriter delegate;
+  private final ExecutorService executor;
+  private final int maxInFlightRequests;
+  private final Semaphore inFlightRequests;
+  private final Map<String, CompletableFuture<Void>> lastWriteByBatchKey = new ConcurrentHashMap<>();
+  private CompletableFuture<Void> lastWrite = WRITTEN;
+  // a lock instead of synchronized methods, a virtual thread waiting for a free request is not pinned to its carrier
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * @param delegate the writer used to write the single batches
+   * @param maxInFlightRequests the maximum number of batches handed over and not yet written
+   * @param threadFactory the ThreadFactory of the writer threads
+   */
+  PipelinedBatchWriter(final BatchWriter delegate, final int maxInFlightRequests, final ThreadFactory threadFactory) {
+    this.delegate = delegate;
+    this.executor = Executors.newFixedThreadPool(maxInFlightRequests, threadFactory);
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.inFlightRequests = new Semaphore(maxInFlightRequests);
+  }
+
+  @Override
+  public CompletableFuture<Void> write(final Collection<BatchPoints> batchPointsCollection) {
+    lock.lock();
+    try {
+      return writeLocked(batchPointsCollection);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private CompletableFuture<Void> writeLocked(final Collection<BatchPoints> batchPointsCollection) {
+    CompletableFuture<Void> previousWrites = ignoreFailure(lastWrite);
+    CompletableFuture<?>[] writes;
+    if (batchPointsCollection.isEmpty()) {
+      // the delegate may have cached writes to retry, give it the chance once everything before is written
+      writes = new CompletableFuture<?>[] {submit(previousWrites, batchPointsCollection, null)};
+    } else {
+      writes = new CompletableFuture<?>[batchPointsCollection.size()];
+      int i = 0;
+      for (BatchPoints batchPoints : batchPointsCollection) {
+        String batchKey = batchPoints.getDatabase() + "_" + batchPoints.getRetentionPolicy();
+        CompletableFuture<Void> previous = ignoreFailure(lastWriteByBatchKey.getOrDefault(batchKey, WRITTEN));
+        writes[i++] = submit(previous, Collections.singletonList(batchPoints), batchKey);
+      }
+    }
+    // fails only if one of the given batches could not be written, failures of earlier batches were reported before
+    lastWrite = CompletableFuture.allOf(previousWrites, CompletableFuture.allOf(writes));
+    return lastWrite;
+  }
+
+  private CompletableFuture<Void> submit(final CompletableFuture<Void> previous,
+                                         final Collection<BatchPoints> batchPointsCollection, final String batchKey) {
+    try {
+      inFlightRequests.acquire();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    CompletableFuture<Void> sent = previous.thenComposeAsync(ignored -> delegate.write(batchPointsCollection),
+                                                             executor);
+    // completes after the request is released, so a completed write is no longer counted as in flight
+    CompletableFuture<Void> written = sent.whenComplete((ignored, throwable) -> inFlightRequests.release());
+    if (batchKey != null) {
+      lastWriteByBatchKey.put(batchKey, written);
+      written.whenComplete((ignored, throwable) -> lastWriteByBatchKey.remove(batchKey, written));
+    }
+    return written;
+  }
+
+  private static CompletableFuture<Void> ignoreFailure(final CompletableFuture<Void> future) {
+    return future.handle((ignored, throwable) -> null);
+  }
+
+  /**
+   * Waits until all batches in flight are written, then closes the delegate and stops the writer threads.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      ignoreFailure(lastWrite).join();
+      delegate.close();
+      executor.shutdown();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of batches handed over and not yet written
+   */
+  int inFlightRequests() {
+    return maxInFlightRequests - inFlightRequests.availablePermits();
+  }
+}
@@ -3,18 +3,24 @@ package org.influxdb.impl;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBException;
 import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.LineProtocolEncoder;
 import org.influxdb.dto.Point;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 
 /**
  * Batch writer that tries to retry a write if it failed previously and
  * the reason of the failure is not permanent.
+ *
+ * <p>The failed writes are kept in memory, or in a {@link DiskSpool} if one is given, so they survive a restart
+ * of the application.</p>
  */
 class RetryCapableBatchWriter implements BatchWriter {
 
@@ -24,14 +30,77 @@ class RetryCapableBatchWriter implements BatchWriter {
   private int requestActionsLimit;
   private int retryBufferCapacity;
   private int usedRetryBufferCapacity;
+  private long retryBufferBytes;
+  private long usedRetryBufferBytes;
+  private int requestBytesLimit;
+  // the encoded sizes of the batchQueue entries, only measured with a retryBufferBytes or requestBytesLimit
+  private LinkedList<Long> batchQueueBytes;
+  private LineProtocolEncoder sizeEncoder;
+  private Executor flushExecutor;
+  private DiskSpool spool;
+  private LineProtocolEncoder spoolEncoder;
+  private AdaptiveBatchSizer adaptiveBatchSizer;
+  // guards the retry buffer and the spool, it is not held while a request is sent
+  private final ReentrantLock lock = new ReentrantLock();
+  // true while a thread writes the failed writes, the batches given meanwhile are queued behind them
+  private boolean retrying;
 
   RetryCapableBatchWriter(final InfluxDB influxDB, final BiConsumer<Iterable<Point>, Throwable> exceptionHandler,
                           final int retryBufferCapacity, final int requestActionsLimit) {
+    this(influxDB, exceptionHandler, retryBufferCapacity, requestActionsLimit, null);
+  }
+
+  RetryCapableBatchWriter(final InfluxDB influxDB, final BiConsumer<Iterable<Point>, Throwable> exceptionHandler,
+                          final int retryBufferCapacity, final int requestActionsLimit,
+                          final Executor flushExecutor) {
+    this(influxDB, exceptionHandler, retryBufferCapacity, requestActionsLimit, flushExecutor, null);
+  }
+
+  RetryCapableBatchWriter(final InfluxDB influxDB, final BiConsumer<Iterable<Point>, Throwable> exceptionHandler,
+                          final int retryBufferCapacity, final int requestActionsLimit,
+                          final Executor flushExecutor, final DiskSpool spool) {
+    this(influxDB, exceptionHandler, retryBufferCapacity, requestActionsLimit, flushExecutor, spool, 0, 0);
+  }
+
+  /**
+   * @param retryBufferBytes the maximum encoded size of the queued points in bytes, 0 for no limit
+   * @param requestBytesLimit the maximum encoded size of a merged batch in bytes, 0 for no limit
+   */
+  RetryCapableBatchWriter(final InfluxDB influxDB, final BiConsumer<Iterable<Point>, Throwable> exceptionHandler,
+                          final int retryBufferCapacity, final int requestActionsLimit,
+                          final Executor flushExecutor, final long retryBufferBytes, final int requestBytesLimit) {
+    this(influxDB, exceptionHandler, retryBufferCapacity, requestActionsLimit, flushExecutor, null,
+         retryBufferBytes, requestBytesLimit);
+  }
+
+  private RetryCapableBatchWriter(final InfluxDB influxDB,
+                                  final BiConsumer<Iterable<Point>, Throwable> exceptionHandler,
+                                  final int retryBufferCapacity, final int requestActionsLimit,
+                                  final Executor flushExecutor, final DiskSpool spool,
+                                  final long retryBufferBytes, final int requestBytesLimit) {
     this.influxDB = influxDB;
     this.exceptionHandler = exceptionHandler;
     batchQueue = new LinkedList<>();
     this.retryBufferCapacity = retryBufferCapacity;
     this.requestActionsLimit = requestActionsLimit;
+    this.flushExecutor = flushExecutor;
+    this.spool = spool;
+    if (spool != null) {
+      this.spoolEncoder = new LineProtocolEncoder();
+    }
+    this.retryBufferBytes = retryBufferBytes;
+    this.requestBytesLimit = requestBytesLimit;
+    if (retryBufferBytes > 0 || requestBytesLimit > 0) {
+      this.batchQueueBytes = new LinkedList<>();
+      this.sizeEncoder = new LineProtocolEncoder();
+    }
+  }
+
+  /**
+   * @param adaptiveBatchSizer the sizer to adapt to the written batches, null for a fixed batch size
+   */
+  void setAdaptiveBatchSizer(final AdaptiveBatchSizer adaptiveBatchSizer) {
+    this.adaptiveBatchSizer = adaptiveBatchSizer;
   }
 
   private enum WriteResultOutcome { WRITTEN, FAILED_RETRY_POSSIBLE, FAILED_RETRY_IMPOSSIBLE }
@@ -62,42 +131,58 @@ class RetryCapableBatchWriter implements BatchWriter {
     }
   }
 
-  /* This method is synchronized to avoid parallel execution when the user invokes flush/close
-   * of the client in the middle of scheduled write execution (buffer flush / action limit overrun) */
+  /* The lock is only held while the retry buffer or the spool is read and updated, not while the requests are
+   * sent, so a PipelinedBatchWriter can have several requests in flight. It chains the batches of a database /
+   * retention policy, so they are still written in the order they were given. */
   @Override
-  public synchronized void write(final Collection<BatchPoints> collection) {
-    // empty the cached data first
-    ListIterator<BatchPoints> batchQueueIterator = batchQueue.listIterator();
-    while (batchQueueIterator.hasNext()) {
-      BatchPoints entry = batchQueueIterator.next();
-      WriteResult result = tryToWrite(entry);
-      if (result.outcome == WriteResultOutcome.WRITTEN
-              || result.outcome == WriteResultOutcome.FAILED_RETRY_IMPOSSIBLE) {
-        batchQueueIterator.remove();
-        usedRetryBufferCapacity -= entry.getPoints().size();
-        // we are throwing out data, notify the client
-        if (result.outcome == WriteResultOutcome.FAILED_RETRY_IMPOSSIBLE) {
-          exceptionHandler.accept(entry.getPoints(), result.throwable);
+  public CompletableFuture<Void> write(final Collection<BatchPoints> collection) {
+    boolean retryFailedWrites;
+    lock.lock();
+    try {
+      if (retrying) {
+        // written after the failed writes by the thread which is retrying them
+        for (BatchPoints batchPoints : collection) {
+          addToBatchQueue(batchPoints);
         }
-      } else {
-        // we cannot send more data otherwise we would write them in different
-        // order than in which were submitted
+        return CompletableFuture.completedFuture(null);
+      }
+      retryFailedWrites = hasFailedWrites();
+      retrying = retryFailedWrites;
+    } finally {
+      lock.unlock();
+    }
+    // empty the spooled or cached data first
+    if (retryFailedWrites && !retryFailedWrites()) {
+      // we cannot send more data otherwise we would write them in different order than in which were submitted
+      lock.lock();
+      try {
         for (BatchPoints batchPoints : collection) {
           addToBatchQueue(batchPoints);
         }
-        return;
+      } finally {
+        lock.unlock();
       }
+      return CompletableFuture.completedFuture(null);
     }
     // write the last given batch last so that duplicate data points get overwritten correctly
+    if (flushExecutor != null && collection.size() > 1) {
+      writeConcurrently(collection);
+      return CompletableFuture.completedFuture(null);
+    }
     Iterator<BatchPoints> collectionIterator = collection.iterator();
     while (collectionIterator.hasNext()) {
       BatchPoints batchPoints = collectionIterator.next();
       WriteResult result = tryToWrite(batchPoints);
       switch (result.outcome) {
         case FAILED_RETRY_POSSIBLE:
-          addToBatchQueue(batchPoints);
-          while (collectionIterator.hasNext()) {
-            addToBatchQueue(collectionIterator.next());
+          lock.lock();
+          try {
+            addToBatchQueue(batchPoints);
+            while (collectionIterator.hasNext()) {
+              addToBatchQueue(collectionIterator.next());
+            }
+          } finally {
+            lock.unlock();
           }
           break;
         case FAILED_RETRY_IMPOSSIBLE:
@@ -107,12 +192,134 @@ class RetryCapableBatchWriter implements BatchWriter {
 
       }
     }
+    // failed writes are retried or reported to the exceptionHandler, the returned future never fails
+    return CompletableFuture.completedFuture(null);
+  }
+
+  private boolean hasFailedWrites() {
+    if (spool != null) {
+      return !spool.isEmpty();
+    }
+    return !batchQueue.isEmpty();
   }
 
-  /* This method is synchronized to avoid parallel execution when the BatchProcessor scheduler
+  /**
+   * Write the failed writes in the order they failed, including the ones queued meanwhile. Only the thread which
+   * set {@code retrying} calls it.
+   *
+   * @return true if all failed writes are written, false if a write failed again and is worth a retry
+   */
+  private boolean retryFailedWrites() {
+    while (true) {
+      BatchPoints entry = null;
+      long entryBytes = 0;
+      SpooledBatch spooled = null;
+      long spoolPosition = 0;
+      lock.lock();
+      try {
+        if (!hasFailedWrites()) {
+          retrying = false;
+          return true;
+        }
+        if (spool != null) {
+          spooled = spool.peek();
+          spoolPosition = spool.removedRecords();
+        } else {
+          // taken out while it is sent, so no batch is merged into it meanwhile
+          entry = batchQueue.removeFirst();
+          if (batchQueueBytes != null) {
+            entryBytes = batchQueueBytes.removeFirst();
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+      WriteResult result;
+      if (spooled != null) {
+        result = tryToWrite(spooled);
+      } else {
+        result = tryToWrite(entry);
+      }
+      lock.lock();
+      try {
+        if (result.outcome == WriteResultOutcome.FAILED_RETRY_POSSIBLE) {
+          if (entry != null) {
+            batchQueue.addFirst(entry);
+            if (batchQueueBytes != null) {
+              batchQueueBytes.addFirst(entryBytes);
+            }
+            evictTooOldFailedWrites();
+          }
+          retrying = false;
+          return false;
+        }
+        if (entry != null) {
+          usedRetryBufferCapacity -= entry.getPoints().size();
+          usedRetryBufferBytes -= entryBytes;
+        } else if (spool.removedRecords() == spoolPosition) {
+          spool.remove();
+        } else {
+          // evicted while it was sent, and already reported to the exceptionHandler
+          continue;
+        }
+      } finally {
+        lock.unlock();
+      }
+      // we are throwing out data, notify the client
+      if (result.outcome == WriteResultOutcome.FAILED_RETRY_IMPOSSIBLE) {
+        if (entry != null) {
+          exceptionHandler.accept(entry.getPoints(), result.throwable);
+        } else {
+          exceptionHandler.accept(spooled.points(), result.throwable);
+        }
+      }
+    }
+  }
+
+  /* Every BatchPoints of the collection belongs to another database / retention policy, so they are sent
+   * at the same time. The failed ones are queued for retry in the order they were given. */
+  private void writeConcurrently(final Collection<BatchPoints> collection) {
+    List<WriteResult> results = ParallelFlush.invokeAll(collection, this::tryToWrite, flushExecutor);
+    Iterator<WriteResult> resultIterator = results.iterator();
+    for (BatchPoints batchPoints : collection) {
+      WriteResult result = resultIterator.next();
+      switch (result.outcome) {
+        case FAILED_RETRY_POSSIBLE:
+          lock.lock();
+          try {
+            addToBatchQueue(batchPoints);
+          } finally {
+            lock.unlock();
+          }
+          break;
+        case FAILED_RETRY_IMPOSSIBLE:
+          exceptionHandler.accept(batchPoints.getPoints(), result.throwable);
+          break;
+        default:
+
+      }
+    }
+  }
+
+  /* This method holds the lock to avoid parallel execution when the BatchProcessor scheduler
    * has been shutdown but there are jobs still being executed (using RetryCapableBatchWriter.write).*/
   @Override
-  public synchronized void close() {
+  public void close() {
+    lock.lock();
+    try {
+      closeLocked();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void closeLocked() {
+    if (spool != null) {
+      // what cannot be written stays in the spool for the next start
+      replaySpool();
+      spool.close();
+      return;
+    }
     // try to write everything queued / buffered
     for (BatchPoints points : batchQueue) {
       WriteResult result = tryToWrite(points);
@@ -124,7 +331,11 @@ class RetryCapableBatchWriter implements BatchWriter {
 
   private WriteResult tryToWrite(final BatchPoints batchPoints) {
     try {
-      influxDB.write(batchPoints);
+      if (adaptiveBatchSizer == null) {
+        influxDB.write(batchPoints);
+      } else {
+        adaptiveBatchSizer.write(influxDB, batchPoints);
+      }
       return WriteResult.WRITTEN;
     } catch (InfluxDBException e) {
       return new WriteResult(e);
@@ -133,27 +344,105 @@ class RetryCapableBatchWriter implements BatchWriter {
     }
   }
 
+  private WriteResult tryToWrite(final SpooledBatch batch) {
+    try {
+      influxDB.write(batch.getDatabase(), batch.getRetentionPolicy(), batch.getConsistency(),
+          batch.getPrecision(), batch.records());
+      return WriteResult.WRITTEN;
+    } catch (InfluxDBException e) {
+      return new WriteResult(e);
+    } catch (Exception e) {
+      return new WriteResult(WriteResultOutcome.FAILED_RETRY_POSSIBLE, e);
+    }
+  }
+
+  /**
+   * Write the spooled batches in the order they were spooled.
+   *
+   * @return true if the spool is empty afterwards, false if a write failed and is worth a retry
+   */
+  private boolean replaySpool() {
+    while (!spool.isEmpty()) {
+      SpooledBatch batch = spool.peek();
+      WriteResult result = tryToWrite(batch);
+      if (result.outcome == WriteResultOutcome.FAILED_RETRY_POSSIBLE) {
+        return false;
+      }
+      spool.remove();
+      // we are throwing out data, notify the client
+      if (result.outcome == WriteResultOutcome.FAILED_RETRY_IMPOSSIBLE) {
+        exceptionHandler.accept(batch.points(), result.throwable);
+      }
+    }
+    return true;
+  }
+
+  private boolean isRetryBufferBytesExceeded() {
+    return retryBufferBytes > 0 && usedRetryBufferBytes > retryBufferBytes;
+  }
+
+  /**
+   * @return the size of the line protocol of the batch, 0 if the sizes are not measured
+   */
+  private long encodedSize(final BatchPoints batchPoints) {
+    if (sizeEncoder == null) {
+      return 0;
+    }
+    long size = 0;
+    for (Point point : batchPoints.getPoints()) {
+      size += sizeEncoder.encodedSize(point, batchPoints.getPrecision());
+    }
+    return size;
+  }
+
   private void evictTooOldFailedWrites() {
-    while (usedRetryBufferCapacity > retryBufferCapacity && batchQueue.size() > 0) {
+    while ((usedRetryBufferCapacity > retryBufferCapacity || isRetryBufferBytesExceeded())
+        && batchQueue.size() > 0) {
       List<Point> points = batchQueue.removeFirst().getPoints();
       usedRetryBufferCapacity -= points.size();
+      if (batchQueueBytes != null) {
+        usedRetryBufferBytes -= batchQueueBytes.removeFirst();
+      }
       exceptionHandler.accept(points,
-              new InfluxDBException.RetryBufferOverrunException(
-                      "Retry buffer overrun, current capacity: " + retryBufferCapacity));
+              new InfluxDBException.RetryBufferOverrunException(retryBufferOverrunMessage()));
     }
   }
 
+  private String retryBufferOverrunMessage() {
+    if (retryBufferBytes > 0) {
+      return "Retry buffer overrun, current capacity: " + retryBufferCapacity + " points, "
+          + retryBufferBytes + " bytes";
+    }
+    return "Retry buffer overrun, current capacity: " + retryBufferCapacity;
+  }
+
   private void addToBatchQueue(final BatchPoints batchPoints) {
+    if (spool != null) {
+      spool.append(SpooledBatch.of(batchPoints, spoolEncoder), evicted -> exceptionHandler.accept(evicted.points(),
+          new InfluxDBException.RetryBufferOverrunException(
+              "Spool overrun, maximum disk size: " + spool.maxDiskSize())));
+      return;
+    }
+    long bytes = encodedSize(batchPoints);
     boolean hasBeenMergedIn = false;
     if (batchQueue.size() > 0) {
       BatchPoints last = batchQueue.getLast();
-      if (last.getPoints().size() + batchPoints.getPoints().size() <= requestActionsLimit) {
+      if (last.getPoints().size() + batchPoints.getPoints().size() <= requestActionsLimit
+          && (requestBytesLimit <= 0 || batchQueueBytes.getLast() + bytes <= requestBytesLimit)) {
         hasBeenMergedIn = last.mergeIn(batchPoints);
       }
     }
     if (!hasBeenMergedIn) {
         batchQueue.add(batchPoints);
     }
+    if (batchQueueBytes != null) {
+      if (hasBeenMergedIn) {
+        batchQueueBytes.add(batchQueueBytes.removeLast() + bytes);
+      } else {
+        batchQueueBytes.add(bytes);
+      }
+      usedRetryBufferBytes += bytes;
+    }
     // recalculate local counter and evict old batches on merge as well
     usedRetryBufferCapacity += batchPoints.getPoints().size();
     evictTooOldFailedWrites();
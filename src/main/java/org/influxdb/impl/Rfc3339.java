@@ -0,0 +1,331 @@
+package org.influxdb.impl;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and formats RFC3339 timestamps, like {@code 2016-10-31T06:52:20.020Z} as returned by InfluxDB for queries
+ * without epoch precision, from and to epoch nanoseconds.
+ *
+ * <p>The fields of a timestamp are read from their fixed positions and the epoch day is calculated arithmetically,
+ * so parsing and formatting allocate nothing but the result. Timestamps with 0 to 9 fractional digits and
+ * {@code Z} or a {@code +HH:MM} offset between the years 1678 and 2261, the range of epoch nanoseconds, take this
+ * path. Other timestamps, like with a zone id, are parsed by a {@link DateTimeFormatter} as before.</p>
+ */
+public final class Rfc3339 {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final int SECONDS_PER_MINUTE = 60;
+  private static final int SECONDS_PER_HOUR = 3600;
+  private static final int SECONDS_PER_DAY = 86400;
+  private static final int MINUTES_PER_HOUR = 60;
+  private static final int HOURS_PER_DAY = 24;
+  private static final int MONTHS_PER_YEAR = 12;
+  private static final int DECIMAL = 10;
+  private static final int MIN_YEAR = 1678;
+  private static final int MAX_YEAR = 2261;
+  private static final int MAX_OFFSET_HOURS = 18;
+  private static final int MAX_FRACTION_DIGITS = 9;
+  private static final int[] POWERS_OF_TEN = {
+      1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+  };
+  private static final int[] DAYS_PER_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+  // the positions of the fields of yyyy-MM-ddTHH:mm:ss and of the offset ±HH:MM
+  private static final int YEAR_DIGITS = 4;
+  private static final int MONTH = 5;
+  private static final int DAY = 8;
+  private static final int HOUR = 11;
+  private static final int MINUTE = 14;
+  private static final int SECOND = 17;
+  private static final int SECONDS_END = 19;
+  private static final int OFFSET_MINUTES = 4;
+  private static final int OFFSET_LENGTH = 6;
+  private static final int MAX_LENGTH = 35;
+
+  // the result of a timestamp which is not parsed arithmetically
+  private static final long NOT_PARSED = Long.MIN_VALUE;
+
+  private static final int FRACTION_MIN_WIDTH = 0;
+  private static final boolean ADD_DECIMAL_POINT = true;
+
+  /**
+   * The formatter of the timestamps which are not in the canonical form.
+   */
+  private static final DateTimeFormatter RFC3339_FORMATTER = new DateTimeFormatterBuilder()
+    .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
+    .appendFraction(ChronoField.NANO_OF_SECOND, FRACTION_MIN_WIDTH, MAX_FRACTION_DIGITS, ADD_DECIMAL_POINT)
+    .appendZoneOrOffsetId()
+    .toFormatter();
+
+  private Rfc3339() {
+  }
+
+  /**
+   * @param text the RFC3339 timestamp
+   * @return the epoch nanoseconds of the timestamp
+   * @throws java.time.format.DateTimeParseException if the text is not a timestamp
+   * @throws ArithmeticException if the timestamp is beyond the range of epoch nanoseconds
+   */
+  public static long parseEpochNanos(final CharSequence text) {
+    long nanos = parse(text);
+    if (nanos != NOT_PARSED) {
+      return nanos;
+    }
+    Instant instant = Instant.from(RFC3339_FORMATTER.parse(text));
+    return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+  }
+
+  /**
+   * @param text the RFC3339 timestamp
+   * @return the instant of the timestamp
+   * @throws java.time.format.DateTimeParseException if the text is not a timestamp
+   */
+  public static Instant parseInstant(final CharSequence text) {
+    long nanos = parse(text);
+    if (nanos != NOT_PARSED) {
+      return Instant.ofEpochSecond(0, nanos);
+    }
+    return Instant.from(RFC3339_FORMATTER.parse(text));
+  }
+
+  /**
+   * @param text the RFC3339 timestamp
+   * @return the epoch milliseconds of the timestamp, rounded down
+   * @throws java.time.format.DateTimeParseException if the text is not a timestamp
+   */
+  static long parseEpochMillis(final CharSequence text) {
+    long nanos = parse(text);
+    if (nanos != NOT_PARSED) {
+      return Math.floorDiv(nanos, NANOS_PER_MILLI);
+    }
+    return Instant.from(RFC3339_FORMATTER.parse(text)).toEpochMilli();
+  }
+
+  /**
+   * Format epoch nanoseconds in UTC with the significant fractional digits, like InfluxDB does.
+   *
+   * @param epochNanos the epoch nanoseconds
+   * @return the RFC3339 timestamp
+   */
+  public static String formatEpochNanos(final long epochNanos) {
+    return appendEpochNanos(new StringBuilder(MAX_LENGTH), epochNanos).toString();
+  }
+
+  /**
+   * Append epoch nanoseconds in UTC with the significant fractional digits, like InfluxDB does.
+   *
+   * @param sb the StringBuilder to append the timestamp to
+   * @param epochNanos the epoch nanoseconds
+   * @return the StringBuilder
+   */
+  public static StringBuilder appendEpochNanos(final StringBuilder sb, final long epochNanos) {
+    appendDateTime(sb, Math.floorDiv(epochNanos, NANOS_PER_SECOND));
+    int nano = (int) Math.floorMod(epochNanos, NANOS_PER_SECOND);
+    if (nano != 0) {
+      int digits = MAX_FRACTION_DIGITS;
+      while (nano % DECIMAL == 0) {
+        nano /= DECIMAL;
+        digits--;
+      }
+      sb.append('.');
+      appendDigits(sb, nano, digits);
+    }
+    return sb.append('Z');
+  }
+
+  /**
+   * Append a timestamp in UTC with a fixed number of fractional digits.
+   *
+   * @param sb the StringBuilder to append the timestamp to
+   * @param epochSecond the epoch seconds
+   * @param nano the nanoseconds of the second
+   * @param fractionDigits the number of fractional digits, 0 to 9
+   * @return the StringBuilder
+   */
+  static StringBuilder append(final StringBuilder sb, final long epochSecond, final int nano,
+                              final int fractionDigits) {
+    appendDateTime(sb, epochSecond);
+    if (fractionDigits > 0) {
+      sb.append('.');
+      appendDigits(sb, nano / POWERS_OF_TEN[MAX_FRACTION_DIGITS - fractionDigits], fractionDigits);
+    }
+    return sb.append('Z');
+  }
+
+  /**
+   * @return the epoch nanoseconds, {@link #NOT_PARSED} if the timestamp is not in the canonical form
+   */
+  private static long parse(final CharSequence text) {
+    int length = text.length();
+    if (length <= SECONDS_END || text.charAt(YEAR_DIGITS) != '-' || text.charAt(MONTH + 2) != '-'
+        || (text.charAt(HOUR - 1) != 'T' && text.charAt(HOUR - 1) != 't')
+        || text.charAt(MINUTE - 1) != ':' || text.charAt(SECOND - 1) != ':') {
+      return NOT_PARSED;
+    }
+    int year = digits(text, 0, YEAR_DIGITS);
+    int month = digits(text, MONTH, 2);
+    int day = digits(text, DAY, 2);
+    int hour = digits(text, HOUR, 2);
+    int minute = digits(text, MINUTE, 2);
+    int second = digits(text, SECOND, 2);
+    if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > MONTHS_PER_YEAR || day < 1
+        || day > lengthOfMonth(year, month) || hour < 0 || hour >= HOURS_PER_DAY || minute < 0
+        || minute >= MINUTES_PER_HOUR || second < 0 || second >= SECONDS_PER_MINUTE) {
+      return NOT_PARSED;
+    }
+
+    int position = SECONDS_END;
+    long nano = 0;
+    if (text.charAt(position) == '.') {
+      position++;
+      int fractionDigits = 0;
+      while (position < length && isDigit(text.charAt(position))) {
+        if (fractionDigits == MAX_FRACTION_DIGITS) {
+          return NOT_PARSED;
+        }
+        nano = nano * DECIMAL + text.charAt(position) - '0';
+        fractionDigits++;
+        position++;
+      }
+      nano *= POWERS_OF_TEN[MAX_FRACTION_DIGITS - fractionDigits];
+    }
+    if (position >= length) {
+      return NOT_PARSED;
+    }
+
+    char zone = text.charAt(position);
+    int offsetSeconds;
+    if ((zone == 'Z' || zone == 'z') && position + 1 == length) {
+      offsetSeconds = 0;
+    } else if ((zone == '+' || zone == '-') && position + OFFSET_LENGTH == length
+        && text.charAt(position + OFFSET_MINUTES - 1) == ':') {
+      int offsetHours = digits(text, position + 1, 2);
+      int offsetMinutes = digits(text, position + OFFSET_MINUTES, 2);
+      if (offsetHours < 0 || offsetHours > MAX_OFFSET_HOURS || offsetMinutes < 0
+          || offsetMinutes >= MINUTES_PER_HOUR) {
+        return NOT_PARSED;
+      }
+      offsetSeconds = offsetHours * SECONDS_PER_HOUR + offsetMinutes * SECONDS_PER_MINUTE;
+      if (zone == '-') {
+        offsetSeconds = -offsetSeconds;
+      }
+    } else {
+      return NOT_PARSED;
+    }
+
+    long epochSecond = epochDay(year, month, day) * SECONDS_PER_DAY + hour * SECONDS_PER_HOUR
+        + minute * SECONDS_PER_MINUTE + second - offsetSeconds;
+    return epochSecond * NANOS_PER_SECOND + nano;
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * @return the number of the digits, -1 if one is no digit
+   */
+  private static int digits(final CharSequence text, final int start, final int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = text.charAt(i);
+      if (!isDigit(c)) {
+        return -1;
+      }
+      value = value * DECIMAL + c - '0';
+    }
+    return value;
+  }
+
+  private static int lengthOfMonth(final int year, final int month) {
+    if (month == 2 && isLeapYear(year)) {
+      return DAYS_PER_MONTH[1] + 1;
+    }
+    return DAYS_PER_MONTH[month - 1];
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static boolean isLeapYear(final long year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  /**
+   * The days since 1970-01-01 of a date of the proleptic Gregorian calendar, in eras of 400 years starting on March
+   * 1st, see http://howardhinnant.github.io/date_algorithms.html#days_from_civil.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static long epochDay(final int year, final int month, final int day) {
+    long y = year;
+    if (month <= 2) {
+      y--;
+    }
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    int shiftedMonth = month + 9;
+    if (month > 2) {
+      shiftedMonth = month - 3;
+    }
+    long dayOfYear = (153 * shiftedMonth + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Append the date and time of epoch seconds in UTC, the inverse of {@link #epochDay(int, int, int)}.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void appendDateTime(final StringBuilder sb, final long epochSecond) {
+    long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+    long days = epochDay + 719468;
+    long era = Math.floorDiv(days, 146097);
+    long dayOfEra = days - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int shiftedMonth = (int) ((5 * dayOfYear + 2) / 153);
+    int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int month = shiftedMonth + 3;
+    if (shiftedMonth >= 10) {
+      month = shiftedMonth - 9;
+    }
+    long year = yearOfEra + era * 400;
+    if (month <= 2) {
+      year++;
+    }
+
+    if (year < 0) {
+      sb.append('-');
+      year = -year;
+    }
+    if (year > 9999) {
+      sb.append(year);
+    } else {
+      appendDigits(sb, (int) year, YEAR_DIGITS);
+    }
+    sb.append('-');
+    appendDigits(sb, month, 2);
+    sb.append('-');
+    appendDigits(sb, day, 2);
+    sb.append('T');
+    appendDigits(sb, secondOfDay / SECONDS_PER_HOUR, 2);
+    sb.append(':');
+    appendDigits(sb, secondOfDay / SECONDS_PER_MINUTE % MINUTES_PER_HOUR, 2);
+    sb.append(':');
+    appendDigits(sb, secondOfDay % SECONDS_PER_MINUTE, 2);
+  }
+
+  /**
+   * Append a non negative number with leading zeros.
+   */
+  private static void appendDigits(final StringBuilder sb, final int value, final int digits) {
+    for (int i = digits - 1; i >= 0; i--) {
+      sb.append((char) ('0' + value / POWERS_OF_TEN[i] % DECIMAL));
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package org.influxdb.impl;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, preallocated and lock-free {@link BlockingQueue} for many concurrent producers.
+ * <p>
+ * Every slot of the ring carries a sequence number which tells producers and consumers whether the
+ * slot is free or holds a published element (Dmitry Vyukov's bounded queue). Producers claim a slot with
+ * a single CAS on the producer index and never allocate, so concurrent {@link #offer(Object)} calls do not
+ * serialize on a lock as they do with {@link java.util.concurrent.LinkedBlockingQueue}. Consumers claim
+ * slots the same way, which keeps the queue safe when {@link BatchProcessor#flush()} drains it from a
+ * caller thread while the scheduler is draining too.
+ * <p>
+ * The blocking operations spin-park until space or an element becomes available.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+final class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  // 8 longs = 64 bytes, keeps both indexes on their own cache line
+  private static final int PADDING = 8;
+  private static final int PRODUCER_INDEX = PADDING;
+  private static final int CONSUMER_INDEX = 2 * PADDING;
+  private static final int INDEXES_LENGTH = 3 * PADDING;
+
+  private final int capacity;
+  private final AtomicReferenceArray<E> buffer;
+  private final AtomicLongArray sequences;
+  private final AtomicLongArray indexes = new AtomicLongArray(INDEXES_LENGTH);
+
+  RingBufferQueue(final int capacity) {
+    // with a single slot the "published" and "free for the next lap" sequences would be equal
+    if (capacity < 2) {
+      throw new IllegalArgumentException("Expecting a capacity of at least 2 for capacity");
+    }
+    this.capacity = capacity;
+    this.buffer = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      this.sequences.lazySet(i, i);
+    }
+  }
+
+  private int slot(final long position) {
+    return (int) (position % this.capacity);
+  }
+
+  @Override
+  public boolean offer(final E e) {
+    Objects.requireNonNull(e, "e");
+    long position = this.indexes.get(PRODUCER_INDEX);
+    while (true) {
+      int slot = slot(position);
+      long difference = this.sequences.get(slot) - position;
+      if (difference == 0) {
+        if (this.indexes.compareAndSet(PRODUCER_INDEX, position, position + 1)) {
+          this.buffer.lazySet(slot, e);
+          this.sequences.lazySet(slot, position + 1);
+          return true;
+        }
+        position = this.indexes.get(PRODUCER_INDEX);
+      } else if (difference < 0) {
+        // the slot still holds an element of the previous lap, the ring is full
+        return false;
+      } else {
+        position = this.indexes.get(PRODUCER_INDEX);
+      }
+    }
+  }
+
+  @Override
+  public E poll() {
+    long position = this.indexes.get(CONSUMER_INDEX);
+    while (true) {
+      int slot = slot(position);
+      long difference = this.sequences.get(slot) - (position + 1);
+      if (difference == 0) {
+        if (this.indexes.compareAndSet(CONSUMER_INDEX, position, position + 1)) {
+          E e = this.buffer.get(slot);
+          this.buffer.lazySet(slot, null);
+          this.sequences.lazySet(slot, position + this.capacity);
+          return e;
+        }
+        position = this.indexes.get(CONSUMER_INDEX);
+      } else if (difference < 0) {
+        // nothing has been published into the slot yet, the ring is empty
+        return null;
+      } else {
+        position = this.indexes.get(CONSUMER_INDEX);
+      }
+    }
+  }
+
+  @Override
+  public E peek() {
+    long position = this.indexes.get(CONSUMER_INDEX);
+    int slot = slot(position);
+    if (this.sequences.get(slot) == position + 1) {
+      return this.buffer.get(slot);
+    }
+    return null;
+  }
+
+  @Override
+  public int size() {
+    while (true) {
+      long consumer = this.indexes.get(CONSUMER_INDEX);
+      long producer = this.indexes.get(PRODUCER_INDEX);
+      if (consumer == this.indexes.get(CONSUMER_INDEX)) {
+        long size = producer - consumer;
+        if (size < 0) {
+          return 0;
+        }
+        return (int) Math.min(size, this.capacity);
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return peek() == null;
+  }
+
+  @Override
+  public void put(final E e) throws InterruptedException {
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+    }
+  }
+
+  @Override
+  public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+    }
+    return true;
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    E e = poll();
+    while (e == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+      e = poll();
+    }
+    return e;
+  }
+
+  @Override
+  public E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    E e = poll();
+    while (e == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        return null;
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+      e = poll();
+    }
+    return e;
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return this.capacity - size();
+  }
+
+  @Override
+  public int drainTo(final Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(final Collection<? super E> c, final int maxElements) {
+    Objects.requireNonNull(c, "c");
+    if (c == this) {
+      throw new IllegalArgumentException("Cannot drain a queue into itself");
+    }
+    int drained = 0;
+    while (drained < maxElements) {
+      E e = poll();
+      if (e == null) {
+        break;
+      }
+      c.add(e);
+      drained++;
+    }
+    return drained;
+  }
+
+  /**
+   * Returns a weakly consistent snapshot of the elements currently in the ring, removal through the
+   * iterator is not supported.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    long consumer = this.indexes.get(CONSUMER_INDEX);
+    long producer = this.indexes.get(PRODUCER_INDEX);
+    List<E> snapshot = new ArrayList<>();
+    for (long position = consumer; position < producer; position++) {
+      E e = this.buffer.get(slot(position));
+      if (e != null) {
+        snapshot.add(e);
+      }
+    }
+    return Collections.unmodifiableList(snapshot).iterator();
+  }
+}
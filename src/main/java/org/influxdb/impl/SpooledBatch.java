@@ -0,0 +1,309 @@
+package org.influxdb.impl;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDB.ConsistencyLevel;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.LineProtocolEncoder;
+import org.influxdb.dto.Point;
+
+/**
+ * A {@link BatchPoints} in the form it is stored by the {@link DiskSpool}: the line protocol of its points plus the
+ * target of the write.
+ *
+ * <p>Serialized layout: version byte, database, retention policy, consistency and precision as length prefixed
+ * UTF-8 strings (length -1 for null), the number of points and the length prefixed line protocol.</p>
+ */
+final class SpooledBatch {
+
+  private static final byte VERSION = 1;
+  private static final int NULL_LENGTH = -1;
+
+  private final String database;
+  private final String retentionPolicy;
+  private final ConsistencyLevel consistency;
+  private final TimeUnit precision;
+  private final int pointCount;
+  private final byte[] lineProtocol;
+
+  SpooledBatch(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
+               final TimeUnit precision, final int pointCount, final byte[] lineProtocol) {
+    this.database = database;
+    this.retentionPolicy = retentionPolicy;
+    this.consistency = consistency;
+    this.precision = precision;
+    this.pointCount = pointCount;
+    this.lineProtocol = lineProtocol;
+  }
+
+  /**
+   * @param batchPoints the batch to spool
+   * @param encoder the encoder to reuse, reset afterwards
+   * @return the spooled form of the batch
+   */
+  static SpooledBatch of(final BatchPoints batchPoints, final LineProtocolEncoder encoder) {
+    int pointCount = 0;
+    for (Point point : batchPoints.getPoints()) {
+      if (encoder.encode(point, batchPoints.getPrecision()) > 0) {
+        encoder.newLine();
+        pointCount++;
+      }
+    }
+    byte[] lineProtocol = encoder.toByteArray();
+    encoder.reset();
+    return new SpooledBatch(batchPoints.getDatabase(), batchPoints.getRetentionPolicy(),
+        batchPoints.getConsistency(), batchPoints.getPrecision(), pointCount, lineProtocol);
+  }
+
+  String getDatabase() {
+    return database;
+  }
+
+  String getRetentionPolicy() {
+    return retentionPolicy;
+  }
+
+  ConsistencyLevel getConsistency() {
+    return consistency;
+  }
+
+  TimeUnit getPrecision() {
+    return precision;
+  }
+
+  int getPointCount() {
+    return pointCount;
+  }
+
+  /**
+   * @return the line protocol of the points, one per line
+   */
+  String records() {
+    return new String(lineProtocol, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the serialized batch
+   */
+  byte[] serialize() {
+    byte[] databaseBytes = bytes(database);
+    byte[] retentionPolicyBytes = bytes(retentionPolicy);
+    byte[] consistencyBytes = bytes(consistency.value());
+    byte[] precisionBytes = bytes(precision.name());
+    int size = 1 + lengthOf(databaseBytes) + lengthOf(retentionPolicyBytes) + lengthOf(consistencyBytes)
+        + lengthOf(precisionBytes) + Integer.BYTES + lengthOf(lineProtocol);
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.put(VERSION);
+    put(buffer, databaseBytes);
+    put(buffer, retentionPolicyBytes);
+    put(buffer, consistencyBytes);
+    put(buffer, precisionBytes);
+    buffer.putInt(pointCount);
+    put(buffer, lineProtocol);
+    return buffer.array();
+  }
+
+  /**
+   * @param buffer the serialized batch from its position to its limit
+   * @return the batch
+   * @throws IllegalArgumentException if the buffer does not hold a serialized batch
+   */
+  static SpooledBatch deserialize(final ByteBuffer buffer) {
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unknown spool record version " + version);
+    }
+    String database = string(buffer);
+    String retentionPolicy = string(buffer);
+    String consistencyValue = string(buffer);
+    TimeUnit precision = TimeUnit.valueOf(string(buffer));
+    int pointCount = buffer.getInt();
+    byte[] lineProtocol = getBytes(buffer);
+    ConsistencyLevel consistency = null;
+    for (ConsistencyLevel level : ConsistencyLevel.values()) {
+      if (level.value().equals(consistencyValue)) {
+        consistency = level;
+      }
+    }
+    if (consistency == null) {
+      throw new IllegalArgumentException("Unknown consistency " + consistencyValue);
+    }
+    return new SpooledBatch(database, retentionPolicy, consistency, precision, pointCount, lineProtocol);
+  }
+
+  private static byte[] bytes(final String string) {
+    if (string == null) {
+      return null;
+    }
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int lengthOf(final byte[] bytes) {
+    if (bytes == null) {
+      return Integer.BYTES;
+    }
+    return Integer.BYTES + bytes.length;
+  }
+
+  private static void put(final ByteBuffer buffer, final byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(NULL_LENGTH);
+    } else {
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  private static byte[] getBytes(final ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static String string(final ByteBuffer buffer) {
+    byte[] bytes = getBytes(buffer);
+    if (bytes == null) {
+      return null;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Parse the line protocol back into points, to report a batch which is dropped to the exception handler.
+   * Float fields become doubles and integer fields longs, the values are otherwise the ones written.
+   *
+   * @return the points of the batch
+   */
+  List<Point> points() {
+    String records = records();
+    List<Point> points = new ArrayList<>(pointCount);
+    Cursor cursor = new Cursor(records);
+    while (cursor.hasNext()) {
+      if (cursor.peek() == '\n') {
+        cursor.next();
+        continue;
+      }
+      Point.Builder builder = Point.measurement(cursor.key(", "));
+      while (cursor.peek() == ',') {
+        cursor.next();
+        String tagName = cursor.key("=");
+        cursor.next();
+        builder.tag(tagName, cursor.key(", "));
+      }
+      do {
+        cursor.next();
+        String fieldName = cursor.key("=");
+        cursor.next();
+        addField(builder, fieldName, cursor);
+      } while (cursor.hasNext() && cursor.peek() == ',');
+      if (cursor.hasNext() && cursor.peek() == ' ') {
+        cursor.next();
+        String time = cursor.token();
+        try {
+          builder.time(Long.parseLong(time), precision);
+        } catch (NumberFormatException e) {
+          builder.time(new BigInteger(time), precision);
+        }
+      }
+      points.add(builder.build());
+    }
+    return points;
+  }
+
+  private static void addField(final Point.Builder builder, final String fieldName, final Cursor cursor) {
+    if (cursor.peek() == '"') {
+      builder.addField(fieldName, cursor.quoted());
+      return;
+    }
+    String value = cursor.token();
+    if (value.endsWith("i")) {
+      String integer = value.substring(0, value.length() - 1);
+      try {
+        builder.addField(fieldName, Long.parseLong(integer));
+      } catch (NumberFormatException e) {
+        builder.addField(fieldName, new BigInteger(integer));
+      }
+    } else if ("true".equals(value) || "false".equals(value)) {
+      builder.addField(fieldName, Boolean.parseBoolean(value));
+    } else {
+      builder.addField(fieldName, Double.parseDouble(value));
+    }
+  }
+
+  /**
+   * Reads the line protocol written by {@link Point#lineProtocol()}.
+   */
+  private static final class Cursor {
+    private final String chars;
+    private final StringBuilder sb = new StringBuilder();
+    private int position;
+
+    private Cursor(final String chars) {
+      this.chars = chars;
+    }
+
+    boolean hasNext() {
+      return position < chars.length();
+    }
+
+    char peek() {
+      return chars.charAt(position);
+    }
+
+    char next() {
+      return chars.charAt(position++);
+    }
+
+    /**
+     * @return the unescaped key up to the next unescaped terminator
+     */
+    String key(final String terminators) {
+      sb.setLength(0);
+      while (hasNext() && terminators.indexOf(peek()) < 0) {
+        char c = next();
+        if (c == '\\' && hasNext() && " ,=".indexOf(peek()) >= 0) {
+          c = next();
+        }
+        sb.append(c);
+      }
+      return sb.toString();
+    }
+
+    /**
+     * @return the unescaped content of a quoted string field
+     */
+    String quoted() {
+      sb.setLength(0);
+      next();
+      while (hasNext() && peek() != '"') {
+        char c = next();
+        if (c == '\\' && hasNext() && (peek() == '"' || peek() == '\\')) {
+          c = next();
+        }
+        sb.append(c);
+      }
+      next();
+      return sb.toString();
+    }
+
+    /**
+     * @return the unquoted value or timestamp up to the next separator
+     */
+    String token() {
+      int start = position;
+      while (hasNext() && peek() != ',' && peek() != ' ' && peek() != '\n') {
+        position++;
+      }
+      return chars.substring(start, position);
+    }
+  }
+}
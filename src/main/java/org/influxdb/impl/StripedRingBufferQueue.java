@@ -0,0 +1,253 @@
+package org.influxdb.impl;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link BlockingQueue} made of several {@link RingBufferQueue} stripes.
+ * <p>
+ * Every producer thread is hashed to a home stripe and only ever appends to that stripe, so producers
+ * running on different cores rarely touch the same ring. A thread never spills over into another stripe,
+ * which keeps the points written by one thread in their original order. Every stripe has room for the stripe
+ * capacity given in the constructor, so a single producer fills its stripe like an unstriped queue, while a
+ * counter of all elements bounds the queue as a whole by the total capacity. An element is only taken if both
+ * its stripe and the queue as a whole have room, the blocking and dropping behaviour applies to both.
+ * <p>
+ * Consumers harvest all stripes, see {@link #drainTo(Collection, int)}.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+final class StripedRingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final int HASH_MULTIPLIER = 0x9E3779B9;
+  private static final int HASH_SHIFT = 16;
+
+  private final RingBufferQueue<E>[] stripes;
+  private final int mask;
+  private final int capacity;
+  // the elements of all stripes, counted before they are appended and after they are removed
+  private final AtomicInteger count = new AtomicInteger();
+
+  /**
+   * @param stripeCount number of stripes, rounded up to the next power of two
+   * @param stripeCapacity capacity of every stripe, 2 at least
+   * @param capacity capacity of all stripes together, the stripeCapacity at least
+   */
+  @SuppressWarnings("unchecked")
+  StripedRingBufferQueue(final int stripeCount, final int stripeCapacity, final int capacity) {
+    Preconditions.checkPositiveNumber(stripeCount, "stripeCount");
+    if (capacity < stripeCapacity) {
+      throw new IllegalArgumentException("Expecting a capacity of the stripeCapacity " + stripeCapacity
+          + " at least, got " + capacity);
+    }
+    int powerOfTwo = Integer.highestOneBit(stripeCount);
+    if (powerOfTwo < stripeCount) {
+      powerOfTwo <<= 1;
+    }
+    this.stripes = new RingBufferQueue[powerOfTwo];
+    for (int i = 0; i < powerOfTwo; i++) {
+      this.stripes[i] = new RingBufferQueue<>(stripeCapacity);
+    }
+    this.mask = powerOfTwo - 1;
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return the number of stripes
+   */
+  int stripeCount() {
+    return this.stripes.length;
+  }
+
+  private RingBufferQueue<E> homeStripe() {
+    int hash = (int) Thread.currentThread().getId() * HASH_MULTIPLIER;
+    return this.stripes[(hash ^ (hash >>> HASH_SHIFT)) & this.mask];
+  }
+
+  /**
+   * @return the number of elements in the stripe the calling thread appends to
+   */
+  int homeStripeSize() {
+    return homeStripe().size();
+  }
+
+  /**
+   * @return the capacity of all stripes together
+   */
+  int capacity() {
+    return this.capacity;
+  }
+
+  @Override
+  public boolean offer(final E e) {
+    Objects.requireNonNull(e, "e");
+    int reserved;
+    do {
+      reserved = this.count.get();
+      if (reserved >= this.capacity) {
+        return false;
+      }
+    } while (!this.count.compareAndSet(reserved, reserved + 1));
+    if (!homeStripe().offer(e)) {
+      this.count.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void put(final E e) throws InterruptedException {
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+    }
+  }
+
+  @Override
+  public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+    }
+    return true;
+  }
+
+  @Override
+  public E poll() {
+    for (RingBufferQueue<E> stripe : this.stripes) {
+      E e = stripe.poll();
+      if (e != null) {
+        this.count.decrementAndGet();
+        return e;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    E e = poll();
+    while (e == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+      e = poll();
+    }
+    return e;
+  }
+
+  @Override
+  public E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    E e = poll();
+    while (e == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        return null;
+      }
+      LockSupport.parkNanos(this, PARK_NANOS);
+      e = poll();
+    }
+    return e;
+  }
+
+  @Override
+  public E peek() {
+    for (RingBufferQueue<E> stripe : this.stripes) {
+      E e = stripe.peek();
+      if (e != null) {
+        return e;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The elements of all stripes, including the ones which are being appended.
+   */
+  @Override
+  public int size() {
+    return this.count.get();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (RingBufferQueue<E> stripe : this.stripes) {
+      if (!stripe.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The capacity left in the stripe of the calling thread, or in the whole queue if that is less.
+   */
+  @Override
+  public int remainingCapacity() {
+    return Math.max(0, Math.min(homeStripe().remainingCapacity(), this.capacity - this.count.get()));
+  }
+
+  @Override
+  public int drainTo(final Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Harvests the stripes one after another, the elements of every stripe keep their order.
+   */
+  @Override
+  public int drainTo(final Collection<? super E> c, final int maxElements) {
+    Objects.requireNonNull(c, "c");
+    if (c == this) {
+      throw new IllegalArgumentException("Cannot drain a queue into itself");
+    }
+    int drained = 0;
+    for (RingBufferQueue<E> stripe : this.stripes) {
+      if (drained >= maxElements) {
+        break;
+      }
+      drained += stripe.drainTo(c, maxElements - drained);
+    }
+    if (drained > 0) {
+      this.count.addAndGet(-drained);
+    }
+    return drained;
+  }
+
+  /**
+   * Returns a weakly consistent snapshot of the elements of all stripes, removal through the
+   * iterator is not supported.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    List<E> snapshot = new ArrayList<>();
+    for (RingBufferQueue<E> stripe : this.stripes) {
+      for (E e : stripe) {
+        snapshot.add(e);
+      }
+    }
+    return Collections.unmodifiableList(snapshot).iterator();
+  }
+}
@@ -1,8 +1,6 @@
 package org.influxdb.impl;
 
-import java.text.SimpleDateFormat;
 import java.util.EnumSet;
-import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -13,23 +11,7 @@ import java.util.concurrent.TimeUnit;
 public enum TimeUtil {
   INSTANCE;
 
-    private static final ThreadLocal<SimpleDateFormat> FORMATTER_MILLIS = new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat dateDF = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            dateDF.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return dateDF;
-        }
-    };
-
-    private static final ThreadLocal<SimpleDateFormat> FORMATTER_SECONDS = new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat dateDF = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-            dateDF.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return dateDF;
-        }
-    };
+  private static final int MILLIS_FRACTION_DIGITS = 3;
 
   private static final EnumSet<TimeUnit> ALLOWED_TIMEUNITS = EnumSet.of(
       TimeUnit.HOURS,
@@ -77,22 +59,22 @@ public enum TimeUtil {
      * @return influxdb compatible date-tome string
      */
     public static String toInfluxDBTimeFormat(final long time) {
-        return FORMATTER_MILLIS.get().format(time);
+        long seconds = Math.floorDiv(time, TimeUnit.SECONDS.toMillis(1));
+        int nanos = (int) TimeUnit.MILLISECONDS.toNanos(Math.floorMod(time, TimeUnit.SECONDS.toMillis(1)));
+        return Rfc3339.append(new StringBuilder(), seconds, nanos, MILLIS_FRACTION_DIGITS).toString();
     }
 
     /**
      * convert an influxdb timestamp used by influxdb to unix epoch time.
-     * influxdb time format example: 2016-10-31T06:52:20.020Z or 2016-10-31T06:52:20Z
+     * influxdb time format example: 2016-10-31T06:52:20.020Z or 2016-10-31T06:52:20Z, with 0 to 9 fractional
+     * digits and Z or an offset like +01:00
      *
      * @param time timestamp to use, in influxdb datetime format
      * @return time in unix epoch time
      */
     public static long fromInfluxDBTimeFormat(final String time) {
         try {
-            if (time.length() == TIME_IN_SECOND_LENGTH) {
-                return FORMATTER_SECONDS.get().parse(time).getTime();
-            }
-            return FORMATTER_MILLIS.get().parse(time).getTime();
+            return Rfc3339.parseEpochMillis(time);
         } catch (Exception e) {
             throw new RuntimeException("unexpected date format", e);
         }
@@ -6,10 +6,12 @@ import org.influxdb.InfluxDB.ResponseFormat;
 import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.BoundParameterQuery.QueryBuilder;
 import org.influxdb.dto.Point;
+import org.influxdb.dto.PointTemplate;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.influxdb.dto.QueryResult.Series;
+import org.influxdb.dto.SeriesWriter;
 import org.influxdb.impl.InfluxDBImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -565,6 +567,31 @@ public class InfluxDBTest {
         this.influxDB.query(new Query("DROP DATABASE " + dbName));
     }
 
+    /**
+     * Test writing rows of a series template.
+     */
+    @Test
+    public void testWriteSeriesRows() {
+        String dbName = "write_unittest_" + System.currentTimeMillis();
+        this.influxDB.query(new Query("CREATE DATABASE " + dbName));
+        String rp = TestUtils.defaultRetentionPolicy(this.influxDB.version());
+
+        SeriesWriter writer = new SeriesWriter(TimeUnit.MILLISECONDS);
+        for (int i = 1; i <= 3; i++) {
+            PointTemplate cpu = PointTemplate.measurement("cpu").tag("atag", "test" + i)
+                .fields("idle", "usertime").build();
+            writer.row(cpu, System.currentTimeMillis(), TimeUnit.MILLISECONDS).field(i * 100.0).field(i * 10L).end();
+        }
+        this.influxDB.write(dbName, rp, InfluxDB.ConsistencyLevel.ONE, writer);
+        Assertions.assertTrue(writer.isEmpty());
+
+        Query query = new Query("SELECT * FROM cpu GROUP BY *", dbName);
+        QueryResult result = this.influxDB.query(query);
+        Assertions.assertEquals(3, result.getResults().get(0).getSeries().size());
+        Assertions.assertEquals("test2", result.getResults().get(0).getSeries().get(1).getTags().get("atag"));
+        this.influxDB.query(new Query("DROP DATABASE " + dbName));
+    }
+
 	/**
 	 * Test writing multiple records to the database using string protocol with simpler interface.
 	 */
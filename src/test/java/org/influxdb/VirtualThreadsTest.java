@@ -0,0 +1,63 @@
+package org.influxdb;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okhttp3.Dispatcher;
+
+@RunWith(JUnitPlatform.class)
+public class VirtualThreadsTest {
+
+  private static boolean isVirtual(final Thread thread) throws Exception {
+    if (!VirtualThreads.isSupported()) {
+      return false;
+    }
+    return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+  }
+
+  @Test
+  public void testSupportedFromJdk21() {
+    String version = System.getProperty("java.specification.version");
+    boolean jdk21 = !version.startsWith("1.") && Integer.parseInt(version) >= 21;
+    Assertions.assertEquals(jdk21, VirtualThreads.isSupported());
+  }
+
+  @Test
+  public void testThreadFactory() throws Exception {
+    ThreadFactory threadFactory = VirtualThreads.threadFactory("test-");
+    Thread thread = threadFactory.newThread(() -> { });
+    Assertions.assertEquals(VirtualThreads.isSupported(), isVirtual(thread));
+    if (VirtualThreads.isSupported()) {
+      Assertions.assertEquals("test-0", thread.getName());
+    }
+  }
+
+  @Test
+  public void testThreadPerTaskExecutor() throws Exception {
+    ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+    try {
+      Future<Boolean> virtual = executor.submit(() -> isVirtual(Thread.currentThread()));
+      Assertions.assertEquals(VirtualThreads.isSupported(), virtual.get(1, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testDispatcher() {
+    Dispatcher dispatcher = VirtualThreads.dispatcher(500);
+    try {
+      Assertions.assertEquals(500, dispatcher.getMaxRequests());
+      Assertions.assertEquals(500, dispatcher.getMaxRequestsPerHost());
+    } finally {
+      dispatcher.executorService().shutdown();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package org.influxdb;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class WriteRateLimiterTest {
+
+  @Test
+  public void testWritesWithinTheBurstDoNotWait() throws InterruptedException {
+    WriteRateLimiter limiter = WriteRateLimiter.builder().pointsPerSecond(1000).build();
+    long start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire("db", 100, 0);
+    }
+    Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void testWriteBeyondTheBurstWaitsForTheRefill() throws InterruptedException {
+    WriteRateLimiter limiter = WriteRateLimiter.builder().pointsPerSecond(1000)
+        .burst(100, TimeUnit.MILLISECONDS).build();
+    limiter.acquire("db", 100, 0);
+    long start = System.nanoTime();
+    limiter.acquire("db", 200, 0);
+    Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+  }
+
+  @Test
+  public void testTryAcquireTimesOutWithoutTakingTheBudget() throws InterruptedException {
+    WriteRateLimiter limiter = WriteRateLimiter.builder().bytesPerSecond(1000)
+        .burst(100, TimeUnit.MILLISECONDS).build();
+    Assertions.assertTrue(limiter.isBytesLimited());
+    Assertions.assertTrue(limiter.tryAcquire("db", 1, 100, 0, TimeUnit.MILLISECONDS));
+    Assertions.assertFalse(limiter.tryAcquire("db", 1, 500, 10, TimeUnit.MILLISECONDS));
+    // the refused write did not run the budget into debt
+    Assertions.assertTrue(limiter.tryAcquire("db", 1, 10, 50, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testPerDatabaseBudgets() throws InterruptedException {
+    WriteRateLimiter shared = WriteRateLimiter.builder().pointsPerSecond(10).build();
+    Assertions.assertTrue(shared.tryAcquire("db1", 10, 0, 0, TimeUnit.MILLISECONDS));
+    Assertions.assertFalse(shared.tryAcquire("db2", 10, 0, 0, TimeUnit.MILLISECONDS));
+
+    WriteRateLimiter perDatabase = WriteRateLimiter.builder().pointsPerSecond(10).perDatabase().build();
+    Assertions.assertTrue(perDatabase.isPerDatabase());
+    Assertions.assertTrue(perDatabase.tryAcquire("db1", 10, 0, 0, TimeUnit.MILLISECONDS));
+    Assertions.assertTrue(perDatabase.tryAcquire("db2", 10, 0, 0, TimeUnit.MILLISECONDS));
+    Assertions.assertFalse(perDatabase.tryAcquire("db1", 10, 0, 0, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testAcquireAsyncCompletesWhenTheBudgetIsRefilled() throws Exception {
+    WriteRateLimiter limiter = WriteRateLimiter.builder().pointsPerSecond(1000)
+        .burst(50, TimeUnit.MILLISECONDS).build();
+    Assertions.assertTrue(limiter.acquireAsync("db", 50, 0).isDone());
+
+    long start = System.nanoTime();
+    CompletableFuture<Void> acquired = limiter.acquireAsync("db", 100, 0);
+    Assertions.assertFalse(acquired.isDone());
+    acquired.get(1, TimeUnit.SECONDS);
+    Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(80));
+  }
+
+  @Test
+  public void testInvalidLimits() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> WriteRateLimiter.builder().build());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> WriteRateLimiter.builder().pointsPerSecond(-1).bytesPerSecond(10).build());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> WriteRateLimiter.builder().pointsPerSecond(10).burst(0, TimeUnit.SECONDS).build());
+  }
+}
@@ -0,0 +1,229 @@
+package org.influxdb.annotation.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.influxdb.dto.MeasurementCodec;
+import org.influxdb.dto.Point;
+import org.influxdb.dto.PointWriter;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.impl.InfluxDBResultMapper;
+import org.influxdb.impl.MeasurementCodecs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class MeasurementCodecProcessorTest {
+
+  private static final String CPU = "package codec.test;\n"
+      + "import java.time.Instant;\n"
+      + "import java.util.concurrent.TimeUnit;\n"
+      + "import org.influxdb.annotation.*;\n"
+      + "public class Outer {\n"
+      + "  public enum State { RUNNING, IDLE }\n"
+      + "  static class Base {\n"
+      + "    @Column(name = \"region\", tag = true) String region;\n"
+      + "  }\n"
+      + "  @Measurement(name = \"cpu\")\n"
+      + "  public static class Cpu extends Base {\n"
+      + "    @TimeColumn(timeUnit = TimeUnit.NANOSECONDS) @Column(name = \"time\") public Instant time;\n"
+      + "    @Column(name = \"host\", tag = true) public String host;\n"
+      + "    @Column(name = \"idle\") public double idle;\n"
+      + "    @Column(name = \"count\") public Long count;\n"
+      + "    @Column(name = \"cores\") public int cores;\n"
+      + "    @Column(name = \"healthy\") public Boolean healthy;\n"
+      + "    @Column(name = \"state\") public State state;\n"
+      + "    @Column(name = \"note\") public String note;\n"
+      + "  }\n"
+      + "  @Measurement(name = \"hidden\")\n"
+      + "  public static class Hidden {\n"
+      + "    @Column(name = \"value\") private long value;\n"
+      + "  }\n"
+      + "}\n";
+
+  private static final String BEAN = "package codec.bean;\n"
+      + "import java.time.Instant;\n"
+      + "import org.influxdb.annotation.*;\n"
+      + "public class Beans {\n"
+      + "  public static class Base {\n"
+      + "    @Column(name = \"region\", tag = true) private String region;\n"
+      + "    public String getRegion() { return region; }\n"
+      + "    public void setRegion(String region) { this.region = region; }\n"
+      + "  }\n"
+      + "  @Measurement(name = \"cpu\")\n"
+      + "  public static class Cpu extends Base {\n"
+      + "    @TimeColumn @Column(name = \"time\") private Instant time;\n"
+      + "    @Column(name = \"idle\") private double idle;\n"
+      + "    @Column(name = \"healthy\") private boolean healthy;\n"
+      + "    public Instant getTime() { return time; }\n"
+      + "    public void setTime(Instant time) { this.time = time; }\n"
+      + "    public double getIdle() { return idle; }\n"
+      + "    public void setIdle(double idle) { this.idle = idle; }\n"
+      + "    public boolean isHealthy() { return healthy; }\n"
+      + "    public void setHealthy(boolean healthy) { this.healthy = healthy; }\n"
+      + "  }\n"
+      + "  @Measurement(name = \"readOnly\")\n"
+      + "  public static class ReadOnly {\n"
+      + "    @Column(name = \"value\") private long value;\n"
+      + "    public long getValue() { return value; }\n"
+      + "  }\n"
+      + "}\n";
+
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("codec");
+  }
+
+  @AfterEach
+  public void cleanUp() throws IOException {
+    Files.walk(directory).sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+  }
+
+  private ClassLoader compile(final String name, final String source, final StringWriter output) throws IOException {
+    Path file = directory.resolve(name);
+    Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(directory.toFile()));
+      fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(directory.toFile()));
+      Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(file.toFile());
+      List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+      JavaCompiler.CompilationTask task = compiler.getTask(output, fileManager, null, options, null, units);
+      task.setProcessors(Collections.singletonList(new MeasurementCodecProcessor()));
+      Assertions.assertTrue(task.call(), output.toString());
+    }
+    return new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader());
+  }
+
+  private static void set(final Object pojo, final String field, final Object value) throws ReflectiveOperationException {
+    Field declared;
+    try {
+      declared = pojo.getClass().getDeclaredField(field);
+    } catch (NoSuchFieldException e) {
+      declared = pojo.getClass().getSuperclass().getDeclaredField(field);
+    }
+    declared.setAccessible(true);
+    declared.set(pojo, value);
+  }
+
+  private static Object get(final Object pojo, final String field) throws ReflectiveOperationException {
+    Field declared = pojo.getClass().getDeclaredField(field);
+    declared.setAccessible(true);
+    return declared.get(pojo);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGeneratedCodecWritesPoints() throws Exception {
+    ClassLoader loader = compile("Outer.java", CPU, new StringWriter());
+    Class<Object> cpuClass = (Class<Object>) loader.loadClass("codec.test.Outer$Cpu");
+
+    MeasurementCodec<Object> codec = MeasurementCodecs.find(cpuClass);
+    Assertions.assertNotNull(codec);
+    Assertions.assertEquals("codec.test.Outer$CpuMeasurementCodec", codec.getClass().getName());
+    Assertions.assertEquals("cpu", codec.getMeasurement());
+
+    Object cpu = codec.newInstance();
+    set(cpu, "time", Instant.ofEpochSecond(1500000000L, 123456789));
+    set(cpu, "host", "a");
+    set(cpu, "region", "eu");
+    set(cpu, "idle", 0.5);
+    set(cpu, "cores", 8);
+    set(cpu, "state", cpuClass.getClassLoader().loadClass("codec.test.Outer$State").getEnumConstants()[1]);
+
+    Point point = PointWriter.of(cpuClass).toPoint(cpu);
+    Assertions.assertEquals("cpu,host=a,region=eu cores=8i,idle=0.5,state=\"IDLE\" 1500000000123456789",
+        point.lineProtocol());
+    Assertions.assertEquals(point, Point.measurementByPOJO(cpuClass).addFieldsFromPOJO(cpu).build());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGeneratedCodecMapsRows() throws Exception {
+    ClassLoader loader = compile("Outer.java", CPU.replace("codec.test", "codec.rows"), new StringWriter());
+    Class<Object> cpuClass = (Class<Object>) loader.loadClass("codec.rows.Outer$Cpu");
+
+    QueryResult.Series series = new QueryResult.Series();
+    series.setName("cpu");
+    series.setTags(Collections.singletonMap("host", "b"));
+    series.setColumns(Arrays.asList("time", "idle", "count", "healthy", "state", "note", "unknown"));
+    series.setValues(Collections.singletonList(
+        Arrays.asList("2017-06-20T15:32:46.202829088Z", 2L, 3.0, "true", "RUNNING", null, "x")));
+    QueryResult.Result result = new QueryResult.Result();
+    result.setSeries(Collections.singletonList(series));
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(Collections.singletonList(result));
+
+    List<Object> cpus = new InfluxDBResultMapper().toPOJO(queryResult, cpuClass, TimeUnit.MILLISECONDS);
+
+    Assertions.assertEquals(1, cpus.size());
+    Object cpu = cpus.get(0);
+    Assertions.assertEquals(Instant.parse("2017-06-20T15:32:46.202829088Z"), get(cpu, "time"));
+    Assertions.assertEquals("b", get(cpu, "host"));
+    Assertions.assertEquals(2.0, get(cpu, "idle"));
+    Assertions.assertEquals(3L, get(cpu, "count"));
+    Assertions.assertEquals(Boolean.TRUE, get(cpu, "healthy"));
+    Assertions.assertEquals("RUNNING", String.valueOf(get(cpu, "state")));
+    Assertions.assertNull(get(cpu, "note"));
+  }
+
+  @Test
+  public void testClassesWhichCannotBeGeneratedAreMappedByReflection() throws Exception {
+    StringWriter output = new StringWriter();
+    ClassLoader loader = compile("Outer.java", CPU.replace("codec.test", "codec.hidden"), output);
+    Class<?> hiddenClass = loader.loadClass("codec.hidden.Outer$Hidden");
+
+    Assertions.assertNull(MeasurementCodecs.find(hiddenClass));
+    Assertions.assertTrue(output.toString().contains("codec.hidden.Outer.Hidden is mapped by reflection"),
+        output.toString());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPrivateFieldsAreAccessedThroughGetterAndSetter() throws Exception {
+    StringWriter output = new StringWriter();
+    ClassLoader loader = compile("Beans.java", BEAN, output);
+    Class<Object> cpuClass = (Class<Object>) loader.loadClass("codec.bean.Beans$Cpu");
+
+    MeasurementCodec<Object> codec = MeasurementCodecs.find(cpuClass);
+    Assertions.assertNotNull(codec);
+    Object cpu = codec.newInstance();
+    codec.set(cpu, codec.getColumnNames().indexOf("time"), Instant.ofEpochMilli(1500000000123L));
+    codec.set(cpu, codec.getColumnNames().indexOf("region"), "eu");
+    codec.set(cpu, codec.getColumnNames().indexOf("idle"), 0.5);
+    codec.set(cpu, codec.getColumnNames().indexOf("healthy"), Boolean.TRUE);
+    Assertions.assertEquals(0.5, get(cpu, "idle"));
+    Assertions.assertEquals(Boolean.TRUE, get(cpu, "healthy"));
+
+    Point point = PointWriter.of(cpuClass).toPoint(cpu);
+    Assertions.assertEquals("cpu,region=eu healthy=true,idle=0.5 1500000000123000000", point.lineProtocol());
+    Assertions.assertEquals(point, Point.measurementByPOJO(cpuClass).addFieldsFromPOJO(cpu).build());
+
+    Assertions.assertNull(MeasurementCodecs.find(loader.loadClass("codec.bean.Beans$ReadOnly")));
+    Assertions.assertTrue(output.toString().contains("has no accessible getter and setter"), output.toString());
+  }
+}
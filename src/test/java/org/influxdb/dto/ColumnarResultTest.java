@@ -0,0 +1,143 @@
+package org.influxdb.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+@RunWith(JUnitPlatform.class)
+public class ColumnarResultTest {
+
+  private static final String CHUNKS =
+      "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+      + "\"columns\":[\"time\",\"value\",\"region\",\"ok\",\"empty\",\"mixed\"],"
+      + "\"values\":[[1700000000000000001,1,\"eu\",true,null,1],[1700000000000000002,2.5,\"us\",null,null,\"x\"]],"
+      + "\"partial\":true}],\"partial\":true}]}\n"
+      + "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+      + "\"columns\":[\"time\",\"value\",\"region\",\"ok\",\"empty\",\"mixed\"],"
+      + "\"values\":[[1700000000000000003,3,\"eu\",false,null,true]],\"partial\":true},"
+      + "{\"name\":\"cpu\",\"tags\":{\"host\":\"b\"},\"columns\":[\"time\",\"value\"],\"values\":[[4,4]]}]}]}\n";
+
+  private InfluxDB influxDB;
+
+  @AfterEach
+  public void cleanUp() {
+    influxDB.close();
+  }
+
+  private ColumnarResult query(final String body) {
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain ->
+        new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(200).message("")
+            .body(ResponseBody.create(MediaType.parse("application/json"), body)).build());
+    influxDB = InfluxDBFactory.connect("http://localhost:8086", client);
+    return influxDB.queryColumnar(new Query("SELECT * FROM cpu", "db"), 2);
+  }
+
+  @Test
+  public void testChunksOfASeriesAreMerged() {
+    ColumnarResult result = query(CHUNKS);
+    Assertions.assertEquals(2, result.getSeries().size());
+
+    ColumnarResult.Series a = result.getSeries().get(0);
+    Assertions.assertEquals("cpu", a.getName());
+    Assertions.assertEquals(Collections.singletonMap("host", "a"), a.getTags());
+    Assertions.assertEquals(3, a.getRowCount());
+    Assertions.assertArrayEquals(new long[] {1700000000000000001L, 1700000000000000002L, 1700000000000000003L},
+        a.getColumn("time").getLongs());
+
+    ColumnarResult.Series b = result.getSeries().get(1);
+    Assertions.assertEquals(Collections.singletonMap("host", "b"), b.getTags());
+    Assertions.assertEquals(1, b.getRowCount());
+    Assertions.assertEquals(4L, b.getColumn(0).getLong(0));
+    Assertions.assertNull(b.getColumn("region"));
+  }
+
+  @Test
+  public void testColumnTypes() {
+    ColumnarResult.Series series = query(CHUNKS).getSeries().get(0);
+
+    // integers and floats
+    ColumnarResult.Column value = series.getColumn("value");
+    Assertions.assertEquals(ColumnarResult.Column.Type.DOUBLE, value.getType());
+    Assertions.assertArrayEquals(new double[] {1, 2.5, 3}, value.getDoubles());
+    Assertions.assertEquals(2, value.getLong(1));
+
+    ColumnarResult.Column region = series.getColumn("region");
+    Assertions.assertEquals(ColumnarResult.Column.Type.STRING, region.getType());
+    Assertions.assertEquals(Arrays.asList("eu", "us"), region.getDictionary());
+    Assertions.assertArrayEquals(new int[] {0, 1, 0}, region.getCodes());
+    Assertions.assertEquals("us", region.getString(1));
+
+    ColumnarResult.Column ok = series.getColumn("ok");
+    Assertions.assertEquals(ColumnarResult.Column.Type.BOOLEAN, ok.getType());
+    Assertions.assertTrue(ok.getBooleans()[0]);
+    Assertions.assertTrue(ok.isNull(1));
+    Assertions.assertFalse(ok.isNull(2));
+    Assertions.assertNull(ok.getValue(1));
+
+    ColumnarResult.Column empty = series.getColumn("empty");
+    Assertions.assertEquals(ColumnarResult.Column.Type.NULL, empty.getType());
+    Assertions.assertEquals(3, empty.size());
+    Assertions.assertTrue(empty.isNull(2));
+
+    ColumnarResult.Column mixed = series.getColumn("mixed");
+    Assertions.assertEquals(ColumnarResult.Column.Type.STRING, mixed.getType());
+    Assertions.assertEquals(Arrays.asList("1", "x", "true"), Arrays.asList(mixed.getString(0), mixed.getString(1),
+        mixed.getString(2)));
+    Assertions.assertThrows(IllegalStateException.class, mixed::getLongs);
+  }
+
+  @Test
+  public void testNullBitmapOfManyRows() {
+    StringBuilder body = new StringBuilder("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"m\","
+        + "\"columns\":[\"time\",\"v\"],\"values\":[");
+    int rows = 130;
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+      body.append('[').append(i).append(',');
+      if (i % 64 == 0 || i == rows - 1) {
+        body.append("null");
+      } else {
+        body.append(i);
+      }
+      body.append(']');
+    }
+    body.append("]}]}]}\n");
+
+    ColumnarResult.Column v = query(body.toString()).getSeries().get(0).getColumn("v");
+    Assertions.assertEquals(rows, v.size());
+    Assertions.assertEquals(rows, v.getLongs().length);
+    for (int i = 0; i < rows; i++) {
+      boolean expectedNull = i % 64 == 0 || i == rows - 1;
+      Assertions.assertEquals(expectedNull, v.isNull(i), "row " + i);
+      if (!expectedNull) {
+        Assertions.assertEquals(i, v.getLong(i));
+      }
+    }
+  }
+
+  @Test
+  public void testToQueryResult() {
+    QueryResult queryResult = query(CHUNKS).toQueryResult();
+    Assertions.assertEquals(1, queryResult.getResults().size());
+    List<QueryResult.Series> series = queryResult.getResults().get(0).getSeries();
+    Assertions.assertEquals(2, series.size());
+    Assertions.assertEquals(Arrays.asList(1700000000000000002L, 2.5, "us", null, null, "x"),
+        series.get(0).getValues().get(1));
+  }
+}
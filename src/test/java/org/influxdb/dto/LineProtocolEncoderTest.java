@@ -0,0 +1,142 @@
+package org.influxdb.dto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class LineProtocolEncoderTest {
+
+  private static void assertEncodedLikeLineProtocol(final Point point, final TimeUnit precision) {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(16);
+    encoder.encode(point, precision);
+    byte[] expected = point.lineProtocol(precision).getBytes(StandardCharsets.UTF_8);
+    Assertions.assertEquals(new String(expected, StandardCharsets.UTF_8),
+        new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+    Assertions.assertArrayEquals(expected, encoder.toByteArray());
+  }
+
+  private static Point doublePoint(final double value) {
+    return Point.measurement("m").addField("v", value).build();
+  }
+
+  @Test
+  public void testDoublesAreFormattedLikeLineProtocol() {
+    double[] values = {0.0, -0.0, 1.0, -1.0, 0.5, 90.5, 0.1, 0.2, 0.1 + 0.2, 1.0 / 3, 2.0 / 3, 100.0, 1e15, 1e16, 1e17,
+        1e20, 1e22, 1e23, 1e-5, 1e-7, 1.5e-10, 123456789.125, -3.75, 4.35, 0.07, 2.675, 1.005,
+        Double.MIN_VALUE, Double.MAX_VALUE, Double.MIN_NORMAL, Long.MAX_VALUE, (double) (1L << 53) - 1,
+        Math.PI, Math.E, 299792.458};
+    for (double value : values) {
+      assertEncodedLikeLineProtocol(doublePoint(value), null);
+      assertEncodedLikeLineProtocol(doublePoint(-value), null);
+    }
+
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      // sensor like values with few decimals and completely random doubles
+      assertEncodedLikeLineProtocol(doublePoint(random.nextInt(1_000_000) / 100.0), null);
+      assertEncodedLikeLineProtocol(doublePoint(random.nextGaussian() * 1000), null);
+      assertEncodedLikeLineProtocol(doublePoint(Double.longBitsToDouble(random.nextLong())), null);
+    }
+  }
+
+  @Test
+  public void testFieldTypesAreFormattedLikeLineProtocol() {
+    Point point = Point.measurement("m")
+        .addField("float", 1.1f)
+        .addField("int", Integer.MIN_VALUE)
+        .addField("long", Long.MIN_VALUE)
+        .addField("maxLong", Long.MAX_VALUE)
+        .addField("short", (short) -12)
+        .addField("bigDecimal", new BigDecimal("1.50"))
+        .addField("bigInteger", new BigInteger("123456789012345678901234567890"))
+        .addField("atomic", new AtomicLong(7))
+        .addField("true", true)
+        .addField("false", false)
+        .addField("string", "a \"quoted\" \\ value, with = and spaces")
+        .addField("nan", Double.NaN)
+        .addField("infinity", Float.POSITIVE_INFINITY)
+        .build();
+    assertEncodedLikeLineProtocol(point, null);
+  }
+
+  @Test
+  public void testKeysAreEscapedAndEncodedLikeLineProtocol() {
+    Point point = Point.measurement("cpu load,1")
+        .tag("host name", "server=01,eu")
+        .tag("city", "Zürich")
+        .tag("icon", "😀")
+        .addField("unit", "°C 日本語")
+        .addField("broken", "a\uD83Db")
+        .addField("field key=1", 1L)
+        .build();
+    assertEncodedLikeLineProtocol(point, null);
+  }
+
+  @Test
+  public void testTimeIsFormattedLikeLineProtocol() {
+    Point.Builder builder = Point.measurement("m").addField("v", 1L);
+    for (TimeUnit precision : new TimeUnit[] {null, TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS, TimeUnit.HOURS}) {
+      assertEncodedLikeLineProtocol(builder.time(1_500_000_000_123L, TimeUnit.MILLISECONDS).build(), precision);
+      assertEncodedLikeLineProtocol(builder.time(-5, TimeUnit.SECONDS).build(), precision);
+      assertEncodedLikeLineProtocol(builder.time(new BigInteger("1500000000123456789"), TimeUnit.NANOSECONDS)
+          .build(), precision);
+      assertEncodedLikeLineProtocol(builder.time(new BigDecimal("1500000000.123456789"), TimeUnit.SECONDS)
+          .build(), precision);
+    }
+  }
+
+  @Test
+  public void testPointWithoutFieldsToWriteAppendsNothing() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder();
+    encoder.encode(doublePoint(1.0), null);
+    encoder.newLine();
+    int size = encoder.size();
+
+    Point empty = Point.measurement("m").tag("t", "v").addField("v", Double.NaN).build();
+    Assertions.assertEquals(0, encoder.encode(empty, null));
+    Assertions.assertEquals(size, encoder.size());
+  }
+
+  @Test
+  public void testEncoderIsReusable() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(1);
+    BatchPoints.Builder batch = BatchPoints.database("db");
+    for (int i = 0; i < 1000; i++) {
+      Point point = Point.measurement("cpu").tag("host", "server" + i).addField("idle", i / 10.0)
+          .time(i, TimeUnit.SECONDS).build();
+      batch.point(point);
+      encoder.encode(point, null);
+      encoder.newLine();
+    }
+    Assertions.assertEquals(batch.build().lineProtocol(), new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+
+    encoder.reset();
+    Assertions.assertEquals(0, encoder.size());
+    Point point = doublePoint(2.5);
+    encoder.encode(point, null);
+    Assertions.assertEquals(point.lineProtocol(), new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testEncodedSizeDoesNotKeepTheBytes() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(1);
+    encoder.encode(doublePoint(1.0), null);
+    byte[] encoded = encoder.toByteArray();
+
+    Point point = Point.measurement("cpu").tag("host", "sérver 1").addField("unit", "°C")
+        .time(1, TimeUnit.SECONDS).build();
+    int expected = point.lineProtocol(TimeUnit.MILLISECONDS).getBytes(StandardCharsets.UTF_8).length + 1;
+    Assertions.assertEquals(expected, encoder.encodedSize(point, TimeUnit.MILLISECONDS));
+    Assertions.assertEquals(0, encoder.encodedSize(doublePoint(Double.NaN), null));
+    Assertions.assertArrayEquals(encoded, encoder.toByteArray());
+  }
+}
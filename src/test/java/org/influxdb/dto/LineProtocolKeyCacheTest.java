@@ -0,0 +1,130 @@
+package org.influxdb.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class LineProtocolKeyCacheTest {
+
+  @Test
+  public void testCapacityIsRoundedUpToPowerOfTwo() {
+    Assertions.assertEquals(1, new LineProtocolKeyCache(1).capacity());
+    Assertions.assertEquals(4, new LineProtocolKeyCache(3).capacity());
+    Assertions.assertEquals(LineProtocolKeyCache.DEFAULT_CAPACITY, new LineProtocolKeyCache().capacity());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new LineProtocolKeyCache(0));
+  }
+
+  @Test
+  public void testHitsAndMissesAreCounted() {
+    LineProtocolKeyCache cache = new LineProtocolKeyCache(16);
+    Assertions.assertEquals(1.0, cache.hitRate());
+
+    Assertions.assertNull(cache.get("cpu"));
+    cache.put("cpu", new byte[] {'c', 'p', 'u'});
+    Assertions.assertArrayEquals(new byte[] {'c', 'p', 'u'}, cache.get("cpu"));
+    // an equal String which is not the same instance
+    Assertions.assertNotNull(cache.get(new String("cpu")));
+
+    Assertions.assertEquals(2, cache.hitCount());
+    Assertions.assertEquals(1, cache.missCount());
+    Assertions.assertEquals(2.0 / 3, cache.hitRate());
+  }
+
+  @Test
+  public void testMissReplacesTheSlot() {
+    LineProtocolKeyCache cache = new LineProtocolKeyCache(1);
+    cache.put("a", new byte[] {'a'});
+    cache.put("b", new byte[] {'b'});
+
+    Assertions.assertNull(cache.get("a"));
+    Assertions.assertNotNull(cache.get("b"));
+    Assertions.assertEquals(1, cache.evictionCount());
+  }
+
+  @Test
+  public void testLongKeysAreNotCached() {
+    LineProtocolKeyCache cache = new LineProtocolKeyCache();
+    StringBuilder key = new StringBuilder();
+    for (int i = 0; i <= LineProtocolKeyCache.MAX_KEY_LENGTH; i++) {
+      key.append('k');
+    }
+    cache.put(key.toString(), new byte[0]);
+    Assertions.assertNull(cache.get(key.toString()));
+  }
+
+  @Test
+  public void testEncoderWithCacheWritesTheSameBytes() {
+    LineProtocolKeyCache cache = new LineProtocolKeyCache(64);
+    LineProtocolEncoder encoder = new LineProtocolEncoder(16, cache);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      Point point = Point.measurement("cpu load").tag("host name", "server=" + (i % 3)).tag("city", "Zürich")
+          .addField("idle,value", i / 4.0).time(i, TimeUnit.SECONDS).build();
+      expected.append(point.lineProtocol()).append('\n');
+      encoder.encode(point, null);
+      encoder.newLine();
+    }
+
+    Assertions.assertEquals(expected.toString(), new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+    // 4 distinct names: measurement, 2 tag keys and 1 field key
+    Assertions.assertTrue(cache.missCount() <= 4, "misses: " + cache.missCount());
+    Assertions.assertTrue(cache.hitRate() > 0.95, "hit rate: " + cache.hitRate());
+  }
+
+  @Test
+  public void testUniqueTagValuesAreNotCachedByDefault() {
+    LineProtocolKeyCache cache = new LineProtocolKeyCache();
+    Assertions.assertFalse(cache.isCachingTagValues());
+    LineProtocolEncoder encoder = new LineProtocolEncoder(8192, cache);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      Point point = Point.measurement("request").tag("request_id", "id " + i).addField("duration", i)
+          .time(i, TimeUnit.MILLISECONDS).build();
+      expected.append(point.lineProtocol(TimeUnit.MILLISECONDS)).append('\n');
+      encoder.encode(point, TimeUnit.MILLISECONDS);
+      encoder.newLine();
+    }
+
+    Assertions.assertEquals(expected.toString(), new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+    // 3 names per point: the measurement, the tag key and the field key, the tag value is not looked up
+    Assertions.assertEquals(30_000, cache.hitCount() + cache.missCount());
+    // nothing is added to the cache for a new tag value, so nothing is allocated or evicted per point
+    Assertions.assertEquals(3, cache.missCount());
+    Assertions.assertEquals(0, cache.evictionCount());
+  }
+
+  @Test
+  public void testStatisticsOfRepeatingNames() {
+    LineProtocolKeyCache cache = new LineProtocolKeyCache(LineProtocolKeyCache.DEFAULT_CAPACITY, true);
+    LineProtocolEncoder encoder = new LineProtocolEncoder(8192, cache);
+    for (int i = 0; i < 10_000; i++) {
+      encoder.encode(Point.measurement("system_cpu_utilization").tag("hostname", "web-server-" + (i % 50))
+          .tag("datacenter", "eu-west-1").tag("environment", "production")
+          .addField("usage_user", i / 100.0).addField("usage_system", i / 200.0)
+          .time(1_500_000_000_000L + i, TimeUnit.MILLISECONDS).build(), TimeUnit.MILLISECONDS);
+      encoder.reset();
+    }
+    // 9 names per point: the measurement, 3 tag keys, 3 tag values and 2 field keys
+    Assertions.assertEquals(90_000, cache.hitCount() + cache.missCount());
+    // 58 distinct names: 1 measurement, 3 tag keys, 52 tag values and 2 field keys, each missed once
+    Assertions.assertEquals(58, cache.missCount());
+    Assertions.assertEquals(89_942, cache.hitCount());
+    Assertions.assertEquals(0, cache.evictionCount());
+
+    // names which share the only slot evict each other on every lookup
+    LineProtocolKeyCache small = new LineProtocolKeyCache(1);
+    LineProtocolEncoder smallEncoder = new LineProtocolEncoder(16, small);
+    for (int i = 0; i < 10; i++) {
+      smallEncoder.encode(Point.measurement("cpu").addField("idle", i).build(), null);
+      smallEncoder.reset();
+    }
+    Assertions.assertEquals(0, small.hitCount());
+    Assertions.assertEquals(20, small.missCount());
+    Assertions.assertEquals(19, small.evictionCount());
+  }
+}
@@ -0,0 +1,180 @@
+package org.influxdb.dto;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares time and allocated bytes per point of the ways to build and serialize points. Disabled like the other
+ * performance tests, run them explicitly.
+ */
+@Disabled
+@RunWith(JUnitPlatform.class)
+public class LineProtocolPerformanceTests {
+
+  private static final int WARM_UP_ROUNDS = 20;
+  private static final int ROUNDS = 50;
+  private static final int POINTS = 10_000;
+
+  private long sink;
+
+  @Test
+  public void testEncoderComparedToLineProtocol() {
+    List<Point> points = new ArrayList<>();
+    Random random = new Random(1);
+    for (int i = 0; i < POINTS; i++) {
+      points.add(Point.measurement("cpu").tag("host", "server" + (i % 100)).tag("region", "eu-west")
+          .addField("idle", random.nextInt(10_000) / 100.0).addField("user", random.nextInt(10_000) / 100.0)
+          .addField("count", (long) i).time(1_500_000_000_000L + i, TimeUnit.MILLISECONDS).build());
+    }
+    LineProtocolEncoder encoder = new LineProtocolEncoder();
+
+    compare("lineProtocol()", () -> {
+      for (Point point : points) {
+        sink += point.lineProtocol(TimeUnit.MILLISECONDS).getBytes(StandardCharsets.UTF_8).length;
+      }
+    }, "LineProtocolEncoder", encodeAll(encoder, points));
+  }
+
+  @Test
+  public void testEncoderWithKeyCacheComparedToEncoderWithoutCache() {
+    List<Point> points = new ArrayList<>();
+    for (int i = 0; i < POINTS; i++) {
+      points.add(Point.measurement("system_cpu_utilization").tag("hostname", "web-server-" + (i % 50))
+          .tag("datacenter", "eu-west-1").tag("environment", "production")
+          .addField("usage_user", i / 100.0).addField("usage_system", i / 200.0)
+          .time(1_500_000_000_000L + i, TimeUnit.MILLISECONDS).build());
+    }
+
+    compare("without key cache", encodeAll(new LineProtocolEncoder(), points),
+        "with key cache", encodeAll(new LineProtocolEncoder(8192, new LineProtocolKeyCache()), points));
+  }
+
+  @Test
+  public void testSeriesWriterComparedToPoints() {
+    PointTemplate[] templates = new PointTemplate[100];
+    for (int i = 0; i < templates.length; i++) {
+      templates[i] = PointTemplate.measurement("cpu").tag("host", "server" + i).tag("region", "eu-west")
+          .fields("idle", "user", "count").build();
+    }
+    SeriesWriter writer = new SeriesWriter(TimeUnit.MILLISECONDS);
+    LineProtocolEncoder encoder = new LineProtocolEncoder();
+
+    compare("Point.Builder", () -> {
+      for (int i = 0; i < POINTS; i++) {
+        Point point = Point.measurement("cpu").tag("host", templates[i % templates.length].getTags().get("host"))
+            .tag("region", "eu-west").addField("idle", i / 100.0).addField("user", i / 200.0)
+            .addField("count", (long) i).time(1_500_000_000_000L + i, TimeUnit.MILLISECONDS).build();
+        encoder.encode(point, TimeUnit.MILLISECONDS);
+        encoder.newLine();
+      }
+      sink += encoder.size();
+      encoder.reset();
+    }, "SeriesWriter", () -> {
+      for (int i = 0; i < POINTS; i++) {
+        writer.row(templates[i % templates.length], 1_500_000_000_000L + i, TimeUnit.MILLISECONDS)
+            .field(i / 100.0).field(i / 200.0).field((long) i).end();
+      }
+      sink += writer.size();
+      writer.reset();
+    });
+  }
+
+  /**
+   * Compares building points with the heap allocated for the former {@code TreeMap<String, Object>} fields alone.
+   */
+  @Test
+  public void testPointsComparedToTreeMapFields() {
+    Point[] points = new Point[POINTS];
+    Object[] maps = new Object[POINTS];
+
+    compare("Point with 3 numeric fields", () -> {
+      for (int i = 0; i < POINTS; i++) {
+        points[i] = Point.measurement("cpu").addField("idle", i / 10.0).addField("user", i / 20.0)
+            .addField("count", (long) i).time(i, TimeUnit.MILLISECONDS).build();
+      }
+      sink += points.length;
+    }, "TreeMap of the fields", () -> {
+      for (int i = 0; i < POINTS; i++) {
+        Map<String, Object> fields = new TreeMap<>();
+        fields.put("idle", i / 10.0);
+        fields.put("user", i / 20.0);
+        fields.put("count", (long) i);
+        maps[i] = fields;
+      }
+      sink += maps.length;
+    });
+  }
+
+  private Runnable encodeAll(final LineProtocolEncoder encoder, final List<Point> points) {
+    return () -> {
+      for (Point point : points) {
+        encoder.encode(point, TimeUnit.MILLISECONDS);
+        encoder.newLine();
+        sink += encoder.size();
+        encoder.reset();
+      }
+    };
+  }
+
+  /**
+   * Warms up and measures both rounds of {@link #POINTS} points and prints the results.
+   */
+  private void compare(final String firstName, final Runnable first, final String secondName,
+                       final Runnable second) {
+    for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+      first.run();
+      second.run();
+    }
+    long[] firstResult = measure(first);
+    long[] secondResult = measure(second);
+    System.out.println("Line protocol of " + ROUNDS * POINTS + " points: "
+        + result(firstName, firstResult) + ", " + result(secondName, secondResult));
+    Assertions.assertTrue(sink > 0);
+  }
+
+  private static String result(final String name, final long[] result) {
+    String allocations = "allocations not measurable";
+    if (result[1] >= 0) {
+      allocations = (result[1] / (ROUNDS * POINTS)) + " bytes allocated per point";
+    }
+    return name + " " + TimeUnit.NANOSECONDS.toMillis(result[0]) + "ms, " + allocations;
+  }
+
+  /**
+   * @return elapsed nanoseconds and allocated bytes of the current thread, -1 if the JVM does not measure them
+   */
+  private static long[] measure(final Runnable runnable) {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    long allocatedBefore = allocatedBytes(threadMXBean);
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      runnable.run();
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocatedAfter = allocatedBytes(threadMXBean);
+    if (allocatedBefore < 0 || allocatedAfter < 0) {
+      return new long[] {elapsed, -1};
+    }
+    return new long[] {elapsed, allocatedAfter - allocatedBefore};
+  }
+
+  private static long allocatedBytes(final ThreadMXBean threadMXBean) {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,100 @@
+package org.influxdb.dto;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class PointFieldsTest {
+
+  @Test
+  public void testFieldsBehaveLikeSortedMap() {
+    PointFields fields = new PointFields();
+    Map<String, Object> expected = new TreeMap<>();
+    String[] names = {"m", "c", "x", "a", "k", "b", "z", "d", "c", "a"};
+    Object[] values = {1.5, 2L, true, 3, 4.5f, (short) 5, "text", new BigDecimal("1.10"), null, -0.0};
+    for (int i = 0; i < names.length; i++) {
+      fields.put(names[i], values[i]);
+      expected.put(names[i], values[i]);
+    }
+
+    Assertions.assertEquals(expected, fields.toMap());
+    Assertions.assertEquals(expected.toString(), fields.toString());
+    Assertions.assertEquals(expected.size(), fields.size());
+    Assertions.assertEquals(PointFields.DOUBLE, fields.type(0));
+    Assertions.assertEquals(PointFields.OBJECT, fields.type(2));
+    Assertions.assertEquals(PointFields.SHORT, fields.type(1));
+  }
+
+  @Test
+  public void testReplacingAValueChangesItsType() {
+    PointFields fields = new PointFields();
+    fields.put("a", "text");
+    fields.putLong("a", 1L);
+    Assertions.assertEquals(PointFields.LONG, fields.type(0));
+    Assertions.assertEquals(1L, fields.get(0));
+
+    fields.putDouble("a", 2.5);
+    Assertions.assertEquals(2.5, fields.doubleValue(0));
+    fields.putBoolean("a", false);
+    Assertions.assertEquals(false, fields.get(0));
+    Assertions.assertEquals(1, fields.size());
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    PointFields fields = PointFields.of(new HashMap<String, Object>() {{
+      put("a", 1L);
+      put("b", "b");
+    }});
+    PointFields copy = fields.copy();
+    Assertions.assertEquals(fields, copy);
+    Assertions.assertEquals(fields.hashCode(), copy.hashCode());
+
+    copy.put("b", "c");
+    copy.putLong("c", 3L);
+    Assertions.assertNotEquals(fields, copy);
+    Assertions.assertEquals("{a=1, b=b}", fields.toString());
+    Assertions.assertEquals("{a=1, b=c, c=3}", copy.toString());
+  }
+
+  @Test
+  public void testEqualsDistinguishesTypes() {
+    PointFields longField = new PointFields();
+    longField.putLong("a", 1L);
+    PointFields intField = new PointFields();
+    intField.putInteger("a", 1);
+    PointFields doubleField = new PointFields();
+    doubleField.putDouble("a", 1.0);
+
+    Assertions.assertNotEquals(longField, intField);
+    Assertions.assertNotEquals(longField, doubleField);
+    Assertions.assertEquals(doubleField, PointFields.of(new TreeMap<String, Object>() {{
+      put("a", 1.0);
+    }}));
+  }
+
+  @Test
+  public void testBuilderChangesAfterBuildDoNotChangeThePoint() {
+    Point.Builder builder = Point.measurement("m").addField("a", 1L);
+    Point point = builder.build();
+    builder.addField("a", 2L).addField("b", 3.0);
+
+    Assertions.assertEquals("m a=1i", point.lineProtocol());
+    Assertions.assertEquals("m a=2i,b=3.0", builder.build().lineProtocol());
+  }
+
+  @Test
+  public void testPointWithNumericFieldsWritesLineProtocol() {
+    Point point = Point.measurement("cpu").addField("idle", 999.9).addField("user", 499.95)
+        .addField("count", 9999L).time(9999, TimeUnit.MILLISECONDS).build();
+    Assertions.assertEquals("cpu count=9999i,idle=999.9,user=499.95 9999000000", point.lineProtocol());
+  }
+}
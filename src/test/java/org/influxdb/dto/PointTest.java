@@ -85,6 +85,19 @@ public class PointTest {
         assertThat(point.lineProtocol()).asString().isEqualTo("inttest\\,1 a=100i 1");
     }
 
+    @Test
+    public void testAppendLineProtocol() {
+        StringBuilder sb = new StringBuilder("prefix\n");
+        Point point = Point.measurement("test").time(1, TimeUnit.SECONDS).addField("a", 1.0).build();
+        point.appendLineProtocol(sb, TimeUnit.MILLISECONDS);
+        assertThat(sb.toString()).isEqualTo("prefix\ntest a=1.0 1000");
+
+        // nothing is appended when there are no fields to write
+        Point empty = Point.measurement("test").tag("t", "v").addField("a", Double.NaN).build();
+        empty.appendLineProtocol(sb, TimeUnit.MILLISECONDS);
+        assertThat(sb.toString()).isEqualTo("prefix\ntest a=1.0 1000");
+    }
+
     /**
      * Test for ticket #44
      */
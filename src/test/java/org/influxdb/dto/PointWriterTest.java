@@ -0,0 +1,162 @@
+package org.influxdb.dto;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.BuilderException;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.annotation.TimeColumn;
+import org.influxdb.impl.InfluxDBMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+@RunWith(JUnitPlatform.class)
+public class PointWriterTest {
+
+  private static Cpu cpu(final String host, final double idle) {
+    Cpu cpu = new Cpu();
+    cpu.time = Instant.ofEpochMilli(1500000000000L);
+    cpu.host = host;
+    cpu.idle = idle;
+    cpu.uptime = 42L;
+    cpu.cores = 8;
+    cpu.healthy = true;
+    cpu.state = State.RUNNING;
+    return cpu;
+  }
+
+  @Test
+  public void testToPoint() {
+    PointWriter<Cpu> writer = PointWriter.of(Cpu.class);
+    Assertions.assertSame(writer, PointWriter.of(Cpu.class));
+    Assertions.assertEquals("cpu", writer.getMeasurement());
+    Assertions.assertEquals("metrics", writer.getDatabase());
+    Assertions.assertEquals("autogen", writer.getRetentionPolicy());
+
+    Point point = writer.toPoint(cpu("a", 0.5));
+    Assertions.assertEquals("cpu,host=a cores=8i,healthy=true,idle=0.5,state=\"RUNNING\",uptime=42i 1500000000000",
+        point.lineProtocol(TimeUnit.MILLISECONDS));
+    Cpu other = cpu("a", 0.5);
+    Assertions.assertEquals(Point.measurementByPOJO(Cpu.class).addFieldsFromPOJO(other).build(),
+        writer.toPoint(other));
+
+    StringBuilder sb = new StringBuilder();
+    writer.appendLineProtocol(cpu("b", 1), sb, TimeUnit.SECONDS);
+    Assertions.assertEquals("cpu,host=b cores=8i,healthy=true,idle=1.0,state=\"RUNNING\",uptime=42i 1500000000",
+        sb.toString());
+  }
+
+  @Test
+  public void testNullValuesAreSkipped() {
+    Cpu cpu = cpu(null, 2);
+    cpu.time = null;
+    cpu.uptime = null;
+    cpu.state = null;
+    Assertions.assertEquals("cpu cores=8i,healthy=true,idle=2.0", PointWriter.of(Cpu.class).toPoint(cpu).lineProtocol());
+  }
+
+  @Test
+  public void testInvalidClasses() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PointWriter.of(String.class));
+    Assertions.assertThrows(BuilderException.class, () -> PointWriter.of(Empty.class).toPoint(new Empty()));
+    Assertions.assertThrows(InfluxDBMapperException.class,
+        () -> PointWriter.of(LongTime.class).toPoint(new LongTime()));
+  }
+
+  @Test
+  public void testSaveAllWritesABatchPerDatabase() {
+    InfluxDB influxDB = mock(InfluxDB.class);
+    when(influxDB.isBatchEnabled()).thenReturn(false);
+    InfluxDBMapper mapper = new InfluxDBMapper(influxDB);
+    Unassigned unassigned = new Unassigned();
+    unassigned.value = 1;
+
+    mapper.saveAll(Arrays.asList(cpu("a", 1), unassigned, cpu("b", 2)));
+
+    ArgumentCaptor<BatchPoints> batch = ArgumentCaptor.forClass(BatchPoints.class);
+    verify(influxDB).write(batch.capture());
+    Assertions.assertEquals("metrics", batch.getValue().getDatabase());
+    Assertions.assertEquals("autogen", batch.getValue().getRetentionPolicy());
+    Assertions.assertEquals(2, batch.getValue().getPoints().size());
+    verify(influxDB).write(Collections.singletonList("unassigned value=1i"));
+    verify(influxDB, never()).write(any(Point.class));
+  }
+
+  @Test
+  public void testSaveAllWithBatching() {
+    InfluxDB influxDB = mock(InfluxDB.class);
+    when(influxDB.isBatchEnabled()).thenReturn(true);
+    List<Cpu> cpus = Arrays.asList(cpu("a", 1), cpu("b", 2));
+
+    new InfluxDBMapper(influxDB).saveAll(cpus);
+
+    verify(influxDB).write("metrics", "autogen", PointWriter.of(Cpu.class).toPoint(cpus.get(0)));
+    verify(influxDB).write("metrics", "autogen", PointWriter.of(Cpu.class).toPoint(cpus.get(1)));
+    verify(influxDB, never()).write(any(BatchPoints.class));
+  }
+
+  enum State {
+    RUNNING
+  }
+
+  @Measurement(name = "cpu", database = "metrics")
+  static class Cpu {
+    @Column(name = "time")
+    @TimeColumn
+    private Instant time;
+
+    @Column(name = "host", tag = true)
+    private String host;
+
+    @Column(name = "idle")
+    private double idle;
+
+    @Column(name = "uptime")
+    private Long uptime;
+
+    @Column(name = "cores")
+    private int cores;
+
+    @Column(name = "healthy")
+    private boolean healthy;
+
+    @Column(name = "state")
+    private State state;
+  }
+
+  @Measurement(name = "unassigned")
+  static class Unassigned {
+    @Column(name = "value")
+    private long value;
+  }
+
+  @Measurement(name = "empty")
+  static class Empty {
+    private long value;
+  }
+
+  @Measurement(name = "longTime")
+  static class LongTime {
+    @Column(name = "value")
+    private long value;
+
+    @Column(name = "time")
+    @TimeColumn
+    private long time;
+  }
+}
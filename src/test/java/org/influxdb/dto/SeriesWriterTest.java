@@ -0,0 +1,138 @@
+package org.influxdb.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class SeriesWriterTest {
+
+  private static String lineProtocol(final SeriesWriter writer) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.writeTo(out);
+    Assertions.assertEquals(writer.size(), out.size());
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testRowsAreWrittenLikePoints() throws IOException {
+    // fields declared in the order Point sorts them
+    PointTemplate template = PointTemplate.measurement("cpu load").tag("region", "eu west").tag("host", "server=01")
+        .fields("count", "idle", "ok", "unit").build();
+    SeriesWriter writer = new SeriesWriter(TimeUnit.MILLISECONDS);
+    writer.row(template, 1_500_000_000_123L, TimeUnit.MILLISECONDS).field(7L).field(90.5).field(true)
+        .field("°C \"quoted\"").end();
+    writer.row(template, 2, TimeUnit.SECONDS).field(Long.MIN_VALUE).field(0.1 + 0.2).field(false).field("").end();
+
+    BatchPoints batchPoints = BatchPoints.database("db").precision(TimeUnit.MILLISECONDS)
+        .point(Point.measurement("cpu load").tag("host", "server=01").tag("region", "eu west")
+            .addField("count", 7L).addField("idle", 90.5).addField("ok", true).addField("unit", "°C \"quoted\"")
+            .time(1_500_000_000_123L, TimeUnit.MILLISECONDS).build())
+        .point(Point.measurement("cpu load").tag("host", "server=01").tag("region", "eu west")
+            .addField("count", Long.MIN_VALUE).addField("idle", 0.1 + 0.2).addField("ok", false)
+            .addField("unit", "").time(2, TimeUnit.SECONDS).build())
+        .build();
+    Assertions.assertEquals(batchPoints.lineProtocol(), lineProtocol(writer));
+    Assertions.assertEquals(2, writer.rowCount());
+  }
+
+  @Test
+  public void testRowsAsPointsKeepTheirLineProtocol() throws IOException {
+    PointTemplate template = PointTemplate.measurement("cpu").tag("host", "a b").fields("idle", "note").build();
+    SeriesWriter writer = new SeriesWriter(TimeUnit.MILLISECONDS);
+    // more rows than the initial row arrays hold
+    for (int i = 0; i < 100; i++) {
+      writer.row(template, 1_500_000_000_000L + i, TimeUnit.MILLISECONDS).field(i / 4.0).field("n=" + i).end();
+    }
+    writer.row(template).field(1.5).skipField().end();
+    writer.row(template).skipField().skipField().end();
+
+    List<Point> points = writer.toPoints();
+    Assertions.assertEquals(101, points.size());
+    String[] lines = lineProtocol(writer).split("\n");
+    LineProtocolEncoder encoder = new LineProtocolEncoder(16);
+    for (int i = 0; i < points.size(); i++) {
+      Point point = points.get(i);
+      Assertions.assertEquals(lines[i], point.lineProtocol(TimeUnit.MILLISECONDS));
+      encoder.encode(point, TimeUnit.MILLISECONDS);
+      Assertions.assertEquals(lines[i], new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+      encoder.reset();
+      Assertions.assertEquals("cpu", point.getMeasurement());
+      Assertions.assertEquals(template.getTags(), point.getTags());
+    }
+    // the timestamp follows the precision of the batch
+    Assertions.assertEquals("cpu,host=a\\ b idle=0.0,note=\"n=0\" 1500000000",
+        points.get(0).lineProtocol(TimeUnit.SECONDS));
+    Assertions.assertEquals("cpu,host=a\\ b idle=1.5", points.get(100).lineProtocol(TimeUnit.SECONDS));
+    Assertions.assertEquals(points, writer.toPoints());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> BatchPoints.database("db").tag("region", "eu").build().point(points.get(0)));
+
+    writer.reset();
+    Assertions.assertTrue(writer.toPoints().isEmpty());
+  }
+
+  @Test
+  public void testFieldsAreWrittenInDeclaredOrder() throws IOException {
+    PointTemplate template = PointTemplate.measurement("m").fields("z", "a").build();
+    SeriesWriter writer = new SeriesWriter(TimeUnit.SECONDS);
+    writer.row(template, 1500, TimeUnit.MILLISECONDS).field(1L).field(2L).end();
+
+    Assertions.assertEquals("m z=1i,a=2i 1\n", lineProtocol(writer));
+  }
+
+  @Test
+  public void testMissingAndNonFiniteFieldsAreSkipped() throws IOException {
+    PointTemplate template = PointTemplate.measurement("m").fields("a", "b", "c").build();
+    SeriesWriter writer = new SeriesWriter();
+    writer.row(template).field(Double.NaN).field(1L).end();
+    writer.row(template).skipField().skipField().field((String) null).end();
+    writer.row(template).field(1.0).skipField().field(Double.POSITIVE_INFINITY).end();
+
+    Assertions.assertEquals("m b=1i\nm a=1.0\n", lineProtocol(writer));
+    Assertions.assertEquals(2, writer.rowCount());
+  }
+
+  @Test
+  public void testMisuseIsRejected() {
+    PointTemplate template = PointTemplate.measurement("m").fields("a").build();
+    SeriesWriter writer = new SeriesWriter();
+    Assertions.assertThrows(IllegalStateException.class, () -> writer.field(1L));
+    Assertions.assertThrows(IllegalStateException.class, writer::end);
+
+    writer.row(template).field(1L);
+    Assertions.assertThrows(IllegalStateException.class, () -> writer.field(2L));
+    Assertions.assertThrows(IllegalStateException.class, () -> writer.row(template));
+    Assertions.assertThrows(IllegalStateException.class, writer::buffer);
+    Assertions.assertEquals(0, writer.size());
+    writer.end();
+    Assertions.assertEquals("m a=1i\n".length(), writer.size());
+
+    writer.reset();
+    Assertions.assertTrue(writer.isEmpty());
+    Assertions.assertEquals(0, writer.size());
+  }
+
+  @Test
+  public void testTemplateValidation() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PointTemplate.measurement("m").build());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PointTemplate.measurement("").fields("a").build());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PointTemplate.measurement("m").fields("a", "a"));
+
+    PointTemplate template = PointTemplate.measurement("m").tag("b", "2").tag("a", "1").tag("empty", "")
+        .fields("y", "x").build();
+    Assertions.assertEquals(Arrays.asList("a", "b"), Arrays.asList(template.getTags().keySet().toArray()));
+    Assertions.assertEquals(Arrays.asList("y", "x"), template.getFieldNames());
+    Assertions.assertEquals(template, PointTemplate.measurement("m").tag("a", "1").tag("b", "2").fields("y", "x")
+        .build());
+    Assertions.assertNotEquals(template, PointTemplate.measurement("m").tag("a", "1").fields("y", "x").build());
+  }
+}
@@ -0,0 +1,120 @@
+package org.influxdb.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.BatchOptions;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class AdaptiveBatchSizerTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+  private long now = 0;
+
+  /**
+   * Simulate a write request which is sent after all previous ones completed.
+   */
+  private void write(final AdaptiveBatchSizer sizer, final int points, final long duration, final boolean failed) {
+    long start = now;
+    now += duration;
+    sizer.onWrite(points, start, now, failed);
+  }
+
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 10_000, 1000, 100, 10_000, 1000, 500);
+
+    write(sizer, 1000, FAST, false);
+    Assertions.assertEquals(1100, sizer.getActions());
+    Assertions.assertEquals(1100, sizer.getFlushDuration());
+    write(sizer, 1100, FAST, false);
+    Assertions.assertEquals(1200, sizer.getActions());
+
+    write(sizer, 1200, SLOW, false);
+    Assertions.assertEquals(600, sizer.getActions());
+    Assertions.assertEquals(600, sizer.getFlushDuration());
+    write(sizer, 600, FAST, true);
+    Assertions.assertEquals(300, sizer.getActions());
+    Assertions.assertTrue(sizer.getErrorRate() > 0);
+  }
+
+  @Test
+  public void testBatchSizeStaysWithinTheBounds() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 2000, 1000, 50, 5000, 2000, 500);
+    for (int i = 0; i < 100; i++) {
+      write(sizer, sizer.getActions(), FAST, false);
+    }
+    Assertions.assertEquals(2000, sizer.getActions());
+    Assertions.assertEquals(4000, sizer.getFlushDuration());
+
+    for (int i = 0; i < 100; i++) {
+      write(sizer, sizer.getActions(), SLOW, false);
+    }
+    Assertions.assertEquals(100, sizer.getActions());
+    Assertions.assertEquals(200, sizer.getFlushDuration());
+    Assertions.assertEquals(SLOW / 1e6, sizer.getWriteLatency(), 1e-6);
+
+    // the initial values are moved into the bounds
+    AdaptiveBatchSizer outOfBounds = new AdaptiveBatchSizer(100, 2000, 5000, 50, 5000, 10, 500);
+    Assertions.assertEquals(2000, outOfBounds.getActions());
+    Assertions.assertEquals(50, outOfBounds.getFlushDuration());
+  }
+
+  @Test
+  public void testBatchesWhichAreNotHalfFullDoNotIncreaseTheSize() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 10_000, 1000, 100, 10_000, 1000, 500);
+    write(sizer, 499, FAST, false);
+    Assertions.assertEquals(1000, sizer.getActions());
+    write(sizer, 500, FAST, false);
+    Assertions.assertEquals(1100, sizer.getActions());
+  }
+
+  @Test
+  public void testRequestsInFlightDecreaseOnlyOnce() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 10_000, 1000, 100, 10_000, 1000, 500);
+    // three requests sent at the same time all time out
+    sizer.onWrite(1000, 0, SLOW, false);
+    sizer.onWrite(1000, 0, SLOW + 1, false);
+    sizer.onWrite(1000, 1, SLOW + 2, true);
+    Assertions.assertEquals(500, sizer.getActions());
+
+    // a request sent after the decrease decreases again
+    sizer.onWrite(500, SLOW + 3, SLOW * 2, false);
+    Assertions.assertEquals(250, sizer.getActions());
+  }
+
+  @Test
+  public void testInvalidBounds() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new AdaptiveBatchSizer(0, 10, 5, 100, 1000, 100, 500));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new AdaptiveBatchSizer(100, 10, 50, 100, 1000, 100, 500));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new AdaptiveBatchSizer(10, 100, 50, 1000, 100, 100, 500));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new AdaptiveBatchSizer(10, 100, 50, 100, 1000, 100, 0));
+  }
+
+  @Test
+  public void testBatchSizingOfTheClient() {
+    InfluxDB influxDB = InfluxDBFactory.connect("http://localhost:8086");
+    Assertions.assertNull(influxDB.getBatchSizing());
+    influxDB.enableBatch(BatchOptions.DEFAULTS);
+    Assertions.assertNull(influxDB.getBatchSizing());
+    influxDB.disableBatch();
+
+    influxDB.enableBatch(BatchOptions.DEFAULTS.adaptiveBatching(true).actions(2000).flushDuration(500)
+        .maxActions(5000));
+    Assertions.assertEquals(2000, influxDB.getBatchSizing().getActions());
+    Assertions.assertEquals(500, influxDB.getBatchSizing().getFlushDuration());
+    influxDB.close();
+    Assertions.assertNull(influxDB.getBatchSizing());
+  }
+}
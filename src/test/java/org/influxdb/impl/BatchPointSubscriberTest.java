@@ -0,0 +1,188 @@
+package org.influxdb.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.influxdb.Flow;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.PointSubscriber;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+
+@RunWith(JUnitPlatform.class)
+public class BatchPointSubscriberTest {
+
+  /**
+   * Emits the points synchronously on request, recording the demand.
+   */
+  private static final class ListPublisher implements Flow.Publisher<Point>, Flow.Subscription {
+    private final List<Point> points;
+    private final List<Long> requests = new CopyOnWriteArrayList<>();
+    private Flow.Subscriber<? super Point> subscriber;
+    private int next;
+    private long requested;
+    private long maxRequested;
+    private boolean emitting;
+    private Throwable error;
+
+    private ListPublisher(final int count) {
+      this.points = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        points.add(Point.measurement("m").addField("v", (long) i).time(i, TimeUnit.MILLISECONDS).build());
+      }
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super Point> subscriber) {
+      this.subscriber = subscriber;
+      subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(final long n) {
+      requests.add(n);
+      requested += n;
+      maxRequested = Math.max(maxRequested, requested);
+      if (emitting) {
+        return;
+      }
+      emitting = true;
+      while (requested > 0 && next < points.size()) {
+        requested--;
+        subscriber.onNext(points.get(next++));
+      }
+      emitting = false;
+      if (next == points.size() && requested >= 0) {
+        next++;
+        if (error == null) {
+          subscriber.onComplete();
+        } else {
+          subscriber.onError(error);
+        }
+      }
+    }
+
+    @Override
+    public void cancel() {
+      next = points.size() + 1;
+    }
+  }
+
+  private static List<Point> writtenPoints(final InfluxDB influxDB) {
+    List<Point> written = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      written.addAll(invocation.<BatchPoints>getArgument(0).getPoints());
+      return null;
+    }).when(influxDB).write(any(BatchPoints.class));
+    return written;
+  }
+
+  @Test
+  public void testAllPointsAreWrittenWithBoundedDemand() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    List<Point> written = writtenPoints(mockInfluxDB);
+    BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+        .interval(1, TimeUnit.HOURS).build();
+
+    ListPublisher publisher = new ListPublisher(95);
+    PointSubscriber subscriber = new BatchPointSubscriber(batchProcessor, "db", "rp");
+    publisher.subscribe(subscriber);
+    subscriber.getCompletion().get(5, TimeUnit.SECONDS);
+
+    Assertions.assertEquals(publisher.points, written);
+    // never more points requested than a batch
+    Assertions.assertTrue(publisher.maxRequested <= 10);
+    batchProcessor.flushAndShutdown();
+  }
+
+  @Test
+  public void testNoDemandWhileTheQueueIsFull() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    List<Point> written = writtenPoints(mockInfluxDB);
+    BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+        .interval(1, TimeUnit.HOURS).build();
+    Point other = Point.measurement("other").addField("v", 1L).build();
+    // filled by another writer, without triggering a flush
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertTrue(batchProcessor.queue.offer(new BatchProcessor.HttpBatchEntry(other, "db", "rp")));
+    }
+
+    ListPublisher publisher = new ListPublisher(15);
+    PointSubscriber subscriber = new BatchPointSubscriber(batchProcessor, "db", "rp");
+    publisher.subscribe(subscriber);
+    // the requested points are kept aside, no further demand
+    Assertions.assertEquals(1, publisher.requests.size());
+    Assertions.assertEquals(10, publisher.next);
+
+    batchProcessor.flush();
+    // the drain made space, the kept points are queued and more are requested
+    Assertions.assertTrue(publisher.requests.size() > 1);
+    subscriber.getCompletion().get(5, TimeUnit.SECONDS);
+    // the queued points may be written by the scheduler concurrently to the flush, so only the totals are compared
+    Assertions.assertEquals(25, written.size());
+    Assertions.assertEquals(10, written.stream().filter(point -> point == other).count());
+    Assertions.assertEquals(publisher.points,
+        written.stream().filter(point -> point != other).collect(Collectors.toList()));
+    batchProcessor.flushAndShutdown();
+  }
+
+  @Test
+  public void testErrorOfTheStreamIsPropagatedAfterTheFlush() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    List<Point> written = writtenPoints(mockInfluxDB);
+    BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+        .interval(1, TimeUnit.HOURS).build();
+
+    ListPublisher publisher = new ListPublisher(5);
+    publisher.error = new IllegalStateException("consumer failed");
+    PointSubscriber subscriber = new BatchPointSubscriber(batchProcessor, "db", "rp");
+    publisher.subscribe(subscriber);
+
+    CompletionException e = Assertions.assertThrows(CompletionException.class,
+        () -> subscriber.getCompletion().join());
+    Assertions.assertSame(publisher.error, e.getCause());
+    Assertions.assertEquals(5, written.size());
+    Mockito.verify(mockInfluxDB, atLeastOnce()).write(any(BatchPoints.class));
+    batchProcessor.flushAndShutdown();
+  }
+
+  @Test
+  public void testPointsAfterDisablingFailTheSubscriber() {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+        .interval(1, TimeUnit.HOURS).build();
+    ListPublisher publisher = new ListPublisher(20);
+    PointSubscriber subscriber = new BatchPointSubscriber(batchProcessor, "db", "rp");
+    batchProcessor.flushAndShutdown();
+
+    publisher.subscribe(subscriber);
+    Assertions.assertTrue(subscriber.getCompletion().isCompletedExceptionally());
+    // cancelled after the first point
+    Assertions.assertEquals(publisher.points.size() + 1, publisher.next);
+  }
+
+  @Test
+  public void testBatchingMustBeEnabled() {
+    InfluxDB influxDB = InfluxDBFactory.connect("http://localhost:8086");
+    try {
+      Assertions.assertThrows(IllegalStateException.class, () -> influxDB.pointSubscriber("db", "rp"));
+    } finally {
+      influxDB.close();
+    }
+  }
+}
@@ -13,17 +13,27 @@ import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import org.hamcrest.Matchers;
 import org.influxdb.BatchOptions;
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
 import org.influxdb.TestUtils;
 import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
+import org.influxdb.dto.PointTemplate;
 import org.influxdb.dto.Query;
+import org.influxdb.dto.SeriesWriter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
@@ -226,6 +236,296 @@ public class BatchProcessorTest {
       }
     }
 
+    @Test
+    public void testRingBufferQueueStrategy() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+                .interval(1, TimeUnit.HOURS).queueStrategy(BatchOptions.QueueStrategy.RING_BUFFER).build();
+        Assertions.assertTrue(batchProcessor.queue instanceof RingBufferQueue);
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.flush();
+
+        ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, times(1)).write(captor.capture());
+        assertEquals(2, captor.getValue().getPoints().size());
+    }
+
+    @Test
+    public void testRingBufferQueueStrategyDropsActionsOnQueueExhaustion() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        Consumer<Point> droppedActionHandler = mock(Consumer.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(2)
+                .interval(1, TimeUnit.HOURS).queueStrategy(BatchOptions.QueueStrategy.RING_BUFFER)
+                .dropActionsOnQueueExhaustion(true).droppedActionHandler(droppedActionHandler).build();
+        // keep the scheduler from draining the queue
+        batchProcessor.flushAndShutdown();
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        for (int i = 0; i < 3; i++) {
+          batchProcessor.queue.offer(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        }
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+
+        verify(droppedActionHandler, times(1)).accept(point);
+        assertEquals(2, batchProcessor.queue.size());
+    }
+
+    @Test
+    public void testStripedQueueStrategyWritesWholeBatchesOfASingleProducer() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(50).bufferLimit(500)
+                .interval(1, TimeUnit.HOURS).queueStrategy(BatchOptions.QueueStrategy.STRIPED).build();
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        for (int i = 0; i < 150; i++) {
+          batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        }
+
+        ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, timeout(1000).times(3)).write(captor.capture());
+        for (BatchPoints batchPoints : captor.getAllValues()) {
+          assertEquals(50, batchPoints.getPoints().size());
+        }
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testStripedQueueStrategyFlushesWhenAStripeIsFull() throws InterruptedException {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(3)
+                .interval(1, TimeUnit.HOURS).queueStrategy(BatchOptions.QueueStrategy.STRIPED).build();
+        Assertions.assertTrue(batchProcessor.queue instanceof StripedRingBufferQueue);
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        for (int i = 0; i < 3; i++) {
+          batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        }
+
+        ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, timeout(1000).times(1)).write(captor.capture());
+        assertEquals(3, captor.getValue().getPoints().size());
+    }
+
+    @Test
+    public void testSeriesRowsAreBatchedLikePoints() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(3)
+                .interval(1, TimeUnit.HOURS).precision(TimeUnit.SECONDS).build();
+        PointTemplate cpu = PointTemplate.measurement("cpu").tag("host", "a").fields("idle").build();
+        SeriesWriter writer = new SeriesWriter(TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+          writer.row(cpu, 1_500_000_000_000L + 1000 * i, TimeUnit.MILLISECONDS).field(i / 2.0).end();
+        }
+
+        for (Point point : writer.toPoints()) {
+          batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        }
+
+        ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, timeout(1000).times(1)).write(captor.capture());
+        assertEquals("db1", captor.getValue().getDatabase());
+        assertEquals("cpu,host=a idle=0.0 1500000000\ncpu,host=a idle=0.5 1500000001\n"
+            + "cpu,host=a idle=1.0 1500000002\n", captor.getValue().lineProtocol());
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testAdaptiveBatchingFlushesAtTheCurrentBatchSize() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(2, 100, 8, 100, 10_000, 1000, 500);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(8)
+                .interval(1, TimeUnit.HOURS).adaptiveBatchSizer(sizer).build();
+        // the queue can hold the largest batch
+        assertEquals(100, batchProcessor.queue.remainingCapacity());
+
+        // a slow write halves the batch size
+        long start = System.nanoTime();
+        sizer.onWrite(8, start, start + TimeUnit.SECONDS.toNanos(2), false);
+        assertEquals(4, batchProcessor.getActions());
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        for (int i = 0; i < 4; i++) {
+          batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        }
+
+        ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, timeout(1000).times(1)).write(captor.capture());
+        assertEquals(4, captor.getValue().getPoints().size());
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testAdaptiveBatchingMeasuresTheBatchWrites() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        doThrow(new InfluxDBException("timeout")).when(mockInfluxDB).write(any(BatchPoints.class));
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(2, 100, 8, 100, 10_000, 1000, 500);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(8)
+                .interval(1, TimeUnit.HOURS).adaptiveBatchSizer(sizer).build();
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.flush();
+
+        // the server was not reachable, the batch size is halved
+        verify(mockInfluxDB, times(1)).write(any(BatchPoints.class));
+        assertEquals(4, batchProcessor.getActions());
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testEntriesAreCompletedWithTheirBatch() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(100)
+                .interval(1, TimeUnit.HOURS).exceptionHandler((points, throwable) -> { }).build();
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        assertTrue(batchProcessor.offer(new BatchProcessor.HttpBatchEntry(point, "db1", "rp", written)));
+        assertFalse(written.isDone());
+        batchProcessor.flush();
+        assertTrue(written.isDone());
+        assertFalse(written.isCompletedExceptionally());
+
+        InfluxDBException failure = new InfluxDBException("timeout");
+        doThrow(failure).when(mockInfluxDB).write(any(BatchPoints.class));
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        assertTrue(batchProcessor.offer(new BatchProcessor.HttpBatchEntry(point, "db1", "rp", failed)));
+        batchProcessor.flush();
+        CompletionException e = Assertions.assertThrows(CompletionException.class, failed::join);
+        assertEquals(failure, e.getCause());
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testSpoolIsNotLimitedByBufferLimitBytes() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        BatchProcessor.Builder builder = BatchProcessor.builder(mockInfluxDB).actions(10)
+                .interval(1, TimeUnit.HOURS).spoolDirectory(Paths.get("spool")).bufferLimitBytes(1024);
+        Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    public void testMaxBatchBytesSplitsTheBatches() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        Point point = Point.measurement("cpu").addField("idle", 1.0).time(1, TimeUnit.SECONDS).build();
+        // "cpu idle=1.0 1\n"
+        int pointSize = point.lineProtocol(TimeUnit.SECONDS).length() + 1;
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(100)
+                .interval(1, TimeUnit.HOURS).precision(TimeUnit.SECONDS).maxBatchBytes(pointSize * 3).build();
+
+        // the points collected reach the limit
+        for (int i = 0; i < 3; i++) {
+          batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        }
+        ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, timeout(1000).times(1)).write(captor.capture());
+        assertEquals(3, captor.getValue().getPoints().size());
+
+        // a flush writes requests of at most 3 points
+        for (int i = 0; i < 7; i++) {
+          BatchProcessor.HttpBatchEntry entry = new BatchProcessor.HttpBatchEntry(point, "db" + (i % 2), "rp");
+          entry.setSize(pointSize);
+          batchProcessor.queue.offer(entry);
+        }
+        batchProcessor.flush();
+        captor = ArgumentCaptor.forClass(BatchPoints.class);
+        verify(mockInfluxDB, times(4)).write(captor.capture());
+        List<BatchPoints> written = captor.getAllValues().subList(1, 4);
+        int writtenPoints = 0;
+        for (BatchPoints batchPoints : written) {
+          Assertions.assertTrue(batchPoints.getPoints().size() <= 3);
+          writtenPoints += batchPoints.getPoints().size();
+        }
+        assertEquals(7, writtenPoints);
+        // the second batch of db0 is written after the first one
+        assertEquals("db0", written.get(2).getDatabase());
+        assertEquals(1, written.get(2).getPoints().size());
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testMaxBatchBytesMustNotBeNegative() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchProcessor.builder(mockInfluxDB)
+                .actions(10).interval(1, TimeUnit.SECONDS).maxBatchBytes(-1).build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushParallelismWritesDatabasesConcurrently() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        // both writes have to be in flight at the same time to pass the barrier
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        doAnswer(invocation -> barrier.await(5, TimeUnit.SECONDS)).when(mockInfluxDB).write(any(BatchPoints.class));
+        BiConsumer<Iterable<Point>, Throwable> mockHandler = mock(BiConsumer.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+                .interval(1, TimeUnit.HOURS).flushParallelism(2).exceptionHandler(mockHandler).build();
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db2", "rp"));
+        batchProcessor.flushAndShutdown();
+
+        verify(mockInfluxDB, times(2)).write(any(BatchPoints.class));
+        verifyNoInteractions(mockHandler);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPipelinedFlushDoesNotWaitForTheWrite() throws InterruptedException {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(mockInfluxDB).write(any(BatchPoints.class));
+        BiConsumer<Iterable<Point>, Throwable> mockHandler = mock(BiConsumer.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(2)
+                .interval(1, TimeUnit.HOURS).maxInFlightRequests(2).exceptionHandler(mockHandler).build();
+        Assertions.assertTrue(batchProcessor.getBatchWriter() instanceof PipelinedBatchWriter);
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        verify(mockInfluxDB, timeout(1000).times(1)).write(any(BatchPoints.class));
+
+        // the first write is still in flight, the next batch is collected and handed over anyway
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        Thread.sleep(100); // wait for scheduler
+        assertEquals(0, batchProcessor.queue.size());
+
+        release.countDown();
+        batchProcessor.flushAndShutdown();
+        verify(mockInfluxDB, times(2)).write(any(BatchPoints.class));
+        verifyNoInteractions(mockHandler);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPipelinedFlushReportsFailedWrites() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        RuntimeException failure = new RuntimeException();
+        doThrow(failure).when(mockInfluxDB).write(any(BatchPoints.class));
+        BiConsumer<Iterable<Point>, Throwable> mockHandler = mock(BiConsumer.class);
+        BatchProcessor batchProcessor = BatchProcessor.builder(mockInfluxDB).actions(10)
+                .interval(1, TimeUnit.HOURS).maxInFlightRequests(2).exceptionHandler(mockHandler).build();
+
+        Point point = Point.measurement("cpu").addField("idle", 1.0).build();
+        batchProcessor.put(new BatchProcessor.HttpBatchEntry(point, "db1", "rp"));
+        batchProcessor.flush();
+
+        verify(mockHandler, times(1)).accept(argThat(Matchers.hasItems(point)), Mockito.eq(failure));
+        batchProcessor.flushAndShutdown();
+    }
+
+    @Test
+    public void testFlushParallelismMustBePositive() {
+        InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchProcessor.builder(mockInfluxDB).actions(10)
+                .interval(1, TimeUnit.HOURS).flushParallelism(0).build());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void randomSupplier() {
@@ -0,0 +1,189 @@
+package org.influxdb.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.influxdb.Flow;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+@RunWith(JUnitPlatform.class)
+public class ChunkedQueryPublisherTest {
+
+  private static final String CHUNKS =
+      "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\",\"value\"],"
+      + "\"values\":[[1,1],[2,2]]}],\"partial\":true}]}\n"
+      + "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\",\"value\"],"
+      + "\"values\":[[3,3]]}],\"partial\":true}]}\n"
+      + "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\",\"value\"],"
+      + "\"values\":[[4,4]]}]}]}\n";
+
+  private InfluxDB influxDB;
+
+  @AfterEach
+  public void cleanUp() {
+    influxDB.close();
+  }
+
+  private InfluxDB connect(final int code, final String body) {
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain ->
+        new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(code).message("")
+            .body(ResponseBody.create(MediaType.parse("application/json"), body)).build());
+    influxDB = InfluxDBFactory.connect("http://localhost:8086", client);
+    return influxDB;
+  }
+
+  private static final class TestSubscriber<T> implements Flow.Subscriber<T> {
+    private final List<T> items = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile Flow.Subscription subscription;
+    private volatile boolean completed;
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(final T item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+      error.set(throwable);
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      terminated.countDown();
+    }
+
+    private void awaitItems(final int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (items.size() < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assertions.assertEquals(count, items.size());
+    }
+  }
+
+  @Test
+  public void testChunksArePublishedOnDemand() throws Exception {
+    Flow.Publisher<QueryResult> publisher = connect(200, CHUNKS).queryPublisher(new Query("SELECT * FROM cpu", "db"), 2);
+    TestSubscriber<QueryResult> subscriber = new TestSubscriber<>();
+    publisher.subscribe(subscriber);
+    Assertions.assertTrue(subscriber.items.isEmpty());
+
+    subscriber.subscription.request(1);
+    subscriber.awaitItems(1);
+    Thread.sleep(100);
+    // no more than requested
+    Assertions.assertEquals(1, subscriber.items.size());
+    Assertions.assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(5);
+    Assertions.assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+    Assertions.assertTrue(subscriber.completed);
+    Assertions.assertEquals(3, subscriber.items.size());
+    Assertions.assertEquals(4.0, subscriber.items.get(2).getResults().get(0).getSeries().get(0).getValues().get(0).get(1));
+  }
+
+  @Test
+  public void testRowsArePublishedOnDemand() throws Exception {
+    Flow.Publisher<QueryResult.Series> publisher =
+        connect(200, CHUNKS).queryRowPublisher(new Query("SELECT * FROM cpu", "db"), 2);
+    TestSubscriber<QueryResult.Series> subscriber = new TestSubscriber<>();
+    publisher.subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+    subscriber.awaitItems(1);
+    subscriber.subscription.request(2);
+    subscriber.awaitItems(3);
+    Assertions.assertFalse(subscriber.completed);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    Assertions.assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+    Assertions.assertTrue(subscriber.completed);
+
+    Assertions.assertEquals(4, subscriber.items.size());
+    for (int i = 0; i < 4; i++) {
+      QueryResult.Series row = subscriber.items.get(i);
+      Assertions.assertEquals("cpu", row.getName());
+      Assertions.assertEquals(2, row.getColumns().size());
+      Assertions.assertEquals(1, row.getValues().size());
+      Assertions.assertEquals(i + 1.0, row.getValues().get(0).get(0));
+    }
+  }
+
+  @Test
+  public void testCancelStopsThePublishing() throws Exception {
+    Flow.Publisher<QueryResult> publisher = connect(200, CHUNKS).queryPublisher(new Query("SELECT * FROM cpu", "db"), 2);
+    TestSubscriber<QueryResult> subscriber = new TestSubscriber<>();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.awaitItems(1);
+
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(5);
+    Thread.sleep(100);
+    Assertions.assertEquals(1, subscriber.items.size());
+    Assertions.assertEquals(1, subscriber.terminated.getCount());
+  }
+
+  @Test
+  public void testFailedQueryIsPublishedAsError() throws Exception {
+    Flow.Publisher<QueryResult> publisher = connect(400, "{\"error\":\"database not found: db\"}")
+        .queryPublisher(new Query("SELECT * FROM cpu", "db"), 2);
+    TestSubscriber<QueryResult> subscriber = new TestSubscriber<>();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+
+    Assertions.assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+    Assertions.assertTrue(subscriber.error.get() instanceof InfluxDBException.DatabaseNotFoundException);
+    Assertions.assertTrue(subscriber.items.isEmpty());
+  }
+
+  @Test
+  public void testErrorInTheResultsFailsTheRows() throws Exception {
+    Flow.Publisher<QueryResult.Series> publisher =
+        connect(200, "{\"results\":[{\"statement_id\":0,\"error\":\"shard not found\"}]}\n")
+            .queryRowPublisher(new Query("SELECT * FROM cpu", "db"), 2);
+    TestSubscriber<QueryResult.Series> subscriber = new TestSubscriber<>();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+
+    Assertions.assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals("shard not found", subscriber.error.get().getMessage());
+  }
+
+  @Test
+  public void testNonPositiveRequestFailsTheSubscription() throws Exception {
+    Flow.Publisher<QueryResult> publisher = connect(200, CHUNKS).queryPublisher(new Query("SELECT * FROM cpu", "db"), 2);
+    TestSubscriber<QueryResult> subscriber = new TestSubscriber<>();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(0);
+
+    Assertions.assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+    Assertions.assertTrue(subscriber.error.get() instanceof IllegalArgumentException);
+  }
+}
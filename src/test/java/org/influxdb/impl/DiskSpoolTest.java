@@ -0,0 +1,206 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.influxdb.BatchOptions.SpoolFsyncPolicy;
+import org.influxdb.InfluxDB.ConsistencyLevel;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.LineProtocolEncoder;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class DiskSpoolTest {
+
+  private static final int SEGMENT_SIZE = 1024;
+
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("influxdb-spool");
+  }
+
+  @AfterEach
+  public void cleanUp() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  private static SpooledBatch batch(final int value) {
+    return new SpooledBatch("db", "autogen", ConsistencyLevel.ONE, TimeUnit.MILLISECONDS, 1,
+        ("m,tag=a value=" + value + "i " + value + "\n").getBytes());
+  }
+
+  private static List<String> drain(final DiskSpool spool) {
+    List<String> records = new ArrayList<>();
+    while (!spool.isEmpty()) {
+      records.add(spool.peek().records().trim());
+      spool.remove();
+    }
+    return records;
+  }
+
+  private static List<String> expected(final int from, final int to) {
+    List<String> records = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      records.add("m,tag=a value=" + i + "i " + i);
+    }
+    return records;
+  }
+
+  private long segmentCount() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(".spool")).count();
+    }
+  }
+
+  @Test
+  public void testBatchesAreReadInOrderAcrossSegments() throws IOException {
+    DiskSpool spool = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.ON_ROLLOVER);
+    for (int i = 0; i < 50; i++) {
+      spool.append(batch(i), evicted -> Assertions.fail("evicted " + evicted.records()));
+    }
+    Assertions.assertEquals(50, spool.size());
+    Assertions.assertTrue(segmentCount() > 1);
+
+    Assertions.assertEquals(expected(0, 50), drain(spool));
+    Assertions.assertNull(spool.peek());
+    // only the active segment is left
+    Assertions.assertEquals(1, segmentCount());
+    spool.close();
+  }
+
+  @Test
+  public void testDirectoryIsLockedUntilClosed() {
+    DiskSpool spool = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.NEVER);
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.NEVER));
+    spool.close();
+
+    new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.NEVER).close();
+  }
+
+  @Test
+  public void testPendingBatchesAreRecoveredAfterRestart() throws IOException {
+    DiskSpool spool = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.ALWAYS);
+    for (int i = 0; i < 30; i++) {
+      spool.append(batch(i), evicted -> Assertions.fail());
+    }
+    for (int i = 0; i < 12; i++) {
+      spool.remove();
+    }
+    spool.close();
+
+    DiskSpool recovered = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.ALWAYS);
+    Assertions.assertEquals(18, recovered.size());
+    recovered.append(batch(30), evicted -> Assertions.fail());
+    Assertions.assertEquals(expected(12, 31), drain(recovered));
+    recovered.close();
+
+    // segments without pending batches are deleted on start
+    new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.ALWAYS).close();
+    Assertions.assertEquals(0, segmentCount());
+  }
+
+  @Test
+  public void testTornRecordEndsTheRecovery() throws IOException {
+    DiskSpool spool = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.ALWAYS);
+    spool.append(batch(0), evicted -> Assertions.fail());
+    spool.append(batch(1), evicted -> Assertions.fail());
+    int recordSize = batch(1).serialize().length + 9;
+    spool.close();
+
+    // corrupt the payload of the second record like an interrupted write would
+    Path segment;
+    try (Stream<Path> files = Files.list(directory)) {
+      segment = files.findFirst().get();
+    }
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'#'}), recordSize + recordSize - 2);
+    }
+
+    DiskSpool recovered = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10, SpoolFsyncPolicy.ALWAYS);
+    Assertions.assertEquals(expected(0, 1), drain(recovered));
+    recovered.close();
+  }
+
+  @Test
+  public void testOldestSegmentIsEvictedAtTheDiskLimit() {
+    DiskSpool spool = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 2, SpoolFsyncPolicy.NEVER);
+    List<String> evictedRecords = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      spool.append(batch(i), evicted -> evictedRecords.add(evicted.records().trim()));
+    }
+
+    Assertions.assertFalse(evictedRecords.isEmpty());
+    Assertions.assertTrue(spool.diskSize() <= SEGMENT_SIZE * 2);
+    List<String> all = new ArrayList<>(evictedRecords);
+    all.addAll(drain(spool));
+    Assertions.assertEquals(expected(0, 100), all);
+    spool.close();
+  }
+
+  @Test
+  public void testBatchLargerThanTheDiskLimitIsEvicted() {
+    DiskSpool spool = new DiskSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE, SpoolFsyncPolicy.ON_ROLLOVER);
+    StringBuilder records = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      records.append("m value=").append(i).append("i\n");
+    }
+    SpooledBatch large = new SpooledBatch("db", null, ConsistencyLevel.ALL, TimeUnit.NANOSECONDS, 100,
+        records.toString().getBytes());
+    List<SpooledBatch> evictedBatches = new ArrayList<>();
+    spool.append(large, evictedBatches::add);
+
+    Assertions.assertEquals(1, evictedBatches.size());
+    Assertions.assertSame(large, evictedBatches.get(0));
+    Assertions.assertTrue(spool.isEmpty());
+    spool.close();
+  }
+
+  @Test
+  public void testSpooledBatchRoundTrip() {
+    BatchPoints batchPoints = BatchPoints.database("db").retentionPolicy("rp")
+        .consistency(ConsistencyLevel.QUORUM).precision(TimeUnit.MICROSECONDS)
+        .point(Point.measurement("cpu load").tag("host", "server,01").addField("idle", 90.5)
+            .addField("count", 7L).addField("ok", true).addField("unit", "°C \"quoted\"")
+            .time(1_500_000_000_123_456L, TimeUnit.MICROSECONDS).build())
+        .point(Point.measurement("mem").addField("free", -1L).build())
+        .build();
+    SpooledBatch batch = SpooledBatch.of(batchPoints, new LineProtocolEncoder());
+    SpooledBatch copy = SpooledBatch.deserialize(ByteBuffer.wrap(batch.serialize()));
+
+    Assertions.assertEquals("db", copy.getDatabase());
+    Assertions.assertEquals("rp", copy.getRetentionPolicy());
+    Assertions.assertEquals(ConsistencyLevel.QUORUM, copy.getConsistency());
+    Assertions.assertEquals(TimeUnit.MICROSECONDS, copy.getPrecision());
+    Assertions.assertEquals(2, copy.getPointCount());
+    Assertions.assertEquals(batchPoints.lineProtocol(), copy.records());
+
+    List<Point> points = copy.points();
+    Assertions.assertEquals(2, points.size());
+    Assertions.assertEquals(batchPoints.getPoints().get(0).lineProtocol(TimeUnit.MICROSECONDS),
+        points.get(0).lineProtocol(TimeUnit.MICROSECONDS));
+    Assertions.assertEquals("mem free=-1i", points.get(1).lineProtocol());
+  }
+}
@@ -3,17 +3,35 @@ package org.influxdb.impl;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import org.influxdb.BatchOptions;
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ConsistencyLevel;
+import org.influxdb.InfluxDB.ResponseFormat;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
 import org.influxdb.TestUtils;
+import org.influxdb.WriteRateLimiter;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
 
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 @RunWith(JUnitPlatform.class)
 public class InfluxDBImplTest {
@@ -40,6 +58,86 @@ public class InfluxDBImplTest {
     assertTrue(client.connectionPool().connectionCount() == 0);
   }
 
+  @Test
+  public void tryWriteIsRefusedBeyondTheWriteRateLimit() throws Exception {
+    influxDB.setWriteRateLimiter(WriteRateLimiter.builder().pointsPerSecond(2).build());
+    BatchPoints batchPoints = BatchPoints.database("db")
+        .point(Point.measurement("m").addField("v", 1L).build())
+        .point(Point.measurement("m").addField("v", 2L).build())
+        .build();
+
+    assertTrue(influxDB.tryWrite(batchPoints, 0, TimeUnit.MILLISECONDS));
+    assertFalse(influxDB.tryWrite(batchPoints, 0, TimeUnit.MILLISECONDS));
+    // the async write waits for the budget instead of being refused
+    influxDB.writeAsync(batchPoints).get(2, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void writeAsyncOfRecords() throws Exception {
+    influxDB.writeAsync("db", "autogen", ConsistencyLevel.ONE, "m v=1i").get(2, TimeUnit.SECONDS);
+    influxDB.writeAsync("db", "autogen", ConsistencyLevel.ONE, TimeUnit.SECONDS, Arrays.asList("m v=1i 1", "m v=2i 2"))
+        .get(2, TimeUnit.SECONDS);
+    influxDB.writeAsync("db", "autogen", Point.measurement("m").addField("v", 3L).build()).get(2, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void writeAsyncCompletesWithTheErrorOfTheServer() throws Exception {
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain -> {
+      if (!chain.request().url().encodedPath().endsWith("/write")) {
+        return chain.proceed(chain.request());
+      }
+      return new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(400).message("")
+          .body(ResponseBody.create(MediaType.parse("application/json"),
+              "{\"error\":\"partial write: field type conflict: input field \\\"v\\\" is type float\"}"))
+          .build();
+    });
+    InfluxDB failing = TestUtils.connectToInfluxDB(client, null, ResponseFormat.JSON);
+    try {
+      CompletableFuture<Void> written = failing.writeAsync("db", "autogen", ConsistencyLevel.ONE, "m v=1i");
+      ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+          () -> written.get(2, TimeUnit.SECONDS));
+      Assertions.assertTrue(e.getCause() instanceof InfluxDBException.FieldTypeConflictException);
+    } finally {
+      failing.close();
+    }
+  }
+
+  @Test
+  public void writeAsyncCompletesWithTheIOException() throws Exception {
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain -> {
+      if (!chain.request().url().encodedPath().endsWith("/write")) {
+        return chain.proceed(chain.request());
+      }
+      throw new IOException("connection reset");
+    });
+    InfluxDB failing = TestUtils.connectToInfluxDB(client, null, ResponseFormat.JSON);
+    try {
+      CompletableFuture<Void> written = failing.writeAsync("m v=1i");
+      ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+          () -> written.get(2, TimeUnit.SECONDS));
+      Assertions.assertTrue(e.getCause() instanceof InfluxDBIOException);
+    } finally {
+      failing.close();
+    }
+  }
+
+  @Test
+  public void batchWithVirtualThreads() throws Exception {
+    influxDB.enableBatch(BatchOptions.DEFAULTS.virtualThreads(true).flushParallelism(2).maxInFlightRequests(2));
+    influxDB.write("db1", "autogen", Point.measurement("m").addField("v", 1L).build());
+    influxDB.write("db2", "autogen", Point.measurement("m").addField("v", 2L).build());
+    influxDB.flush();
+    influxDB.disableBatch();
+    assertFalse(influxDB.isBatchEnabled());
+  }
+
+  @Test
+  public void countLines() {
+    Assertions.assertEquals(0, InfluxDBImpl.countLines(""));
+    Assertions.assertEquals(1, InfluxDBImpl.countLines("m v=1i"));
+    Assertions.assertEquals(2, InfluxDBImpl.countLines("m v=1i\n\nm v=2i\n"));
+  }
+
   @SuppressWarnings("unchecked")
   static <T> T getPrivateField(final Object obj, final String name)
       throws Exception {
@@ -0,0 +1,128 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.annotation.TimeColumn;
+import org.influxdb.dto.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+@RunWith(JUnitPlatform.class)
+public class InfluxDBMapperStreamTest {
+
+  private static final String CHUNKS =
+      "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+      + "\"columns\":[\"time\",\"idle\",\"count\"],\"values\":[[1500000000000,0.5,1],[1500000001000,1,null]],"
+      + "\"partial\":true}],\"partial\":true}]}\n"
+      + "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"other\",\"columns\":[\"time\",\"idle\"],"
+      + "\"values\":[[1,2]]},{\"name\":\"cpu\",\"tags\":{\"host\":\"b\"},\"columns\":[\"time\",\"idle\"],"
+      + "\"values\":[[1500000002000,3]]}]}]}\n";
+
+  private InfluxDB influxDB;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  @AfterEach
+  public void cleanUp() {
+    influxDB.close();
+  }
+
+  private InfluxDBMapper mapper(final String body) {
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain -> {
+      Buffer buffer = new Buffer().writeUtf8(body);
+      ForwardingSource source = new ForwardingSource(buffer) {
+        @Override
+        public void close() throws IOException {
+          closed.set(true);
+          super.close();
+        }
+      };
+      return new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(200).message("")
+          .body(ResponseBody.create(MediaType.parse("application/json"), -1, Okio.buffer(source))).build();
+    });
+    influxDB = InfluxDBFactory.connect("http://localhost:8086", client);
+    return new InfluxDBMapper(influxDB);
+  }
+
+  @Test
+  public void testStreamMapsTheRowsOfTheMeasurement() {
+    List<Cpu> cpus;
+    try (Stream<Cpu> stream = mapper(CHUNKS).stream(new Query("SELECT * FROM cpu", "db"), Cpu.class, 2)) {
+      cpus = stream.collect(Collectors.toList());
+    }
+    Assertions.assertEquals(3, cpus.size());
+    Assertions.assertEquals(Instant.ofEpochMilli(1500000000000L), cpus.get(0).time);
+    Assertions.assertEquals("a", cpus.get(0).host);
+    Assertions.assertEquals(0.5, cpus.get(0).idle);
+    Assertions.assertEquals(Long.valueOf(1), cpus.get(0).count);
+    Assertions.assertEquals(1.0, cpus.get(1).idle);
+    Assertions.assertNull(cpus.get(1).count);
+    Assertions.assertEquals("b", cpus.get(2).host);
+    Assertions.assertEquals(3.0, cpus.get(2).idle);
+    Assertions.assertTrue(closed.get());
+  }
+
+  @Test
+  public void testClosingTheStreamEarlyClosesTheResponse() {
+    try (Stream<Cpu> stream = mapper(CHUNKS).stream(new Query("SELECT * FROM cpu", "db"), Cpu.class, 2)) {
+      Iterator<Cpu> iterator = stream.iterator();
+      Assertions.assertEquals("a", iterator.next().host);
+      Assertions.assertFalse(closed.get());
+    }
+    Assertions.assertTrue(closed.get());
+  }
+
+  @Test
+  public void testErrorOfTheQuery() {
+    String body = "{\"results\":[{\"statement_id\":0,\"error\":\"database not found: db\"}]}\n";
+    try (Stream<Cpu> stream = mapper(body).stream(new Query("SELECT * FROM cpu", "db"), Cpu.class, 2)) {
+      Iterator<Cpu> iterator = stream.iterator();
+      Assertions.assertThrows(InfluxDBException.class, iterator::hasNext);
+      Assertions.assertTrue(closed.get());
+    }
+  }
+
+  @Test
+  public void testClassWithoutMeasurement() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> mapper(CHUNKS).stream(new Query("SELECT * FROM cpu", "db"), String.class, 2));
+  }
+
+  @Measurement(name = "cpu")
+  static class Cpu {
+    @TimeColumn
+    @Column(name = "time")
+    private Instant time;
+
+    @Column(name = "host", tag = true)
+    private String host;
+
+    @Column(name = "idle")
+    private double idle;
+
+    @Column(name = "count")
+    private Long count;
+  }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 
 import org.influxdb.InfluxDB;
@@ -50,6 +51,20 @@ public class InfluxDBMapperTest {
         serverMeasure.getMemoryUtilization(), persistedMeasure.getMemoryUtilization());
   }
 
+  @Test
+  public void testSaveAll() {
+    ServerMeasure first = createMeasure();
+    first.setTime(Instant.ofEpochMilli(System.currentTimeMillis() - 1000));
+    ServerMeasure second = createMeasure();
+    second.setTime(Instant.ofEpochMilli(System.currentTimeMillis()));
+    influxDBMapper.saveAll(Arrays.asList(first, second));
+
+    List<ServerMeasure> persistedMeasures = influxDBMapper.query(ServerMeasure.class);
+    Assert.assertEquals(2, persistedMeasures.size());
+    Assert.assertEquals(first.getTime(), persistedMeasures.get(0).getTime());
+    Assert.assertEquals(second.getTime(), persistedMeasures.get(1).getTime());
+  }
+
   @Test
   public void testQuery() {
     ServerMeasure serverMeasure = createMeasure();
@@ -25,12 +25,17 @@ import org.influxdb.annotation.Column;
 import org.influxdb.annotation.Exclude;
 import org.influxdb.annotation.Measurement;
 import org.influxdb.annotation.TimeColumn;
+import org.influxdb.dto.ColumnarResult;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.RowCursor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
 
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Date;
@@ -544,6 +549,59 @@ public class InfluxDBResultMapperTest {
     Assertions.assertTrue(result.get(3).time.equals(Instant.parse("2000-01-02T00:00:00Z")));
   }
 
+  @Test
+  public void testParseSeriesAs_integersOfMessagePackIntoNumberFields() {
+    // Given...
+    mapper.cacheMeasurementClass(MyCustomMeasurement.class);
+
+    List<String> columnList = Arrays.asList("time", "doublePrimitive", "longPrimitive", "integerObject", "doubleObject");
+    List<Object> row = Arrays.asList(1500000000000L, 3L, 4L, 5L, 6);
+
+    QueryResult.Series series = new QueryResult.Series();
+    series.setColumns(columnList);
+    series.setValues(Arrays.asList(row));
+
+    // When...
+    List<MyCustomMeasurement> result = new LinkedList<>();
+    mapper.parseSeriesAs(series, MyCustomMeasurement.class, result);
+
+    // Then...
+    Assertions.assertEquals(Instant.ofEpochMilli(1500000000000L), result.get(0).time);
+    Assertions.assertEquals(3.0, result.get(0).doublePrimitive);
+    Assertions.assertEquals(4L, result.get(0).longPrimitive);
+    Assertions.assertEquals(Integer.valueOf(5), result.get(0).integerObject);
+    Assertions.assertEquals(Double.valueOf(6), result.get(0).doubleObject);
+  }
+
+  @Test
+  public void testToPOJO_ColumnarResult() {
+    // Given...
+    String json = "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"CustomMeasurement\","
+        + "\"tags\":{\"uuid\":\"u1\"},\"columns\":[\"time\",\"doublePrimitive\",\"longObject\",\"booleanPrimitive\","
+        + "\"integerPrimitive\"],\"values\":[[1500000000000,1.5,7,true,2],[1500000001000,2,null,false,3]]},"
+        + "{\"name\":\"other\",\"columns\":[\"time\"],\"values\":[[1]]}]}]}\n";
+    ColumnarResult columnarResult;
+    try (RowCursor cursor = new JsonRowCursor(ResponseBody.create(MediaType.parse("application/json"), json))) {
+      columnarResult = ColumnarResult.read(cursor);
+    }
+
+    // When...
+    List<MyCustomMeasurement> result = mapper.toPOJO(columnarResult, MyCustomMeasurement.class, TimeUnit.MILLISECONDS);
+
+    // Then...
+    Assertions.assertEquals(2, result.size());
+    Assertions.assertEquals(Instant.ofEpochMilli(1500000000000L), result.get(0).time);
+    Assertions.assertEquals(1.5, result.get(0).doublePrimitive);
+    Assertions.assertEquals(Long.valueOf(7), result.get(0).longObject);
+    Assertions.assertTrue(result.get(0).booleanPrimitive);
+    Assertions.assertEquals(2, result.get(0).integerPrimitive);
+    Assertions.assertEquals("u1", result.get(0).uuid);
+    Assertions.assertEquals(2.0, result.get(1).doublePrimitive);
+    Assertions.assertNull(result.get(1).longObject);
+    Assertions.assertFalse(result.get(1).booleanPrimitive);
+    Assertions.assertEquals(3, result.get(1).integerPrimitive);
+  }
+
 	@Measurement(name = "HasTimeColumnMeasurement")
 	static class HasTimeColumnMeasurement {
   		@TimeColumn
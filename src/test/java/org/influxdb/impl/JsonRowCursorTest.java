@@ -0,0 +1,141 @@
+package org.influxdb.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.RowCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+@RunWith(JUnitPlatform.class)
+public class JsonRowCursorTest {
+
+  private static final String CHUNKS =
+      "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+      + "\"columns\":[\"time\",\"value\",\"text\",\"ok\"],"
+      + "\"values\":[[1700000000000000001,1,\"x\",true],[1700000000000000002,2.5,null,false]],"
+      + "\"partial\":true}],\"partial\":true}]}\n"
+      + "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"b\"},"
+      + "\"columns\":[\"time\",\"value\",\"text\",\"ok\"],"
+      + "\"values\":[[1700000000000000003,3,\"y\",true]]}]},"
+      + "{\"statement_id\":1,\"series\":[{\"name\":\"mem\",\"columns\":[\"time\",\"free\"],"
+      + "\"values\":[[4,1e3]]}]}]}\n";
+
+  private InfluxDB influxDB;
+
+  @AfterEach
+  public void cleanUp() {
+    influxDB.close();
+  }
+
+  private InfluxDB connect(final int code, final String body) {
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain ->
+        new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(code).message("")
+            .body(ResponseBody.create(MediaType.parse("application/json"), body)).build());
+    influxDB = InfluxDBFactory.connect("http://localhost:8086", client);
+    return influxDB;
+  }
+
+  @Test
+  public void testRowsOfAllChunksAndSeries() {
+    try (RowCursor cursor = connect(200, CHUNKS).queryRows(new Query("SELECT * FROM cpu; SELECT * FROM mem", "db"), 2)) {
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals("cpu", cursor.getSeriesName());
+      Assertions.assertEquals(Collections.singletonMap("host", "a"), cursor.getTags());
+      Assertions.assertEquals(Arrays.asList("time", "value", "text", "ok"), cursor.getColumns());
+      Assertions.assertEquals(2, cursor.getColumnIndex("text"));
+      Assertions.assertEquals(-1, cursor.getColumnIndex("unknown"));
+      // nanosecond timestamps keep their precision
+      Assertions.assertEquals(1700000000000000001L, cursor.getLong(0));
+      Assertions.assertEquals(RowCursor.ValueType.LONG, cursor.getType(1));
+      Assertions.assertEquals(1.0, cursor.getDouble(1));
+      Assertions.assertEquals("x", cursor.getString(2));
+      Assertions.assertTrue(cursor.getBoolean(3));
+
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals(1700000000000000002L, cursor.getLong(0));
+      Assertions.assertEquals(RowCursor.ValueType.DOUBLE, cursor.getType(1));
+      Assertions.assertEquals(2.5, cursor.getDouble(1));
+      Assertions.assertTrue(cursor.isNull(2));
+      Assertions.assertNull(cursor.getValue(2));
+      Assertions.assertFalse(cursor.getBoolean(3));
+
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals(Collections.singletonMap("host", "b"), cursor.getTags());
+      Assertions.assertEquals(1700000000000000003L, cursor.getValue(0));
+      Assertions.assertEquals(3.0, cursor.getDouble(1));
+      Assertions.assertEquals("y", cursor.getValue(2));
+      Assertions.assertEquals(0, cursor.getStatementId());
+
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals(1, cursor.getStatementId());
+      Assertions.assertEquals("mem", cursor.getSeriesName());
+      Assertions.assertTrue(cursor.getTags().isEmpty());
+      Assertions.assertEquals(4L, cursor.getLong(0));
+      Assertions.assertEquals(1000.0, cursor.getDouble(1));
+      Assertions.assertThrows(IndexOutOfBoundsException.class, () -> cursor.getLong(2));
+
+      Assertions.assertFalse(cursor.next());
+      Assertions.assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testTypeMismatch() {
+    try (RowCursor cursor = connect(200, CHUNKS).queryRows(new Query("SELECT * FROM cpu", "db"), 2)) {
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertThrows(IllegalStateException.class, () -> cursor.getLong(3));
+      Assertions.assertThrows(IllegalStateException.class, () -> cursor.getBoolean(0));
+      Assertions.assertThrows(NumberFormatException.class, () -> cursor.getDouble(2));
+      Assertions.assertEquals("1", cursor.getString(1));
+    }
+  }
+
+  @Test
+  public void testCloseBeforeTheEnd() {
+    RowCursor cursor = connect(200, CHUNKS).queryRows(new Query("SELECT * FROM cpu", "db"), 2);
+    Assertions.assertTrue(cursor.next());
+    cursor.close();
+    Assertions.assertFalse(cursor.next());
+  }
+
+  @Test
+  public void testEmptyResults() {
+    String body = "{\"results\":[{\"statement_id\":0}]}\n{\"results\":[{\"statement_id\":1,\"series\":[]}]}\n";
+    try (RowCursor cursor = connect(200, body).queryRows(new Query("SELECT * FROM cpu", "db"), 2)) {
+      Assertions.assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testErrorInTheResults() {
+    String body = "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\"],"
+        + "\"values\":[[1]]}]}]}\n{\"results\":[{\"statement_id\":0,\"error\":\"shard not found\"}]}\n";
+    try (RowCursor cursor = connect(200, body).queryRows(new Query("SELECT * FROM cpu", "db"), 2)) {
+      Assertions.assertTrue(cursor.next());
+      InfluxDBException e = Assertions.assertThrows(InfluxDBException.class, cursor::next);
+      Assertions.assertEquals("shard not found", e.getMessage());
+      Assertions.assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testFailedQuery() {
+    InfluxDB db = connect(400, "{\"error\":\"database not found: db\"}");
+    Assertions.assertThrows(InfluxDBException.DatabaseNotFoundException.class,
+        () -> db.queryRows(new Query("SELECT * FROM cpu", "db"), 2));
+  }
+}
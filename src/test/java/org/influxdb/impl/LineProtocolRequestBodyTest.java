@@ -0,0 +1,93 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+
+@RunWith(JUnitPlatform.class)
+public class LineProtocolRequestBodyTest {
+
+  private static byte[] writeTo(final LineProtocolRequestBody body) throws IOException {
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    return buffer.readByteArray();
+  }
+
+  @Test
+  public void testBodyEqualsLineProtocolOfBatchPoints() throws IOException {
+    BatchPoints batchPoints = BatchPoints.database("db").precision(TimeUnit.MILLISECONDS)
+        .point(Point.measurement("cpu,load").tag("host name", "server=01").addField("idle", 90.5)
+            .addField("comment", "say \"hi\"").time(1_500_000_000_000L, TimeUnit.MILLISECONDS).build())
+        .point(Point.measurement("temperature").tag("city", "Zürich").addField("value", 21L)
+            .addField("unit", "°C").build())
+        .point(Point.measurement("emoji").tag("icon", "😀").addField("text", "日本語").build())
+        // no fields to write, serialized as empty line
+        .point(Point.measurement("empty").addField("nan", Double.NaN).build())
+        .build();
+
+    LineProtocolRequestBody body = new LineProtocolRequestBody(InfluxDBImpl.MEDIA_TYPE_STRING, batchPoints);
+
+    Assertions.assertArrayEquals(batchPoints.lineProtocol().getBytes(StandardCharsets.UTF_8), writeTo(body));
+    Assertions.assertEquals(-1, body.contentLength());
+    Assertions.assertEquals(InfluxDBImpl.MEDIA_TYPE_STRING, body.contentType());
+  }
+
+  @Test
+  public void testUnpairedSurrogateIsEncodedLikeString() throws IOException {
+    BatchPoints batchPoints = BatchPoints.database("db")
+        .point(Point.measurement("broken").addField("text", "a\uD83Db").build()).build();
+
+    LineProtocolRequestBody body = new LineProtocolRequestBody(InfluxDBImpl.MEDIA_TYPE_STRING, batchPoints);
+
+    Assertions.assertArrayEquals(batchPoints.lineProtocol().getBytes(StandardCharsets.UTF_8), writeTo(body));
+  }
+
+  @Test
+  public void testBodyLargerThanTheEncodeBufferCanBeWrittenTwice() throws IOException {
+    BatchPoints.Builder builder = BatchPoints.database("db");
+    for (int i = 0; i < 10_000; i++) {
+      builder.point(Point.measurement("cpu").tag("host", "sérver" + (i % 10)).addField("idle", i)
+          .time(i, TimeUnit.SECONDS).build());
+    }
+    BatchPoints batchPoints = builder.build();
+    byte[] expected = batchPoints.lineProtocol().getBytes(StandardCharsets.UTF_8);
+
+    LineProtocolRequestBody body = new LineProtocolRequestBody(InfluxDBImpl.MEDIA_TYPE_STRING, batchPoints);
+
+    Assertions.assertArrayEquals(expected, writeTo(body));
+    // OkHttp writes the body again when it retries the request
+    Assertions.assertArrayEquals(expected, writeTo(body));
+  }
+
+  @Test
+  public void testBodyCanBeGzipped() throws IOException {
+    BatchPoints.Builder builder = BatchPoints.database("db");
+    for (int i = 0; i < 1000; i++) {
+      builder.point(Point.measurement("cpu").addField("idle", i).time(i, TimeUnit.SECONDS).build());
+    }
+    BatchPoints batchPoints = builder.build();
+    LineProtocolRequestBody body = new LineProtocolRequestBody(InfluxDBImpl.MEDIA_TYPE_STRING, batchPoints);
+
+    // the same way the GzipRequestInterceptor writes the body
+    Buffer compressed = new Buffer();
+    BufferedSink gzipSink = Okio.buffer(new GzipSink(compressed));
+    body.writeTo(gzipSink);
+    gzipSink.close();
+
+    byte[] decompressed = Okio.buffer(new GzipSource(compressed)).readByteArray();
+    Assertions.assertArrayEquals(batchPoints.lineProtocol().getBytes(StandardCharsets.UTF_8), decompressed);
+  }
+}
@@ -0,0 +1,143 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.RowCursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+@RunWith(JUnitPlatform.class)
+public class MessagePackRowCursorTest {
+
+  private static final MediaType MSGPACK = MediaType.parse("application/x-msgpack");
+
+  private static byte[] resource(final String name) throws IOException {
+    try (InputStream is = MessagePackRowCursorTest.class.getResourceAsStream("/org/influxdb/msgpack/" + name)) {
+      return Okio.buffer(Okio.source(is)).readByteArray();
+    }
+  }
+
+  private static byte[] chunk(final MessageBufferPacker packer) throws IOException {
+    packer.close();
+    return packer.toByteArray();
+  }
+
+  /**
+   * {"results":[{"statement_id":1,"series":[{"name":"cpu","tags":{"host":"a"},"columns":[...],"values":[...]}]}]}
+   */
+  private static byte[] rows() throws IOException {
+    MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+    packer.packMapHeader(1).packString("results").packArrayHeader(1);
+    packer.packMapHeader(2).packString("statement_id").packInt(1).packString("series").packArrayHeader(1);
+    packer.packMapHeader(5).packString("name").packString("cpu")
+        .packString("tags").packMapHeader(1).packString("host").packString("a")
+        .packString("columns").packArrayHeader(5)
+        .packString("time").packString("value").packString("count").packString("ok").packString("text")
+        .packString("partial").packBoolean(true)
+        .packString("values").packArrayHeader(2);
+    packer.packArrayHeader(5).packLong(10).packDouble(1.5).packLong(-3).packBoolean(true).packString("x");
+    packer.packArrayHeader(5).packLong(20).packNil().packBigInteger(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE))
+        .packBoolean(false).packNil();
+    return chunk(packer);
+  }
+
+  private static RowCursor cursor(final byte[] body) {
+    return new MessagePackRowCursor(ResponseBody.create(MSGPACK, body));
+  }
+
+  @Test
+  public void testRowsOfTheServerAcrossChunks() throws IOException {
+    try (RowCursor cursor = cursor(resource("msgpack_1.bin"))) {
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals("disk", cursor.getSeriesName());
+      Assertions.assertEquals(Arrays.asList("time", "atag", "free", "used"), cursor.getColumns());
+      // the timestamp extension is decoded to epoch nanos
+      Assertions.assertEquals(RowCursor.ValueType.LONG, cursor.getType(0));
+      Assertions.assertEquals(1532325083803052600L, cursor.getLong(0));
+      Assertions.assertEquals("a", cursor.getString(1));
+      Assertions.assertEquals(1L, cursor.getLong(2));
+      Assertions.assertEquals(60L, cursor.getValue(3));
+
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals("b", cursor.getString(1));
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals("c", cursor.getString(1));
+      Assertions.assertEquals(80L, cursor.getLong(3));
+      Assertions.assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testValueTypes() throws IOException {
+    try (RowCursor cursor = cursor(rows())) {
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertEquals(1, cursor.getStatementId());
+      Assertions.assertEquals(Collections.singletonMap("host", "a"), cursor.getTags());
+      Assertions.assertEquals(10L, cursor.getLong(0));
+      Assertions.assertEquals(RowCursor.ValueType.DOUBLE, cursor.getType(1));
+      Assertions.assertEquals(1.5, cursor.getDouble(1));
+      Assertions.assertEquals(-3L, cursor.getLong(2));
+      Assertions.assertTrue(cursor.getBoolean(3));
+      Assertions.assertEquals("x", cursor.getString(4));
+
+      Assertions.assertTrue(cursor.next());
+      Assertions.assertTrue(cursor.isNull(1));
+      // beyond the range of long
+      Assertions.assertEquals(RowCursor.ValueType.DOUBLE, cursor.getType(2));
+      Assertions.assertEquals(Math.pow(2, 64), cursor.getDouble(2));
+      Assertions.assertFalse(cursor.getBoolean(3));
+      Assertions.assertNull(cursor.getString(4));
+      Assertions.assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testErrorInTheResults() throws IOException {
+    MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+    packer.packMapHeader(1).packString("results").packArrayHeader(1);
+    packer.packMapHeader(2).packString("statement_id").packInt(0).packString("error").packString("shard not found");
+    try (RowCursor cursor = cursor(chunk(packer))) {
+      InfluxDBException e = Assertions.assertThrows(InfluxDBException.class, cursor::next);
+      Assertions.assertEquals("shard not found", e.getMessage());
+      Assertions.assertFalse(cursor.next());
+    }
+  }
+
+  @Test
+  public void testQueryRowsOfMessagePackResponses() throws IOException {
+    byte[] body = resource("msgpack_1.bin");
+    OkHttpClient.Builder client = new OkHttpClient.Builder().addInterceptor(chain ->
+        new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(200).message("")
+            .body(ResponseBody.create(MSGPACK, body)).build());
+    InfluxDB influxDB = InfluxDBFactory.connect("http://localhost:8086", "admin", "admin", client,
+        InfluxDB.ResponseFormat.MSGPACK);
+    try (RowCursor cursor = influxDB.queryRows(new Query("SELECT * FROM disk", "db"), 2)) {
+      int rows = 0;
+      while (cursor.next()) {
+        rows++;
+      }
+      Assertions.assertEquals(3, rows);
+    } finally {
+      influxDB.close();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.influxdb.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class PipelinedBatchWriterTest {
+
+  private static BatchPoints batch(final String database, final int value) {
+    return BatchPoints.database(database).point(Point.measurement("cpu").addField("idle", value).build()).build();
+  }
+
+  @Test
+  public void testWriteReturnsWhileTheRequestIsInFlight() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(mockInfluxDB).write(any(BatchPoints.class));
+    PipelinedBatchWriter writer = new PipelinedBatchWriter(new OneShotBatchWriter(mockInfluxDB), 2,
+        Executors.defaultThreadFactory());
+
+    CompletableFuture<Void> written = writer.write(Collections.singletonList(batch("db1", 1)));
+    Assertions.assertFalse(written.isDone());
+    Assertions.assertEquals(1, writer.inFlightRequests());
+
+    release.countDown();
+    written.get(5, TimeUnit.SECONDS);
+    writer.close();
+    Assertions.assertEquals(0, writer.inFlightRequests());
+  }
+
+  @Test
+  public void testRetryCapableWriterHasSeveralRequestsInFlight() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    // both requests have to be in flight at the same time to pass the barrier
+    CyclicBarrier inFlight = new CyclicBarrier(2);
+    doAnswer(invocation -> inFlight.await(5, TimeUnit.SECONDS)).when(mockInfluxDB).write(any(BatchPoints.class));
+    RetryCapableBatchWriter retryCapableBatchWriter = new RetryCapableBatchWriter(mockInfluxDB,
+        (points, throwable) -> { }, 10_000, 1000);
+    PipelinedBatchWriter writer = new PipelinedBatchWriter(retryCapableBatchWriter, 2,
+        Executors.defaultThreadFactory());
+
+    CompletableFuture<Void> first = writer.write(Collections.singletonList(batch("db1", 1)));
+    CompletableFuture<Void> second = writer.write(Collections.singletonList(batch("db2", 2)));
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    writer.close();
+
+    verify(mockInfluxDB, times(2)).write(any(BatchPoints.class));
+    Assertions.assertEquals(0, inFlight.getNumberWaiting());
+    Assertions.assertFalse(inFlight.isBroken());
+  }
+
+  @Test
+  public void testBatchesOfOneDatabaseAreWrittenInOrder() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    List<BatchPoints> written = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      BatchPoints batchPoints = invocation.getArgument(0);
+      if (written.isEmpty()) {
+        // keep the first request in flight until all others are handed over
+        release.await(5, TimeUnit.SECONDS);
+      }
+      written.add(batchPoints);
+      return null;
+    }).when(mockInfluxDB).write(any(BatchPoints.class));
+    PipelinedBatchWriter writer = new PipelinedBatchWriter(new OneShotBatchWriter(mockInfluxDB), 4,
+        Executors.defaultThreadFactory());
+
+    List<BatchPoints> batches = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      BatchPoints batchPoints = batch("db1", i);
+      batches.add(batchPoints);
+      writer.write(Collections.singletonList(batchPoints));
+    }
+    release.countDown();
+    writer.close();
+
+    Assertions.assertEquals(batches, written);
+  }
+
+  @Test
+  public void testWriteBlocksWhenMaxInFlightRequestsIsReached() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(mockInfluxDB).write(any(BatchPoints.class));
+    PipelinedBatchWriter writer = new PipelinedBatchWriter(new OneShotBatchWriter(mockInfluxDB), 2,
+        Executors.defaultThreadFactory());
+    writer.write(Collections.singletonList(batch("db1", 1)));
+    writer.write(Collections.singletonList(batch("db2", 1)));
+
+    Thread third = new Thread(() -> writer.write(Collections.singletonList(batch("db3", 1))));
+    third.start();
+    third.join(200);
+    Assertions.assertTrue(third.isAlive());
+    verify(mockInfluxDB, timeout(1000).times(2)).write(any(BatchPoints.class));
+
+    release.countDown();
+    third.join(5000);
+    Assertions.assertFalse(third.isAlive());
+    writer.close();
+    verify(mockInfluxDB, times(3)).write(any(BatchPoints.class));
+  }
+
+  @Test
+  public void testFailedWriteCompletesTheFutureExceptionally() {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    RuntimeException failure = new RuntimeException("write failed");
+    doAnswer(invocation -> {
+      throw failure;
+    }).when(mockInfluxDB).write(any(BatchPoints.class));
+    PipelinedBatchWriter writer = new PipelinedBatchWriter(new OneShotBatchWriter(mockInfluxDB), 2,
+        Executors.defaultThreadFactory());
+
+    CompletableFuture<Void> written = writer.write(Collections.singletonList(batch("db1", 1)));
+    CompletionException e = Assertions.assertThrows(CompletionException.class, written::join);
+    Assertions.assertSame(failure, e.getCause());
+
+    // the failure is not passed on to later writes
+    doAnswer(invocation -> null).when(mockInfluxDB).write(any(BatchPoints.class));
+    writer.write(Collections.singletonList(batch("db1", 2))).join();
+    writer.close();
+  }
+}
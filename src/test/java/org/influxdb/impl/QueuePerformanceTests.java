@@ -0,0 +1,97 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares the action queues under contention of many writer threads. Disabled like the other performance tests,
+ * run them explicitly.
+ */
+@Disabled
+@RunWith(JUnitPlatform.class)
+public class QueuePerformanceTests {
+
+  private static final int CAPACITY = 1000;
+
+  @Test
+  public void testContentionComparedToLinkedBlockingQueue() throws Exception {
+    int producers = Math.max(4, Runtime.getRuntime().availableProcessors());
+    int perProducer = 100_000;
+
+    long linked = measure(() -> new LinkedBlockingQueue<>(CAPACITY), producers, perProducer);
+    long ring = measure(() -> new RingBufferQueue<>(CAPACITY), producers, perProducer);
+
+    System.out.println("Action queue contention with " + producers + " producers x " + perProducer + " puts: "
+        + "LinkedBlockingQueue " + TimeUnit.NANOSECONDS.toMillis(linked) + "ms, "
+        + "RingBufferQueue " + TimeUnit.NANOSECONDS.toMillis(ring) + "ms");
+  }
+
+  @Test
+  public void testThroughputComparedToSingleQueues() throws Exception {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int producers = 4 * processors;
+    int perProducer = 50_000;
+
+    long linked = measure(() -> new LinkedBlockingQueue<>(CAPACITY), producers, perProducer);
+    long ring = measure(() -> new RingBufferQueue<>(CAPACITY), producers, perProducer);
+    long striped = measure(() -> new StripedRingBufferQueue<>(processors, CAPACITY, CAPACITY), producers, perProducer);
+
+    System.out.println("Action queue throughput with " + producers + " producers x " + perProducer + " puts: "
+        + "LinkedBlockingQueue " + TimeUnit.NANOSECONDS.toMillis(linked) + "ms, "
+        + "RingBufferQueue " + TimeUnit.NANOSECONDS.toMillis(ring) + "ms, "
+        + "StripedRingBufferQueue " + TimeUnit.NANOSECONDS.toMillis(striped) + "ms");
+  }
+
+  private static long measure(final Supplier<BlockingQueue<Integer>> queueSupplier, final int producers,
+                              final int perProducer) throws Exception {
+    BlockingQueue<Integer> queue = queueSupplier.get();
+    AtomicBoolean done = new AtomicBoolean(false);
+    int[] consumed = new int[1];
+    Thread consumer = new Thread(() -> {
+      List<Integer> batch = new ArrayList<>();
+      while (!done.get() || !queue.isEmpty()) {
+        consumed[0] += queue.drainTo(batch);
+        batch.clear();
+      }
+    });
+    consumer.start();
+
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int p = 0; p < producers; p++) {
+      executor.execute(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < perProducer; i++) {
+            queue.put(i);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    long started = System.nanoTime();
+    start.countDown();
+    executor.shutdown();
+    Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    long elapsed = System.nanoTime() - started;
+    done.set(true);
+    consumer.join();
+    Assertions.assertEquals(producers * perProducer, consumed[0]);
+    return elapsed;
+  }
+}
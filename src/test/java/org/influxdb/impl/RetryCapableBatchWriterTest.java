@@ -1,5 +1,6 @@
 package org.influxdb.impl;
 
+import org.influxdb.BatchOptions.SpoolFsyncPolicy;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBException;
 import org.influxdb.TestAnswer;
@@ -14,13 +15,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.lang.reflect.Field;
 
 import static org.mockito.Mockito.mock;
@@ -293,6 +300,127 @@ public class RetryCapableBatchWriterTest {
     }
   }
 
+  @Test
+  public void testConcurrentWriteQueuesOnlyTheFailedBatches() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    BiConsumer errorHandler = mock(BiConsumer.class);
+    ExecutorService flushExecutor = Executors.newFixedThreadPool(3);
+    RetryCapableBatchWriter rw = new RetryCapableBatchWriter(mockInfluxDB, errorHandler,
+            1000, 100, flushExecutor);
+    BatchPoints bp0 = getBP(5);
+    BatchPoints bp1 = getBP(6);
+    BatchPoints bp2 = getBP(7);
+
+    Exception nonRecoverable = InfluxDBException.buildExceptionForErrorState("{ \"error\": \"database not found: cvfdgf\" }");
+    Exception recoverable = InfluxDBException.buildExceptionForErrorState("{ \"error\": \"cache-max-memory-size exceeded 104/1400\" }");
+    Mockito.doThrow(nonRecoverable).when(mockInfluxDB).write(bp0);
+    Mockito.doThrow(recoverable).when(mockInfluxDB).write(bp1);
+    rw.write(Arrays.asList(bp0, bp1, bp2));
+
+    verify(mockInfluxDB, times(3)).write(any(BatchPoints.class));
+    verify(errorHandler, times(1)).accept(bp0.getPoints(), nonRecoverable);
+
+    Field localBatchQueue = RetryCapableBatchWriter.class.getDeclaredField("batchQueue");
+    localBatchQueue.setAccessible(true);
+    Assertions.assertEquals(Collections.singletonList(bp1), localBatchQueue.get(rw));
+    flushExecutor.shutdown();
+  }
+
+  @Test
+  public void testFailedWritesAreSpooledAndReplayedInOrder() throws Exception {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    BiConsumer errorHandler = mock(BiConsumer.class);
+    Path directory = Files.createTempDirectory("influxdb-spool");
+    DiskSpool spool = new DiskSpool(directory, 4096, 4096 * 4, SpoolFsyncPolicy.ON_ROLLOVER);
+    RetryCapableBatchWriter rw = new RetryCapableBatchWriter(mockInfluxDB, errorHandler,
+            1000, 100, null, spool);
+    BatchPoints bp0 = getBP(5);
+    BatchPoints bp1 = getBP(6);
+    BatchPoints bp2 = getBP(7);
+
+    Exception recoverable = InfluxDBException.buildExceptionForErrorState("{ \"error\": \"cache-max-memory-size exceeded 104/1400\" }");
+    Mockito.doThrow(recoverable).when(mockInfluxDB).write(bp0);
+    // the replay of the spooled batches fails twice
+    Mockito.doThrow(recoverable).doThrow(recoverable).doNothing().when(mockInfluxDB)
+        .write(eq("d1"), any(), any(), any(), anyString());
+    rw.write(Collections.singletonList(bp0));
+    // not sent while an earlier batch is spooled
+    rw.write(Collections.singletonList(bp1));
+    rw.write(Collections.singletonList(bp2));
+    Assertions.assertEquals(3, spool.size());
+    verify(mockInfluxDB, never()).write(bp1);
+    verify(mockInfluxDB, never()).write(bp2);
+
+    rw.write(Collections.emptyList());
+    Assertions.assertTrue(spool.isEmpty());
+
+    ArgumentCaptor<String> records = ArgumentCaptor.forClass(String.class);
+    verify(mockInfluxDB, times(5)).write(eq("d1"), any(), any(), any(), records.capture());
+    Assertions.assertEquals(Arrays.asList(bp0.lineProtocol(), bp0.lineProtocol(), bp0.lineProtocol(),
+        bp1.lineProtocol(), bp2.lineProtocol()), records.getAllValues());
+    verify(errorHandler, never()).accept(any(), any());
+    rw.close();
+    // the active segment and the lock file are left
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testRetryBufferIsLimitedInBytes() {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    BiConsumer errorHandler = mock(BiConsumer.class);
+    BatchPoints bp0 = getBP(5);
+    BatchPoints bp1 = getBP(5);
+    BatchPoints bp2 = getBP(5);
+    // "x1 x=1i\n"
+    long batchBytes = 5 * 8;
+    RetryCapableBatchWriter rw = new RetryCapableBatchWriter(mockInfluxDB, errorHandler,
+            1000, 100, null, batchBytes * 2, (int) batchBytes);
+
+    Exception recoverable = InfluxDBException.buildExceptionForErrorState("{ \"error\": \"cache-max-memory-size exceeded 104/1400\" }");
+    Mockito.doThrow(recoverable).when(mockInfluxDB).write(any(BatchPoints.class));
+    rw.write(Collections.singletonList(bp0));
+    rw.write(Collections.singletonList(bp1));
+    verify(errorHandler, never()).accept(any(), any());
+    // the third batch exceeds the bytes of the buffer
+    rw.write(Collections.singletonList(bp2));
+    ArgumentCaptor<Throwable> overrun = ArgumentCaptor.forClass(Throwable.class);
+    verify(errorHandler, times(1)).accept(eq(bp0.getPoints()), overrun.capture());
+    Assertions.assertTrue(overrun.getValue() instanceof InfluxDBException.RetryBufferOverrunException);
+    Assertions.assertEquals("Retry buffer overrun, current capacity: 1000 points, 80 bytes",
+        overrun.getValue().getMessage());
+
+    // the batches are not merged beyond the request bytes limit
+    ArgumentCaptor<BatchPoints> captor = ArgumentCaptor.forClass(BatchPoints.class);
+    Mockito.reset(mockInfluxDB);
+    rw.write(Collections.emptyList());
+    verify(mockInfluxDB, times(2)).write(captor.capture());
+    Assertions.assertEquals(5, captor.getAllValues().get(0).getPoints().size());
+    Assertions.assertEquals(5, captor.getAllValues().get(1).getPoints().size());
+  }
+
+  @Test
+  public void testRetryBufferOverrunMessageWithoutBytesLimit() {
+    InfluxDB mockInfluxDB = mock(InfluxDBImpl.class);
+    BiConsumer errorHandler = mock(BiConsumer.class);
+    RetryCapableBatchWriter rw = new RetryCapableBatchWriter(mockInfluxDB, errorHandler,
+            8, 5, null, 0, 0);
+
+    Exception recoverable = InfluxDBException.buildExceptionForErrorState("{ \"error\": \"cache-max-memory-size exceeded 104/1400\" }");
+    Mockito.doThrow(recoverable).when(mockInfluxDB).write(any(BatchPoints.class));
+    BatchPoints bp0 = getBP(5);
+    rw.write(Collections.singletonList(bp0));
+    rw.write(Collections.singletonList(getBP(5)));
+
+    ArgumentCaptor<Throwable> overrun = ArgumentCaptor.forClass(Throwable.class);
+    verify(errorHandler, times(1)).accept(eq(bp0.getPoints()), overrun.capture());
+    Assertions.assertEquals("Retry buffer overrun, current capacity: 8", overrun.getValue().getMessage());
+  }
+
   private static String createErrorBody(String errorMessage) {
     return MessageFormat.format("'{' \"error\": \"{0}\" '}'", errorMessage);
   }
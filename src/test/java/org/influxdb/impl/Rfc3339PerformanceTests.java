@@ -0,0 +1,171 @@
+package org.influxdb.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares time and allocated bytes per timestamp of {@link Rfc3339} with the {@link DateTimeFormatter} it falls
+ * back to and the {@link SimpleDateFormat}s {@link TimeUtil} used before. Disabled like the other performance
+ * tests, run them explicitly.
+ */
+@Disabled
+@RunWith(JUnitPlatform.class)
+public class Rfc3339PerformanceTests {
+
+  private static final int WARM_UP_ROUNDS = 20;
+  private static final int ROUNDS = 50;
+  private static final int TIMESTAMPS = 10_000;
+
+  // the formatter of Rfc3339 for the timestamps which are not in the canonical form
+  private static final DateTimeFormatter RFC3339_FORMATTER = new DateTimeFormatterBuilder()
+      .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
+      .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+      .appendZoneOrOffsetId()
+      .toFormatter();
+
+  private long sink;
+
+  @Test
+  public void testParseComparedToFormatters() {
+    long[] epochNanos = epochNanos();
+    String[] nanoTimestamps = new String[TIMESTAMPS];
+    String[] milliTimestamps = new String[TIMESTAMPS];
+    for (int i = 0; i < TIMESTAMPS; i++) {
+      nanoTimestamps[i] = Rfc3339.formatEpochNanos(epochNanos[i]);
+      milliTimestamps[i] = TimeUtil.toInfluxDBTimeFormat(TimeUnit.NANOSECONDS.toMillis(epochNanos[i]));
+    }
+    SimpleDateFormat simpleDateFormat = simpleDateFormat();
+
+    compare("Parse RFC3339Nano", "DateTimeFormatter", () -> {
+      for (String timestamp : nanoTimestamps) {
+        sink += Instant.from(RFC3339_FORMATTER.parse(timestamp)).getNano();
+      }
+    }, "Rfc3339.parseInstant", () -> {
+      for (String timestamp : nanoTimestamps) {
+        sink += Rfc3339.parseInstant(timestamp).getNano();
+      }
+    });
+    compare("Parse milliseconds", "SimpleDateFormat", () -> {
+      for (String timestamp : milliTimestamps) {
+        try {
+          sink += simpleDateFormat.parse(timestamp).getTime();
+        } catch (ParseException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }, "Rfc3339.parseEpochMillis", () -> {
+      for (String timestamp : milliTimestamps) {
+        sink += Rfc3339.parseEpochMillis(timestamp);
+      }
+    });
+  }
+
+  @Test
+  public void testFormatComparedToFormatters() {
+    long[] epochNanos = epochNanos();
+    SimpleDateFormat simpleDateFormat = simpleDateFormat();
+
+    compare("Format RFC3339Nano", "DateTimeFormatter", () -> {
+      for (long nanos : epochNanos) {
+        sink += RFC3339_FORMATTER.format(Instant.ofEpochSecond(0, nanos).atOffset(ZoneOffset.UTC)).length();
+      }
+    }, "Rfc3339.formatEpochNanos", () -> {
+      for (long nanos : epochNanos) {
+        sink += Rfc3339.formatEpochNanos(nanos).length();
+      }
+    });
+    compare("Format milliseconds", "SimpleDateFormat", () -> {
+      for (long nanos : epochNanos) {
+        sink += simpleDateFormat.format(TimeUnit.NANOSECONDS.toMillis(nanos)).length();
+      }
+    }, "TimeUtil.toInfluxDBTimeFormat", () -> {
+      for (long nanos : epochNanos) {
+        sink += TimeUtil.toInfluxDBTimeFormat(TimeUnit.NANOSECONDS.toMillis(nanos)).length();
+      }
+    });
+  }
+
+  private static long[] epochNanos() {
+    long[] epochNanos = new long[TIMESTAMPS];
+    Random random = new Random(1);
+    for (int i = 0; i < TIMESTAMPS; i++) {
+      // timestamps of the last ten years with nanoseconds
+      epochNanos[i] = 1_500_000_000_000_000_000L + (random.nextLong() & Long.MAX_VALUE) % 315_360_000_000_000_000L;
+    }
+    return epochNanos;
+  }
+
+  /**
+   * The millisecond format of {@link TimeUtil} before it used {@link Rfc3339}.
+   */
+  private static SimpleDateFormat simpleDateFormat() {
+    SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+    simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return simpleDateFormat;
+  }
+
+  /**
+   * Warms up and measures both rounds of {@link #TIMESTAMPS} timestamps and prints the results.
+   */
+  private void compare(final String title, final String firstName, final Runnable first, final String secondName,
+                       final Runnable second) {
+    for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+      first.run();
+      second.run();
+    }
+    long[] firstResult = measure(first);
+    long[] secondResult = measure(second);
+    System.out.println(title + " of " + ROUNDS * TIMESTAMPS + " timestamps: "
+        + result(firstName, firstResult) + ", " + result(secondName, secondResult));
+    Assertions.assertTrue(sink != 0);
+  }
+
+  private static String result(final String name, final long[] result) {
+    String allocations = "allocations not measurable";
+    if (result[1] >= 0) {
+      allocations = (result[1] / (ROUNDS * TIMESTAMPS)) + " bytes allocated per timestamp";
+    }
+    return name + " " + TimeUnit.NANOSECONDS.toMillis(result[0]) + "ms, " + allocations;
+  }
+
+  /**
+   * @return elapsed nanoseconds and allocated bytes of the current thread, -1 if the JVM does not measure them
+   */
+  private static long[] measure(final Runnable runnable) {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    long allocatedBefore = allocatedBytes(threadMXBean);
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      runnable.run();
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocatedAfter = allocatedBytes(threadMXBean);
+    if (allocatedBefore < 0 || allocatedAfter < 0) {
+      return new long[] {elapsed, -1};
+    }
+    return new long[] {elapsed, allocatedAfter - allocatedBefore};
+  }
+
+  private static long allocatedBytes(final ThreadMXBean threadMXBean) {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,105 @@
+package org.influxdb.impl;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class Rfc3339Test {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private static long epochNanos(final Instant instant) {
+    return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+  }
+
+  @Test
+  public void testParseFractions() {
+    Assertions.assertEquals(1477896740000000000L, Rfc3339.parseEpochNanos("2016-10-31T06:52:20Z"));
+    Assertions.assertEquals(1477896740000000000L, Rfc3339.parseEpochNanos("2016-10-31T06:52:20.Z"));
+    Assertions.assertEquals(1477896740500000000L, Rfc3339.parseEpochNanos("2016-10-31T06:52:20.5Z"));
+    Assertions.assertEquals(1477896740020000000L, Rfc3339.parseEpochNanos("2016-10-31T06:52:20.020Z"));
+    Assertions.assertEquals(1477896740123456789L, Rfc3339.parseEpochNanos("2016-10-31T06:52:20.123456789Z"));
+    Assertions.assertEquals(1477896740123456789L, Rfc3339.parseEpochNanos("2016-10-31t06:52:20.123456789z"));
+  }
+
+  @Test
+  public void testParseOffsets() {
+    Assertions.assertEquals(1477896740000000000L, Rfc3339.parseEpochNanos("2016-10-31T08:52:20+02:00"));
+    Assertions.assertEquals(1477896740000000000L, Rfc3339.parseEpochNanos("2016-10-30T21:22:20-09:30"));
+    Assertions.assertEquals(1477896740000000000L, Rfc3339.parseEpochNanos("2016-10-31T06:52:20+00:00"));
+    Assertions.assertEquals(Instant.parse("2016-10-31T06:52:20Z"),
+        Rfc3339.parseInstant("2016-10-31T07:52:20Europe/Paris"));
+  }
+
+  @Test
+  public void testParseBeyondNanos() {
+    Assertions.assertEquals(Instant.parse("0001-01-01T00:00:00.1Z"), Rfc3339.parseInstant("0001-01-01T00:00:00.1Z"));
+    Assertions.assertEquals(Instant.parse("9999-12-31T23:59:59Z"), Rfc3339.parseInstant("9999-12-31T23:59:59Z"));
+    Assertions.assertThrows(ArithmeticException.class, () -> Rfc3339.parseEpochNanos("9999-12-31T23:59:59Z"));
+  }
+
+  @Test
+  public void testParseResolvesLikeDateTimeFormatter() {
+    Assertions.assertEquals(Instant.parse("2016-02-29T06:52:20Z"), Rfc3339.parseInstant("2016-02-30T06:52:20Z"));
+    Assertions.assertEquals(Instant.parse("2016-11-01T00:00:00Z"), Rfc3339.parseInstant("2016-10-31T24:00:00Z"));
+  }
+
+  @Test
+  public void testParseInvalid() {
+    for (String text : new String[] {"", "2016-10-31", "2016-10-31T06:52:20", "2016-10-31T06:52:20.1234567890Z",
+        "2016-10-31T06:52:20ZZ", "2016-10-31T25:00:00Z", "2016-10-31T06:60:20Z", "2016-02-32T06:52:20Z",
+        "2016/10/31T06:52:20Z", "2016-10-31T06:52:20+1:00", "2016-10-31T06:52:20+19:00"}) {
+      Assertions.assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos(text), text);
+      Assertions.assertThrows(DateTimeParseException.class, () -> Rfc3339.parseInstant(text), text);
+    }
+  }
+
+  @Test
+  public void testParseLikeDateTimeFormatter() {
+    Random random = new Random(0);
+    for (int i = 0; i < 10000; i++) {
+      long seconds = (random.nextLong() % (200L * 365 * 86400));
+      int nano = random.nextInt((int) NANOS_PER_SECOND);
+      int offset = (random.nextInt(35) - 17) * 3600 + random.nextInt(2) * 1800;
+      OffsetDateTime dateTime = Instant.ofEpochSecond(seconds, nano).atOffset(ZoneOffset.ofTotalSeconds(offset));
+      String text = dateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+
+      Assertions.assertEquals(epochNanos(dateTime.toInstant()), Rfc3339.parseEpochNanos(text), text);
+      Assertions.assertEquals(dateTime.toInstant(), Rfc3339.parseInstant(text), text);
+    }
+  }
+
+  @Test
+  public void testFormat() {
+    Assertions.assertEquals("2016-10-31T06:52:20Z", Rfc3339.formatEpochNanos(1477896740000000000L));
+    Assertions.assertEquals("2016-10-31T06:52:20.02Z", Rfc3339.formatEpochNanos(1477896740020000000L));
+    Assertions.assertEquals("2016-10-31T06:52:20.123456789Z", Rfc3339.formatEpochNanos(1477896740123456789L));
+    Assertions.assertEquals("1969-12-31T23:59:59.999999999Z", Rfc3339.formatEpochNanos(-1L));
+    Assertions.assertEquals("1677-09-21T00:12:43.145224192Z", Rfc3339.formatEpochNanos(Long.MIN_VALUE));
+    Assertions.assertEquals("2262-04-11T23:47:16.854775807Z", Rfc3339.formatEpochNanos(Long.MAX_VALUE));
+    Assertions.assertEquals("x=2016-10-31T06:52:20Z",
+        Rfc3339.appendEpochNanos(new StringBuilder("x="), 1477896740000000000L).toString());
+  }
+
+  @Test
+  public void testFormatLikeInstant() {
+    Random random = new Random(0);
+    for (int i = 0; i < 10000; i++) {
+      long nanos = random.nextLong();
+      String text = Rfc3339.formatEpochNanos(nanos);
+
+      Assertions.assertEquals(Instant.ofEpochSecond(0, nanos), Instant.parse(text), text);
+      Assertions.assertEquals(nanos, Rfc3339.parseEpochNanos(text), text);
+    }
+  }
+}
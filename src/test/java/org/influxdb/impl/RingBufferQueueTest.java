@@ -0,0 +1,130 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class RingBufferQueueTest {
+
+  @Test
+  public void testOfferAndPollKeepOrder() {
+    RingBufferQueue<Integer> queue = new RingBufferQueue<>(3);
+    Assertions.assertTrue(queue.isEmpty());
+    Assertions.assertNull(queue.poll());
+
+    // wrap around the ring a couple of times
+    for (int lap = 0; lap < 5; lap++) {
+      Assertions.assertTrue(queue.offer(lap));
+      Assertions.assertTrue(queue.offer(lap + 1));
+      Assertions.assertEquals(2, queue.size());
+      Assertions.assertEquals(lap, queue.peek());
+      Assertions.assertEquals(lap, queue.poll());
+      Assertions.assertEquals(lap + 1, queue.poll());
+      Assertions.assertTrue(queue.isEmpty());
+    }
+  }
+
+  @Test
+  public void testOfferFailsWhenFull() throws InterruptedException {
+    RingBufferQueue<String> queue = new RingBufferQueue<>(2);
+    Assertions.assertTrue(queue.offer("a"));
+    Assertions.assertTrue(queue.offer("b"));
+    Assertions.assertFalse(queue.offer("c"));
+    Assertions.assertFalse(queue.offer("c", 10, TimeUnit.MILLISECONDS));
+    Assertions.assertEquals(0, queue.remainingCapacity());
+
+    List<String> drained = new ArrayList<>();
+    Assertions.assertEquals(2, queue.drainTo(drained));
+    Assertions.assertEquals(2, drained.size());
+    Assertions.assertEquals("a", drained.get(0));
+    Assertions.assertEquals("b", drained.get(1));
+    Assertions.assertTrue(queue.offer("c"));
+  }
+
+  @Test
+  public void testPutBlocksUntilSpaceIsAvailable() throws InterruptedException {
+    RingBufferQueue<String> queue = new RingBufferQueue<>(2);
+    queue.put("a");
+    queue.put("b");
+    CountDownLatch putDone = new CountDownLatch(1);
+    Thread producer = new Thread(() -> {
+      try {
+        queue.put("c");
+        putDone.countDown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+
+    Assertions.assertFalse(putDone.await(100, TimeUnit.MILLISECONDS));
+    Assertions.assertEquals("a", queue.take());
+    Assertions.assertTrue(putDone.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals("b", queue.poll(1, TimeUnit.SECONDS));
+    Assertions.assertEquals("c", queue.poll(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCapacityOfOneIsRejected() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new RingBufferQueue<>(1));
+  }
+
+  @Test
+  public void testConcurrentProducersDoNotLoseElements() throws Exception {
+    int producers = 8;
+    int perProducer = 20_000;
+    RingBufferQueue<Integer> queue = new RingBufferQueue<>(1000);
+    Set<Integer> received = new HashSet<>();
+    AtomicBoolean done = new AtomicBoolean(false);
+
+    Thread consumer = new Thread(() -> {
+      List<Integer> batch = new ArrayList<>();
+      while (!done.get() || !queue.isEmpty()) {
+        queue.drainTo(batch);
+        received.addAll(batch);
+        batch.clear();
+      }
+    });
+    consumer.start();
+    runProducers(queue, producers, perProducer);
+    done.set(true);
+    consumer.join();
+
+    Assertions.assertEquals(producers * perProducer, received.size());
+  }
+
+  private static void runProducers(final BlockingQueue<Integer> queue, final int producers, final int perProducer)
+      throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int p = 0; p < producers; p++) {
+      int offset = p * perProducer;
+      executor.execute(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < perProducer; i++) {
+            queue.put(offset + i);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    start.countDown();
+    executor.shutdown();
+    Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+  }
+}
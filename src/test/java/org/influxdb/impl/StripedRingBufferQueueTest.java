@@ -0,0 +1,154 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class StripedRingBufferQueueTest {
+
+  @Test
+  public void testStripeCountIsRoundedUpToPowerOfTwo() {
+    Assertions.assertEquals(1, new StripedRingBufferQueue<>(1, 100, 100).stripeCount());
+    Assertions.assertEquals(4, new StripedRingBufferQueue<>(3, 100, 100).stripeCount());
+    Assertions.assertEquals(8, new StripedRingBufferQueue<>(8, 100, 100).stripeCount());
+  }
+
+  @Test
+  public void testSingleProducerFillsItsStripe() {
+    int actions = 1000;
+    StripedRingBufferQueue<Integer> queue = new StripedRingBufferQueue<>(64, actions, 10 * actions);
+    Assertions.assertEquals(64, queue.stripeCount());
+    for (int i = 0; i < actions; i++) {
+      Assertions.assertTrue(queue.offer(i));
+    }
+    // the stripe holds a whole batch, not a share of it
+    Assertions.assertEquals(actions, queue.homeStripeSize());
+    Assertions.assertFalse(queue.offer(actions));
+
+    List<Integer> batch = new ArrayList<>();
+    Assertions.assertEquals(actions, queue.drainTo(batch));
+    Assertions.assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testCapacityBoundsAllStripesTogether() throws InterruptedException {
+    StripedRingBufferQueue<Integer> queue = new StripedRingBufferQueue<>(4, 10, 15);
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertTrue(queue.offer(i));
+    }
+
+    // a thread appending to another stripe only finds the room left in the whole queue
+    int[] taken = new int[1];
+    while (taken[0] == 0) {
+      Thread other = new Thread(() -> {
+        if (queue.homeStripeSize() == 0) {
+          while (queue.offer(-1)) {
+            taken[0]++;
+          }
+        }
+      });
+      other.start();
+      other.join();
+    }
+    Assertions.assertEquals(5, taken[0]);
+    Assertions.assertEquals(15, queue.size());
+    Assertions.assertEquals(0, queue.remainingCapacity());
+
+    Assertions.assertEquals(15, queue.drainTo(new ArrayList<>()));
+    Assertions.assertTrue(queue.offer(0));
+    Assertions.assertEquals(1, queue.size());
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new StripedRingBufferQueue<>(4, 10, 9));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new StripedRingBufferQueue<>(4, 1, 8));
+  }
+
+  @Test
+  public void testEachStripeIsBoundedOnItsOwn() throws InterruptedException {
+    StripedRingBufferQueue<String> queue = new StripedRingBufferQueue<>(4, 2, 8);
+    Assertions.assertTrue(queue.offer("a"));
+    Assertions.assertTrue(queue.offer("b"));
+    Assertions.assertEquals(2, queue.homeStripeSize());
+    // the home stripe of this thread is full, no spill over into other stripes
+    Assertions.assertFalse(queue.offer("c"));
+    Assertions.assertEquals(0, queue.remainingCapacity());
+
+    // a thread appending to another stripe still finds room
+    AtomicBoolean taken = new AtomicBoolean(false);
+    while (!taken.get()) {
+      Thread other = new Thread(() -> {
+        if (queue.homeStripeSize() == 0) {
+          taken.set(queue.offer("d"));
+        }
+      });
+      other.start();
+      other.join();
+    }
+    Assertions.assertEquals(3, queue.size());
+
+    List<String> drained = new ArrayList<>();
+    Assertions.assertEquals(3, queue.drainTo(drained));
+    Assertions.assertTrue(drained.containsAll(Arrays.asList("a", "b", "d")));
+    Assertions.assertTrue(queue.isEmpty());
+    Assertions.assertNull(queue.poll());
+  }
+
+  @Test
+  public void testPointsOfOneThreadKeepTheirOrder() throws Exception {
+    int producers = 8;
+    int perProducer = 10_000;
+    StripedRingBufferQueue<long[]> queue = new StripedRingBufferQueue<>(4, 100, 100);
+    Map<Long, Long> lastSeen = new HashMap<>();
+    AtomicBoolean done = new AtomicBoolean(false);
+    AtomicBoolean ordered = new AtomicBoolean(true);
+    int[] consumed = new int[1];
+
+    Thread consumer = new Thread(() -> {
+      List<long[]> batch = new ArrayList<>();
+      while (!done.get() || !queue.isEmpty()) {
+        queue.drainTo(batch);
+        for (long[] entry : batch) {
+          Long previous = lastSeen.put(entry[0], entry[1]);
+          if (previous != null && previous >= entry[1]) {
+            ordered.set(false);
+          }
+        }
+        consumed[0] += batch.size();
+        batch.clear();
+      }
+    });
+    consumer.start();
+
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    for (int p = 0; p < producers; p++) {
+      long producer = p;
+      executor.execute(() -> {
+        try {
+          for (int i = 0; i < perProducer; i++) {
+            queue.put(new long[] {producer, i});
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    executor.shutdown();
+    Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    done.set(true);
+    consumer.join();
+
+    Assertions.assertEquals(producers * perProducer, consumed[0]);
+    Assertions.assertTrue(ordered.get());
+  }
+}
@@ -1,6 +1,7 @@
 package org.influxdb.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
@@ -21,4 +22,27 @@ public class TimeUtilTest {
         assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T16:52:20Z")).isEqualTo(1477932740000L);
         assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T06:52:20Z")).isEqualTo(1477896740000L);
     }
+
+    @Test
+    public void testToInfluxDBTimeFormatBeforeEpochTest() throws Exception {
+        assertThat(TimeUtil.toInfluxDBTimeFormat(-1L)).isEqualTo("1969-12-31T23:59:59.999Z");
+        assertThat(TimeUtil.toInfluxDBTimeFormat(0L)).isEqualTo("1970-01-01T00:00:00.000Z");
+    }
+
+    @Test
+    public void testFromInfluxDBTimeFormatFractionsAndOffsetsTest() throws Exception {
+        assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T06:52:20.02Z")).isEqualTo(1477896740020L);
+        assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T06:52:20.020999999Z")).isEqualTo(1477896740020L);
+        assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T07:52:20.020+01:00")).isEqualTo(1477896740020L);
+        assertThat(TimeUtil.fromInfluxDBTimeFormat("1969-12-31T23:59:59.9995Z")).isEqualTo(-1L);
+        assertThat(TimeUtil.fromInfluxDBTimeFormat("1000-01-01T00:00:00Z")).isEqualTo(-30610224000000L);
+    }
+
+    @Test
+    public void testFromInfluxDBTimeFormatInvalidTest() throws Exception {
+        assertThatThrownBy(() -> TimeUtil.fromInfluxDBTimeFormat("2016-10-31 06:52:20Z"))
+            .isInstanceOf(RuntimeException.class).hasMessage("unexpected date format");
+        assertThatThrownBy(() -> TimeUtil.fromInfluxDBTimeFormat("2016-13-31T06:52:20Z"))
+            .isInstanceOf(RuntimeException.class).hasMessage("unexpected date format");
+    }
 }